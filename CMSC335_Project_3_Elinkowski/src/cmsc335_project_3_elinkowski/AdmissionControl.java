@@ -0,0 +1,333 @@
+package cmsc335_project_3_elinkowski;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/*******************************************************************************
+ * File name: AdmissionControl class
+ * Date: 20181114 1520L
+ * Author: Keith R. Elinkowski
+ * Purpose: Limits how much work a port takes on from arriving ships.  Each
+ * port has a most ships it will queue and a most job hours it will hold for
+ * its queued and docked ships, set once for every port and overridable per
+ * port.  A ship that would go over either limit is rejected, deferred, or
+ * diverted to another port with room, and a ship that cannot be diverted is
+ * deferred.  Deferred ships wait in a bounded list and are tried again each
+ * pass until they are admitted or have waited too long, and a ship that
+ * cannot be deferred is shed.  Together with the bounded arrival queue of
+ * the Scheduler this keeps memory bounded however fast ships arrive.
+*******************************************************************************/
+public class AdmissionControl {
+    private static final long REPORT_NANOS = 1000000000L;
+    private static final int SHED_REMEMBERED = 1024;
+    public enum Overflow {REJECT, DEFER, DIVERT}
+    private final int maxQueueDepth;
+    private final double maxJobHours;
+    private final Overflow overflow;
+    private final int maxDeferred;
+    private final long maxDeferNanos;
+    private final ConcurrentHashMap<Integer, double[]> portLimits;
+    private final ConcurrentLinkedQueue<Deferred> deferred;
+    private final ConcurrentHashMap<Integer, Ship> deferredByIndex;
+    private final AtomicInteger deferredCount;
+    private final LongAdder offered;
+    private final LongAdder admitted;
+    private final LongAdder deferrals;
+    private final LongAdder diverted;
+    private final LongAdder shed;
+    private final LinkedHashMap<Integer, Boolean> recentlyShed;
+    private final long[] lastReport;
+    private long lastReportAt;
+
+    /***************************************************************************
+     * AdmissionControl Constructor
+     * @param maxQueueDepth most ships queued at a port, 0 for no limit
+     * @param maxJobHours most job hours held at a port, 0 for no limit
+     * @param overflow what happens to a ship that would go over a limit
+     * @param maxDeferred most ships deferred at once
+     * @param maxDeferMillis longest a ship stays deferred before it is shed
+    ***************************************************************************/
+    public AdmissionControl(int maxQueueDepth, double maxJobHours, Overflow overflow, int maxDeferred, long maxDeferMillis) {
+        this.maxQueueDepth = Math.max(0, maxQueueDepth);
+        this.maxJobHours = Math.max(0.0, maxJobHours);
+        this.overflow = overflow;
+        this.maxDeferred = Math.max(0, maxDeferred);
+        this.maxDeferNanos = Math.max(0L, maxDeferMillis) * 1000000L;
+        portLimits = new ConcurrentHashMap<>();
+        deferred = new ConcurrentLinkedQueue<>();
+        deferredByIndex = new ConcurrentHashMap<>();
+        deferredCount = new AtomicInteger();
+        offered = new LongAdder();
+        admitted = new LongAdder();
+        deferrals = new LongAdder();
+        diverted = new LongAdder();
+        shed = new LongAdder();
+        recentlyShed = new LinkedHashMap<Integer, Boolean>() {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Integer, Boolean> eldest) {
+                return size() > SHED_REMEMBERED;
+            }
+        };
+        lastReport = new long[4];
+        lastReportAt = System.nanoTime();
+    }
+
+    /***************************************************************************
+     * Sets the limits of one port in place of the ones given for every port
+     * @param portIndex
+     * @param maxQueueDepth most ships queued at the port, 0 for no limit
+     * @param maxJobHours most job hours held at the port, 0 for no limit
+    ***************************************************************************/
+    public void setLimits(int portIndex, int maxQueueDepth, double maxJobHours) {
+        portLimits.put(portIndex, new double[] {Math.max(0, maxQueueDepth), Math.max(0.0, maxJobHours)});
+    }
+
+    /***************************************************************************
+     * Getter for overflow
+    ***************************************************************************/
+    public Overflow getOverflow() {
+        return overflow;
+    }
+
+    /***************************************************************************
+     * Simple helper method to check if a port has room for a ship.  Called
+     * while holding the port's lock.
+     * @param port
+     * @param ship
+     * @param queued true if the ship would have to join the queue
+     * @param jobHours job hours the port already holds
+    ***************************************************************************/
+    public boolean hasRoom(SeaPort port, Ship ship, boolean queued, double jobHours) {
+        double[] limits = portLimits.get(port.getIndex());
+        int depth = limits != null ? (int)limits[0] : maxQueueDepth;
+        double hours = limits != null ? limits[1] : maxJobHours;
+        if(queued && depth > 0 && port.getQueue().size() >= depth) {
+            return false;
+        }
+        return hours <= 0.0 || jobHours + jobHours(ship) <= hours;
+    }
+
+    /***************************************************************************
+     * Defers a ship if there is room in the deferred list
+     * @return false if the ship has to be shed instead
+    ***************************************************************************/
+    public boolean defer(Ship ship) {
+        if(!add(new Deferred(ship, System.nanoTime()))) {
+            return false;
+        }
+        deferrals.increment();
+        return true;
+    }
+
+    /***************************************************************************
+     * Puts a ship taken out by nextDeferred() back at the end of the list,
+     * still counting from when it was first deferred
+     * @return false if the ship has to be shed instead
+    ***************************************************************************/
+    boolean defer(Deferred waiting) {
+        return add(waiting);
+    }
+
+    /***************************************************************************
+     * Adds to the deferred list if there is room
+    ***************************************************************************/
+    private boolean add(Deferred waiting) {
+        if(deferredCount.incrementAndGet() > maxDeferred) {
+            deferredCount.decrementAndGet();
+            return false;
+        }
+        deferredByIndex.put(waiting.ship.getIndex(), waiting.ship);
+        deferred.add(waiting);
+        return true;
+    }
+
+    /***************************************************************************
+     * Takes the ship deferred longest out of the deferred list.  Ships that
+     * have waited too long are shed along the way.
+     * @return the deferred ship, null if none is deferred
+    ***************************************************************************/
+    Deferred nextDeferred() {
+        long now = System.nanoTime();
+        Deferred next;
+        while((next = deferred.poll()) != null) {
+            deferredCount.decrementAndGet();
+            deferredByIndex.remove(next.ship.getIndex());
+            if(now - next.since <= maxDeferNanos) {
+                return next;
+            }
+            recordShed(next.ship);
+        }
+        return null;
+    }
+
+    /***************************************************************************
+     * Getter for the number of ships deferred right now
+    ***************************************************************************/
+    public int getDeferredCount() {
+        return deferredCount.get();
+    }
+
+    /***************************************************************************
+     * Getter for a deferred ship by index, null if it is not deferred
+    ***************************************************************************/
+    public Ship getDeferred(int index) {
+        return deferredByIndex.get(index);
+    }
+
+    /***************************************************************************
+     * Getter for the ships deferred right now, in no particular order
+    ***************************************************************************/
+    public List<Ship> getDeferredShips() {
+        return new ArrayList<>(deferredByIndex.values());
+    }
+
+    /***************************************************************************
+     * Counts a ship asking to be admitted
+    ***************************************************************************/
+    public void recordOffered() {
+        offered.increment();
+    }
+
+    /***************************************************************************
+     * Counts a ship admitted at a port
+     * @param diversion true if the port is not the one the ship asked for
+    ***************************************************************************/
+    public void recordAdmitted(boolean diversion) {
+        admitted.increment();
+        if(diversion) {
+            diverted.increment();
+        }
+    }
+
+    /***************************************************************************
+     * Counts a ship shed.  The last SHED_REMEMBERED ships shed are remembered
+     * so the Jobs that follow them in can be shed too.
+    ***************************************************************************/
+    public void recordShed(Ship ship) {
+        shed.increment();
+        synchronized(recentlyShed) {
+            recentlyShed.put(ship.getIndex(), Boolean.TRUE);
+        }
+    }
+
+    /***************************************************************************
+     * Simple helper method to check if a ship was shed recently
+     * @param index
+    ***************************************************************************/
+    public boolean wasShed(int index) {
+        synchronized(recentlyShed) {
+            return recentlyShed.containsKey(index);
+        }
+    }
+
+    /***************************************************************************
+     * Getter for the number of ships that asked to be admitted
+    ***************************************************************************/
+    public long getOffered() {
+        return offered.sum();
+    }
+
+    /***************************************************************************
+     * Getter for the number of ships admitted
+    ***************************************************************************/
+    public long getAdmitted() {
+        return admitted.sum();
+    }
+
+    /***************************************************************************
+     * Getter for the number of times a ship was deferred
+    ***************************************************************************/
+    public long getDeferrals() {
+        return deferrals.sum();
+    }
+
+    /***************************************************************************
+     * Getter for the number of ships admitted at a port other than their own
+    ***************************************************************************/
+    public long getDiverted() {
+        return diverted.sum();
+    }
+
+    /***************************************************************************
+     * Getter for the number of ships shed
+    ***************************************************************************/
+    public long getShed() {
+        return shed.sum();
+    }
+
+    /***************************************************************************
+     * Getter for the share of ships asking to be admitted that were shed
+    ***************************************************************************/
+    public double getShedRate() {
+        long asked = offered.sum();
+        return asked == 0 ? 0.0 : (double)shed.sum() / asked;
+    }
+
+    /***************************************************************************
+     * Getter for the share of ships asking to be admitted that were deferred
+    ***************************************************************************/
+    public double getDeferRate() {
+        long asked = offered.sum();
+        return asked == 0 ? 0.0 : Math.min(1.0, (double)deferrals.sum() / asked);
+    }
+
+    /***************************************************************************
+     * A line summing up the ships admitted, deferred, diverted and shed since
+     * the last report, at most once a second and only when something was
+     * held back
+     * @return the line, null if there is nothing to report yet
+    ***************************************************************************/
+    public synchronized String report() {
+        long now = System.nanoTime();
+        if(now - lastReportAt < REPORT_NANOS) {
+            return null;
+        }
+        long[] totals = {admitted.sum(), deferrals.sum(), diverted.sum(), shed.sum()};
+        long[] delta = new long[totals.length];
+        for(int i = 0; i < totals.length; i++) {
+            delta[i] = totals[i] - lastReport[i];
+            lastReport[i] = totals[i];
+        }
+        double seconds = (now - lastReportAt) / 1e9;
+        lastReportAt = now;
+        if(delta[1] == 0 && delta[2] == 0 && delta[3] == 0) {
+            return null;
+        }
+        return String.format(">>> ADMISSION: %.1f admitted, %.1f deferred, %.1f diverted, %.1f shed per second, %d waiting\n",
+                delta[0] / seconds, delta[1] / seconds, delta[2] / seconds, delta[3] / seconds, deferredCount.get());
+    }
+
+    /***************************************************************************
+     * Total hours of a ship's Jobs
+    ***************************************************************************/
+    static double jobHours(Ship ship) {
+        double hours = 0.0;
+        for(Job job : ship.getJobs()) {
+            hours += job.getDuration();
+        }
+        return hours;
+    }
+
+    /***************************************************************************
+     * A deferred ship and when it was deferred
+    ***************************************************************************/
+    static final class Deferred {
+        private final Ship ship;
+        private final long since;
+
+        Deferred(Ship ship, long since) {
+            this.ship = ship;
+            this.since = since;
+        }
+
+        Ship getShip() {
+            return ship;
+        }
+    }
+}
@@ -0,0 +1,113 @@
+package cmsc335_project_3_elinkowski;
+
+import java.util.IdentityHashMap;
+import java.util.Set;
+import java.util.concurrent.locks.Lock;
+
+/*******************************************************************************
+ * File name: AdmissionPass class
+ * Date: 20181120 1400L
+ * Author: Keith R. Elinkowski
+ * Purpose: Admits arriving ships at ports under an AdmissionControl for one
+ * pass of the ArrivalIntake.  A ship is placed at its own port if that port
+ * has room for it, or with the DIVERT policy at the first other port with
+ * room.  The job hours each port holds are worked out the first time the
+ * port is asked about in the pass and kept up to date as ships are admitted,
+ * so a port is never rescanned within one pass.
+*******************************************************************************/
+public class AdmissionPass {
+    private final Scheduler scheduler;
+    private final ArrivalIntake intake;
+    private final AdmissionControl control;
+    private final IdentityHashMap<SeaPort, Double> held;
+
+    /***************************************************************************
+     * AdmissionPass Constructor
+     * @param scheduler
+     * @param intake places the ships admitted
+     * @param control
+    ***************************************************************************/
+    AdmissionPass(Scheduler scheduler, ArrivalIntake intake, AdmissionControl control) {
+        this.scheduler = scheduler;
+        this.intake = intake;
+        this.control = control;
+        held = new IdentityHashMap<>();
+    }
+
+    /***************************************************************************
+     * Admits a ship at its own port if there is room, or with the DIVERT
+     * policy at the first other port with room
+     * @param ship
+     * @param changed collects the port the ship is placed at
+     * @return false if no port would take the ship
+    ***************************************************************************/
+    boolean admit(Ship ship, Set<SeaPort> changed) {
+        SeaPort home = intake.portOf(ship);
+        if(home != null && admitAt(home, ship)) {
+            control.recordAdmitted(false);
+            changed.add(home);
+            return true;
+        }
+        if(control.getOverflow() == AdmissionControl.Overflow.DIVERT) {
+            for(SeaPort port : scheduler.getWorld().getPorts()) {
+                if(port != home && admitAt(port, ship)) {
+                    control.recordAdmitted(true);
+                    changed.add(port);
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    /***************************************************************************
+     * Places a ship at a port if the port has room for it
+    ***************************************************************************/
+    private boolean admitAt(SeaPort port, Ship ship) {
+        Lock lock = scheduler.lockFor(port);
+        scheduler.acquire(lock);
+        try {
+            Double hours = held.get(port);
+            if(hours == null) {
+                hours = heldJobHours(port);
+            }
+            if(!control.hasRoom(port, ship, !port.getDockIndex().fitsFreeClass(ship), hours)) {
+                held.put(port, hours);
+                return false;
+            }
+            held.put(port, hours + AdmissionControl.jobHours(ship));
+            intake.placeShip(port, ship);
+        } finally {
+            lock.unlock();
+        }
+        return true;
+    }
+
+    /***************************************************************************
+     * Hours of the unfinished Jobs of a port's queued and docked ships.
+     * Called while holding the port's lock.
+    ***************************************************************************/
+    private static double heldJobHours(SeaPort port) {
+        double hours = 0.0;
+        for(Ship ship : port.getQueue()) {
+            hours += unfinishedHours(ship);
+        }
+        for(Dock dock : port.getOccupiedDocks()) {
+            hours += unfinishedHours(dock.getShip());
+        }
+        return hours;
+    }
+
+    /***************************************************************************
+     * Simple helper method for the hours of a ship's unfinished Jobs
+    ***************************************************************************/
+    private static double unfinishedHours(Ship ship) {
+        double hours = 0.0;
+        for(Job job : ship.getJobs()) {
+            if(!job.finished()) {
+                hours += job.getDuration();
+            }
+        }
+        return hours;
+    }
+}
@@ -0,0 +1,244 @@
+package cmsc335_project_3_elinkowski;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.Scanner;
+import java.util.concurrent.atomic.LongAdder;
+
+/*******************************************************************************
+ * File name: ArrivalFeed class
+ * Date: 20181114 0930L
+ * Author: Keith R. Elinkowski
+ * Purpose: Reads ships, Jobs, people and docks that arrive while a simulation
+ * runs and hands them to the Scheduler.  Lines use the same format as a
+ * simulation file.  The source is either a file that is tailed as lines are
+ * appended to it, a named pipe that is opened again each time its writer
+ * closes it, or a port number on which a local socket accepts one writer at a
+ * time.  Reading runs on its own daemon thread until close() is called.  When
+ * the Scheduler's arrival queue is full the reader waits, which in turn holds
+ * back whoever is writing to the feed.
+*******************************************************************************/
+public class ArrivalFeed implements Runnable, Closeable {
+    private static final long POLL_MILLIS = 200;
+    private final String source;
+    private final Scheduler scheduler;
+    private final LogConsole console;
+    private final Thread reader;
+    private final LongAdder lines;
+    private final LongAdder rejected;
+    private volatile boolean running;
+    private volatile Closeable current;
+
+    /***************************************************************************
+     * ArrivalFeed Constructor
+     * @param source a file, a named pipe, or a local port number
+     * @param scheduler
+     * @param console console to report each arrival, may be null
+    ***************************************************************************/
+    public ArrivalFeed(String source, Scheduler scheduler, LogConsole console) {
+        this.source = source.trim();
+        this.scheduler = scheduler;
+        this.console = console;
+        lines = new LongAdder();
+        rejected = new LongAdder();
+        reader = new Thread(this, "arrival-feed");
+        reader.setDaemon(true);
+    }
+
+    /***************************************************************************
+     * Starts reading the feed
+    ***************************************************************************/
+    public void start() {
+        running = true;
+        reader.start();
+    }
+
+    /***************************************************************************
+     * Stops reading the feed and closes whatever it has open
+    ***************************************************************************/
+    @Override
+    public void close() {
+        running = false;
+        reader.interrupt();
+        closeQuietly(current);
+    }
+
+    /***************************************************************************
+     * required method for implementing Runnable interface.  Reads the source
+     * until the feed is closed.
+    ***************************************************************************/
+    @Override
+    public void run() {
+        try {
+            if(source.matches("\\d+")) {
+                readSocket(Integer.parseInt(source));
+            }
+            else {
+                readFile(new File(source));
+            }
+        } catch (IOException e) {
+            if(running) {
+                log(">>> Arrival feed [" + source + "] stopped: " + e + "\n");
+                System.out.println(e);
+            }
+        } catch (InterruptedException e) {
+            // closed while waiting for room in the arrival queue
+        }
+    }
+
+    /***************************************************************************
+     * Accepts writers on a local port, one after another.  A writer whose
+     * connection fails is logged and the next one is accepted.
+    ***************************************************************************/
+    private void readSocket(int port) throws IOException, InterruptedException {
+        try (ServerSocket server = new ServerSocket(port, 1, InetAddress.getLoopbackAddress())) {
+            current = server;
+            log(">>> Arrival feed listening on " + server.getLocalSocketAddress() + "\n");
+            while(running) {
+                try (Socket socket = server.accept()) {
+                    current = socket;
+                    readLines(socket.getInputStream(), false);
+                } catch (IOException e) {
+                    if(!running || server.isClosed()) {
+                        throw e;
+                    }
+                    log(">>> Arrival feed [" + source + "] lost a writer: " + e + "\n");
+                    System.out.println(e);
+                } finally {
+                    current = server;
+                }
+            }
+        }
+    }
+
+    /***************************************************************************
+     * Tails a file, or reads a named pipe again each time its writer closes it
+    ***************************************************************************/
+    private void readFile(File file) throws IOException, InterruptedException {
+        boolean tail = file.isFile();
+        log(">>> Arrival feed " + (tail ? "tailing" : "reading") + " [" + file + "]\n");
+        while(running) {
+            try (FileInputStream in = new FileInputStream(file)) {
+                current = in;
+                readLines(in, tail);
+            }
+        }
+    }
+
+    /***************************************************************************
+     * Reads whole lines from a stream.  A line is only used once its newline
+     * has been read, so a line that is still being written is never cut in
+     * two.  With tail set, the end of the stream is waited out rather than
+     * ending the read.
+    ***************************************************************************/
+    private void readLines(InputStream in, boolean tail) throws IOException, InterruptedException {
+        Reader chars = new InputStreamReader(in, StandardCharsets.UTF_8);
+        StringBuilder line = new StringBuilder();
+        char[] buffer = new char[4096];
+        while(running) {
+            int n = chars.read(buffer);
+            if(n < 0) {
+                if(!tail) {
+                    break;
+                }
+                Thread.sleep(POLL_MILLIS);
+                continue;
+            }
+            for(int i = 0; i < n; i++) {
+                if(buffer[i] == '\n') {
+                    accept(line.toString());
+                    line.setLength(0);
+                }
+                else {
+                    line.append(buffer[i]);
+                }
+            }
+        }
+        if(line.length() > 0) {
+            accept(line.toString());
+        }
+    }
+
+    /***************************************************************************
+     * Parses one line and hands the Thing to the Scheduler
+    ***************************************************************************/
+    private void accept(String text) throws InterruptedException {
+        String trimmed = text.trim();
+        if(trimmed.isEmpty() || trimmed.startsWith("//")) {
+            return;
+        }
+        lines.increment();
+        Scanner thingScanner = new Scanner(trimmed);
+        String type = thingScanner.next();
+        Thing thing;
+        switch(type) {
+            case "pship":
+                thing = new PassengerShip(thingScanner);
+                break;
+            case "cship":
+                thing = new CargoShip(thingScanner);
+                break;
+            case "person":
+                thing = new Person(thingScanner);
+                break;
+            case "job":
+                thing = new Job(thingScanner);
+                break;
+            case "dock":
+                thing = new Dock(thingScanner);
+                break;
+            default:
+                rejected.increment();
+                log(">>> Arrival feed skipped [" + trimmed + "], only ships, jobs, people and docks can arrive\n");
+                return;
+        }
+        scheduler.arrive(thing);
+        log(">>> Arrived " + thing.getClass().getSimpleName() + " - [" + thing.getName() + "]\n");
+    }
+
+    /***************************************************************************
+     * Getter for the number of lines read
+    ***************************************************************************/
+    public long getLines() {
+        return lines.sum();
+    }
+
+    /***************************************************************************
+     * Getter for the number of lines skipped
+    ***************************************************************************/
+    public long getRejected() {
+        return rejected.sum();
+    }
+
+    /***************************************************************************
+     * Simple helper method to write to the console when there is one
+    ***************************************************************************/
+    private void log(String text) {
+        if(console != null) {
+            console.append(text);
+        }
+    }
+
+    /***************************************************************************
+     * Simple helper method to close something without reporting a failure
+    ***************************************************************************/
+    private static void closeQuietly(Closeable closeable) {
+        if(closeable == null) {
+            return;
+        }
+        try {
+            closeable.close();
+        } catch (IOException e) {
+            System.out.println(e);
+        }
+    }
+}
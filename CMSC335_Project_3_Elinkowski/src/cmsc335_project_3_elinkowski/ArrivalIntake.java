@@ -0,0 +1,337 @@
+package cmsc335_project_3_elinkowski;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.Lock;
+
+/*******************************************************************************
+ * File name: ArrivalIntake class
+ * Date: 20181120 1300L
+ * Author: Keith R. Elinkowski
+ * Purpose: Takes the ships, Jobs, people and docks that arrive while the
+ * simulation runs and adds them to the World for the Scheduler.  Arrivals are
+ * handed over from any thread and wait in a queue of at most
+ * MAX_PENDING_ARRIVALS, so a producer that gets ahead of the passes is made
+ * to wait.  Each pass adds up to MAX_ARRIVALS_PER_PASS of them, each under
+ * its port's lock.  A ship that arrives with no Jobs is kept at its dock for
+ * ARRIVAL_GRACE_NANOS so Jobs that follow it in find it still there.
+*******************************************************************************/
+public class ArrivalIntake {
+    private static final int MAX_ARRIVALS_PER_PASS = 1000;
+    private static final int MAX_PENDING_ARRIVALS = 10000;
+    private static final long ARRIVAL_GRACE_NANOS = 1000000000L;
+    private final Scheduler scheduler;
+    private final Map<Integer, Thing> structureMap;
+    private final List<SchedulerListener> listeners;
+    private final LinkedBlockingQueue<Arrival> arrivals;
+    private final ConcurrentHashMap<Ship, Long> arrivedAt;
+    private final LongAdder blockedNanos;
+    private final LongAdder shedJobs;
+    private final LongAdder absorbed;
+    private final LongAdder dropped;
+    private final LongAdder latencyNanos;
+
+    /***************************************************************************
+     * ArrivalIntake Constructor
+     * @param scheduler
+     * @param structureMap every Thing in the World by index
+     * @param listeners told of each ship that arrives
+    ***************************************************************************/
+    ArrivalIntake(Scheduler scheduler, Map<Integer, Thing> structureMap, List<SchedulerListener> listeners) {
+        this.scheduler = scheduler;
+        this.structureMap = structureMap;
+        this.listeners = listeners;
+        arrivals = new LinkedBlockingQueue<>(MAX_PENDING_ARRIVALS);
+        arrivedAt = new ConcurrentHashMap<>();
+        blockedNanos = new LongAdder();
+        shedJobs = new LongAdder();
+        absorbed = new LongAdder();
+        dropped = new LongAdder();
+        latencyNanos = new LongAdder();
+    }
+
+    /***************************************************************************
+     * Queues a Thing that arrived for the next pass.  Safe to call from any
+     * thread.  Blocks while MAX_PENDING_ARRIVALS are already waiting.  Once
+     * the Scheduler is draining, arrivals are dropped.
+     * @param thing a Ship, Job, Person or Dock
+    ***************************************************************************/
+    void arrive(Thing thing) throws InterruptedException {
+        if(scheduler.isDraining()) {
+            dropped.increment();
+            return;
+        }
+        Arrival arrival = new Arrival(thing, System.nanoTime());
+        if(!arrivals.offer(arrival)) {
+            long blocked = System.nanoTime();
+            arrivals.put(arrival);
+            blockedNanos.add(System.nanoTime() - blocked);
+        }
+    }
+
+    /***************************************************************************
+     * Adds up to MAX_ARRIVALS_PER_PASS waiting arrivals to the World, each
+     * under its port's lock.  A ship whose dock is free berths there, any
+     * other ship joins its port's queue.  A Job added to a docked ship is
+     * planned along with the ship's other Jobs.  Arrivals with no place in
+     * the World are dropped and reported.  With an AdmissionControl the
+     * deferred ships are tried again first, and each arriving ship has to
+     * be admitted by the pass's AdmissionPass.
+     * @param changed collects the ports that changed
+    ***************************************************************************/
+    void absorb(Set<SeaPort> changed) {
+        AdmissionControl control = scheduler.getAdmissionControl();
+        AdmissionPass admission = control != null ? new AdmissionPass(scheduler, this, control) : null;
+        if(control != null) {
+            for(int n = control.getDeferredCount(); n > 0; n--) {
+                AdmissionControl.Deferred waiting = control.nextDeferred();
+                if(waiting == null) {
+                    break;
+                }
+                if(admission.admit(waiting.getShip(), changed)) {
+                    register(waiting.getShip());
+                    absorbed.increment();
+                }
+                else if(!control.defer(waiting)) {
+                    control.recordShed(waiting.getShip());
+                }
+            }
+        }
+        for(int n = 0; n < MAX_ARRIVALS_PER_PASS; n++) {
+            Arrival arrival = arrivals.poll();
+            if(arrival == null) {
+                break;
+            }
+            Thing thing = arrival.thing;
+            if(control != null && thing instanceof Ship && portOf(thing) != null) {
+                Ship ship = (Ship)thing;
+                control.recordOffered();
+                if(admission.admit(ship, changed)) {
+                    register(ship);
+                    absorbed.increment();
+                    latencyNanos.add(System.nanoTime() - arrival.offeredAt);
+                }
+                else if(control.getOverflow() == AdmissionControl.Overflow.REJECT || !control.defer(ship)) {
+                    control.recordShed(ship);
+                }
+                continue;
+            }
+            if(control != null && thing instanceof Job) {
+                Ship waiting = control.getDeferred(thing.getParent());
+                if(waiting != null) {
+                    waiting.getJobs().add((Job)thing);
+                    continue;
+                }
+                if(control.wasShed(thing.getParent())) {
+                    shedJobs.increment();
+                    continue;
+                }
+            }
+            SeaPort port = portOf(thing);
+            boolean placed = false;
+            if(port != null) {
+                Lock lock = scheduler.lockFor(port);
+                scheduler.acquire(lock);
+                try {
+                    placed = place(port, thing);
+                } finally {
+                    lock.unlock();
+                }
+            }
+            if(!placed) {
+                dropped.increment();
+                scheduler.log(String.format(">>> ARRIVAL DROPPED: %s %s has no place in the World\n", thing.getClass().getSimpleName(), thing.getName()));
+                continue;
+            }
+            structureMap.put(thing.getIndex(), thing);
+            changed.add(port);
+            absorbed.increment();
+            latencyNanos.add(System.nanoTime() - arrival.offeredAt);
+        }
+        if(control != null) {
+            String summary = control.report();
+            if(summary != null) {
+                scheduler.log(summary);
+            }
+        }
+    }
+
+    /***************************************************************************
+     * The port an arriving Thing belongs to, found through its parent
+    ***************************************************************************/
+    SeaPort portOf(Thing thing) {
+        Thing parent = structureMap.get(thing.getParent());
+        if(parent instanceof Ship) {
+            parent = structureMap.get(parent.getParent());
+        }
+        if(parent instanceof Dock) {
+            parent = structureMap.get(parent.getParent());
+        }
+        return parent instanceof SeaPort ? (SeaPort)parent : null;
+    }
+
+    /***************************************************************************
+     * Adds an admitted ship and its Jobs to the structure map
+    ***************************************************************************/
+    private void register(Ship ship) {
+        structureMap.put(ship.getIndex(), ship);
+        for(Job job : ship.getJobs()) {
+            structureMap.put(job.getIndex(), job);
+        }
+    }
+
+    /***************************************************************************
+     * Puts an arriving Thing in its place at a port.  Called while holding
+     * the port's lock.
+     * @return false if the Thing could not be placed
+    ***************************************************************************/
+    private boolean place(SeaPort port, Thing thing) {
+        World world = scheduler.getWorld();
+        Thing parent = structureMap.get(thing.getParent());
+        if(thing instanceof Dock) {
+            world.assignDock((Dock)thing, port);
+        }
+        else if(thing instanceof Person) {
+            world.assignPerson((Person)thing, port);
+            WorkerBroker lender = scheduler.getWorkerBroker();
+            if(lender != null) {
+                lender.staffChanged();
+            }
+        }
+        else if(thing instanceof Ship) {
+            placeShip(port, (Ship)thing);
+        }
+        else if(thing instanceof Job && (parent instanceof Ship || parent instanceof Dock)) {
+            Ship ship = parent instanceof Dock ? ((Dock)parent).getShip() : (Ship)parent;
+            boolean docked = ship != null && scheduler.dockedAt(ship) != 0L;
+            if(!docked && (ship == null || !port.getQueue().contains(ship))) {
+                return false;
+            }
+            world.assignJob((Job)thing, parent);
+            if(docked) {
+                scheduler.replan(ship);
+            }
+        }
+        else {
+            return false;
+        }
+        return true;
+    }
+
+    /***************************************************************************
+     * Puts an arriving ship at a port.  It berths at the dock in its record if
+     * that dock is at this port, free and big enough, and otherwise joins the
+     * queue.  Called while holding the port's lock.
+    ***************************************************************************/
+    void placeShip(SeaPort port, Ship ship) {
+        Thing parent = structureMap.get(ship.getParent());
+        ship.setArivalTime(PortTime.now());
+        arrivedAt.put(ship, System.nanoTime());
+        port.getShips().add(ship);
+        if(parent instanceof Dock && parent.getParent() == port.getIndex()
+                && ((Dock)parent).getShip() == null && ((Dock)parent).accepts(ship)) {
+            for(SchedulerListener listener : listeners) {
+                listener.shipArrived(port, ship, false);
+            }
+            scheduler.berth(port, (Dock)parent, ship);
+        }
+        else {
+            port.getQueue().add(ship);
+            ship.setParent(port.getIndex());
+            for(SchedulerListener listener : listeners) {
+                listener.shipArrived(port, ship, true);
+            }
+        }
+    }
+
+    /***************************************************************************
+     * Simple helper method to check if a ship with no Jobs arrived too
+     * recently for its Jobs to have followed it in
+    ***************************************************************************/
+    boolean awaitingJobs(Ship ship) {
+        Long arrived = arrivedAt.get(ship);
+        return ship.getJobs().isEmpty() && arrived != null && System.nanoTime() - arrived < ARRIVAL_GRACE_NANOS;
+    }
+
+    /***************************************************************************
+     * Forgets when a departing ship arrived
+     * @param ship
+    ***************************************************************************/
+    void departed(Ship ship) {
+        arrivedAt.remove(ship);
+    }
+
+    /***************************************************************************
+     * The Things waiting for the next pass
+    ***************************************************************************/
+    List<Thing> getPendingThings() {
+        ArrayList<Thing> pending = new ArrayList<>(arrivals.size());
+        for(Arrival arrival : arrivals) {
+            pending.add(arrival.thing);
+        }
+        return pending;
+    }
+
+    /***************************************************************************
+     * Getter for the number of arrivals added to the World
+    ***************************************************************************/
+    public long getAbsorbed() {
+        return absorbed.sum();
+    }
+
+    /***************************************************************************
+     * Getter for the number of arrivals that had no place in the World
+    ***************************************************************************/
+    public long getDropped() {
+        return dropped.sum();
+    }
+
+    /***************************************************************************
+     * Getter for the number of arrivals waiting for the next pass
+    ***************************************************************************/
+    public int getPending() {
+        return arrivals.size();
+    }
+
+    /***************************************************************************
+     * Getter for the total milliseconds callers of arrive() spent waiting for
+     * room in the queue
+    ***************************************************************************/
+    public double getBlockedMillis() {
+        return blockedNanos.sum() / 1e6;
+    }
+
+    /***************************************************************************
+     * Getter for the number of arriving Jobs shed along with their ship
+    ***************************************************************************/
+    public long getShedJobs() {
+        return shedJobs.sum();
+    }
+
+    /***************************************************************************
+     * Getter for the average milliseconds from arrive() until the arrival
+     * was in the World
+    ***************************************************************************/
+    public double getLatency() {
+        long count = absorbed.sum();
+        return count == 0 ? 0.0 : latencyNanos.sum() / 1e6 / count;
+    }
+
+    /***************************************************************************
+     * A Thing handed to arrive() and when it was handed over
+    ***************************************************************************/
+    private static final class Arrival {
+        final Thing thing;
+        final long offeredAt;
+
+        Arrival(Thing thing, long offeredAt) {
+            this.thing = thing;
+            this.offeredAt = offeredAt;
+        }
+    }
+}
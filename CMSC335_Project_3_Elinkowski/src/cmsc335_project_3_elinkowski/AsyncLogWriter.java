@@ -0,0 +1,173 @@
+package cmsc335_project_3_elinkowski;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/*******************************************************************************
+ * File name: AsyncLogWriter class
+ * Date: 20181104 0915L
+ * Author: Keith R. Elinkowski
+ * Purpose: Implements Runnable.  Writes the full console stream to a log file 
+ * on its own thread.  Callers only drop text into a bounded queue and never 
+ * wait on the disk; the writer thread takes everything queued in one batch, 
+ * writes it and rolls the file over to file.1, file.2 ... once it grows past 
+ * its size limit.  If the queue is ever full the text is counted as dropped 
+ * instead of holding up the caller.
+*******************************************************************************/
+public class AsyncLogWriter implements Runnable {
+    private static final int QUEUE_SIZE = 65536;
+    private static final int BATCH_SIZE = 4096;
+    private final File file;
+    private final long maxBytes;
+    private final int maxFiles;
+    private final ArrayBlockingQueue<String> queue;
+    private final AtomicLong dropped;
+    private final Thread writerThread;
+    private volatile boolean running;
+    private Writer writer;
+    private long bytesWritten;
+    
+    /***************************************************************************
+     * AsyncLogWriter Constructor
+     * @param file log file to write
+     * @param maxBytes size at which the file is rolled over
+     * @param maxFiles number of rolled over files to keep
+    ***************************************************************************/
+    public AsyncLogWriter(File file, long maxBytes, int maxFiles) {
+        this.file = file;
+        this.maxBytes = maxBytes;
+        this.maxFiles = maxFiles;
+        queue = new ArrayBlockingQueue<>(QUEUE_SIZE);
+        dropped = new AtomicLong();
+        running = true;
+        writerThread = new Thread(this, "log-writer-" + file.getName());
+        writerThread.setDaemon(true);
+        writerThread.start();
+    }
+    
+    /***************************************************************************
+     * Queues text to be written.  Never blocks.
+     * @param text
+    ***************************************************************************/
+    public void write(String text) {
+        if(!running || !queue.offer(text)) {
+            dropped.incrementAndGet();
+        }
+    }
+    
+    /***************************************************************************
+     * Getter for the number of writes lost because the queue was full
+    ***************************************************************************/
+    public long getDropped() {
+        return dropped.get();
+    }
+    
+    /***************************************************************************
+     * Stops taking new text, writes what is already queued and closes the file.
+     * Waits at most timeoutMillis for the writer thread to finish.
+     * @param timeoutMillis
+    ***************************************************************************/
+    public void close(long timeoutMillis) {
+        running = false;
+        try {
+            writerThread.join(timeoutMillis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+    
+    /***************************************************************************
+     * required method for implementing Runnable interface.  Writes queued text
+     * in batches until the writer is closed and the queue is empty.
+    ***************************************************************************/
+    @Override
+    public void run() {
+        ArrayList<String> batch = new ArrayList<>(BATCH_SIZE);
+        try {
+            while(running || !queue.isEmpty()) {
+                String first = queue.poll(250, TimeUnit.MILLISECONDS);
+                if(first == null) {
+                    continue;
+                }
+                batch.add(first);
+                queue.drainTo(batch, BATCH_SIZE - 1);
+                for(String text : batch) {
+                    openWriter().write(text);
+                    bytesWritten += text.length();
+                }
+                batch.clear();
+                if(queue.isEmpty()) {
+                    writer.flush();
+                }
+                if(bytesWritten >= maxBytes) {
+                    rotate();
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (IOException e) {
+            System.out.println(e);
+            running = false;
+        } finally {
+            closeWriter();
+        }
+    }
+    
+    /***************************************************************************
+     * Opens the log file the first time it is needed
+    ***************************************************************************/
+    private Writer openWriter() throws IOException {
+        if(writer == null) {
+            File parent = file.getAbsoluteFile().getParentFile();
+            if(parent != null && !parent.exists() && !parent.mkdirs()) {
+                throw new IOException("Unable to create log directory " + parent);
+            }
+            bytesWritten = file.length();
+            writer = new BufferedWriter(new OutputStreamWriter(
+                    new FileOutputStream(file, true), StandardCharsets.UTF_8));
+        }
+        return writer;
+    }
+    
+    /***************************************************************************
+     * Closes the current file and shifts file -> file.1 -> file.2 and so on,
+     * deleting the oldest one.
+    ***************************************************************************/
+    private void rotate() {
+        closeWriter();
+        for(int i = maxFiles; i >= 1; i--) {
+            File older = new File(file.getPath() + "." + i);
+            File newer = i == 1 ? file : new File(file.getPath() + "." + (i - 1));
+            if(i == maxFiles && older.exists() && !older.delete()) {
+                System.out.println("Unable to delete " + older);
+            }
+            if(newer.exists() && !newer.renameTo(older)) {
+                System.out.println("Unable to rename " + newer);
+            }
+        }
+        bytesWritten = 0;
+    }
+    
+    /***************************************************************************
+     * Flushes and closes the current file if one is open
+    ***************************************************************************/
+    private void closeWriter() {
+        if(writer != null) {
+            try {
+                writer.close();
+            } catch (IOException e) {
+                System.out.println(e);
+            }
+            writer = null;
+        }
+    }
+}
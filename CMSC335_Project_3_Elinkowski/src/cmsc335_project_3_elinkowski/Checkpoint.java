@@ -0,0 +1,378 @@
+package cmsc335_project_3_elinkowski;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.concurrent.locks.Lock;
+
+/*******************************************************************************
+ * File name: Checkpoint class
+ * Date: 20181118 1350L
+ * Author: Keith R. Elinkowski
+ * Purpose: A consistent picture of a running simulation that a later run can
+ * carry on from.  Every port is locked in SeaPort.LOCK_ORDER just long enough
+ * to copy which ship is at each dock, the queues in order, each ship's Jobs,
+ * each Job's work done and state, and the people working each Job; nothing
+ * is formatted or written while the locks are held.  Ships, people and Jobs
+ * still waiting to be admitted are kept too.  The Checkpoint is written as an
+ * ordinary simulation file, with departed ships left out and each Job record
+ * carrying its progress in worked:, needed:, state: and crew: tokens, so 
+ * reading it with the Read button resumes the simulation.  The file is 
+ * written beside its final name and moved into place, so a crash while 
+ * writing never leaves half a Checkpoint behind.
+*******************************************************************************/
+public class Checkpoint {
+    private final PortTime takenAt;
+    private final long heldNanos;
+    private final List<PortState> ports;
+    private final IdentityHashMap<Job, JobState> jobs;
+    private final IdentityHashMap<Ship, List<Job>> shipJobs;
+    private final List<Thing> pending;
+    private int ships;
+
+    /***************************************************************************
+     * Checkpoint Constructor, only called by take()
+    ***************************************************************************/
+    private Checkpoint(PortTime takenAt, long heldNanos, List<PortState> ports, IdentityHashMap<Job, JobState> jobs, 
+            IdentityHashMap<Ship, List<Job>> shipJobs, List<Thing> pending) {
+        this.takenAt = takenAt;
+        this.heldNanos = heldNanos;
+        this.ports = ports;
+        this.jobs = jobs;
+        this.shipJobs = shipJobs;
+        this.pending = pending;
+    }
+
+    /***************************************************************************
+     * Takes a Checkpoint of a running simulation.  Must not be called while
+     * holding a port lock.
+     * @param scheduler
+    ***************************************************************************/
+    public static Checkpoint take(Scheduler scheduler) {
+        World world = scheduler.getWorld();
+        ArrayList<SeaPort> order = new ArrayList<>(world.getPorts());
+        order.sort(SeaPort.LOCK_ORDER);
+        ArrayList<Lock> locks = new ArrayList<>(order.size());
+        ArrayList<PortState> ports = new ArrayList<>(order.size());
+        IdentityHashMap<Job, JobState> jobs = new IdentityHashMap<>();
+        IdentityHashMap<Ship, List<Job>> shipJobs = new IdentityHashMap<>();
+        PortTime takenAt;
+        long start = System.nanoTime();
+        try {
+            for(SeaPort port : order) {
+                Lock lock = scheduler.lockFor(port);
+                scheduler.acquire(lock);
+                locks.add(lock);
+            }
+            takenAt = PortTime.now();
+            for(SeaPort port : world.getPorts()) {
+                PortState state = new PortState(port);
+                WorkerPool pool = port.peekWorkerPool();
+                for(Dock dock : port.getDocks()) {
+                    state.docked.add(dock.getShip());
+                    copyJobs(dock.getShip(), pool, jobs, shipJobs);
+                }
+                for(Ship ship : port.getQueue()) {
+                    state.queue.add(ship);
+                    copyJobs(ship, pool, jobs, shipJobs);
+                }
+                ports.add(state);
+            }
+        } finally {
+            for(int i = locks.size() - 1; i >= 0; i--) {
+                locks.get(i).unlock();
+            }
+        }
+        long held = System.nanoTime() - start;
+        ArrayList<Thing> pending = new ArrayList<>();
+        AdmissionControl control = scheduler.getAdmissionControl();
+        if(control != null) {
+            pending.addAll(control.getDeferredShips());
+        }
+        pending.addAll(scheduler.getPendingThings());
+        return new Checkpoint(takenAt, held, ports, jobs, shipJobs, pending);
+    }
+
+    /***************************************************************************
+     * Copies a ship's list of Jobs and the state of each.  Called while 
+     * holding the port's lock.
+    ***************************************************************************/
+    private static void copyJobs(Ship ship, WorkerPool pool, IdentityHashMap<Job, JobState> jobs, IdentityHashMap<Ship, List<Job>> shipJobs) {
+        if(ship == null) {
+            return;
+        }
+        shipJobs.put(ship, new ArrayList<>(ship.getJobs()));
+        for(Job job : ship.getJobs()) {
+            List<Person> workers = pool != null ? pool.getWorkers(job) : null;
+            jobs.put(job, new JobState(job, workers));
+        }
+    }
+
+    /***************************************************************************
+     * Writes the Checkpoint as a simulation file, replacing any file of the
+     * same name only once the whole of it is written
+     * @param file
+    ***************************************************************************/
+    public void write(File file) throws IOException {
+        File parent = file.getAbsoluteFile().getParentFile();
+        if(parent != null && !parent.exists() && !parent.mkdirs()) {
+            throw new IOException("Unable to create checkpoint directory " + parent);
+        }
+        File partial = new File(file.getPath() + ".part");
+        try (Writer out = Files.newBufferedWriter(partial.toPath(), StandardCharsets.UTF_8)) {
+            writeTo(out);
+        }
+        Files.move(partial.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /***************************************************************************
+     * Writes the Checkpoint in simulation file order: ports, docks, ships,
+     * people, then Jobs, so every parent comes before what it holds.  The 
+     * Jobs of a docked or queued ship are the ones copied under the locks, 
+     * and no Job is written twice.
+    ***************************************************************************/
+    private void writeTo(Writer out) throws IOException {
+        HashMap<Integer, Integer> portOfDock = new HashMap<>();
+        HashSet<Integer> portIndexes = new HashSet<>();
+        ArrayList<Ship> shipsWritten = new ArrayList<>();
+        HashSet<Integer> shipIndexes = new HashSet<>();
+        HashSet<Integer> jobIndexes = new HashSet<>();
+        out.write("// Checkpoint taken at " + takenAt + "\n");
+        for(PortState port : ports) {
+            out.write(line("port", port.port) + "\n");
+            portIndexes.add(port.port.getIndex());
+        }
+        for(PortState port : ports) {
+            for(int i = 0; i < port.docks.size(); i++) {
+                Dock dock = port.docks.get(i);
+                Ship ship = port.docked.get(i);
+                portOfDock.put(dock.getIndex(), port.port.getIndex());
+                out.write(dockLine(dock, ship) + "\n");
+            }
+        }
+        for(Thing thing : pending) {
+            if(thing instanceof Dock && portIndexes.contains(thing.getParent())) {
+                portOfDock.put(thing.getIndex(), thing.getParent());
+                out.write(dockLine((Dock)thing, null) + "\n");
+            }
+        }
+        for(PortState port : ports) {
+            for(int i = 0; i < port.docks.size(); i++) {
+                Ship ship = port.docked.get(i);
+                if(ship != null && writeShip(out, ship, port.docks.get(i).getIndex())) {
+                    shipsWritten.add(ship);
+                    shipIndexes.add(ship.getIndex());
+                }
+            }
+            for(Ship ship : port.queue) {
+                if(writeShip(out, ship, port.port.getIndex())) {
+                    shipsWritten.add(ship);
+                    shipIndexes.add(ship.getIndex());
+                }
+            }
+        }
+        for(Thing thing : pending) {
+            if(thing instanceof Ship && !shipIndexes.contains(thing.getIndex())) {
+                Integer at = portIndexes.contains(thing.getParent()) ? Integer.valueOf(thing.getParent()) : portOfDock.get(thing.getParent());
+                if(at != null && writeShip(out, (Ship)thing, at)) {
+                    shipsWritten.add((Ship)thing);
+                    shipIndexes.add(thing.getIndex());
+                }
+            }
+        }
+        for(PortState port : ports) {
+            for(Person person : port.persons) {
+                out.write(personLine(person) + "\n");
+            }
+        }
+        for(Thing thing : pending) {
+            if(thing instanceof Person && portIndexes.contains(thing.getParent())) {
+                out.write(personLine((Person)thing) + "\n");
+            }
+        }
+        for(Ship ship : shipsWritten) {
+            List<Job> copied = shipJobs.get(ship);
+            for(Job job : copied != null ? copied : new ArrayList<>(ship.getJobs())) {
+                if(jobIndexes.add(job.getIndex())) {
+                    out.write(jobLine(job, ship.getIndex(), jobs.get(job)) + "\n");
+                }
+            }
+        }
+        for(Thing thing : pending) {
+            if(thing instanceof Job && shipIndexes.contains(thing.getParent()) && jobIndexes.add(thing.getIndex())) {
+                out.write(jobLine((Job)thing, thing.getParent(), null) + "\n");
+            }
+        }
+        ships = shipsWritten.size();
+    }
+
+    /***************************************************************************
+     * Writes a ship record with the given parent, a port if it is queued or a
+     * dock if it is berthed
+     * @return false if the ship is of a type a simulation file cannot hold
+    ***************************************************************************/
+    private static boolean writeShip(Writer out, Ship ship, int parent) throws IOException {
+        String dimensions = String.format("%s %s %s %s", ship.getWeight(), ship.getLength(), ship.getWidth(), ship.getDraft());
+        if(ship instanceof PassengerShip) {
+            PassengerShip passengers = (PassengerShip)ship;
+            out.write(String.format("pship %s %d %d %s %d %d %d\n", ship.getName(), ship.getIndex(), parent, dimensions,
+                    passengers.getNumberOfPassengers(), passengers.getNumberOfRooms(), passengers.getNumberOfOccupiedRooms()));
+            return true;
+        }
+        if(ship instanceof CargoShip) {
+            CargoShip cargo = (CargoShip)ship;
+            out.write(String.format("cship %s %d %d %s %s %s %s\n", ship.getName(), ship.getIndex(), parent, dimensions,
+                    cargo.getCargoWeight(), cargo.getCargoVolume(), cargo.getCargoValue()));
+            return true;
+        }
+        return false;
+    }
+
+    /***************************************************************************
+     * Simple helper method for the name, index and parent of a record
+    ***************************************************************************/
+    private static String line(String type, Thing thing) {
+        return String.format("%s %s %d %d", type, thing.getName(), thing.getIndex(), thing.getParent());
+    }
+
+    /***************************************************************************
+     * Simple helper method for a dock record
+    ***************************************************************************/
+    private static String dockLine(Dock dock, Ship ship) {
+        return String.format("%s %d %s %s %s", line("dock", dock), ship != null ? ship.getIndex() : 0,
+                dock.getMaxDraft(), dock.getMaxLength(), dock.getMaxWidth());
+    }
+
+    /***************************************************************************
+     * Simple helper method for a person record
+    ***************************************************************************/
+    private static String personLine(Person person) {
+        return line("person", person) + " " + person.getSkill();
+    }
+
+    /***************************************************************************
+     * Simple helper method for a Job record, with its progress if it has any
+     * @param state the Job as copied under its port's lock, null for a Job
+     * still waiting to be admitted
+    ***************************************************************************/
+    private static String jobLine(Job job, int parent, JobState state) {
+        StringBuilder out = new StringBuilder();
+        out.append(String.format("job %s %d %d %s", job.getName(), job.getIndex(), parent, job.getDuration()));
+        for(String requirement : job.getRequirements()) {
+            out.append(' ').append(requirement);
+        }
+        for(Integer index : job.getDependencies()) {
+            out.append(' ').append("after:").append(index);
+        }
+        if(!Double.isNaN(job.getPriority())) {
+            out.append(" priority:").append(job.getPriority());
+        }
+        if(state == null) {
+            return out.toString();
+        }
+        if(state.needed > 0.0) {
+            out.append(' ').append(Job.WORKED).append(state.worked);
+            out.append(' ').append(Job.NEEDED).append(state.needed);
+        }
+        if(!state.state.isEmpty()) {
+            out.append(' ').append(Job.STATE).append(state.state);
+        }
+        if(!state.crew.isEmpty()) {
+            out.append(' ').append(Job.CREW);
+            for(int i = 0; i < state.crew.size(); i++) {
+                out.append(i > 0 ? "," : "").append(state.crew.get(i));
+            }
+        }
+        return out.toString();
+    }
+
+    /***************************************************************************
+     * Getter for the PortTime the Checkpoint was taken at
+    ***************************************************************************/
+    public PortTime getTakenAt() {
+        return takenAt;
+    }
+
+    /***************************************************************************
+     * Getter for the milliseconds the port locks were held
+    ***************************************************************************/
+    public double getHeldMillis() {
+        return heldNanos / 1e6;
+    }
+
+    /***************************************************************************
+     * Getter for the number of Jobs copied under the port locks
+    ***************************************************************************/
+    public int getJobCount() {
+        return jobs.size();
+    }
+
+    /***************************************************************************
+     * Getter for the number of ships written, 0 until write() is called
+    ***************************************************************************/
+    public int getShipCount() {
+        return ships;
+    }
+
+    /***************************************************************************
+     * One port's docks, the ship at each and its queue and people, copied
+     * under its lock
+    ***************************************************************************/
+    private static final class PortState {
+        final SeaPort port;
+        final List<Dock> docks;
+        final List<Ship> docked;
+        final List<Ship> queue;
+        final List<Person> persons;
+
+        PortState(SeaPort port) {
+            this.port = port;
+            docks = new ArrayList<>(port.getDocks());
+            docked = new ArrayList<>(docks.size());
+            queue = new ArrayList<>(port.getQueue().size());
+            persons = new ArrayList<>(port.getPersons());
+        }
+    }
+
+    /***************************************************************************
+     * A Job's work done and needed, its state and the indexes of the people
+     * working it, copied under its port's lock
+    ***************************************************************************/
+    private static final class JobState {
+        final double worked;
+        final double needed;
+        final String state;
+        final List<Integer> crew;
+
+        JobState(Job job, List<Person> workers) {
+            worked = job.getWorkedMillis();
+            needed = job.getNeededMillis();
+            if(job.isCancelled()) {
+                state = Job.CANCELLED;
+            }
+            else if(job.finished()) {
+                state = Job.DONE;
+            }
+            else if(job.isSuspended()) {
+                state = Job.SUSPENDED;
+            }
+            else {
+                state = "";
+            }
+            crew = new ArrayList<>();
+            if(workers != null && !job.finished()) {
+                for(Person person : workers) {
+                    crew.add(person.getIndex());
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,35 @@
+package cmsc335_project_3_elinkowski;
+
+/*******************************************************************************
+ * File name: CheckpointResume class
+ * Date: 20181120 0955L
+ * Author: Keith R. Elinkowski
+ * Purpose: Implements SchedulerListener.  When a World read from a Checkpoint
+ * is started, each Job that was running when the Checkpoint was taken goes
+ * straight back to work with the same people, as long as they are all idle.
+ * The rest wait to be dispatched like any other Job.
+*******************************************************************************/
+public class CheckpointResume implements SchedulerListener {
+    private final Scheduler scheduler;
+
+    /***************************************************************************
+     * CheckpointResume Constructor
+     * @param scheduler
+    ***************************************************************************/
+    public CheckpointResume(Scheduler scheduler) {
+        this.scheduler = scheduler;
+    }
+
+    @Override
+    public void shipLoaded(SeaPort port, Dock dock, Ship ship) {
+        WorkerPool pool = port.getWorkerPool();
+        for(Job job : ship.getJobs()) {
+            if(job.finished() || job.isStarted() || job.getCrew().isEmpty() || !pool.assign(job, job.getCrew())) {
+                continue;
+            }
+            job.setBerth(port.getIndex(), dock.getIndex());
+            scheduler.startJob(ship, job);
+            scheduler.log(String.format(">>> JOB RESUMED: Work order %s on SS %s carries on from %d%% in Port of %s\n", job.getName(), ship.getName(), job.getProgress(), port.getName()));
+        }
+    }
+}
@@ -6,10 +6,18 @@ import java.util.Scanner;
  * File name: Dock class
  * Date: 20181025 1450L
  * Author: Keith R. Elinkowski
- * Purpose: Extends Thing class.  Specifies which ships are docked.
+ * Purpose: Extends Thing class.  Specifies which ships are docked and the 
+ * largest ship the dock can take.  The dock record may end with an optional 
+ * max draft, max length and max width after the ship index:
+ *    dock <string> <int> <int> <int> [<double> <double> <double>]
+ * A limit that is missing or 0 means the dock takes any size.
 *******************************************************************************/
 public class Dock extends Thing{
     private Ship ship;
+    private int slot = -1;
+    private double maxDraft;
+    private double maxLength;
+    private double maxWidth;
     
     /***************************************************************************
      * Dock Constructor
@@ -17,6 +25,40 @@ public class Dock extends Thing{
     ***************************************************************************/
     public Dock(Scanner scanner) {
         super(scanner);
+        if(scanner.hasNextInt()) {
+            scanner.nextInt();
+        }
+        maxDraft = scanner.hasNextDouble() ? Math.max(0.0, scanner.nextDouble()) : 0.0;
+        maxLength = scanner.hasNextDouble() ? Math.max(0.0, scanner.nextDouble()) : 0.0;
+        maxWidth = scanner.hasNextDouble() ? Math.max(0.0, scanner.nextDouble()) : 0.0;
+    }
+    
+    /***************************************************************************
+     * Getters for the size limits, 0 when there is no limit
+    ***************************************************************************/
+    public double getMaxDraft() {
+        return maxDraft;
+    }
+    
+    public double getMaxLength() {
+        return maxLength;
+    }
+    
+    public double getMaxWidth() {
+        return maxWidth;
+    }
+    
+    /***************************************************************************
+     * Simple helper method to check if a ship fits within the dock's limits
+     * @param s
+    ***************************************************************************/
+    public boolean accepts(Ship s) {
+        return fits(s.getDraft(), maxDraft) && fits(s.getLength(), maxLength)
+                && fits(s.getWidth(), maxWidth);
+    }
+    
+    private static boolean fits(double size, double limit) {
+        return limit <= 0.0 || size <= limit;
     }
     
     /***************************************************************************
@@ -27,13 +69,27 @@ public class Dock extends Thing{
     }
     
     /***************************************************************************
-     * Setter for ship
+     * Setter for ship.  Docks that belong to a port are berthed through 
+     * SeaPort.berth() and SeaPort.release() so the port's free docks stay 
+     * up to date.
      * @param s
     ***************************************************************************/
     public void setShip(Ship s) {
         ship = s;
     }
     
+    /***************************************************************************
+     * Getter and setter for the dock's fixed position in its port's free dock
+     * set, -1 until the dock is added to a port
+    ***************************************************************************/
+    int getSlot() {
+        return slot;
+    }
+    
+    void setSlot(int s) {
+        slot = s;
+    }
+    
     /***************************************************************************
      * @Override of toString() Method
     ***************************************************************************/
@@ -48,4 +104,4 @@ public class Dock extends Thing{
         }
         return outDock;
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,91 @@
+package cmsc335_project_3_elinkowski;
+
+import java.util.Arrays;
+
+/*******************************************************************************
+ * File name: DockAssignment class
+ * Date: 20181109 1040L
+ * Author: Keith R. Elinkowski
+ * Purpose: Solves the assignment problem with the Hungarian method.  Given a
+ * cost for every pairing of a free dock with a queued ship it finds the one
+ * ship per dock that gives the lowest total cost.  Runs in O(n^2 m) for n docks
+ * and m ships, which is quick for the small batches the Scheduler hands it.
+*******************************************************************************/
+public final class DockAssignment {
+
+    /***************************************************************************
+     * DockAssignment Constructor, not used
+    ***************************************************************************/
+    private DockAssignment() {
+    }
+
+    /***************************************************************************
+     * Finds the lowest cost assignment of rows to columns
+     * @param cost cost[row][column], with no more rows than columns
+     * @return the column given to each row
+    ***************************************************************************/
+    public static int[] solve(double[][] cost) {
+        int rows = cost.length;
+        if(rows == 0) {
+            return new int[0];
+        }
+        int columns = cost[0].length;
+        if(columns < rows) {
+            throw new IllegalArgumentException("More rows than columns: " + rows + " > " + columns);
+        }
+        double[] rowPotential = new double[rows + 1];
+        double[] columnPotential = new double[columns + 1];
+        int[] rowOfColumn = new int[columns + 1];
+        int[] way = new int[columns + 1];
+        double[] minimum = new double[columns + 1];
+        boolean[] used = new boolean[columns + 1];
+        for(int row = 1; row <= rows; row++) {
+            rowOfColumn[0] = row;
+            int column = 0;
+            Arrays.fill(minimum, Double.POSITIVE_INFINITY);
+            Arrays.fill(used, false);
+            do {
+                used[column] = true;
+                int current = rowOfColumn[column];
+                double delta = Double.POSITIVE_INFINITY;
+                int next = 0;
+                for(int j = 1; j <= columns; j++) {
+                    if(used[j]) {
+                        continue;
+                    }
+                    double reduced = cost[current - 1][j - 1] - rowPotential[current] - columnPotential[j];
+                    if(reduced < minimum[j]) {
+                        minimum[j] = reduced;
+                        way[j] = column;
+                    }
+                    if(minimum[j] < delta) {
+                        delta = minimum[j];
+                        next = j;
+                    }
+                }
+                for(int j = 0; j <= columns; j++) {
+                    if(used[j]) {
+                        rowPotential[rowOfColumn[j]] += delta;
+                        columnPotential[j] -= delta;
+                    }
+                    else {
+                        minimum[j] -= delta;
+                    }
+                }
+                column = next;
+            } while(rowOfColumn[column] != 0);
+            do {
+                int previous = way[column];
+                rowOfColumn[column] = rowOfColumn[previous];
+                column = previous;
+            } while(column != 0);
+        }
+        int[] assignment = new int[rows];
+        for(int j = 1; j <= columns; j++) {
+            if(rowOfColumn[j] != 0) {
+                assignment[rowOfColumn[j] - 1] = j - 1;
+            }
+        }
+        return assignment;
+    }
+}
@@ -0,0 +1,198 @@
+package cmsc335_project_3_elinkowski;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+
+/*******************************************************************************
+ * File name: DockIndex class
+ * Date: 20181110 0915L
+ * Author: Keith R. Elinkowski
+ * Purpose: Buckets the docks of one port by their size limits.  Docks with the
+ * same max draft, length and width share a capability class, and each class
+ * keeps its own set of free docks.  Which classes a ship fits is worked out
+ * once per ship, so asking whether any free dock can take a ship only looks at
+ * the handful of classes instead of every dock.  Guarded by the port's lock.
+*******************************************************************************/
+public class DockIndex {
+    private final ArrayList<Dock> slots;
+    private final ArrayList<Integer> classOfSlot;
+    private final ArrayList<Dock> classLimits;
+    private final HashMap<String, Integer> classIds;
+    private final ArrayList<BitSet> freeByClass;
+    private final BitSet classesWithFree;
+    private final IdentityHashMap<Ship, BitSet> fits;
+
+    /***************************************************************************
+     * DockIndex Constructor
+    ***************************************************************************/
+    public DockIndex() {
+        slots = new ArrayList<>();
+        classOfSlot = new ArrayList<>();
+        classLimits = new ArrayList<>();
+        classIds = new HashMap<>();
+        freeByClass = new ArrayList<>();
+        classesWithFree = new BitSet();
+        fits = new IdentityHashMap<>();
+    }
+
+    /***************************************************************************
+     * Adds a dock at the next slot
+     * @param dock
+     * @param free
+    ***************************************************************************/
+    void addSlot(Dock dock, boolean free) {
+        String key = dock.getMaxDraft() + "/" + dock.getMaxLength() + "/" + dock.getMaxWidth();
+        Integer id = classIds.get(key);
+        if(id == null) {
+            id = classLimits.size();
+            classIds.put(key, id);
+            classLimits.add(dock);
+            freeByClass.add(new BitSet());
+            fits.clear();
+        }
+        dock.setSlot(slots.size());
+        slots.add(dock);
+        classOfSlot.add(id);
+        setFree(dock.getSlot(), free);
+    }
+
+    /***************************************************************************
+     * Removes every dock
+    ***************************************************************************/
+    void clear() {
+        slots.clear();
+        classOfSlot.clear();
+        classLimits.clear();
+        classIds.clear();
+        freeByClass.clear();
+        classesWithFree.clear();
+        fits.clear();
+    }
+
+    /***************************************************************************
+     * Marks a slot free or occupied
+    ***************************************************************************/
+    void setFree(int slot, boolean free) {
+        int id = classOfSlot.get(slot);
+        BitSet classFree = freeByClass.get(id);
+        classFree.set(slot, free);
+        classesWithFree.set(id, !classFree.isEmpty());
+    }
+
+    /***************************************************************************
+     * Getter for the dock at a slot
+    ***************************************************************************/
+    Dock getSlot(int slot) {
+        return slots.get(slot);
+    }
+
+    /***************************************************************************
+     * Getter for the number of docks
+    ***************************************************************************/
+    int size() {
+        return slots.size();
+    }
+
+    /***************************************************************************
+     * Getter for the number of capability classes
+    ***************************************************************************/
+    public int getClassCount() {
+        return classLimits.size();
+    }
+
+    /***************************************************************************
+     * The capability classes a ship fits, worked out the first time a ship
+     * is asked about and kept until a new class is added
+     * @param ship
+    ***************************************************************************/
+    public BitSet compatibleClasses(Ship ship) {
+        BitSet classes = fits.get(ship);
+        if(classes == null) {
+            classes = new BitSet(classLimits.size());
+            for(int id = 0; id < classLimits.size(); id++) {
+                if(classLimits.get(id).accepts(ship)) {
+                    classes.set(id);
+                }
+            }
+            fits.put(ship, classes);
+        }
+        return classes;
+    }
+
+    /***************************************************************************
+     * Simple helper method to check if any dock, free or not, can take a 
+     * ship.  Nothing is remembered about the ship.
+     * @param ship
+    ***************************************************************************/
+    public boolean fitsAnyClass(Ship ship) {
+        for(Dock limits : classLimits) {
+            if(limits.accepts(ship)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /***************************************************************************
+     * Simple helper method to check if any free dock can take a ship without
+     * remembering anything about the ship, for ships that may never come to
+     * this port
+     * @param ship
+    ***************************************************************************/
+    public boolean fitsFreeClass(Ship ship) {
+        for(int id = classesWithFree.nextSetBit(0); id >= 0; id = classesWithFree.nextSetBit(id + 1)) {
+            if(classLimits.get(id).accepts(ship)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /***************************************************************************
+     * Simple helper method to check if any free dock can take a ship
+     * @param ship
+    ***************************************************************************/
+    public boolean hasFreeDockFor(Ship ship) {
+        return compatibleClasses(ship).intersects(classesWithFree);
+    }
+
+    /***************************************************************************
+     * Getter for a free dock that can take a ship, null if there is none
+     * @param ship
+    ***************************************************************************/
+    public Dock getFreeDockFor(Ship ship) {
+        BitSet classes = compatibleClasses(ship);
+        for(int id = classes.nextSetBit(0); id >= 0; id = classes.nextSetBit(id + 1)) {
+            int slot = freeByClass.get(id).nextSetBit(0);
+            if(slot >= 0) {
+                return slots.get(slot);
+            }
+        }
+        return null;
+    }
+
+    /***************************************************************************
+     * Simple helper method to check if a dock accepts at least one of a list
+     * of ships, using each ship's compatible classes
+    ***************************************************************************/
+    public boolean acceptsAny(Dock dock, List<Ship> ships) {
+        int id = classOfSlot.get(dock.getSlot());
+        for(Ship ship : ships) {
+            if(compatibleClasses(ship).get(id)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /***************************************************************************
+     * Drops what is remembered about a ship that has left the port
+     * @param ship
+    ***************************************************************************/
+    void forget(Ship ship) {
+        fits.remove(ship);
+    }
+}
@@ -0,0 +1,309 @@
+package cmsc335_project_3_elinkowski;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/*******************************************************************************
+ * File name: EventJournal class
+ * Date: 20181118 0930L
+ * Author: Keith R. Elinkowski
+ * Purpose: Implements Runnable.  Appends every ship arrival, docking, Job 
+ * state change, reroute and departure to a binary file that JournalReplay can
+ * play back.  A record is RECORD_BYTES long: the PortTime in nanoseconds, the
+ * type, the Job state, the progress, the port, dock, ship and Job indices and
+ * four spare bytes.  Appending copies the record into a buffer under a short
+ * lock and returns; full buffers are handed to a writer thread that writes 
+ * them with a FileChannel and gives them back.  The number of buffers is 
+ * fixed, so if the disk falls that far behind records are counted as dropped
+ * rather than holding up the Scheduler.  Journaling is off until a journal is
+ * started, and every hook returns at once while it is off.
+*******************************************************************************/
+public class EventJournal implements Runnable {
+    static final int MAGIC = 0x53504a31;
+    static final int VERSION = 1;
+    static final int HEADER_BYTES = 16;
+    static final int RECORD_BYTES = 32;
+    static final byte ARRIVED = 1;
+    static final byte DOCKED = 2;
+    static final byte JOB = 3;
+    static final byte DEPARTED = 4;
+    static final byte REROUTED = 5;
+    static final byte STARTED = 1;
+    static final byte SUSPENDED = 2;
+    static final byte RESUMED = 3;
+    static final byte PREEMPTED = 4;
+    static final byte CANCELLED = 5;
+    static final byte COMPLETED = 6;
+    static final int NONE = -1;
+    private static final int BUFFER_BYTES = RECORD_BYTES * 2048;
+    private static final int BUFFERS = 64;
+    private static final long FLUSH_MILLIS = 200;
+    private static volatile EventJournal journal;
+    private final File file;
+    private final FileChannel channel;
+    private final ArrayBlockingQueue<ByteBuffer> full;
+    private final ArrayBlockingQueue<ByteBuffer> free;
+    private final AtomicLong records;
+    private final AtomicLong dropped;
+    private final Thread writerThread;
+    private volatile boolean running;
+    private ByteBuffer active;
+
+    /***************************************************************************
+     * EventJournal Constructor.  Creates the file, replacing any file of the
+     * same name, and writes its header.
+     * @param file
+    ***************************************************************************/
+    public EventJournal(File file) throws IOException {
+        this.file = file;
+        File parent = file.getAbsoluteFile().getParentFile();
+        if(parent != null && !parent.exists() && !parent.mkdirs()) {
+            throw new IOException("Unable to create journal directory " + parent);
+        }
+        channel = FileChannel.open(file.toPath(), StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+        ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+        header.putInt(MAGIC).putInt(VERSION).putLong(PortTime.now().getPortTime()).flip();
+        while(header.hasRemaining()) {
+            channel.write(header);
+        }
+        full = new ArrayBlockingQueue<>(BUFFERS);
+        free = new ArrayBlockingQueue<>(BUFFERS);
+        for(int i = 1; i < BUFFERS; i++) {
+            free.add(ByteBuffer.allocateDirect(BUFFER_BYTES));
+        }
+        active = ByteBuffer.allocateDirect(BUFFER_BYTES);
+        records = new AtomicLong();
+        dropped = new AtomicLong();
+        running = true;
+        writerThread = new Thread(this, "journal-writer-" + file.getName());
+        writerThread.setDaemon(true);
+        writerThread.start();
+    }
+
+    /***************************************************************************
+     * Starts journaling into a journal, in place of any journal already 
+     * running
+     * @return the journal that was running, null if journaling was off
+    ***************************************************************************/
+    public static EventJournal start(EventJournal eventJournal) {
+        EventJournal previous = journal;
+        journal = eventJournal;
+        return previous;
+    }
+
+    /***************************************************************************
+     * Stops journaling.  The caller closes the journal.
+     * @return the journal that was running, null if journaling was off
+    ***************************************************************************/
+    public static EventJournal stop() {
+        return start(null);
+    }
+
+    /***************************************************************************
+     * SchedulerListener that journals ships arriving, docking, departing and
+     * being rerouted
+    ***************************************************************************/
+    static final SchedulerListener LISTENER = new SchedulerListener() {
+        @Override
+        public void shipArrived(SeaPort port, Ship ship, boolean queued) {
+            EventJournal.shipArrived(port, ship);
+        }
+
+        @Override
+        public void shipDocked(SeaPort port, Dock dock, Ship ship) {
+            EventJournal.shipDocked(port, dock, ship);
+        }
+
+        @Override
+        public void shipDeparted(SeaPort port, Dock dock, Ship ship) {
+            EventJournal.shipDeparted(port, dock, ship);
+        }
+
+        @Override
+        public void shipRerouted(SeaPort from, SeaPort to, Ship ship) {
+            EventJournal.shipRerouted(from, to, ship);
+        }
+    };
+
+    /***************************************************************************
+     * A ship arrived at a port.  A ship that berths on arrival is followed by
+     * its DOCKED record, any other joins the queue.
+    ***************************************************************************/
+    static void shipArrived(SeaPort port, Ship ship) {
+        EventJournal out = journal;
+        if(out != null) {
+            out.append(ARRIVED, (byte)0, 0, port.getIndex(), NONE, ship.getIndex(), NONE, timeOf(ship.getArrivalTime()));
+        }
+    }
+
+    /***************************************************************************
+     * A ship was given a dock
+    ***************************************************************************/
+    static void shipDocked(SeaPort port, Dock dock, Ship ship) {
+        EventJournal out = journal;
+        if(out != null) {
+            out.append(DOCKED, (byte)0, 0, port.getIndex(), dock.getIndex(), ship.getIndex(), NONE, timeOf(ship.getDockTime()));
+        }
+    }
+
+    /***************************************************************************
+     * A ship left its dock
+    ***************************************************************************/
+    static void shipDeparted(SeaPort port, Dock dock, Ship ship) {
+        EventJournal out = journal;
+        if(out != null) {
+            out.append(DEPARTED, (byte)0, 0, port.getIndex(), dock.getIndex(), ship.getIndex(), NONE, timeOf(ship.getDepartureTime()));
+        }
+    }
+
+    /***************************************************************************
+     * A queued ship was moved to another port's queue.  The dock index of the
+     * record holds the port it left.
+    ***************************************************************************/
+    static void shipRerouted(SeaPort from, SeaPort to, Ship ship) {
+        EventJournal out = journal;
+        if(out != null) {
+            out.append(REROUTED, (byte)0, 0, to.getIndex(), from.getIndex(), ship.getIndex(), NONE, PortTime.now().getPortTime());
+        }
+    }
+
+    /***************************************************************************
+     * A Job changed state
+     * @param state STARTED, SUSPENDED, RESUMED, PREEMPTED, CANCELLED or 
+     * COMPLETED
+    ***************************************************************************/
+    static void jobChanged(Job job, byte state) {
+        EventJournal out = journal;
+        if(out != null) {
+            out.append(JOB, state, job.getProgress(), job.getPortIndex(), job.getDockIndex(), job.getParent(), job.getIndex(), PortTime.now().getPortTime());
+        }
+    }
+
+    /***************************************************************************
+     * Simple helper method for the nanoseconds of a PortTime, now if unset
+    ***************************************************************************/
+    private static long timeOf(PortTime time) {
+        return time != null ? time.getPortTime() : PortTime.now().getPortTime();
+    }
+
+    /***************************************************************************
+     * Copies one record into the active buffer
+    ***************************************************************************/
+    private void append(byte type, byte state, int progress, int port, int dock, int ship, int job, long time) {
+        synchronized(this) {
+            if(!running || (active.remaining() < RECORD_BYTES && !swap())) {
+                dropped.incrementAndGet();
+                return;
+            }
+            active.putLong(time).put(type).put(state).putShort((short)progress)
+                    .putInt(port).putInt(dock).putInt(ship).putInt(job).putInt(0);
+        }
+        records.incrementAndGet();
+    }
+
+    /***************************************************************************
+     * Hands the active buffer to the writer thread and takes a free one.
+     * Called while holding this journal's lock.
+     * @return false if no buffer is free
+    ***************************************************************************/
+    private boolean swap() {
+        ByteBuffer next = free.poll();
+        if(next == null) {
+            return false;
+        }
+        full.add(active);
+        active = next;
+        return true;
+    }
+
+    /***************************************************************************
+     * required method for implementing Runnable interface.  Writes full 
+     * buffers as they come, and whatever is in the active buffer every 
+     * FLUSH_MILLIS, until the journal is closed.  It only stops once it has 
+     * seen, under this journal's lock, that the journal is closed and no 
+     * buffer is left, so the last buffer handed over by close() is written.
+    ***************************************************************************/
+    @Override
+    public void run() {
+        try {
+            while(true) {
+                ByteBuffer buffer = running ? full.poll(FLUSH_MILLIS, TimeUnit.MILLISECONDS) : full.poll();
+                if(buffer == null) {
+                    synchronized(this) {
+                        if(!running && full.isEmpty()) {
+                            break;
+                        }
+                        if(active.position() > 0) {
+                            swap();
+                        }
+                    }
+                    continue;
+                }
+                buffer.flip();
+                while(buffer.hasRemaining()) {
+                    channel.write(buffer);
+                }
+                buffer.clear();
+                free.add(buffer);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (IOException e) {
+            System.out.println(e);
+            running = false;
+        } finally {
+            try {
+                channel.close();
+            } catch (IOException e) {
+                System.out.println(e);
+            }
+        }
+    }
+
+    /***************************************************************************
+     * Getter for file
+    ***************************************************************************/
+    public File getFile() {
+        return file;
+    }
+
+    /***************************************************************************
+     * Getter for the number of records appended
+    ***************************************************************************/
+    public long getRecords() {
+        return records.get();
+    }
+
+    /***************************************************************************
+     * Getter for the number of records lost because every buffer was full
+    ***************************************************************************/
+    public long getDropped() {
+        return dropped.get();
+    }
+
+    /***************************************************************************
+     * Stops taking new records, writes what is already buffered and closes the
+     * file.  Waits at most timeoutMillis for the writer thread to finish.
+     * @param timeoutMillis
+    ***************************************************************************/
+    public void close(long timeoutMillis) {
+        synchronized(this) {
+            running = false;
+            if(active.position() > 0) {
+                full.add(active);
+                active = ByteBuffer.allocate(0);
+            }
+        }
+        try {
+            writerThread.join(timeoutMillis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -1,19 +1,8 @@
 package cmsc335_project_3_elinkowski;
 
-import java.awt.Color;
-import java.awt.Dimension;
-import java.awt.Font;
-import java.awt.event.ActionEvent;
 import java.util.ArrayList;
 import java.util.Random;
 import java.util.Scanner;
-import javax.swing.JButton;
-import javax.swing.JLabel;
-import javax.swing.JPanel;
-import javax.swing.JProgressBar;
-import javax.swing.SwingConstants;
-import javax.swing.SwingUtilities;
-import javax.swing.UIManager;
 
 /*******************************************************************************
  * File name: Job class
@@ -21,22 +10,53 @@ import javax.swing.UIManager;
  * Author: Keith R. Elinkowski
  * Purpose: Extends Thing class and implements Runnable.  Class holds various 
  * Jobs and gets their requirements, dispatches worker threads to work each job 
- * individually as well as displaying GUI elements to give visual representation 
- * of jobs being worked on via a JProgressBar.
+ * individually and reports its status and progress to the JobTableTemplate row
+ * that gives a visual representation of the job being worked on.  A job 
+ * record may name other jobs of the same ship that must finish first with 
+ * tokens of the form after:<job index> among its requirements, and may set 
+ * its own priority with a priority:<number> token.  Each change of state is
+ * also recorded as a SeaPortEvents flight recorder event, and each stretch 
+ * between changes is traced by the LifecycleTrace.  The work done so far is 
+ * kept in the job rather than in its worker thread, so a Checkpoint can save
+ * it; a job record written by a Checkpoint carries it back with worked:, 
+ * needed:, state: and crew: tokens.  The time of the last tick worked is
+ * kept too, for the StallWatchdog.
 *******************************************************************************/
 public class Job extends Thing implements Runnable{
+    private static final String AFTER = "after:";
+    private static final String PRIORITY = "priority:";
+    static final String WORKED = "worked:";
+    static final String NEEDED = "needed:";
+    static final String STATE = "state:";
+    static final String CREW = "crew:";
+    static final String DONE = "done";
+    static final String CANCELLED = "cancelled";
+    static final String SUSPENDED = "suspended";
+    static final int MIN_MILLIS_PER_HOUR = 100;
+    static final int MILLIS_PER_HOUR_SPREAD = 300;
     private double duration;
     private ArrayList<String> requirements;
-    private enum Status {WORKING, SUSPENDED, WAITING, COMPLETE}
-    private Status status;
-    private boolean suspendFlag;
-    private boolean cancelFlag;
-    private final JButton suspendButton;
-    private final JButton cancelButton;
-    private final JProgressBar progressBar;
-    private JPanel buttonPanel;
-    private final JLabel statusLabel;
-    private boolean workDone;
+    private ArrayList<Integer> dependencies;
+    private ArrayList<Integer> crew;
+    private volatile boolean started;
+    private volatile boolean preempted;
+    private double priority = Double.NaN;
+    enum Status {WORKING, SUSPENDED, WAITING, COMPLETE}
+    private volatile Status status;
+    private volatile int progress;
+    private volatile boolean suspendFlag;
+    private volatile boolean cancelFlag;
+    private volatile JobTableTemplate tableModel;
+    private volatile boolean workDone;
+    private volatile PortTime startTime;
+    private volatile PortTime endTime;
+    private volatile int portIndex = -1;
+    private volatile int dockIndex = -1;
+    private volatile double workedMillis;
+    private volatile double neededMillis;
+    private volatile long lastProgress;
+    private String segment;
+    private long segmentStart;
     private final Thread workerThread;
     
     /***************************************************************************
@@ -52,36 +72,65 @@ public class Job extends Thing implements Runnable{
             duration = 0.0;
         }
         requirements = new ArrayList<>();
+        dependencies = new ArrayList<>();
+        crew = new ArrayList<>();
+        String state = "";
         while(scanner.hasNext()) {
-            requirements.add(scanner.next());
+            String token = scanner.next();
+            if(token.startsWith(AFTER)) {
+                try {
+                    dependencies.add(Integer.parseInt(token.substring(AFTER.length())));
+                } catch (NumberFormatException e) {
+                    System.out.println(e);
+                }
+            }
+            else if(token.startsWith(PRIORITY)) {
+                try {
+                    priority = Double.parseDouble(token.substring(PRIORITY.length()));
+                } catch (NumberFormatException e) {
+                    System.out.println(e);
+                }
+            }
+            else if(token.startsWith(WORKED)) {
+                try {
+                    workedMillis = Math.max(0.0, Double.parseDouble(token.substring(WORKED.length())));
+                } catch (NumberFormatException e) {
+                    System.out.println(e);
+                }
+            }
+            else if(token.startsWith(NEEDED)) {
+                try {
+                    neededMillis = Math.max(0.0, Double.parseDouble(token.substring(NEEDED.length())));
+                } catch (NumberFormatException e) {
+                    System.out.println(e);
+                }
+            }
+            else if(token.startsWith(STATE)) {
+                state = token.substring(STATE.length());
+            }
+            else if(token.startsWith(CREW)) {
+                for(String index : token.substring(CREW.length()).split(",")) {
+                    try {
+                        crew.add(Integer.parseInt(index));
+                    } catch (NumberFormatException e) {
+                        System.out.println(e);
+                    }
+                }
+            }
+            else {
+                requirements.add(token);
+            }
         }
         //set flags, status's and create worker thread
-        suspendFlag = false;
-        cancelFlag = false;
+        suspendFlag = state.equals(SUSPENDED);
+        cancelFlag = state.equals(CANCELLED);
         status = Status.SUSPENDED;
-        workDone = false;
+        workDone = cancelFlag || state.equals(DONE);
+        progress = workDone ? 100 : neededMillis > 0.0 ? (int)Math.min(100.0, workedMillis * 100 / neededMillis) : 0;
+        if(workDone) {
+            status = Status.COMPLETE;
+        }
         workerThread = new Thread(this);
-        
-        //set up jlabel to display status
-        statusLabel = new JLabel("Status", SwingConstants.CENTER);
-        statusLabel.setFont(new Font("Monospace", 1, 12));
-        
-        // set up a button to suspend work on job
-        suspendButton = new JButton("Suspend");
-        suspendButton.setPreferredSize(new Dimension(50,35));
-        
-        //set up a button to cancel jobs
-        cancelButton = new JButton("Cancel");
-        cancelButton.setPreferredSize(new Dimension(50,35));
-        
-        //set up progress bar to display work being done on a job
-        progressBar = new JProgressBar();
-        progressBar.setPreferredSize(new Dimension(100,35));
-        progressBar.setStringPainted(true);
-        UIManager.put("ProgressBar.background", Color.BLACK);
-        UIManager.put("ProgressBar.foreground", Color.GREEN);
-        UIManager.put("ProgressBar.selectionBackground", Color.WHITE);
-        UIManager.put("ProgressBar.selectionForeground", Color.BLACK);
     }
     
     /***************************************************************************
@@ -117,102 +166,255 @@ public class Job extends Thing implements Runnable{
     }
     
     /***************************************************************************
-     * GUI display of Jobs being worked that will correlate to the job displayed 
-     * in the JTable next to it
-     * @param panel
+     * Getter for the indexes of the jobs that must finish before this one
     ***************************************************************************/    
-    public void displayWork(JPanel panel){
-        SwingUtilities.invokeLater(new Runnable() {
-            @Override
-            public void run() {
-                buttonPanel = panel;
-                panel.add(progressBar);
-                panel.add(statusLabel);
-                panel.add(suspendButton);
-                panel.add(cancelButton);
-                suspendButton.addActionListener((ActionEvent e) -> {    setSuspend();   });
-                cancelButton.addActionListener((ActionEvent e) ->  {    setCancel();    });
-            }
-        });
+    public ArrayList<Integer> getDependencies() {
+        return dependencies;
+    }
+    
+    /***************************************************************************
+     * Getter for the indexes of the people working the job when the 
+     * Checkpoint it was read from was taken, empty if none
+    ***************************************************************************/
+    public ArrayList<Integer> getCrew() {
+        return crew;
+    }
+    
+    /***************************************************************************
+     * Getter for the milliseconds of work done so far
+    ***************************************************************************/
+    public double getWorkedMillis() {
+        return workedMillis;
+    }
+    
+    /***************************************************************************
+     * Getter for the milliseconds of work the job takes in all, 0 until it is
+     * worked out when the job starts
+    ***************************************************************************/
+    public double getNeededMillis() {
+        return neededMillis;
+    }
+    
+    /***************************************************************************
+     * Getter for the priority given in the job record, NaN if none was given
+    ***************************************************************************/
+    public double getPriority() {
+        return priority;
+    }
+    
+    /***************************************************************************
+     * Expected run time in milliseconds.  Each hour of duration takes between
+     * MIN_MILLIS_PER_HOUR and MIN_MILLIS_PER_HOUR + MILLIS_PER_HOUR_SPREAD.
+    ***************************************************************************/
+    public double getExpectedMillis() {
+        return duration * (MIN_MILLIS_PER_HOUR + (MILLIS_PER_HOUR_SPREAD - 1) / 2.0);
+    }
+    
+    /***************************************************************************
+     * Getter for status
+    ***************************************************************************/
+    public Status getStatus() {
+        return status;
+    }
+    
+    /***************************************************************************
+     * Getter for progress, a percentage from 0 to 100
+    ***************************************************************************/
+    public int getProgress() {
+        return progress;
+    }
+    
+    /***************************************************************************
+     * Simple helper method to return the suspend flag
+    ***************************************************************************/
+    public boolean isSuspended() {
+        return suspendFlag;
+    }
+    
+    /***************************************************************************
+     * GUI display of Jobs being worked.  The JobTableTemplate row for this job 
+     * is told to repaint whenever the status or progress changes.
+     * @param model
+    ***************************************************************************/    
+    public void displayWork(JobTableTemplate model){
+        tableModel = model;
     }
     
     /***************************************************************************
      * Synchronized method to start a new thread that will work on a new job
     ***************************************************************************/
     public synchronized void startWork(){
+        if(started || cancelFlag) {
+            return;
+        }
+        started = true;
         workDone = false;
         workerThread.start();
     }
     
+    /***************************************************************************
+     * Simple helper method to return whether startWork() has been called
+    ***************************************************************************/
+    public boolean isStarted() {
+        return started;
+    }
+    
     /***************************************************************************
      * Method to break down GUI elements of completed or canceled jobs
     ***************************************************************************/
     public void endWork(){
-        SwingUtilities.invokeLater(new Runnable() {
-            @Override
-            public void run() {
-                //delete progress bar
-                progressBar.setVisible(false);
-
-                //delete button panel
-                buttonPanel.remove(progressBar);
-
-                //status lable
-                statusLabel.setVisible(false);
-                buttonPanel.remove(statusLabel);
-
-                //suspend button
-                suspendButton.setVisible(false);
-                buttonPanel.remove(suspendButton);
-
-                //cancel button
-                cancelButton.setVisible(false);
-                buttonPanel.remove(cancelButton);
-
-                workDone = true;
-            }
-        });
+        JobTableTemplate model = tableModel;
+        tableModel = null;
+        if(model != null) {
+            model.remove(this);
+        }
+        workDone = true;
     }
     
     /***************************************************************************
      * required method for implementing Runnable interface.  The duration for 
      * the progress bar is also set up here by getting PortTime and using a random
-     * seed to mix things up a bit.
+     * seed to mix things up a bit.  A job read from a Checkpoint keeps the 
+     * duration it had and carries on from the work it had done.
     ***************************************************************************/
     @Override
     public void run() {
-        Random rand = new Random();
-        PortTime portTime = new PortTime();
-        int time = portTime.getPortTime();
-        double startTime = time;
-        double stopTime = time + (rand.nextInt(300) +100) * duration;
-        double timeNeeded = stopTime - time;
-        while (time < stopTime && !cancelFlag) {
+        startTime = PortTime.now();
+        nextSegment("working");
+        SeaPortEvents.jobChanged(this, "started", "scheduler", 0L);
+        EventJournal.jobChanged(this, EventJournal.STARTED);
+        if(neededMillis <= 0.0) {
+            Random rand = new Random();
+            neededMillis = (rand.nextInt(MILLIS_PER_HOUR_SPREAD) + MIN_MILLIS_PER_HOUR) * duration;
+        }
+        double stopTime = neededMillis;
+        lastProgress = System.nanoTime();
+        while (workedMillis < stopTime && !cancelFlag) {
             try {
                 Thread.sleep(100);
             } 
             catch (InterruptedException e) {
                 System.out.println(e);
             }
-            if (!suspendFlag) {
-                displayStatus(Status.WORKING);
-                time += 100;
-                progressBar.setValue((int) (((time - startTime) / timeNeeded) * 100));
+            if (!suspendFlag && !preempted) {
+                workedMillis += 100;
+                lastProgress = System.nanoTime();
+                displayStatus(Status.WORKING, (int) ((workedMillis / stopTime) * 100));
             } 
             else {
-                displayStatus(Status.SUSPENDED);
+                displayStatus(suspendFlag ? Status.SUSPENDED : Status.WAITING, progress);
             }
         }
-        progressBar.setValue(100);
-        displayStatus(Status.COMPLETE);
+        endTime = PortTime.now();
+        nextSegment(null);
+        LifecycleTrace.jobEnded(this, cancelFlag ? "cancelled" : "complete", endTime.getPortTime());
+        if(!cancelFlag) {
+            SeaPortEvents.jobChanged(this, "completed", "finished", endTime.getPortTime() - startTime.getPortTime());
+            EventJournal.jobChanged(this, EventJournal.COMPLETED);
+        }
+        displayStatus(Status.COMPLETE, 100);
         workDone = true;   
     }
     
+    /***************************************************************************
+     * Ends the stretch of time the job spent in one state, tracing it, and 
+     * starts the next
+     * @param next working, suspended or preempted, null once the job ends
+    ***************************************************************************/
+    private synchronized void nextSegment(String next) {
+        long now = PortTime.now().getPortTime();
+        if(segment != null) {
+            LifecycleTrace.jobSpan(this, segment, segmentStart, now);
+        }
+        segment = next;
+        segmentStart = now;
+    }
+    
+    /***************************************************************************
+     * Records the port and dock the job is worked at
+     * @param port port index
+     * @param dock dock index
+    ***************************************************************************/
+    void setBerth(int port, int dock) {
+        portIndex = port;
+        dockIndex = dock;
+    }
+    
+    /***************************************************************************
+     * Getter for the index of the port the job is worked at, -1 if unknown
+    ***************************************************************************/
+    public int getPortIndex() {
+        return portIndex;
+    }
+    
+    /***************************************************************************
+     * Getter for the index of the dock the job is worked at, -1 if unknown
+    ***************************************************************************/
+    public int getDockIndex() {
+        return dockIndex;
+    }
+    
+    /***************************************************************************
+     * Getter for startTime, null until the job starts
+    ***************************************************************************/
+    public PortTime getStartTime() {
+        return startTime;
+    }
+    
+    /***************************************************************************
+     * Getter for endTime, null until the job ends
+    ***************************************************************************/
+    public PortTime getEndTime() {
+        return endTime;
+    }
+    
+    /***************************************************************************
+     * Getter for the milliseconds from start to end, NaN until the job ends
+    ***************************************************************************/
+    public double getServiceMillis() {
+        return PortTime.millisBetween(startTime, endTime);
+    }
+    
     /***************************************************************************
      * Simple helper method to toggle the suspense flag
     ***************************************************************************/
     public void setSuspend(){
         suspendFlag = !suspendFlag;
+        if(started && !workDone) {
+            nextSegment(suspendFlag ? "suspended" : preempted ? "preempted" : "working");
+        }
+        SeaPortEvents.jobChanged(this, suspendFlag ? "suspended" : "resumed", "user", serviceSoFar());
+        EventJournal.jobChanged(this, suspendFlag ? EventJournal.SUSPENDED : EventJournal.RESUMED);
+    }
+    
+    /***************************************************************************
+     * Pauses the job so its workers can be given to a job of higher priority.
+     * Progress is kept and the job carries on from there when resumed.  This 
+     * is separate from the User's Suspend button.
+    ***************************************************************************/
+    void preempt() {
+        preempted = true;
+        displayStatus(Status.WAITING, progress);
+        nextSegment(suspendFlag ? "suspended" : "preempted");
+        SeaPortEvents.jobChanged(this, "suspended", "preempted", serviceSoFar());
+        EventJournal.jobChanged(this, EventJournal.PREEMPTED);
+    }
+    
+    /***************************************************************************
+     * Lets a preempted job carry on
+    ***************************************************************************/
+    void resume() {
+        preempted = false;
+        nextSegment(suspendFlag ? "suspended" : "working");
+        SeaPortEvents.jobChanged(this, "resumed", "scheduler", serviceSoFar());
+        EventJournal.jobChanged(this, EventJournal.RESUMED);
+    }
+    
+    /***************************************************************************
+     * Simple helper method to return the preempted flag
+    ***************************************************************************/
+    public boolean isPreempted() {
+        return preempted;
     }
     
     /***************************************************************************
@@ -221,6 +423,61 @@ public class Job extends Thing implements Runnable{
     public void setCancel(){
         cancelFlag = true;
         workDone = true;
+        SeaPortEvents.jobChanged(this, "cancelled", "user", serviceSoFar());
+        EventJournal.jobChanged(this, EventJournal.CANCELLED);
+    }
+    
+    /***************************************************************************
+     * Simple helper method for the nanoseconds since the job started, 0 if it
+     * has not started
+    ***************************************************************************/
+    private long serviceSoFar() {
+        PortTime started = startTime;
+        return started != null ? PortTime.now().getPortTime() - started.getPortTime() : 0L;
+    }
+    
+    /***************************************************************************
+     * Stops the job for a shutdown or because it stalled.  Its worker thread 
+     * ends within one tick, and a job that never started is finished at once.
+     * @param reason
+    ***************************************************************************/
+    synchronized void stop(String reason) {
+        if(workDone || cancelFlag) {
+            return;
+        }
+        cancelFlag = true;
+        if(!started) {
+            workDone = true;
+        }
+        SeaPortEvents.jobChanged(this, "cancelled", reason, serviceSoFar());
+        EventJournal.jobChanged(this, EventJournal.CANCELLED);
+    }
+    
+    /***************************************************************************
+     * Waits for the job's worker thread to end
+     * @param timeoutMillis longest to wait
+     * @return true if the thread has ended or was never started
+    ***************************************************************************/
+    boolean awaitEnd(long timeoutMillis) throws InterruptedException {
+        if(timeoutMillis > 0) {
+            workerThread.join(timeoutMillis);
+        }
+        return !workerThread.isAlive();
+    }
+    
+    /***************************************************************************
+     * Getter for System.nanoTime() when the job last made progress, 0 if it
+     * has not started
+    ***************************************************************************/
+    public long getLastProgress() {
+        return lastProgress;
+    }
+    
+    /***************************************************************************
+     * Simple helper method to return the cancel flag
+    ***************************************************************************/
+    public boolean isCancelled() {
+        return cancelFlag;
     }
     
     /***************************************************************************
@@ -231,36 +488,20 @@ public class Job extends Thing implements Runnable{
     }
     
     /***************************************************************************
-     * Simple helper method set the JLabel status.  Uses different colors to 
-     * differentiate between the status
-    ***************************************************************************/
-    private void displayStatus(Status st) {
-        SwingUtilities.invokeLater(new Runnable() {
-            @Override
-            public void run() {
-                status = st;
-                switch(status) {
-                    case WORKING:
-                        statusLabel.setOpaque(true);
-                        statusLabel.setBackground(Color.BLUE);
-                        statusLabel.setForeground(Color.WHITE);
-                        statusLabel.setText("Working");
-                        break;
-                    case SUSPENDED:
-                        statusLabel.setOpaque(true);
-                        statusLabel.setBackground(Color.RED);
-                        statusLabel.setForeground(Color.WHITE);
-                        statusLabel.setText("Suspended");
-                        break;
-                    case COMPLETE:
-                        statusLabel.setOpaque(true);
-                        statusLabel.setBackground(Color.GREEN);
-                        statusLabel.setForeground(Color.BLACK);
-                        statusLabel.setText("Complete");
-                        break;
-                }
-            }
-        });
+     * Simple helper method set the status and progress.  The table row is only
+     * repainted when one of them actually changes.
+    ***************************************************************************/
+    private void displayStatus(Status st, int pct) {
+        int clamped = Math.max(0, Math.min(100, pct));
+        if(status == st && progress == clamped) {
+            return;
+        }
+        status = st;
+        progress = clamped;
+        JobTableTemplate model = tableModel;
+        if(model != null) {
+            model.update(this);
+        }
     }
     
     /***************************************************************************
@@ -274,6 +515,12 @@ public class Job extends Thing implements Runnable{
         for(String string : requirements) {
             outJob += String.format("%s, ", string);
         }
+        if(!dependencies.isEmpty()) {
+            outJob += String.format("After: ");
+            for(Integer index : dependencies) {
+                outJob += String.format("%d, ", index);
+            }
+        }
         outJob += String.format(" ");
         return outJob;
     }
@@ -0,0 +1,87 @@
+package cmsc335_project_3_elinkowski;
+
+import java.awt.Component;
+import java.awt.event.ActionEvent;
+import java.awt.event.ActionListener;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import javax.swing.AbstractCellEditor;
+import javax.swing.JButton;
+import javax.swing.JTable;
+import javax.swing.table.TableCellEditor;
+import javax.swing.table.TableCellRenderer;
+
+/*******************************************************************************
+ * File name: JobButtonCell class
+ * Date: 20181102 1005L
+ * Author: Keith R. Elinkowski
+ * Purpose: Extends AbstractCellEditor and implements TableCellRenderer and 
+ * TableCellEditor.  Paints a button in a job table column and runs an action 
+ * on the row's Job when it is clicked.  Used for the Suspend and Cancel 
+ * buttons so no JButton has to be created for each Job.
+*******************************************************************************/
+public class JobButtonCell extends AbstractCellEditor 
+        implements TableCellRenderer, TableCellEditor, ActionListener {
+    private static final long serialVersionUID = 1L;
+    private final JButton renderButton;
+    private final JButton editButton;
+    private final Function<Job, String> label;
+    private final Consumer<Job> action;
+    private Job job;
+    
+    /***************************************************************************
+     * JobButtonCell Constructor
+     * @param label text of the button for a given Job
+     * @param action work done on the Job when the button is clicked
+    ***************************************************************************/
+    public JobButtonCell(Function<Job, String> label, Consumer<Job> action) {
+        this.label = label;
+        this.action = action;
+        renderButton = new JButton();
+        editButton = new JButton();
+        editButton.setFocusPainted(false);
+        editButton.addActionListener(this);
+    }
+    
+    /***************************************************************************
+     * @Override of getTableCellRendererComponent() from TableCellRenderer
+    ***************************************************************************/
+    @Override
+    public Component getTableCellRendererComponent(JTable table, Object value, 
+            boolean isSelected, boolean hasFocus, int row, int column) {
+        renderButton.setText(value instanceof Job ? label.apply((Job)value) : "");
+        return renderButton;
+    }
+    
+    /***************************************************************************
+     * @Override of getTableCellEditorComponent() from TableCellEditor
+    ***************************************************************************/
+    @Override
+    public Component getTableCellEditorComponent(JTable table, Object value, 
+            boolean isSelected, int row, int column) {
+        job = value instanceof Job ? (Job)value : null;
+        editButton.setText(job != null ? label.apply(job) : "");
+        return editButton;
+    }
+    
+    /***************************************************************************
+     * @Override of getCellEditorValue() from CellEditor
+    ***************************************************************************/
+    @Override
+    public Object getCellEditorValue() {
+        return job;
+    }
+    
+    /***************************************************************************
+     * @Override of actionPerformed() from ActionListener.  Runs the action and
+     * ends editing so the row goes back to being painted by the renderer.
+    ***************************************************************************/
+    @Override
+    public void actionPerformed(ActionEvent e) {
+        Job clicked = job;
+        fireEditingStopped();
+        if(clicked != null) {
+            action.accept(clicked);
+        }
+    }
+}
@@ -0,0 +1,307 @@
+package cmsc335_project_3_elinkowski;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.function.ToDoubleFunction;
+
+/*******************************************************************************
+ * File name: JobGraph class
+ * Date: 20181111 1420L
+ * Author: Keith R. Elinkowski
+ * Purpose: The Jobs of one docked ship arranged by their after: dependencies.
+ * A Job is ready as soon as every Job it depends on is finished, so the ship's
+ * work runs with as much in parallel as the dependencies allow.  Ready Jobs
+ * are handed out longest remaining path first, keeping the critical path
+ * moving.  The length of the critical path is the predicted turnaround, which
+ * is compared with the actual time the ship held its dock when it leaves.
+ * Each Job also inherits the highest priority of any Job that waits on it, so
+ * a Job that urgent work depends on is never treated as less urgent than that
+ * work.  Dependencies on unknown Jobs are ignored, and so are dependencies
+ * between Jobs that form a cycle.  A Job that depends on a Job in a cycle 
+ * still waits for it.
+*******************************************************************************/
+public class JobGraph {
+    private final Ship ship;
+    private final List<Job> order;
+    private final IdentityHashMap<Job, List<Job>> dependsOn;
+    private final IdentityHashMap<Job, Double> remaining;
+    private final IdentityHashMap<Job, Double> priority;
+    private final int inherited;
+    private final List<Job> criticalPath;
+    private final double predictedMillis;
+    private final boolean cycle;
+    private final long dockedAt;
+
+    /***************************************************************************
+     * JobGraph Constructor.  Builds the graph when the ship docks.
+     * @param ship
+     * @param basePriority priority of each Job before inheritance
+    ***************************************************************************/
+    public JobGraph(Ship ship, ToDoubleFunction<Job> basePriority) {
+        this(ship, basePriority, System.nanoTime());
+    }
+
+    /***************************************************************************
+     * JobGraph Constructor.  Builds the graph again for a ship that has been
+     * docked since dockedAt, after Jobs were added to it.
+     * @param ship
+     * @param basePriority priority of each Job before inheritance
+     * @param dockedAt System.nanoTime() when the ship docked
+    ***************************************************************************/
+    public JobGraph(Ship ship, ToDoubleFunction<Job> basePriority, long dockedAt) {
+        this.ship = ship;
+        this.dockedAt = dockedAt;
+        HashMap<Integer, Job> byIndex = new HashMap<>();
+        for(Job job : ship.getJobs()) {
+            byIndex.put(job.getIndex(), job);
+        }
+        dependsOn = new IdentityHashMap<>();
+        IdentityHashMap<Job, List<Job>> dependents = new IdentityHashMap<>();
+        IdentityHashMap<Job, Integer> waitingOn = new IdentityHashMap<>();
+        for(Job job : ship.getJobs()) {
+            dependents.put(job, new ArrayList<>());
+        }
+        for(Job job : ship.getJobs()) {
+            List<Job> before = new ArrayList<>();
+            for(Integer index : job.getDependencies()) {
+                Job dependency = byIndex.get(index);
+                if(dependency != null && dependency != job && !before.contains(dependency)) {
+                    before.add(dependency);
+                    dependents.get(dependency).add(job);
+                }
+            }
+            dependsOn.put(job, before);
+        }
+        IdentityHashMap<Job, Integer> component = components(ship.getJobs(), dependents);
+        boolean looped = false;
+        for(Job job : ship.getJobs()) {
+            Integer own = component.get(job);
+            looped |= dependsOn.get(job).removeIf(dependency -> component.get(dependency).equals(own));
+            dependents.get(job).removeIf(dependent -> component.get(dependent).equals(own));
+            waitingOn.put(job, dependsOn.get(job).size());
+        }
+        cycle = looped;
+        order = new ArrayList<>(ship.getJobs().size());
+        ArrayDeque<Job> free = new ArrayDeque<>();
+        for(Job job : ship.getJobs()) {
+            if(waitingOn.get(job) == 0) {
+                free.add(job);
+            }
+        }
+        while(!free.isEmpty()) {
+            Job job = free.poll();
+            order.add(job);
+            for(Job dependent : dependents.get(job)) {
+                if(waitingOn.merge(dependent, -1, Integer::sum) == 0) {
+                    free.add(dependent);
+                }
+            }
+        }
+        remaining = new IdentityHashMap<>();
+        priority = new IdentityHashMap<>();
+        int boosted = 0;
+        for(int i = order.size() - 1; i >= 0; i--) {
+            Job job = order.get(i);
+            double longest = 0.0;
+            double own = basePriority.applyAsDouble(job);
+            double highest = own;
+            for(Job dependent : dependents.get(job)) {
+                longest = Math.max(longest, remaining.get(dependent));
+                highest = Math.max(highest, priority.get(dependent));
+            }
+            remaining.put(job, job.getExpectedMillis() + longest);
+            priority.put(job, highest);
+            if(highest > own) {
+                boosted++;
+            }
+        }
+        inherited = boosted;
+        criticalPath = new ArrayList<>();
+        Job next = null;
+        for(Job job : ship.getJobs()) {
+            if(dependsOn.get(job).isEmpty() && (next == null || remaining.get(job) > remaining.get(next))) {
+                next = job;
+            }
+        }
+        predictedMillis = next == null ? 0.0 : remaining.get(next);
+        while(next != null) {
+            criticalPath.add(next);
+            Job longest = null;
+            for(Job dependent : dependents.get(next)) {
+                if(longest == null || remaining.get(dependent) > remaining.get(longest)) {
+                    longest = dependent;
+                }
+            }
+            next = longest;
+        }
+    }
+
+    /***************************************************************************
+     * Numbers the strongly connected components of the graph with Tarjan's
+     * algorithm, so the Jobs of each cycle share a number.  The depth first 
+     * search keeps its own stack, so a long chain of Jobs cannot overflow the
+     * thread's stack.
+     * @param jobs
+     * @param dependents the Jobs that depend on each Job
+     * @return the component of each Job
+    ***************************************************************************/
+    private static IdentityHashMap<Job, Integer> components(List<Job> jobs, IdentityHashMap<Job, List<Job>> dependents) {
+        IdentityHashMap<Job, Integer> index = new IdentityHashMap<>();
+        IdentityHashMap<Job, Integer> low = new IdentityHashMap<>();
+        IdentityHashMap<Job, Integer> component = new IdentityHashMap<>();
+        ArrayDeque<Job> open = new ArrayDeque<>();
+        ArrayDeque<Job> path = new ArrayDeque<>();
+        ArrayDeque<Integer> edges = new ArrayDeque<>();
+        int visited = 0;
+        int found = 0;
+        for(Job root : jobs) {
+            if(index.containsKey(root)) {
+                continue;
+            }
+            index.put(root, visited);
+            low.put(root, visited++);
+            open.push(root);
+            path.push(root);
+            edges.push(0);
+            while(!path.isEmpty()) {
+                Job job = path.peek();
+                int edge = edges.pop();
+                List<Job> out = dependents.get(job);
+                if(edge < out.size()) {
+                    edges.push(edge + 1);
+                    Job next = out.get(edge);
+                    if(!index.containsKey(next)) {
+                        index.put(next, visited);
+                        low.put(next, visited++);
+                        open.push(next);
+                        path.push(next);
+                        edges.push(0);
+                    }
+                    else if(!component.containsKey(next)) {
+                        low.put(job, Math.min(low.get(job), index.get(next)));
+                    }
+                    continue;
+                }
+                path.pop();
+                if(!path.isEmpty()) {
+                    Job parent = path.peek();
+                    low.put(parent, Math.min(low.get(parent), low.get(job)));
+                }
+                if(low.get(job).equals(index.get(job))) {
+                    Job member;
+                    do {
+                        member = open.pop();
+                        component.put(member, found);
+                    } while(member != job);
+                    found++;
+                }
+            }
+        }
+        return component;
+    }
+
+    /***************************************************************************
+     * Getter for ship
+    ***************************************************************************/
+    public Ship getShip() {
+        return ship;
+    }
+
+    /***************************************************************************
+     * Jobs not yet started whose dependencies are all finished, longest
+     * remaining path first
+    ***************************************************************************/
+    public List<Job> readyJobs() {
+        ArrayList<Job> ready = new ArrayList<>();
+        for(Job job : order) {
+            if(job.isStarted() || job.finished()) {
+                continue;
+            }
+            boolean waiting = false;
+            for(Job dependency : dependsOn.get(job)) {
+                if(!dependency.finished()) {
+                    waiting = true;
+                    break;
+                }
+            }
+            if(!waiting) {
+                ready.add(job);
+            }
+        }
+        ready.sort((a, b) -> Double.compare(remaining.get(b), remaining.get(a)));
+        return ready;
+    }
+
+    /***************************************************************************
+     * Getter for a Job's priority, including any inherited from Jobs that 
+     * wait on it
+     * @param job
+    ***************************************************************************/
+    public double getPriority(Job job) {
+        Double value = priority.get(job);
+        return value != null ? value : 0.0;
+    }
+
+    /***************************************************************************
+     * Getter for the number of Jobs whose priority was raised by a Job 
+     * waiting on them
+    ***************************************************************************/
+    public int getInheritedCount() {
+        return inherited;
+    }
+
+    /***************************************************************************
+     * Getter for the Jobs along the longest path through the graph
+    ***************************************************************************/
+    public List<Job> getCriticalPath() {
+        return criticalPath;
+    }
+
+    /***************************************************************************
+     * Getter for the predicted turnaround in milliseconds, the expected length
+     * of the critical path
+    ***************************************************************************/
+    public double getPredictedMillis() {
+        return predictedMillis;
+    }
+
+    /***************************************************************************
+     * Getter for System.nanoTime() when the ship docked
+    ***************************************************************************/
+    public long getDockedAt() {
+        return dockedAt;
+    }
+
+    /***************************************************************************
+     * Getter for the milliseconds the ship has held its dock so far
+    ***************************************************************************/
+    public double getActualMillis() {
+        return (System.nanoTime() - dockedAt) / 1e6;
+    }
+
+    /***************************************************************************
+     * Simple helper method to tell if some dependencies were ignored because
+     * they formed a cycle
+    ***************************************************************************/
+    public boolean hasCycle() {
+        return cycle;
+    }
+
+    /***************************************************************************
+     * @Override of toString() Method, the critical path by Job name
+    ***************************************************************************/
+    @Override
+    public String toString() {
+        StringBuilder path = new StringBuilder();
+        for(Job job : criticalPath) {
+            if(path.length() > 0) {
+                path.append(" -> ");
+            }
+            path.append(job.getName());
+        }
+        return path.toString();
+    }
+}
@@ -0,0 +1,41 @@
+package cmsc335_project_3_elinkowski;
+
+import java.awt.Color;
+import java.awt.Component;
+import javax.swing.JProgressBar;
+import javax.swing.JTable;
+import javax.swing.table.TableCellRenderer;
+
+/*******************************************************************************
+ * File name: JobProgressRenderer class
+ * Date: 20181102 0930L
+ * Author: Keith R. Elinkowski
+ * Purpose: Extends JProgressBar and implements TableCellRenderer.  A single 
+ * progress bar is used to paint the progress column of every visible row in 
+ * the job table, instead of one JProgressBar per Job.
+*******************************************************************************/
+public class JobProgressRenderer extends JProgressBar implements TableCellRenderer {
+    private static final long serialVersionUID = 1L;
+    
+    /***************************************************************************
+     * JobProgressRenderer Constructor
+    ***************************************************************************/
+    public JobProgressRenderer() {
+        super(0, 100);
+        setStringPainted(true);
+        setBackground(Color.BLACK);
+        setForeground(Color.GREEN);
+        setBorderPainted(false);
+    }
+    
+    /***************************************************************************
+     * @Override of getTableCellRendererComponent() from TableCellRenderer.  
+     * Sets the bar to the progress of the row being painted.
+    ***************************************************************************/
+    @Override
+    public Component getTableCellRendererComponent(JTable table, Object value, 
+            boolean isSelected, boolean hasFocus, int row, int column) {
+        setValue(value instanceof Integer ? (Integer)value : 0);
+        return this;
+    }
+}
@@ -0,0 +1,68 @@
+package cmsc335_project_3_elinkowski;
+
+import java.awt.Color;
+import java.awt.Component;
+import java.awt.Font;
+import javax.swing.JLabel;
+import javax.swing.JTable;
+import javax.swing.SwingConstants;
+import javax.swing.table.DefaultTableCellRenderer;
+
+/*******************************************************************************
+ * File name: JobStatusRenderer class
+ * Date: 20181102 0945L
+ * Author: Keith R. Elinkowski
+ * Purpose: Extends DefaultTableCellRenderer.  Paints the status column of the 
+ * job table using different colors to differentiate between the status.
+*******************************************************************************/
+public class JobStatusRenderer extends DefaultTableCellRenderer {
+    private static final long serialVersionUID = 1L;
+    
+    /***************************************************************************
+     * JobStatusRenderer Constructor
+    ***************************************************************************/
+    public JobStatusRenderer() {
+        setHorizontalAlignment(SwingConstants.CENTER);
+        setFont(new Font("Monospace", 1, 12));
+        setOpaque(true);
+    }
+    
+    /***************************************************************************
+     * @Override of getTableCellRendererComponent() from 
+     * DefaultTableCellRenderer.  Colors the cell for the Job status.
+    ***************************************************************************/
+    @Override
+    public Component getTableCellRendererComponent(JTable table, Object value, 
+            boolean isSelected, boolean hasFocus, int row, int column) {
+        JLabel label = (JLabel) super.getTableCellRendererComponent(table, value, 
+                isSelected, hasFocus, row, column);
+        label.setFont(getFont());
+        if(!(value instanceof Job.Status)) {
+            label.setText("Status");
+            return label;
+        }
+        switch((Job.Status)value) {
+            case WORKING:
+                label.setBackground(Color.BLUE);
+                label.setForeground(Color.WHITE);
+                label.setText("Working");
+                break;
+            case SUSPENDED:
+                label.setBackground(Color.RED);
+                label.setForeground(Color.WHITE);
+                label.setText("Suspended");
+                break;
+            case WAITING:
+                label.setBackground(Color.YELLOW);
+                label.setForeground(Color.BLACK);
+                label.setText("Waiting");
+                break;
+            case COMPLETE:
+                label.setBackground(Color.GREEN);
+                label.setForeground(Color.BLACK);
+                label.setText("Complete");
+                break;
+        }
+        return label;
+    }
+}
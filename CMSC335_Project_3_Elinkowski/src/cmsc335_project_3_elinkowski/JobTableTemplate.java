@@ -2,40 +2,72 @@ package cmsc335_project_3_elinkowski;
 
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import javax.swing.SwingUtilities;
 import javax.swing.table.*;
 
 /*******************************************************************************
- * File name: World class
+ * File name: JobTableTemplate class
  * Date: 20181025 1009L
  * Author: Keith R. Elinkowski
  * Purpose: Extends AbstractTableModel class.  Class is used to generate a table 
  * template with specific headers that can add and remove rows from the table 
- * as needed.
+ * as needed.  Rows are keyed by Job index so a row can be found, added or
+ * removed in constant time, and only the affected rows are repainted.
  ******************************************************************************/
 public class JobTableTemplate extends AbstractTableModel{
-    private final ArrayList<String[]> stringList;
+    public static final int STATUS_COLUMN = 4;
+    public static final int PROGRESS_COLUMN = 5;
+    public static final int SUSPEND_COLUMN = 6;
+    public static final int CANCEL_COLUMN = 7;
+    private final ArrayList<JobRow> rowList;
+    private final HashMap<Integer, Integer> rowIndex;
+    private final Set<Job> dirtyJobs;
+    private final AtomicBoolean flushPending;
     private final String[] tableHeader;
 
+    /***************************************************************************
+     * Simple holder for one row of the table.  The text columns are built once
+     * when the row is added, the status columns are read from the Job.
+    ***************************************************************************/
+    private static class JobRow {
+        private final Job job;
+        private final String[] cells;
+
+        JobRow(Job job, String[] cells) {
+            this.job = job;
+            this.cells = cells;
+        }
+    }
+
     /***************************************************************************
      * JobTableTemplate Constructor
     ***************************************************************************/
     JobTableTemplate(String[] header){
         this.tableHeader = header;
-        stringList = new ArrayList<>();
+        rowList = new ArrayList<>();
+        rowIndex = new HashMap<>();
+        dirtyJobs = ConcurrentHashMap.newKeySet();
+        flushPending = new AtomicBoolean(false);
     }
     
     /***************************************************************************
      * @Override of getRowCount() from AbstractTableModel class.  returns the 
      * number of rows from the JTable
     ***************************************************************************/
+    @Override
     public int getRowCount(){
-        return stringList.size();
+        return rowList.size();
     }
     
     /***************************************************************************
      * @Override of getColumnCount() from AbstractTableModel class.  returns the 
      * number of columns from the JTable
     ***************************************************************************/
+    @Override
     public int getColumnCount(){
         return tableHeader.length;
     }
@@ -46,20 +78,57 @@ public class JobTableTemplate extends AbstractTableModel{
      * @Override of getValueAt() from AbstractTableModel class.  Returns the 
      * value at requested x and y coordinate of JTable
     ***************************************************************************/
-    public String getValueAt(int row, int col){
-        String getValueAtReturn = "";
-        try {
-            if(stringList.get(row)[col] != null) {
-                getValueAtReturn = stringList.get(row)[col];
-            }
-        }catch(ArrayIndexOutOfBoundsException e) {
-            System.out.println(e);
-            return null;
-        }catch(IndexOutOfBoundsException e) {
-            System.out.println(e);
+    @Override
+    public Object getValueAt(int row, int col){
+        if(row < 0 || row >= rowList.size()) {
             return null;
         }
-        return getValueAtReturn;
+        JobRow jobRow = rowList.get(row);
+        switch(col) {
+            case STATUS_COLUMN:
+                return jobRow.job.getStatus();
+            case PROGRESS_COLUMN:
+                return jobRow.job.getProgress();
+            case SUSPEND_COLUMN:
+            case CANCEL_COLUMN:
+                return jobRow.job;
+            default:
+                if(col >= 0 && col < jobRow.cells.length) {
+                    return jobRow.cells[col];
+                }
+                return null;
+        }
+    }
+
+    /***************************************************************************
+     * @param col
+     * @Override of getColumnClass() from AbstractTableModel class.  Lets the
+     * JTable pick the renderer for the status and progress columns.
+    ***************************************************************************/
+    @Override
+    public Class<?> getColumnClass(int col) {
+        switch(col) {
+            case STATUS_COLUMN:
+                return Job.Status.class;
+            case PROGRESS_COLUMN:
+                return Integer.class;
+            case SUSPEND_COLUMN:
+            case CANCEL_COLUMN:
+                return Job.class;
+            default:
+                return String.class;
+        }
+    }
+
+    /***************************************************************************
+     * @param row
+     * @param col
+     * @Override of isCellEditable() from AbstractTableModel class.  Only the
+     * button columns can be clicked.
+    ***************************************************************************/
+    @Override
+    public boolean isCellEditable(int row, int col) {
+        return col == SUSPEND_COLUMN || col == CANCEL_COLUMN;
     }
     
     /***************************************************************************
@@ -67,61 +136,130 @@ public class JobTableTemplate extends AbstractTableModel{
      * @Override of getColumnName() from AbstractTableModel class.  Returns the 
      * column name for the passed index of the JTable
     ***************************************************************************/
+    @Override
     public String getColumnName(int index){
-        String getColumnNameReturn = "";
-        try {
-            if(index > 0) {
-                getColumnNameReturn = tableHeader[index];
-            }
-        }catch(ArrayIndexOutOfBoundsException e) {
-            System.out.println(e);
-            return null;
-        }catch(IndexOutOfBoundsException e) {
-            System.out.println(e);
-            return null;
+        if(index >= 0 && index < tableHeader.length) {
+            return tableHeader[index];
         }
-        return getColumnNameReturn;
+        return "";
     }
     
     /***************************************************************************
-     * Add a new row to the JTable
+     * Getter for the row currently holding a Job, -1 if it is not in the table
+     * @param job
+    ***************************************************************************/
+    public int getRowOf(Job job) {
+        Integer row = rowIndex.get(job.getIndex());
+        return row == null ? -1 : row;
+    }
+
+    /***************************************************************************
+     * Add a new row to the JTable.  Safe to call from any thread, the row is
+     * added on the event dispatch thread.
      * @param ship
      * @param structureMap
      * @param job
     ***************************************************************************/
-    public void add(Ship ship, HashMap<Integer, Thing>structureMap, Job job) {
+    public void add(Ship ship, Map<Integer, Thing>structureMap, Job job) {
         String[] row = new String[4];
         row[0] = ship.getName();
         Thing thing = structureMap.get(ship.getParent());
         row[1] = structureMap.get(thing.getParent()).getName() + ":" + thing.getName();
         row[2] = job.getName();
         row[3] = "";
-        try {
-            if(job.getRequirements().size() > 0) {
-                for(int i = 0; i <= job.getRequirements().size()-1; i++){
-                    row[3] += job.getRequirements().get(i) + " ";
-                }
-            }
-            else{
-                row[3] = "No Requirements";
+        if(job.getRequirements().size() > 0) {
+            for(String requirement : job.getRequirements()){
+                row[3] += requirement + " ";
             }
-        }catch(ArrayIndexOutOfBoundsException e) {
-            System.out.println(e);
         }
-        stringList.add(row);
-        fireTableDataChanged();
+        else{
+            row[3] = "No Requirements";
+        }
+        job.displayWork(this);
+        JobRow jobRow = new JobRow(job, row);
+        if(SwingUtilities.isEventDispatchThread()) {
+            insertRow(jobRow);
+        }
+        else {
+            SwingUtilities.invokeLater(() -> insertRow(jobRow));
+        }
     }
     
     /***************************************************************************
-     * Removes a row from the JTable
-     * @param name
+     * Appends a row and fires a single row inserted event
+    ***************************************************************************/
+    private void insertRow(JobRow jobRow) {
+        if(rowIndex.containsKey(jobRow.job.getIndex())) {
+            return;
+        }
+        int row = rowList.size();
+        rowList.add(jobRow);
+        rowIndex.put(jobRow.job.getIndex(), row);
+        fireTableRowsInserted(row, row);
+    }
+
+    /***************************************************************************
+     * Removes a row from the JTable.  Safe to call from any thread.
+     * @param job
+    ***************************************************************************/
+    public void remove(Job job){
+        if(SwingUtilities.isEventDispatchThread()) {
+            removeRow(job.getIndex());
+        }
+        else {
+            SwingUtilities.invokeLater(() -> removeRow(job.getIndex()));
+        }
+    }
+
+    /***************************************************************************
+     * Removes the row for a Job index in constant time by moving the last row
+     * into the freed slot.
+    ***************************************************************************/
+    private void removeRow(int jobIndex) {
+        Integer row = rowIndex.remove(jobIndex);
+        if(row == null) {
+            return;
+        }
+        int last = rowList.size() - 1;
+        if(row != last) {
+            JobRow moved = rowList.get(last);
+            rowList.set(row, moved);
+            rowIndex.put(moved.job.getIndex(), row);
+            fireTableRowsUpdated(row, row);
+        }
+        rowList.remove(last);
+        fireTableRowsDeleted(last, last);
+    }
+
+    /***************************************************************************
+     * Marks a Job row as changed.  Called by the worker threads, updates are
+     * collected and repainted in one pass on the event dispatch thread.
+     * @param job
+    ***************************************************************************/
+    public void update(Job job) {
+        dirtyJobs.add(job);
+        if(flushPending.compareAndSet(false, true)) {
+            SwingUtilities.invokeLater(this::flushUpdates);
+        }
+    }
+
+    /***************************************************************************
+     * Getter for the number of Job rows waiting to be repainted
+    ***************************************************************************/
+    public int getPendingUpdates() {
+        return dirtyJobs.size();
+    }
+
+    /***************************************************************************
+     * Fires a row updated event for every Job that changed since the last pass
     ***************************************************************************/
-    public void remove(String name){
-        for(String[] stringArray : stringList){
-            if(stringArray[2].equals(name)){
-                stringList.remove(stringArray);
-                fireTableDataChanged();
-                break;
+    private void flushUpdates() {
+        flushPending.set(false);
+        for(Job job : dirtyJobs) {
+            dirtyJobs.remove(job);
+            int row = getRowOf(job);
+            if(row >= 0) {
+                fireTableRowsUpdated(row, row);
             }
         }
     }
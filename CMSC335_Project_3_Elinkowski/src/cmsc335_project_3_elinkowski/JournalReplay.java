@@ -0,0 +1,280 @@
+package cmsc335_project_3_elinkowski;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.TreeMap;
+
+/*******************************************************************************
+ * File name: JournalReplay class
+ * Date: 20181118 1045L
+ * Author: Keith R. Elinkowski
+ * Purpose: Plays back a file written by the EventJournal and rebuilds where
+ * every ship was and what state every Job was in at any time since the 
+ * journal began.  The file is mapped a chunk at a time rather than read, and
+ * each record only updates a small map entry, so a million records replay in
+ * well under a second.  A speed of 1 replays in real time, 10 ten times as 
+ * fast and 0 as fast as the disk allows.  Ships and Jobs are known by index
+ * only; the journal holds no names or skills, so the state rebuilt is the 
+ * state of the docks and queues rather than a whole World.
+*******************************************************************************/
+public class JournalReplay {
+    static final byte QUEUED = 1;
+    static final byte DOCKED = 2;
+    static final byte DEPARTED = 3;
+    private static final long CHUNK_BYTES = EventJournal.RECORD_BYTES * 262144L;
+    private static final long MAX_SLEEP_NANOS = 1000000000L;
+    private final File file;
+    private final long origin;
+    private final HashMap<Integer, ShipState> ships;
+    private final HashMap<Integer, JobState> jobs;
+    private long records;
+    private long skipped;
+    private long lastTime;
+
+    /***************************************************************************
+     * JournalReplay Constructor.  Checks the header of the journal.
+     * @param file
+    ***************************************************************************/
+    public JournalReplay(File file) throws IOException {
+        this.file = file;
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            ByteBuffer header = ByteBuffer.allocate(EventJournal.HEADER_BYTES);
+            while(header.hasRemaining() && channel.read(header) >= 0) {
+                // keep reading until the header is full or the file ends
+            }
+            header.flip();
+            if(header.remaining() < EventJournal.HEADER_BYTES || header.getInt() != EventJournal.MAGIC) {
+                throw new IOException(file + " is not an event journal");
+            }
+            int version = header.getInt();
+            if(version != EventJournal.VERSION) {
+                throw new IOException(file + " is journal version " + version + ", expected " + EventJournal.VERSION);
+            }
+            origin = header.getLong();
+        }
+        ships = new HashMap<>();
+        jobs = new HashMap<>();
+        lastTime = origin;
+    }
+
+    /***************************************************************************
+     * Plays back the journal.  Records later than untilNanos after the journal
+     * began are skipped, so the state left is the state at that time.
+     * @param speed how many times faster than real time, 0 for no waiting
+     * @param untilNanos nanoseconds after the journal began, Long.MAX_VALUE 
+     * for all of it
+     * @return the number of records applied
+    ***************************************************************************/
+    public long replay(double speed, long untilNanos) throws IOException, InterruptedException {
+        long started = System.nanoTime();
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            long size = channel.size();
+            long whole = EventJournal.HEADER_BYTES + (size - EventJournal.HEADER_BYTES) / EventJournal.RECORD_BYTES * EventJournal.RECORD_BYTES;
+            for(long at = EventJournal.HEADER_BYTES; at < whole; at += CHUNK_BYTES) {
+                MappedByteBuffer chunk = channel.map(FileChannel.MapMode.READ_ONLY, at, Math.min(CHUNK_BYTES, whole - at));
+                while(chunk.hasRemaining()) {
+                    long time = chunk.getLong();
+                    byte type = chunk.get();
+                    byte state = chunk.get();
+                    int progress = chunk.getShort();
+                    int port = chunk.getInt();
+                    int dock = chunk.getInt();
+                    int ship = chunk.getInt();
+                    int job = chunk.getInt();
+                    chunk.getInt();
+                    if(time - origin > untilNanos) {
+                        skipped++;
+                        continue;
+                    }
+                    if(speed > 0.0) {
+                        pace(started, time, speed);
+                    }
+                    apply(time, type, state, progress, port, dock, ship, job);
+                }
+            }
+        }
+        return records;
+    }
+
+    /***************************************************************************
+     * Waits until a record is due at the given speed.  Long quiet stretches 
+     * are cut to MAX_SLEEP_NANOS so a replay never looks stuck.
+    ***************************************************************************/
+    private void pace(long started, long time, double speed) throws InterruptedException {
+        long due = (long)((time - origin) / speed);
+        long wait = due - (System.nanoTime() - started);
+        if(wait > 0) {
+            wait = Math.min(wait, MAX_SLEEP_NANOS);
+            Thread.sleep(wait / 1000000L, (int)(wait % 1000000L));
+        }
+    }
+
+    /***************************************************************************
+     * Applies one record to the rebuilt state
+    ***************************************************************************/
+    private void apply(long time, byte type, byte state, int progress, int port, int dock, int ship, int job) {
+        records++;
+        lastTime = Math.max(lastTime, time);
+        switch(type) {
+            case EventJournal.ARRIVED:
+                ships.put(ship, new ShipState(port, EventJournal.NONE, QUEUED));
+                break;
+            case EventJournal.REROUTED:
+            case EventJournal.DOCKED:
+            case EventJournal.DEPARTED:
+                ShipState where = ships.computeIfAbsent(ship, k -> new ShipState(port, EventJournal.NONE, QUEUED));
+                where.port = port;
+                where.dock = type == EventJournal.DOCKED || type == EventJournal.DEPARTED ? dock : EventJournal.NONE;
+                where.status = type == EventJournal.DOCKED ? DOCKED : type == EventJournal.DEPARTED ? DEPARTED : QUEUED;
+                break;
+            case EventJournal.JOB:
+                JobState work = jobs.computeIfAbsent(job, k -> new JobState(ship));
+                work.state = state;
+                work.progress = state == EventJournal.COMPLETED ? 100 : progress;
+                break;
+            default:
+                skipped++;
+                records--;
+        }
+    }
+
+    /***************************************************************************
+     * Getter for the ships seen, by index
+    ***************************************************************************/
+    public Map<Integer, ShipState> getShips() {
+        return ships;
+    }
+
+    /***************************************************************************
+     * Getter for the Jobs seen, by index
+    ***************************************************************************/
+    public Map<Integer, JobState> getJobs() {
+        return jobs;
+    }
+
+    /***************************************************************************
+     * Getter for the time of the latest record applied
+    ***************************************************************************/
+    public PortTime getLastTime() {
+        return new PortTime(lastTime);
+    }
+
+    /***************************************************************************
+     * Getter for the number of records skipped, past the time asked for or of
+     * an unknown type
+    ***************************************************************************/
+    public long getSkipped() {
+        return skipped;
+    }
+
+    /***************************************************************************
+     * The ships queued, docked and departed at each port, and the Jobs in 
+     * each state
+    ***************************************************************************/
+    public String summary() {
+        TreeMap<Integer, int[]> ports = new TreeMap<>();
+        for(ShipState ship : ships.values()) {
+            ports.computeIfAbsent(ship.port, k -> new int[4])[ship.status]++;
+        }
+        int[] states = new int[EventJournal.COMPLETED + 1];
+        for(JobState job : jobs.values()) {
+            states[job.state]++;
+        }
+        StringBuilder out = new StringBuilder();
+        out.append(String.format(">>> REPLAY: %d records from %s to %s\n", records, new PortTime(origin), getLastTime()));
+        for(Map.Entry<Integer, int[]> port : ports.entrySet()) {
+            int[] count = port.getValue();
+            out.append(String.format(">>> PORT %d: %d queued, %d docked, %d departed\n", port.getKey(), count[QUEUED], count[DOCKED], count[DEPARTED]));
+        }
+        out.append(String.format(">>> JOBS: %d working, %d suspended, %d preempted, %d cancelled, %d completed\n",
+                states[EventJournal.STARTED] + states[EventJournal.RESUMED], states[EventJournal.SUSPENDED],
+                states[EventJournal.PREEMPTED], states[EventJournal.CANCELLED], states[EventJournal.COMPLETED]));
+        return out.toString();
+    }
+
+    /***************************************************************************
+     * Plays back a journal from the command line and prints the state it 
+     * leaves.  Arguments: journal file, speed (default 0), seconds after the
+     * journal began to stop at (default all of it).
+    ***************************************************************************/
+    public static void main(String[] args) {
+        if(args.length < 1) {
+            System.out.println("Usage: JournalReplay <journal file> [speed] [until seconds]");
+            return;
+        }
+        try {
+            double speed = args.length > 1 ? Double.parseDouble(args[1]) : 0.0;
+            long until = args.length > 2 ? (long)(Double.parseDouble(args[2]) * 1e9) : Long.MAX_VALUE;
+            JournalReplay replay = new JournalReplay(new File(args[0]));
+            long started = System.nanoTime();
+            long applied = replay.replay(speed, until);
+            double seconds = (System.nanoTime() - started) / 1e9;
+            System.out.print(replay.summary());
+            System.out.println(String.format(">>> Replayed %d records in %.3f seconds, %.0f per second, %d skipped", 
+                    applied, seconds, applied / Math.max(seconds, 1e-9), replay.getSkipped()));
+        } catch (IOException | NumberFormatException e) {
+            System.out.println(e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /***************************************************************************
+     * Where a ship was: its port, its dock if it had one, and QUEUED, DOCKED
+     * or DEPARTED
+    ***************************************************************************/
+    public static final class ShipState {
+        int port;
+        int dock;
+        byte status;
+
+        ShipState(int port, int dock, byte status) {
+            this.port = port;
+            this.dock = dock;
+            this.status = status;
+        }
+
+        public int getPort() {
+            return port;
+        }
+
+        public int getDock() {
+            return dock;
+        }
+
+        public byte getStatus() {
+            return status;
+        }
+    }
+
+    /***************************************************************************
+     * A Job's ship, its last state in the journal and its progress then
+    ***************************************************************************/
+    public static final class JobState {
+        final int ship;
+        byte state;
+        int progress;
+
+        JobState(int ship) {
+            this.ship = ship;
+        }
+
+        public int getShip() {
+            return ship;
+        }
+
+        public byte getState() {
+            return state;
+        }
+
+        public int getProgress() {
+            return progress;
+        }
+    }
+}
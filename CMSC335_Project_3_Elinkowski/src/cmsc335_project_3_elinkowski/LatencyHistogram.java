@@ -0,0 +1,165 @@
+package cmsc335_project_3_elinkowski;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/*******************************************************************************
+ * File name: LatencyHistogram class
+ * Date: 20181115 1340L
+ * Author: Keith R. Elinkowski
+ * Purpose: Counts latencies in nanoseconds into log-linear buckets.  Every 
+ * power of two is split into SUB_BUCKETS equal buckets, so a percentile is
+ * never off by more than one part in SUB_BUCKETS, and the whole range of a 
+ * long fits in a fixed array of counters.  Recording is one atomic increment
+ * and at most a few compare-and-sets for the max, never takes a lock and 
+ * never allocates, so it can stay on all the time.  Percentiles are read from
+ * a Snapshot, which can also reset the counts to start a new interval.
+*******************************************************************************/
+public class LatencyHistogram {
+    private static final int SUB_BITS = 3;
+    private static final int SUB_BUCKETS = 1 << SUB_BITS;
+    private static final int BUCKETS = SUB_BUCKETS + (63 - SUB_BITS) * SUB_BUCKETS;
+    private final AtomicLongArray counts;
+    private final AtomicLong max;
+
+    /***************************************************************************
+     * LatencyHistogram Constructor
+    ***************************************************************************/
+    public LatencyHistogram() {
+        counts = new AtomicLongArray(BUCKETS);
+        max = new AtomicLong();
+    }
+
+    /***************************************************************************
+     * Counts one latency.  A negative latency counts as zero.
+     * @param nanos
+    ***************************************************************************/
+    public void record(long nanos) {
+        long value = Math.max(0L, nanos);
+        counts.incrementAndGet(bucketOf(value));
+        long seen = max.get();
+        while(value > seen && !max.compareAndSet(seen, value)) {
+            seen = max.get();
+        }
+    }
+
+    /***************************************************************************
+     * Takes the counts so far
+    ***************************************************************************/
+    public Snapshot snapshot() {
+        long[] taken = new long[BUCKETS];
+        for(int i = 0; i < BUCKETS; i++) {
+            taken[i] = counts.get(i);
+        }
+        return new Snapshot(taken, max.get());
+    }
+
+    /***************************************************************************
+     * Takes the counts so far and starts them again from zero.  A latency 
+     * recorded while this runs lands in one interval or the next, never both.
+    ***************************************************************************/
+    public Snapshot snapshotAndReset() {
+        long[] taken = new long[BUCKETS];
+        long highest = max.getAndSet(0L);
+        for(int i = 0; i < BUCKETS; i++) {
+            taken[i] = counts.getAndSet(i, 0L);
+        }
+        return new Snapshot(taken, highest);
+    }
+
+    /***************************************************************************
+     * Starts the counts again from zero
+    ***************************************************************************/
+    public void reset() {
+        snapshotAndReset();
+    }
+
+    /***************************************************************************
+     * Simple helper method for the bucket of a latency
+    ***************************************************************************/
+    static int bucketOf(long value) {
+        if(value < SUB_BUCKETS) {
+            return (int)value;
+        }
+        int shift = 63 - Long.numberOfLeadingZeros(value) - SUB_BITS;
+        return SUB_BUCKETS + shift * SUB_BUCKETS + (int)((value >>> shift) & (SUB_BUCKETS - 1));
+    }
+
+    /***************************************************************************
+     * Simple helper method for the largest latency a bucket holds
+    ***************************************************************************/
+    static long highestIn(int bucket) {
+        if(bucket < SUB_BUCKETS) {
+            return bucket;
+        }
+        int shift = (bucket - SUB_BUCKETS) / SUB_BUCKETS;
+        long sub = SUB_BUCKETS + (bucket - SUB_BUCKETS) % SUB_BUCKETS;
+        return ((sub + 1) << shift) - 1;
+    }
+
+    /***************************************************************************
+     * The counts of a LatencyHistogram at one moment
+    ***************************************************************************/
+    public static final class Snapshot {
+        private final long[] counts;
+        private final long max;
+        private final long total;
+
+        Snapshot(long[] counts, long max) {
+            this.counts = counts;
+            long sum = 0L;
+            for(long count : counts) {
+                sum += count;
+            }
+            this.total = sum;
+            this.max = max;
+        }
+
+        /***********************************************************************
+         * Getter for the number of latencies counted
+        ***********************************************************************/
+        public long getCount() {
+            return total;
+        }
+
+        /***********************************************************************
+         * Latency in milliseconds that a share of the counted latencies are
+         * no longer than, NaN if none were counted
+         * @param percentile between 0 and 100
+        ***********************************************************************/
+        public double getPercentile(double percentile) {
+            if(total == 0L) {
+                return Double.NaN;
+            }
+            long rank = Math.max(1L, (long)Math.ceil(total * Math.min(100.0, Math.max(0.0, percentile)) / 100.0));
+            long seen = 0L;
+            for(int i = 0; i < counts.length; i++) {
+                seen += counts[i];
+                if(seen >= rank) {
+                    return Math.min(highestIn(i), max) / 1e6;
+                }
+            }
+            return max / 1e6;
+        }
+
+        /***********************************************************************
+         * Getter for the longest latency in milliseconds, NaN if none were
+         * counted
+        ***********************************************************************/
+        public double getMax() {
+            return total == 0L ? Double.NaN : max / 1e6;
+        }
+
+        /***********************************************************************
+         * @Override of toString() Method
+        ***********************************************************************/
+        @Override
+        public String toString() {
+            if(total == 0L) {
+                return "n=0";
+            }
+            return String.format("n=%d p50=%.1f ms p90=%.1f ms p99=%.1f ms max=%.1f ms", total,
+                    getPercentile(50), getPercentile(90), getPercentile(99), getMax());
+        }
+    }
+}
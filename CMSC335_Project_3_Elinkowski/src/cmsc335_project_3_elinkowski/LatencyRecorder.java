@@ -0,0 +1,67 @@
+package cmsc335_project_3_elinkowski;
+
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+
+/*******************************************************************************
+ * File name: LatencyRecorder class
+ * Date: 20181120 0940L
+ * Author: Keith R. Elinkowski
+ * Purpose: Implements SchedulerListener.  Records queue wait as each ship
+ * docks, and turnaround and each Job's service time as it departs, in the
+ * PortLatencies of its port.  A ship with no arrival time, such as one placed
+ * straight into a World that was built by hand, has no queue wait or
+ * turnaround to record.
+*******************************************************************************/
+public class LatencyRecorder implements SchedulerListener {
+    private final ConcurrentHashMap<SeaPort, PortLatencies> latencies = new ConcurrentHashMap<>();
+
+    @Override
+    public void shipDocked(SeaPort port, Dock dock, Ship ship) {
+        if(ship.getArrivalTime() != null) {
+            getLatencies(port).record(PortLatencies.Measure.QUEUE_WAIT, ship, elapsed(ship.getArrivalTime(), ship.getDockTime()));
+        }
+    }
+
+    @Override
+    public void shipDeparted(SeaPort port, Dock dock, Ship ship) {
+        PortLatencies latency = getLatencies(port);
+        if(ship.getArrivalTime() != null) {
+            latency.record(PortLatencies.Measure.TURNAROUND, ship, elapsed(ship.getArrivalTime(), ship.getDepartureTime()));
+        }
+        for(Job job : ship.getJobs()) {
+            if(job.getStartTime() != null && job.getEndTime() != null) {
+                latency.record(PortLatencies.Measure.SERVICE, ship, elapsed(job.getStartTime(), job.getEndTime()));
+            }
+        }
+    }
+
+    /***************************************************************************
+     * Getter for the latency histograms of a port
+     * @param port
+    ***************************************************************************/
+    public PortLatencies getLatencies(SeaPort port) {
+        return latencies.computeIfAbsent(port, k -> new PortLatencies());
+    }
+
+    /***************************************************************************
+     * Percentiles of queue wait, Job service time and turnaround for every
+     * port and type of ship
+     * @param ports
+     * @param reset true to start counting a new interval after reading
+    ***************************************************************************/
+    public String report(List<SeaPort> ports, boolean reset) {
+        StringBuilder report = new StringBuilder();
+        for(SeaPort port : ports) {
+            report.append(getLatencies(port).report(port.getName(), reset));
+        }
+        return report.toString();
+    }
+
+    /***************************************************************************
+     * Simple helper method for the nanoseconds from one PortTime to another
+    ***************************************************************************/
+    private static long elapsed(PortTime from, PortTime to) {
+        return to.getPortTime() - from.getPortTime();
+    }
+}
@@ -0,0 +1,140 @@
+package cmsc335_project_3_elinkowski;
+
+/*******************************************************************************
+ * File name: LifecycleTrace class
+ * Date: 20181117 1005L
+ * Author: Keith R. Elinkowski
+ * Purpose: Traces each ship and Job through its life, queued, docked, Jobs 
+ * waiting for workers, working, suspended or preempted, complete and 
+ * departed.  Each span is handed to the TraceWriter as it ends, so nothing 
+ * is kept here.  Tracing is off until a TraceWriter is started, and every 
+ * hook returns at once while it is off.
+*******************************************************************************/
+public final class LifecycleTrace {
+    private static final String SHIP = "ship";
+    private static final String JOB = "job";
+    private static volatile TraceWriter writer;
+
+    /***************************************************************************
+     * LifecycleTrace Constructor, not used
+    ***************************************************************************/
+    private LifecycleTrace() {
+    }
+
+    /***************************************************************************
+     * SchedulerListener that traces ships docking and departing and Jobs 
+     * waiting for their people
+    ***************************************************************************/
+    static final SchedulerListener LISTENER = new SchedulerListener() {
+        @Override
+        public void shipDocked(SeaPort port, Dock dock, Ship ship) {
+            LifecycleTrace.shipDocked(port, dock, ship);
+        }
+
+        @Override
+        public void workersAcquired(SeaPort port, Ship ship, Job job, long waitedNanos) {
+            LifecycleTrace.workersWaited(port, ship, job, waitedNanos);
+        }
+
+        @Override
+        public void shipDeparted(SeaPort port, Dock dock, Ship ship) {
+            LifecycleTrace.shipDeparted(port, dock, ship);
+        }
+    };
+
+    /***************************************************************************
+     * Starts tracing into a writer, in place of any writer already tracing
+     * @return the writer that was tracing, null if tracing was off
+    ***************************************************************************/
+    public static TraceWriter start(TraceWriter traceWriter) {
+        TraceWriter previous = writer;
+        writer = traceWriter;
+        return previous;
+    }
+
+    /***************************************************************************
+     * Stops tracing.  The caller closes the writer.
+     * @return the writer that was tracing, null if tracing was off
+    ***************************************************************************/
+    public static TraceWriter stop() {
+        return start(null);
+    }
+
+    /***************************************************************************
+     * Simple helper method to check if tracing is on
+    ***************************************************************************/
+    public static boolean isOn() {
+        return writer != null;
+    }
+
+    /***************************************************************************
+     * A queued ship was given a dock, ending its time in the queue
+    ***************************************************************************/
+    static void shipDocked(SeaPort port, Dock dock, Ship ship) {
+        TraceWriter out = writer;
+        if(out == null || ship.getArrivalTime() == null || ship.getDockTime() == null) {
+            return;
+        }
+        out.nameDock(port, dock);
+        out.span("queued", SHIP, ship.getIndex(), port.getIndex(), TraceWriter.QUEUE_THREAD,
+                ship.getArrivalTime().getPortTime(), ship.getDockTime().getPortTime(), "SS " + ship.getName());
+    }
+
+    /***************************************************************************
+     * A ship left its dock
+    ***************************************************************************/
+    static void shipDeparted(SeaPort port, Dock dock, Ship ship) {
+        TraceWriter out = writer;
+        if(out == null || ship.getDockTime() == null || ship.getDepartureTime() == null) {
+            return;
+        }
+        out.nameDock(port, dock);
+        out.span("docked", SHIP, ship.getIndex(), port.getIndex(), dock.getIndex(),
+                ship.getDockTime().getPortTime(), ship.getDepartureTime().getPortTime(), "SS " + ship.getName() + " at " + dock.getName());
+        out.instant("departed", SHIP, ship.getIndex(), port.getIndex(), dock.getIndex(), ship.getDepartureTime().getPortTime(), null);
+    }
+
+    /***************************************************************************
+     * A ready Job got its workers
+     * @param waitedNanos time since it was ready
+    ***************************************************************************/
+    static void workersWaited(SeaPort port, Ship ship, Job job, long waitedNanos) {
+        TraceWriter out = writer;
+        if(out == null) {
+            return;
+        }
+        long now = PortTime.now().getPortTime();
+        out.span("waiting for workers", JOB, job.getIndex(), port.getIndex(), ship != null ? ship.getParent() : TraceWriter.QUEUE_THREAD,
+                now - waitedNanos, now, jobDetail(job));
+    }
+
+    /***************************************************************************
+     * A Job spent a while in one state
+     * @param state working, suspended or preempted
+    ***************************************************************************/
+    static void jobSpan(Job job, String state, long start, long end) {
+        TraceWriter out = writer;
+        if(out == null) {
+            return;
+        }
+        out.span(state, JOB, job.getIndex(), job.getPortIndex(), job.getDockIndex(), start, end, jobDetail(job));
+    }
+
+    /***************************************************************************
+     * A Job completed or was cancelled
+    ***************************************************************************/
+    static void jobEnded(Job job, String state, long at) {
+        TraceWriter out = writer;
+        if(out == null) {
+            return;
+        }
+        out.instant(state, JOB, job.getIndex(), job.getPortIndex(), job.getDockIndex(), at, jobDetail(job));
+    }
+
+    /***************************************************************************
+     * Simple helper method for the text shown with a Job's spans
+    ***************************************************************************/
+    private static String jobDetail(Job job) {
+        return job.getName() + " on ship " + job.getParent();
+    }
+}
@@ -0,0 +1,272 @@
+package cmsc335_project_3_elinkowski;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.DoubleAdder;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.Lock;
+
+/*******************************************************************************
+ * File name: LoadBalancer class
+ * Date: 20181113 1410L
+ * Author: Keith R. Elinkowski
+ * Purpose: Reroutes queued ships from crowded ports to ports where they are
+ * expected to wait less.  Each port's load is its queue length, free docks,
+ * the expected turnaround of its queued ships and the skills of its people.
+ * A load is only worked out again after the Scheduler reports the port
+ * changed, so a balancing pass looks at every port's summary but never
+ * rescans a queue that has not moved.  Each pass takes the last ship of the
+ * most crowded queue not yet rerouted and moves it if its expected wait plus
+ * turnaround elsewhere, plus the transit cost, beats staying put.  At most a
+ * few ships are moved per pass, passes run no more often than the interval,
+ * and a ship is only ever rerouted once so it cannot bounce between ports.
+ * Rerouted ships are forgotten as they depart.
+*******************************************************************************/
+public class LoadBalancer implements SchedulerListener {
+    private final Scheduler scheduler;
+    private final double transitHours;
+    private final int movesPerPass;
+    private final long intervalNanos;
+    private final ConcurrentHashMap<SeaPort, PortLoad> loads;
+    private final Set<SeaPort> dirty;
+    private final Set<Ship> rerouted;
+    private final LongAdder reroutes;
+    private final DoubleAdder hoursSaved;
+    private volatile long lastPass;
+
+    /***************************************************************************
+     * LoadBalancer Constructor
+     * @param scheduler
+     * @param transitHours cost in hours of sending a ship to another port
+     * @param movesPerPass most ships moved in one pass
+     * @param intervalMillis least time between passes
+    ***************************************************************************/
+    public LoadBalancer(Scheduler scheduler, double transitHours, int movesPerPass, long intervalMillis) {
+        this.scheduler = scheduler;
+        this.transitHours = Math.max(0.0, transitHours);
+        this.movesPerPass = Math.max(1, movesPerPass);
+        this.intervalNanos = Math.max(0L, intervalMillis) * 1000000L;
+        loads = new ConcurrentHashMap<>();
+        dirty = ConcurrentHashMap.newKeySet();
+        rerouted = ConcurrentHashMap.newKeySet();
+        reroutes = new LongAdder();
+        hoursSaved = new DoubleAdder();
+        dirty.addAll(scheduler.getWorld().getPorts());
+        lastPass = System.nanoTime() - intervalNanos;
+    }
+
+    /***************************************************************************
+     * Marks a port's load as out of date.  Cheap enough to call while holding
+     * the port's lock.
+     * @param port
+    ***************************************************************************/
+    public void portChanged(SeaPort port) {
+        dirty.add(port);
+    }
+
+    /***************************************************************************
+     * Forgets that a departing ship was rerouted, so the set of rerouted ships
+     * only holds those still in a port
+    ***************************************************************************/
+    @Override
+    public void shipDeparted(SeaPort port, Dock dock, Ship ship) {
+        rerouted.remove(ship);
+    }
+
+    /***************************************************************************
+     * Runs a balancing pass if the interval has passed since the last one.
+     * Must not be called while holding a port lock.
+     * @return the number of ships rerouted
+    ***************************************************************************/
+    public int balance() {
+        long now = System.nanoTime();
+        if(now - lastPass < intervalNanos) {
+            return 0;
+        }
+        lastPass = now;
+        refresh();
+        int moved = 0;
+        HashSet<SeaPort> settled = new HashSet<>();
+        while(moved < movesPerPass) {
+            SeaPort source = mostCrowded(settled);
+            if(source == null) {
+                break;
+            }
+            if(rerouteTail(source)) {
+                moved++;
+            }
+            else {
+                settled.add(source);
+            }
+        }
+        return moved;
+    }
+
+    /***************************************************************************
+     * Works out the load of every port marked as changed
+    ***************************************************************************/
+    private void refresh() {
+        for(SeaPort port : scheduler.getWorld().getPorts()) {
+            if(!dirty.remove(port) && loads.containsKey(port)) {
+                continue;
+            }
+            Lock lock = scheduler.lockFor(port);
+            scheduler.acquire(lock);
+            try {
+                HashMap<String, Integer> skills = Scheduler.skillCounts(port);
+                double hours = 0.0;
+                for(Ship ship : port.getQueue()) {
+                    hours += scheduler.expectedTurnaround(ship, skills);
+                }
+                loads.put(port, new PortLoad(port.getQueue().size(), port.getFreeDockCount(), port.getDocks().size(), hours, skills));
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    /***************************************************************************
+     * The port, not yet settled this pass, where the back of the queue waits
+     * longest
+    ***************************************************************************/
+    private SeaPort mostCrowded(Set<SeaPort> settled) {
+        SeaPort crowded = null;
+        double longest = 0.0;
+        for(SeaPort port : scheduler.getWorld().getPorts()) {
+            PortLoad load = loads.get(port);
+            if(load == null || settled.contains(port) || load.queueLength <= load.freeDocks) {
+                continue;
+            }
+            double wait = load.tailWait();
+            if(crowded == null || wait > longest) {
+                crowded = port;
+                longest = wait;
+            }
+        }
+        return crowded;
+    }
+
+    /***************************************************************************
+     * Moves the last ship of a port's queue that was not rerouted before to
+     * the port where it is expected to turn around soonest, if that beats 
+     * staying
+     * @return true if the ship was moved
+    ***************************************************************************/
+    private boolean rerouteTail(SeaPort source) {
+        Ship ship = null;
+        Lock lock = scheduler.lockFor(source);
+        scheduler.acquire(lock);
+        try {
+            List<Ship> queue = source.getQueue();
+            for(int i = queue.size() - 1; i >= 0 && ship == null; i--) {
+                if(!rerouted.contains(queue.get(i))) {
+                    ship = queue.get(i);
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+        if(ship == null) {
+            return false;
+        }
+        PortLoad from = loads.get(source);
+        double ownHours = scheduler.expectedTurnaround(ship, from.skills);
+        double stay = from.waitWithout(ownHours) + ownHours;
+        SeaPort best = null;
+        double bestCost = stay;
+        double bestHours = 0.0;
+        for(SeaPort port : scheduler.getWorld().getPorts()) {
+            PortLoad to = loads.get(port);
+            if(port == source || to == null || to.docks == 0) {
+                continue;
+            }
+            double hours = scheduler.expectedTurnaround(ship, to.skills);
+            double cost = to.waitBehind() + hours + transitHours;
+            if(cost < bestCost) {
+                best = port;
+                bestCost = cost;
+                bestHours = hours;
+            }
+        }
+        if(best == null || !scheduler.moveQueuedShip(ship, source, best)) {
+            return false;
+        }
+        PortLoad to = loads.get(best);
+        loads.put(source, from.minus(ownHours));
+        loads.put(best, to.plus(bestHours));
+        dirty.add(source);
+        dirty.add(best);
+        rerouted.add(ship);
+        reroutes.increment();
+        if(!Double.isInfinite(stay)) {
+            hoursSaved.add(stay - bestCost);
+        }
+        scheduler.log(String.format(">>> SHIP REROUTED: SS %s sent from Port of %s to Port of %s, expected %.1f hours instead of %.1f\n", ship.getName(), source.getName(), best.getName(), bestCost, stay));
+        return true;
+    }
+
+    /***************************************************************************
+     * Getter for the number of ships rerouted
+    ***************************************************************************/
+    public long getReroutes() {
+        return reroutes.sum();
+    }
+
+    /***************************************************************************
+     * Getter for the expected hours of waiting and turnaround saved by every
+     * reroute, transit included
+    ***************************************************************************/
+    public double getHoursSaved() {
+        return hoursSaved.sum();
+    }
+
+    /***************************************************************************
+     * Summary of one port's load.  The wait of a ship at the back of the
+     * queue is taken as the expected turnaround of the ships ahead of it
+     * shared across the port's docks, or none if a dock is free for it.
+    ***************************************************************************/
+    private static final class PortLoad {
+        final int queueLength;
+        final int freeDocks;
+        final int docks;
+        final double queueHours;
+        final HashMap<String, Integer> skills;
+
+        PortLoad(int queueLength, int freeDocks, int docks, double queueHours, HashMap<String, Integer> skills) {
+            this.queueLength = queueLength;
+            this.freeDocks = freeDocks;
+            this.docks = docks;
+            this.queueHours = queueHours;
+            this.skills = skills;
+        }
+
+        double tailWait() {
+            return waitWithout(0.0);
+        }
+
+        double waitWithout(double hours) {
+            if(queueLength - 1 < freeDocks) {
+                return 0.0;
+            }
+            return docks == 0 ? Double.POSITIVE_INFINITY : (queueHours - hours) / docks;
+        }
+
+        double waitBehind() {
+            if(queueLength < freeDocks) {
+                return 0.0;
+            }
+            return queueHours / docks;
+        }
+
+        PortLoad minus(double hours) {
+            return new PortLoad(queueLength - 1, freeDocks, docks, queueHours - hours, skills);
+        }
+
+        PortLoad plus(double hours) {
+            return new PortLoad(queueLength + 1, freeDocks, docks, queueHours + hours, skills);
+        }
+    }
+}
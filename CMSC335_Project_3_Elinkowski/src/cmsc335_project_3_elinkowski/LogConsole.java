@@ -0,0 +1,140 @@
+package cmsc335_project_3_elinkowski;
+
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import javax.swing.JTextArea;
+import javax.swing.Timer;
+import javax.swing.text.BadLocationException;
+import javax.swing.text.Document;
+
+/*******************************************************************************
+ * File name: LogConsole class
+ * Date: 20181104 1005L
+ * Author: Keith R. Elinkowski
+ * Purpose: Extends JTextArea.  A console that only shows the most recent lines
+ * kept in a RingBufferLog.  append() can be called from any thread, text is
+ * queued and moved into the text area by a Swing Timer, so callers never wait
+ * on the event dispatch thread.  Everything appended is also handed to an
+ * AsyncLogWriter so the full stream ends up on disk.
+*******************************************************************************/
+public class LogConsole extends JTextArea {
+    private static final long serialVersionUID = 1L;
+    private static final int REFRESH_MILLIS = 100;
+    private final RingBufferLog log;
+    private final AsyncLogWriter sink;
+    private final ConcurrentLinkedQueue<String> pending;
+    private final AtomicInteger pendingCount;
+    private final int maxPending;
+    private String partialLine;
+
+    /***************************************************************************
+     * LogConsole Constructor
+     * @param capacity most lines shown in the console
+     * @param sink writer for the full stream, may be null
+    ***************************************************************************/
+    public LogConsole(int capacity, AsyncLogWriter sink) {
+        this.log = new RingBufferLog(capacity);
+        this.sink = sink;
+        pending = new ConcurrentLinkedQueue<>();
+        pendingCount = new AtomicInteger();
+        maxPending = capacity * 4;
+        partialLine = "";
+        Timer refreshTimer = new Timer(REFRESH_MILLIS, e -> drain());
+        refreshTimer.start();
+    }
+
+    /***************************************************************************
+     * @Override of append() from JTextArea.  Queues the text and returns right
+     * away.  If the console falls far behind, the oldest queued text is let go
+     * since it would be pushed out of the ring anyway.
+     * @param text
+    ***************************************************************************/
+    @Override
+    public void append(String text) {
+        if(text == null || text.isEmpty()) {
+            return;
+        }
+        if(sink != null) {
+            sink.write(text);
+        }
+        pending.add(text);
+        if(pendingCount.incrementAndGet() > maxPending && pending.poll() != null) {
+            pendingCount.decrementAndGet();
+        }
+    }
+
+    /***************************************************************************
+     * Getter for the number of appends not yet moved into the text area
+    ***************************************************************************/
+    public int getPending() {
+        return pendingCount.get();
+    }
+
+    /***************************************************************************
+     * Getter for the writer holding the full stream
+    ***************************************************************************/
+    public AsyncLogWriter getSink() {
+        return sink;
+    }
+
+    /***************************************************************************
+     * Empties the console
+    ***************************************************************************/
+    public void clear() {
+        log.clear();
+        partialLine = "";
+        setText("");
+    }
+
+    /***************************************************************************
+     * Moves queued text into the ring and the text area.  Runs on the event
+     * dispatch thread.  New lines are added to the end of the document and the
+     * lines pushed out of the ring are cut from the front, so the work done
+     * is only as big as what changed.
+    ***************************************************************************/
+    private void drain() {
+        if(pending.isEmpty()) {
+            return;
+        }
+        Document doc = getDocument();
+        int oldPartialLength = partialLine.length();
+        StringBuilder added = new StringBuilder();
+        int addedLines = 0;
+        int evictedChars = 0;
+        String current = partialLine;
+        String text;
+        while((text = pending.poll()) != null) {
+            pendingCount.decrementAndGet();
+            int start = 0;
+            int newLine;
+            while((newLine = text.indexOf('\n', start)) >= 0) {
+                String line = current + text.substring(start, newLine);
+                current = "";
+                String evicted = log.add(line);
+                if(evicted != null) {
+                    evictedChars += evicted.length() + 1;
+                }
+                if(addedLines < log.capacity()) {
+                    added.append(line).append('\n');
+                }
+                addedLines++;
+                start = newLine + 1;
+            }
+            current += text.substring(start);
+        }
+        partialLine = current;
+        try {
+            if(addedLines >= log.capacity()) {
+                setText(log.toString() + partialLine);
+            }
+            else {
+                doc.remove(doc.getLength() - oldPartialLength, oldPartialLength);
+                doc.insertString(doc.getLength(), added.toString() + partialLine, null);
+                doc.remove(0, Math.min(evictedChars, doc.getLength()));
+            }
+        } catch (BadLocationException e) {
+            setText(log.toString() + partialLine);
+        }
+        setCaretPosition(doc.getLength());
+    }
+}
@@ -0,0 +1,86 @@
+package cmsc335_project_3_elinkowski;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/*******************************************************************************
+ * File name: MetricsEndpoint class
+ * Date: 20181116 1105L
+ * Author: Keith R. Elinkowski
+ * Purpose: Serves a MetricsRegistry as Prometheus text at /metrics on a local
+ * port, using the HTTP server built into the JDK.  Only the loopback address
+ * is bound, and requests are answered one at a time on a single daemon 
+ * thread so a scraper can never take threads from the simulation.
+*******************************************************************************/
+public class MetricsEndpoint implements Closeable {
+    private static final String CONTENT_TYPE = "text/plain; version=0.0.4; charset=utf-8";
+    private final MetricsRegistry registry;
+    private final HttpServer server;
+    private final ExecutorService executor;
+
+    /***************************************************************************
+     * MetricsEndpoint Constructor.  Binds the port and starts serving.
+     * @param registry
+     * @param port local port, 0 for any free port
+    ***************************************************************************/
+    public MetricsEndpoint(MetricsRegistry registry, int port) throws IOException {
+        this.registry = registry;
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 0);
+        executor = Executors.newSingleThreadExecutor(r -> {
+            Thread thread = new Thread(r, "metrics-endpoint");
+            thread.setDaemon(true);
+            return thread;
+        });
+        server.setExecutor(executor);
+        server.createContext("/metrics", this::serve);
+        server.start();
+    }
+
+    /***************************************************************************
+     * Answers one request with every metric
+    ***************************************************************************/
+    private void serve(HttpExchange exchange) throws IOException {
+        try {
+            if(!"GET".equals(exchange.getRequestMethod()) && !"HEAD".equals(exchange.getRequestMethod())) {
+                exchange.sendResponseHeaders(405, -1);
+                return;
+            }
+            byte[] body = registry.scrape().getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().set("Content-Type", CONTENT_TYPE);
+            if("HEAD".equals(exchange.getRequestMethod())) {
+                exchange.sendResponseHeaders(200, -1);
+                return;
+            }
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        } finally {
+            exchange.close();
+        }
+    }
+
+    /***************************************************************************
+     * Getter for the port being served
+    ***************************************************************************/
+    public int getPort() {
+        return server.getAddress().getPort();
+    }
+
+    /***************************************************************************
+     * Stops serving and frees the port
+    ***************************************************************************/
+    @Override
+    public void close() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+}
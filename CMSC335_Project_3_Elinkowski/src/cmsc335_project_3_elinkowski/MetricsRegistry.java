@@ -0,0 +1,234 @@
+package cmsc335_project_3_elinkowski;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.DoubleSupplier;
+import java.util.function.LongSupplier;
+import javax.management.Attribute;
+import javax.management.AttributeList;
+import javax.management.AttributeNotFoundException;
+import javax.management.DynamicMBean;
+import javax.management.JMException;
+import javax.management.MBeanAttributeInfo;
+import javax.management.MBeanInfo;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+/*******************************************************************************
+ * File name: MetricsRegistry class
+ * Date: 20181116 0940L
+ * Author: Keith R. Elinkowski
+ * Purpose: Named counters and gauges describing a running simulation.  A 
+ * metric does not hold a value of its own; it reads one from the LongAdders,
+ * atomics and snapshots the rest of the program already keeps, so nothing on
+ * the Scheduler or Job paths takes a lock to update a metric.  A metric may 
+ * have one label, such as the port or skill, giving one value per label.  
+ * Every metric can be read as Prometheus text, and each is registered as a 
+ * JMX MBean whose attributes are its label values.
+*******************************************************************************/
+public class MetricsRegistry {
+    public enum Type {COUNTER, GAUGE}
+    private static final String UNLABELLED = "Value";
+    private final String domain;
+    private final CopyOnWriteArrayList<Family> families;
+    private final List<ObjectName> registered;
+
+    /***************************************************************************
+     * Called with each value of a metric when it is read
+    ***************************************************************************/
+    public interface Sink {
+        void accept(String label, double value);
+    }
+
+    /***************************************************************************
+     * Reads the values of a metric, handing each one to the Sink
+    ***************************************************************************/
+    public interface Sampler {
+        void sample(Sink sink);
+    }
+
+    /***************************************************************************
+     * MetricsRegistry Constructor
+     * @param domain JMX domain the MBeans are registered under
+    ***************************************************************************/
+    public MetricsRegistry(String domain) {
+        this.domain = domain;
+        families = new CopyOnWriteArrayList<>();
+        registered = new ArrayList<>();
+    }
+
+    /***************************************************************************
+     * Adds a metric with one value per label
+     * @param name metric name, in Prometheus form
+     * @param help one line describing it
+     * @param type
+     * @param label name of the label, null for a metric with a single value
+     * @param sampler
+    ***************************************************************************/
+    public void register(String name, String help, Type type, String label, Sampler sampler) {
+        families.add(new Family(name, help, type, label, sampler));
+    }
+
+    /***************************************************************************
+     * Adds a gauge with a single value
+    ***************************************************************************/
+    public void gauge(String name, String help, DoubleSupplier value) {
+        register(name, help, Type.GAUGE, null, sink -> sink.accept(null, value.getAsDouble()));
+    }
+
+    /***************************************************************************
+     * Adds a counter with a single value
+    ***************************************************************************/
+    public void counter(String name, String help, LongSupplier value) {
+        register(name, help, Type.COUNTER, null, sink -> sink.accept(null, value.getAsLong()));
+    }
+
+    /***************************************************************************
+     * Every metric in the Prometheus text format
+    ***************************************************************************/
+    public String scrape() {
+        StringBuilder out = new StringBuilder();
+        for(Family family : families) {
+            out.append("# HELP ").append(family.name).append(' ').append(family.help).append('\n');
+            out.append("# TYPE ").append(family.name).append(' ').append(family.type.name().toLowerCase()).append('\n');
+            for(Map.Entry<String, Double> sample : family.read().entrySet()) {
+                out.append(family.name);
+                if(family.label != null) {
+                    out.append('{').append(family.label).append("=\"").append(escape(sample.getKey())).append("\"}");
+                }
+                out.append(' ').append(format(sample.getValue())).append('\n');
+            }
+        }
+        return out.toString();
+    }
+
+    /***************************************************************************
+     * Registers every metric with the platform MBean server, replacing any
+     * MBean of the same name left by an earlier registry
+    ***************************************************************************/
+    public synchronized void registerMBeans() throws JMException {
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        for(Family family : families) {
+            ObjectName name = new ObjectName(domain + ":type=Metrics,name=" + family.name);
+            if(server.isRegistered(name)) {
+                server.unregisterMBean(name);
+            }
+            server.registerMBean(family, name);
+            registered.add(name);
+        }
+    }
+
+    /***************************************************************************
+     * Takes every MBean this registry registered off the MBean server
+    ***************************************************************************/
+    public synchronized void unregisterMBeans() {
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        for(ObjectName name : registered) {
+            try {
+                if(server.isRegistered(name)) {
+                    server.unregisterMBean(name);
+                }
+            } catch (JMException e) {
+                System.out.println(e);
+            }
+        }
+        registered.clear();
+    }
+
+    /***************************************************************************
+     * Simple helper method to escape a label value for Prometheus
+    ***************************************************************************/
+    private static String escape(String value) {
+        return value.replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n");
+    }
+
+    /***************************************************************************
+     * Simple helper method to write a value, whole numbers without a fraction
+    ***************************************************************************/
+    private static String format(double value) {
+        if(Double.isNaN(value)) {
+            return "NaN";
+        }
+        if(Double.isInfinite(value)) {
+            return value > 0 ? "+Inf" : "-Inf";
+        }
+        if(value == Math.rint(value) && Math.abs(value) < 1e15) {
+            return Long.toString((long)value);
+        }
+        return Double.toString(value);
+    }
+
+    /***************************************************************************
+     * One metric, which is also its MBean
+    ***************************************************************************/
+    private static final class Family implements DynamicMBean {
+        final String name;
+        final String help;
+        final Type type;
+        final String label;
+        final Sampler sampler;
+
+        Family(String name, String help, Type type, String label, Sampler sampler) {
+            this.name = name;
+            this.help = help;
+            this.type = type;
+            this.label = label;
+            this.sampler = sampler;
+        }
+
+        Map<String, Double> read() {
+            LinkedHashMap<String, Double> values = new LinkedHashMap<>();
+            sampler.sample((key, value) -> values.merge(key == null ? UNLABELLED : key, value, Double::sum));
+            return values;
+        }
+
+        @Override
+        public Object getAttribute(String attribute) throws AttributeNotFoundException {
+            Double value = read().get(attribute);
+            if(value == null) {
+                throw new AttributeNotFoundException(attribute);
+            }
+            return value;
+        }
+
+        @Override
+        public AttributeList getAttributes(String[] attributes) {
+            Map<String, Double> values = read();
+            AttributeList list = new AttributeList();
+            for(String attribute : attributes) {
+                if(values.containsKey(attribute)) {
+                    list.add(new Attribute(attribute, values.get(attribute)));
+                }
+            }
+            return list;
+        }
+
+        @Override
+        public void setAttribute(Attribute attribute) throws AttributeNotFoundException {
+            throw new AttributeNotFoundException(attribute.getName() + " is read only");
+        }
+
+        @Override
+        public AttributeList setAttributes(AttributeList attributes) {
+            return new AttributeList();
+        }
+
+        @Override
+        public Object invoke(String action, Object[] params, String[] signature) {
+            throw new UnsupportedOperationException(action);
+        }
+
+        @Override
+        public MBeanInfo getMBeanInfo() {
+            ArrayList<MBeanAttributeInfo> attributes = new ArrayList<>();
+            for(String key : read().keySet()) {
+                attributes.add(new MBeanAttributeInfo(key, Double.class.getName(), help, true, false, false));
+            }
+            return new MBeanInfo(Family.class.getName(), help, attributes.toArray(new MBeanAttributeInfo[0]), null, null, null);
+        }
+    }
+}
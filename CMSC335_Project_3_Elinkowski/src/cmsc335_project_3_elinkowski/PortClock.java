@@ -0,0 +1,19 @@
+package cmsc335_project_3_elinkowski;
+
+/*******************************************************************************
+ * File name: PortClock interface
+ * Date: 20181115 0905L
+ * Author: Keith R. Elinkowski
+ * Purpose: The source of time behind every PortTime.  A clock reads in 
+ * nanoseconds since the epoch and never runs backwards, so the difference of
+ * two readings is always a true elapsed time.  The real clock follows the 
+ * system, and a VirtualClock only moves when it is told to.
+*******************************************************************************/
+public interface PortClock {
+
+    /***************************************************************************
+     * Current time in nanoseconds since the epoch, never less than any time
+     * read before it
+    ***************************************************************************/
+    long nanoTime();
+}
@@ -0,0 +1,111 @@
+package cmsc335_project_3_elinkowski;
+
+/*******************************************************************************
+ * File name: PortLatencies class
+ * Date: 20181115 1415L
+ * Author: Keith R. Elinkowski
+ * Purpose: The latency histograms of one port, one for each measure and type
+ * of ship.  Queue wait runs from arrival to docking, service from a Job's 
+ * start to its end, and turnaround from arrival to departure.  Every 
+ * histogram is made up front so recording never allocates.
+*******************************************************************************/
+public class PortLatencies {
+    public enum Measure {
+        QUEUE_WAIT("Queue wait"), SERVICE("Job service"), TURNAROUND("Turnaround");
+
+        private final String label;
+
+        Measure(String label) {
+            this.label = label;
+        }
+
+        @Override
+        public String toString() {
+            return label;
+        }
+    }
+    public enum ShipType {
+        CARGO("Cargo"), PASSENGER("Passenger"), OTHER("Other");
+
+        private final String label;
+
+        ShipType(String label) {
+            this.label = label;
+        }
+
+        /***********************************************************************
+         * Simple helper method for the type of a ship
+        ***********************************************************************/
+        public static ShipType of(Ship ship) {
+            if(ship instanceof CargoShip) {
+                return CARGO;
+            }
+            return ship instanceof PassengerShip ? PASSENGER : OTHER;
+        }
+
+        @Override
+        public String toString() {
+            return label;
+        }
+    }
+    private final LatencyHistogram[][] histograms;
+
+    /***************************************************************************
+     * PortLatencies Constructor
+    ***************************************************************************/
+    public PortLatencies() {
+        histograms = new LatencyHistogram[Measure.values().length][ShipType.values().length];
+        for(LatencyHistogram[] row : histograms) {
+            for(int i = 0; i < row.length; i++) {
+                row[i] = new LatencyHistogram();
+            }
+        }
+    }
+
+    /***************************************************************************
+     * Counts one latency of a ship or one of its Jobs
+     * @param measure
+     * @param ship
+     * @param nanos
+    ***************************************************************************/
+    public void record(Measure measure, Ship ship, long nanos) {
+        histograms[measure.ordinal()][ShipType.of(ship).ordinal()].record(nanos);
+    }
+
+    /***************************************************************************
+     * Getter for one histogram
+    ***************************************************************************/
+    public LatencyHistogram getHistogram(Measure measure, ShipType type) {
+        return histograms[measure.ordinal()][type.ordinal()];
+    }
+
+    /***************************************************************************
+     * Starts every histogram again from zero
+    ***************************************************************************/
+    public void reset() {
+        for(LatencyHistogram[] row : histograms) {
+            for(LatencyHistogram histogram : row) {
+                histogram.reset();
+            }
+        }
+    }
+
+    /***************************************************************************
+     * One line for each histogram that counted anything
+     * @param portName
+     * @param reset true to start every histogram again after reading it
+    ***************************************************************************/
+    public String report(String portName, boolean reset) {
+        StringBuilder out = new StringBuilder();
+        for(Measure measure : Measure.values()) {
+            for(ShipType type : ShipType.values()) {
+                LatencyHistogram histogram = getHistogram(measure, type);
+                LatencyHistogram.Snapshot counts = reset ? histogram.snapshotAndReset() : histogram.snapshot();
+                if(counts.getCount() > 0) {
+                    out.append(String.format(">>> LATENCY: Port of %s, %s ships, %s: %s\n", portName, type, measure, counts));
+                }
+            }
+        }
+        return out.toString();
+    }
+}
@@ -0,0 +1,215 @@
+package cmsc335_project_3_elinkowski;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Set;
+
+/*******************************************************************************
+ * File name: PortSnapshot class
+ * Date: 20181107 0830L
+ * Author: Keith R. Elinkowski
+ * Purpose: Immutable copy of a SeaPort's docks, queue, ships, people and jobs 
+ * as they were when the snapshot was taken, along with which ship was berthed
+ * at each dock.  Readers can walk it from any thread without locks while the 
+ * scheduler keeps changing the live SeaPort.
+*******************************************************************************/
+public final class PortSnapshot {
+    private final SeaPort port;
+    private final List<Dock> docks;
+    private final Set<Dock> dockSet;
+    private final IdentityHashMap<Dock, Ship> berths;
+    private final List<Ship> queue;
+    private final List<Ship> ships;
+    private final List<Person> persons;
+    private final IdentityHashMap<Ship, List<Job>> jobsByShip;
+    private volatile List<Ship> cargoShips;
+    private volatile List<Ship> passengerShips;
+    private volatile List<Job> jobs;
+    
+    /***************************************************************************
+     * PortSnapshot Constructor.  Must be called while holding the SeaPort's 
+     * lock.  A ship's list of Jobs from the previous snapshot is reused when 
+     * it still holds the same Jobs in the same order, so a list sorted in 
+     * place is copied again.
+     * @param port
+     * @param previous the last snapshot of this port, may be null
+    ***************************************************************************/
+    PortSnapshot(SeaPort port, PortSnapshot previous) {
+        this.port = port;
+        docks = copy(port.getDocks());
+        dockSet = Collections.newSetFromMap(new IdentityHashMap<>());
+        dockSet.addAll(docks);
+        berths = new IdentityHashMap<>();
+        for(Dock dock : docks) {
+            if(dock.getShip() != null) {
+                berths.put(dock, dock.getShip());
+            }
+        }
+        queue = copy(port.getQueue());
+        ships = copy(port.getShips());
+        persons = copy(port.getPersons());
+        jobsByShip = new IdentityHashMap<>();
+        for(Ship ship : ships) {
+            List<Job> before = previous != null ? previous.jobsByShip.get(ship) : null;
+            if(before != null && sameOrder(before, ship.getJobs())) {
+                jobsByShip.put(ship, before);
+            }
+            else {
+                jobsByShip.put(ship, copy(ship.getJobs()));
+            }
+        }
+    }
+    
+    /***************************************************************************
+     * Simple helper method to check if a copy holds the same things as a live
+     * list, in the same order
+    ***************************************************************************/
+    private static <T> boolean sameOrder(List<T> copy, List<T> live) {
+        if(copy.size() != live.size()) {
+            return false;
+        }
+        for(int i = 0; i < copy.size(); i++) {
+            if(copy.get(i) != live.get(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+    
+    /***************************************************************************
+     * Helper method to make an unmodifiable copy of a live list
+    ***************************************************************************/
+    private static <T> List<T> copy(List<T> list) {
+        return list.isEmpty() ? Collections.<T>emptyList() 
+                : Collections.unmodifiableList(new ArrayList<>(list));
+    }
+    
+    /***************************************************************************
+     * Getter for the live SeaPort this is a snapshot of
+    ***************************************************************************/
+    public SeaPort getPort() {
+        return port;
+    }
+    
+    /***************************************************************************
+     * Getter for docks
+    ***************************************************************************/
+    public List<Dock> getDocks() {
+        return docks;
+    }
+    
+    /***************************************************************************
+     * Getter for the ship berthed at a dock, null if the dock was empty
+     * @param dock
+    ***************************************************************************/
+    public Ship getBerth(Dock dock) {
+        return berths.get(dock);
+    }
+    
+    /***************************************************************************
+     * Simple helper method to check if a dock belongs to this port
+     * @param dock
+    ***************************************************************************/
+    public boolean hasDock(Dock dock) {
+        return dockSet.contains(dock);
+    }
+    
+    /***************************************************************************
+     * Getter for queue
+    ***************************************************************************/
+    public List<Ship> getQueue() {
+        return queue;
+    }
+    
+    /***************************************************************************
+     * Getter for ships
+    ***************************************************************************/
+    public List<Ship> getShips() {
+        return ships;
+    }
+    
+    /***************************************************************************
+     * Getter for people
+    ***************************************************************************/
+    public List<Person> getPersons() {
+        return persons;
+    }
+    
+    /***************************************************************************
+     * Getter for the jobs of one ship, null if the ship is not at this port
+     * @param ship
+    ***************************************************************************/
+    public List<Job> getJobs(Ship ship) {
+        return jobsByShip.get(ship);
+    }
+    
+    /***************************************************************************
+     * Getter for cargo ships, worked out the first time it is asked for
+    ***************************************************************************/
+    public List<Ship> getCargoShips() {
+        List<Ship> result = cargoShips;
+        if(result == null) {
+            result = new ArrayList<>();
+            for(Ship ship : ships) {
+                if(ship instanceof CargoShip) {
+                    result.add(ship);
+                }
+            }
+            result = Collections.unmodifiableList(result);
+            cargoShips = result;
+        }
+        return result;
+    }
+    
+    /***************************************************************************
+     * Getter for passenger ships, worked out the first time it is asked for
+    ***************************************************************************/
+    public List<Ship> getPassengerShips() {
+        List<Ship> result = passengerShips;
+        if(result == null) {
+            result = new ArrayList<>();
+            for(Ship ship : ships) {
+                if(ship instanceof PassengerShip) {
+                    result.add(ship);
+                }
+            }
+            result = Collections.unmodifiableList(result);
+            passengerShips = result;
+        }
+        return result;
+    }
+    
+    /***************************************************************************
+     * Getter for every job of every ship, worked out the first time it is 
+     * asked for
+    ***************************************************************************/
+    public List<Job> getJobs() {
+        List<Job> result = jobs;
+        if(result == null) {
+            result = new ArrayList<>();
+            for(Ship ship : ships) {
+                result.addAll(jobsByShip.get(ship));
+            }
+            result = Collections.unmodifiableList(result);
+            jobs = result;
+        }
+        return result;
+    }
+    
+    /***************************************************************************
+     * Simple helper methods to tell if the derived lists were ever asked for
+    ***************************************************************************/
+    boolean hasCargoShips() {
+        return cargoShips != null;
+    }
+    
+    boolean hasPassengerShips() {
+        return passengerShips != null;
+    }
+    
+    boolean hasJobs() {
+        return jobs != null;
+    }
+}
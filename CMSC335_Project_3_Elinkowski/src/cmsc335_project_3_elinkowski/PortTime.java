@@ -6,11 +6,15 @@ import java.time.Instant;
  * File name: PortTime class
  * Date: 20181025 1012L
  * Author: Keith R. Elinkowski
- * Purpose: Extends Thing class.  Timestamps when a ship arrives to a port and 
- * when it is docked.
+ * Purpose: Timestamps when a ship arrives to a port, when it is docked and 
+ * when it departs, and when a Job starts and ends.  A PortTime holds 
+ * nanoseconds since the epoch read from the PortClock in use, which is the 
+ * real clock unless another is set.  The real clock is anchored to the wall
+ * clock once and then follows System.nanoTime(), so it never runs backwards.
  ******************************************************************************/
 public class PortTime {
-    private int time;
+    private static volatile PortClock clock = new SystemClock();
+    private long time;
 
     /***************************************************************************
      * PortTime Constructor
@@ -19,16 +23,64 @@ public class PortTime {
     }
     
     /***************************************************************************
-     * Getter for getPortTime
+     * PortTime Constructor
+     * @param nanos nanoseconds since the epoch
+    ***************************************************************************/    
+    public PortTime(long nanos) {
+        time = nanos;
+    }
+    
+    /***************************************************************************
+     * Getter for getPortTime, in nanoseconds since the epoch
     ***************************************************************************/    
-    public int getPortTime() {
+    public long getPortTime() {
         return time;
     }
     /***************************************************************************
      * Setter for getPortTime
     ***************************************************************************/    
     public void setPortTime() {
-        this.time = ((int) (Instant.now().toEpochMilli()/1000));
+        this.time = clock.nanoTime();
+    }
+    
+    /***************************************************************************
+     * Simple helper method for a PortTime set to the current time
+    ***************************************************************************/
+    public static PortTime now() {
+        return new PortTime(clock.nanoTime());
+    }
+    
+    /***************************************************************************
+     * Sets the clock every PortTime is read from
+     * @param portClock
+    ***************************************************************************/
+    public static void setClock(PortClock portClock) {
+        clock = portClock;
+    }
+    
+    /***************************************************************************
+     * Getter for clock
+    ***************************************************************************/
+    public static PortClock getClock() {
+        return clock;
+    }
+    
+    /***************************************************************************
+     * Goes back to the real clock
+    ***************************************************************************/
+    public static void useSystemClock() {
+        clock = new SystemClock();
+    }
+    
+    /***************************************************************************
+     * Milliseconds from one PortTime to another
+     * @return NaN if either has not been recorded
+    ***************************************************************************/
+    public static double millisBetween(PortTime from, PortTime to) {
+        if(from == null || to == null) {
+            return Double.NaN;
+        }
+        return (to.time - from.time) / 1e6;
     }
     
     /***************************************************************************
@@ -36,6 +88,23 @@ public class PortTime {
     ***************************************************************************/
     @Override
     public String toString(){
-        return String.format(String.valueOf(getPortTime()));
+        return Instant.ofEpochSecond(0L, time).toString();
+    }
+    
+    /***************************************************************************
+     * The real clock
+    ***************************************************************************/
+    private static final class SystemClock implements PortClock {
+        private final long offset;
+
+        SystemClock() {
+            Instant start = Instant.now();
+            offset = start.getEpochSecond() * 1000000000L + start.getNano() - System.nanoTime();
+        }
+
+        @Override
+        public long nanoTime() {
+            return offset + System.nanoTime();
+        }
     }
 }
\ No newline at end of file
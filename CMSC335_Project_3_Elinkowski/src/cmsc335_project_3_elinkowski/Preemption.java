@@ -0,0 +1,122 @@
+package cmsc335_project_3_elinkowski;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/*******************************************************************************
+ * File name: Preemption class
+ * Date: 20181120 1130L
+ * Author: Keith R. Elinkowski
+ * Purpose: Decides which running Jobs a waiting Job may take people from, and
+ * keeps track of the Jobs paused that way until they go on.  A running Job
+ * can only be preempted by a Job at least PREEMPT_MARGIN above it, and no Job
+ * more than MAX_PREEMPTIONS times, so low priority work still finishes.  The
+ * time paused Jobs spend waiting to go on is added up.  Used by the Scheduler
+ * while holding the lock of the Job's port.
+*******************************************************************************/
+public class Preemption {
+    private static final double PREEMPT_MARGIN = 100.0;
+    private static final int MAX_PREEMPTIONS = 3;
+    private final ConcurrentHashMap<Job, Long> pausedAt;
+    private final ConcurrentHashMap<Job, Integer> counts;
+    private final LongAdder preemptions;
+    private final LongAdder pausedNanos;
+
+    /***************************************************************************
+     * Preemption Constructor
+    ***************************************************************************/
+    public Preemption() {
+        pausedAt = new ConcurrentHashMap<>();
+        counts = new ConcurrentHashMap<>();
+        preemptions = new LongAdder();
+        pausedNanos = new LongAdder();
+    }
+
+    /***************************************************************************
+     * Picks the running Jobs to preempt so a waiting Job can be staffed
+     * @param pool the port's WorkerPool
+     * @param job the Job waiting for people
+     * @param priority priority of each Job at the port
+     * @return the Jobs to preempt, null if the Job cannot be staffed this way
+    ***************************************************************************/
+    List<Job> victimsFor(WorkerPool pool, Job job, Map<Job, Double> priority) {
+        double wanted = priority.get(job);
+        return pool.victimsFor(job,
+                holder -> preemptable(holder, priority.get(holder), wanted),
+                holder -> priority.get(holder));
+    }
+
+    /***************************************************************************
+     * Simple helper method to check if a running Job may be preempted by a
+     * waiting Job of some priority
+    ***************************************************************************/
+    private boolean preemptable(Job running, Double runningPriority, double wanted) {
+        return runningPriority != null && !running.isPreempted() && !running.finished()
+                && counts.getOrDefault(running, 0) < MAX_PREEMPTIONS
+                && runningPriority + PREEMPT_MARGIN <= wanted;
+    }
+
+    /***************************************************************************
+     * Pauses a running Job for a Job of higher priority and gives its people
+     * back to the port
+     * @param port
+     * @param victim
+     * @param now System.nanoTime()
+    ***************************************************************************/
+    void preempt(SeaPort port, Job victim, long now) {
+        pause(port, victim, now);
+        counts.merge(victim, 1, Integer::sum);
+        preemptions.increment();
+    }
+
+    /***************************************************************************
+     * Pauses a running Job, keeping its progress, and gives its people back
+     * to the port.  Not counted as a preemption.
+     * @param port
+     * @param job
+     * @param now System.nanoTime()
+    ***************************************************************************/
+    void pause(SeaPort port, Job job, long now) {
+        job.preempt();
+        port.getWorkerPool().release(job);
+        pausedAt.put(job, now);
+    }
+
+    /***************************************************************************
+     * Adds the time a paused Job waited once it has its people again
+     * @param job
+     * @param now System.nanoTime()
+    ***************************************************************************/
+    void resumed(Job job, long now) {
+        Long paused = pausedAt.remove(job);
+        if(paused != null) {
+            pausedNanos.add(now - paused);
+        }
+    }
+
+    /***************************************************************************
+     * Forgets a Job whose ship has left
+     * @param job
+    ***************************************************************************/
+    void forget(Job job) {
+        pausedAt.remove(job);
+        counts.remove(job);
+    }
+
+    /***************************************************************************
+     * Getter for the number of times a running Job was preempted
+    ***************************************************************************/
+    public long getPreemptions() {
+        return preemptions.sum();
+    }
+
+    /***************************************************************************
+     * Getter for the total milliseconds paused Jobs spent waiting before they
+     * went on
+    ***************************************************************************/
+    public double getPausedMillis() {
+        return pausedNanos.sum() / 1e6;
+    }
+}
@@ -0,0 +1,102 @@
+package cmsc335_project_3_elinkowski;
+
+/*******************************************************************************
+ * File name: RingBufferLog class
+ * Date: 20181104 0850L
+ * Author: Keith R. Elinkowski
+ * Purpose: Fixed size log of the most recent lines written to a console.  Once
+ * the log is full every new line overwrites the oldest one, so a console never
+ * holds more than its capacity no matter how long the simulation runs.
+*******************************************************************************/
+public class RingBufferLog {
+    private final String[] lines;
+    private int head;
+    private int size;
+    private long totalLines;
+    
+    /***************************************************************************
+     * RingBufferLog Constructor
+     * @param capacity most lines that will be kept
+    ***************************************************************************/
+    public RingBufferLog(int capacity) {
+        if(capacity <= 0) {
+            throw new IllegalArgumentException("Log capacity must be positive: " + capacity);
+        }
+        lines = new String[capacity];
+    }
+    
+    /***************************************************************************
+     * Adds a line to the log.  Returns the line that was pushed out to make 
+     * room or null if the log was not yet full.
+     * @param line
+    ***************************************************************************/
+    public String add(String line) {
+        String evicted = null;
+        int slot = (head + size) % lines.length;
+        if(size == lines.length) {
+            evicted = lines[head];
+            head = (head + 1) % lines.length;
+        }
+        else {
+            size++;
+        }
+        lines[slot] = line;
+        totalLines++;
+        return evicted;
+    }
+    
+    /***************************************************************************
+     * Getter for a line, 0 is the oldest line still kept
+     * @param i
+    ***************************************************************************/
+    public String getLine(int i) {
+        if(i < 0 || i >= size) {
+            throw new IndexOutOfBoundsException("Line " + i + " of " + size);
+        }
+        return lines[(head + i) % lines.length];
+    }
+    
+    /***************************************************************************
+     * Getter for size
+    ***************************************************************************/
+    public int size() {
+        return size;
+    }
+    
+    /***************************************************************************
+     * Getter for capacity
+    ***************************************************************************/
+    public int capacity() {
+        return lines.length;
+    }
+    
+    /***************************************************************************
+     * Getter for the number of lines ever added, including ones pushed out
+    ***************************************************************************/
+    public long getTotalLines() {
+        return totalLines;
+    }
+    
+    /***************************************************************************
+     * Empties the log
+    ***************************************************************************/
+    public void clear() {
+        for(int i = 0; i < lines.length; i++) {
+            lines[i] = null;
+        }
+        head = 0;
+        size = 0;
+    }
+    
+    /***************************************************************************
+     * @Override toString method, every kept line oldest first
+    ***************************************************************************/
+    @Override
+    public String toString() {
+        StringBuilder outLog = new StringBuilder();
+        for(int i = 0; i < size; i++) {
+            outLog.append(getLine(i)).append('\n');
+        }
+        return outLog.toString();
+    }
+}
@@ -0,0 +1,1091 @@
+package cmsc335_project_3_elinkowski;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.DoubleAdder;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.Lock;
+
+/*******************************************************************************
+ * File name: Scheduler class
+ * Date: 20181108 0940L
+ * Author: Keith R. Elinkowski
+ * Purpose: Moves ships through the ports of a World.  When every Job of a
+ * docked ship is finished the ship leaves and the next ship in the queue takes
+ * its pier.  Each port is worked on while holding only that port's lock, so
+ * passes over different ports can run at the same time from any number of
+ * threads.  Work that touches two ports locks them in order of index.  When
+ * several docks are free at once the queued ships are matched to them as a 
+ * batch, picking the ships expected to turn around soonest, rather than 
+ * simply taking the head of the queue.  A ship is only ever berthed at a 
+ * dock big enough for it.  A docked ship's Jobs are started in the order 
+ * given by its JobGraph as their dependencies finish, each one waiting for 
+ * people from the port's WorkerPool.  When people are short the Jobs of 
+ * highest priority go first, and a waiting Job well above a running one may
+ * preempt it, taking its people while the running Job pauses with its 
+ * progress kept.  Jobs inherit the priority of the Jobs that depend on them,
+ * waiting Jobs gain priority the longer they wait, and Preemption limits how
+ * often one Job is preempted, so low priority work still finishes.  With
+ * a WorkerBroker set, a Job needing a skill its port lacks waits for a 
+ * person borrowed from another port instead of going without.  With a
+ * LoadBalancer set, queued ships are also rerouted away from crowded ports.
+ * Ships, Jobs, people and docks that arrive while the simulation runs are
+ * handed to arrive() from any thread and the ArrivalIntake adds them to the
+ * World at the start of the next pass.  Its queue is bounded, so a producer
+ * that gets ahead of the passes is made to wait, and with an 
+ * AdmissionControl set each port only takes the ships it has room for.
+ * Once drain() is called nothing more is admitted or docked and passes only
+ * see the docked ships through.  A World read from a Checkpoint picks up 
+ * where it left off, CheckpointResume sending each running Job back to the
+ * people it had.  With a StallWatchdog set, a listener looks for Jobs and 
+ * docks that have stopped making progress after each pass, and a ship stuck
+ * at its dock can be requeued.  Ships arriving, docking, leaving and being 
+ * rerouted, and Jobs getting their people, are reported to 
+ * SchedulerListeners.  A LatencyRecorder listener counts queue wait, Job 
+ * service time and turnaround per port and type of ship.  
+ * SeaPortEvents.LISTENER turns arrivals, dockings and waits for people into
+ * flight recorder events, LifecycleTrace.LISTENER traces them and 
+ * EventJournal.LISTENER journals them.
+*******************************************************************************/
+public class Scheduler {
+    private static final int MATCH_BATCH = 32;
+    private static final int MATCH_WINDOW = 4;
+    private static final int MAX_BYPASS = 8;
+    private static final double MISSING_SKILL_PENALTY = 1.0;
+    private static final double FORCED_COST = -1.0e9;
+    protected static final double EMPTY_COST = 1.0e11;
+    protected static final double INCOMPATIBLE_COST = 1.0e12;
+    private static final double PASSENGERS_PER_PRIORITY = 10.0;
+    private static final double AGING_PER_SECOND = 50.0;
+    private final World world;
+    private final Map<Integer, Thing> structureMap;
+    private final JobTableTemplate workTable;
+    private final LogConsole workConsole;
+    private final LongAdder lockAcquisitions;
+    private final LongAdder contendedLocks;
+    private final ConcurrentHashMap<Ship, Integer> bypassed;
+    private final LongAdder matchedBatches;
+    private final DoubleAdder matchedWait;
+    private final DoubleAdder greedyWait;
+    private final ConcurrentHashMap<Ship, JobGraph> plans;
+    private final LongAdder turnarounds;
+    private final DoubleAdder predictedTurnaround;
+    private final DoubleAdder actualTurnaround;
+    private final ConcurrentHashMap<Job, Long> waitingSince;
+    private final Preemption preemption;
+    private final LongAdder inheritedPriorities;
+    private volatile WorkerBroker broker;
+    private volatile AdmissionControl admission;
+    private final CopyOnWriteArrayList<SchedulerListener> listeners;
+    private final LatencyRecorder latencyRecorder;
+    private final ArrivalIntake intake;
+    private volatile LoadBalancer balancer;
+    private volatile boolean draining;
+    private volatile StallWatchdog watchdog;
+
+    /***************************************************************************
+     * Scheduler Constructor
+     * @param world
+     * @param structureMap every Thing in the World by index
+     * @param workTable table showing the running jobs, may be null
+     * @param workConsole console to report ships docking and leaving, may be null
+    ***************************************************************************/
+    public Scheduler(World world, Map<Integer, Thing> structureMap, JobTableTemplate workTable, LogConsole workConsole) {
+        this.world = world;
+        this.structureMap = structureMap;
+        this.workTable = workTable;
+        this.workConsole = workConsole;
+        lockAcquisitions = new LongAdder();
+        contendedLocks = new LongAdder();
+        bypassed = new ConcurrentHashMap<>();
+        matchedBatches = new LongAdder();
+        matchedWait = new DoubleAdder();
+        greedyWait = new DoubleAdder();
+        plans = new ConcurrentHashMap<>();
+        turnarounds = new LongAdder();
+        predictedTurnaround = new DoubleAdder();
+        actualTurnaround = new DoubleAdder();
+        waitingSince = new ConcurrentHashMap<>();
+        preemption = new Preemption();
+        inheritedPriorities = new LongAdder();
+        latencyRecorder = new LatencyRecorder();
+        listeners = new CopyOnWriteArrayList<>();
+        listeners.add(latencyRecorder);
+        listeners.add(SeaPortEvents.LISTENER);
+        listeners.add(LifecycleTrace.LISTENER);
+        listeners.add(EventJournal.LISTENER);
+        listeners.add(new CheckpointResume(this));
+        intake = new ArrivalIntake(this, structureMap, listeners);
+    }
+
+    /***************************************************************************
+     * Getter for world
+    ***************************************************************************/
+    public World getWorld() {
+        return world;
+    }
+
+    /***************************************************************************
+     * Setter for the WorkerBroker that lends people between ports, null to 
+     * keep every port to its own people
+     * @param broker
+    ***************************************************************************/
+    public void setWorkerBroker(WorkerBroker broker) {
+        this.broker = broker;
+    }
+
+    /***************************************************************************
+     * Getter for the WorkerBroker, null if people are not lent
+    ***************************************************************************/
+    public WorkerBroker getWorkerBroker() {
+        return broker;
+    }
+
+    /***************************************************************************
+     * Setter for the LoadBalancer that reroutes queued ships between ports, 
+     * null to keep every ship at the port in its record.  It is added as a 
+     * listener in place of the one set before.
+     * @param balancer
+    ***************************************************************************/
+    public synchronized void setLoadBalancer(LoadBalancer balancer) {
+        if(this.balancer != null) {
+            listeners.remove(this.balancer);
+        }
+        this.balancer = balancer;
+        if(balancer != null) {
+            listeners.add(balancer);
+        }
+    }
+
+    /***************************************************************************
+     * Getter for the LoadBalancer, null if ships are not rerouted
+    ***************************************************************************/
+    public LoadBalancer getLoadBalancer() {
+        return balancer;
+    }
+
+    /***************************************************************************
+     * Setter for the AdmissionControl that limits the ships each port takes
+     * from arrive(), null to take every ship
+     * @param admission
+    ***************************************************************************/
+    public void setAdmissionControl(AdmissionControl admission) {
+        this.admission = admission;
+    }
+
+    /***************************************************************************
+     * Getter for the AdmissionControl, null if every ship is taken
+    ***************************************************************************/
+    public AdmissionControl getAdmissionControl() {
+        return admission;
+    }
+
+    /***************************************************************************
+     * Adds a listener told as ships and Jobs move through the ports
+     * @param listener
+    ***************************************************************************/
+    public void addListener(SchedulerListener listener) {
+        listeners.add(listener);
+    }
+
+    /***************************************************************************
+     * Removes a listener
+     * @param listener
+    ***************************************************************************/
+    public void removeListener(SchedulerListener listener) {
+        listeners.remove(listener);
+    }
+
+    /***************************************************************************
+     * Setter for the StallWatchdog that looks for Jobs and docks making no 
+     * progress, null to not look.  It is added as a listener in place of the
+     * one set before.
+     * @param watchdog
+    ***************************************************************************/
+    public synchronized void setStallWatchdog(StallWatchdog watchdog) {
+        if(this.watchdog != null) {
+            listeners.remove(this.watchdog);
+        }
+        this.watchdog = watchdog;
+        if(watchdog != null) {
+            listeners.add(watchdog);
+        }
+    }
+
+    /***************************************************************************
+     * Getter for the StallWatchdog, null if stalls are not looked for
+    ***************************************************************************/
+    public StallWatchdog getStallWatchdog() {
+        return watchdog;
+    }
+
+    /***************************************************************************
+     * Starts work on every ship that was berthed when the World was loaded.  
+     * The listeners hear of each ship before any Job is dispatched, so Jobs
+     * that were running when a Checkpoint was taken can start first.
+    ***************************************************************************/
+    public void startDocked() {
+        for(SeaPort port : world.getPorts()) {
+            Lock lock = lockFor(port);
+            acquire(lock);
+            try {
+                for(Dock dock : port.getDocks()) {
+                    Ship ship = dock.getShip();
+                    if(ship != null && !ship.getJobs().isEmpty()) {
+                        log(String.format(">>> SHIP DOCKING: SS %s docking in %s at Port of %s\n", ship.getName(), dock.getName(), port.getName()));
+                        plan(ship);
+                        for(SchedulerListener listener : listeners) {
+                            listener.shipLoaded(port, dock, ship);
+                        }
+                    }
+                }
+                dispatch(port);
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    /***************************************************************************
+     * Stops admitting arrivals and docking queued ships, so the work already
+     * at the docks can finish before a shutdown.  Cannot be undone.
+    ***************************************************************************/
+    public void drain() {
+        draining = true;
+    }
+
+    /***************************************************************************
+     * Simple helper method to tell if drain() has been called
+    ***************************************************************************/
+    public boolean isDraining() {
+        return draining;
+    }
+
+    /***************************************************************************
+     * One pass over every port.  The ports that changed are published as one
+     * new World snapshot at the end, after which queued ships are rebalanced
+     * if there is a LoadBalancer and the listeners are told the pass is done.
+    ***************************************************************************/
+    public void runPass() {
+        Set<SeaPort> changed = Collections.newSetFromMap(new IdentityHashMap<>());
+        LoadBalancer current = draining ? null : balancer;
+        if(!draining) {
+            intake.absorb(changed);
+        }
+        for(SeaPort port : world.getPorts()) {
+            if(servicePort(port)) {
+                changed.add(port);
+            }
+        }
+        if(!changed.isEmpty()) {
+            world.publishSnapshot(changed);
+        }
+        if(current != null) {
+            for(SeaPort port : changed) {
+                current.portChanged(port);
+            }
+            current.balance();
+        }
+        for(SchedulerListener listener : listeners) {
+            listener.passFinished();
+        }
+    }
+
+    /***************************************************************************
+     * Sends away every docked ship whose Jobs are all finished, berths 
+     * queued ships at the free docks and hands the port's people to the Jobs
+     * that are ready.  Holds only this port's lock.  The caller publishes the
+     * snapshot.  While draining no ship is docked.
+     * @param port
+     * @return true if a ship left or docked
+    ***************************************************************************/
+    public boolean servicePort(SeaPort port) {
+        Lock lock = lockFor(port);
+        acquire(lock);
+        try {
+            boolean departed = departFinished(port);
+            boolean docked = !draining && dockQueued(port);
+            dispatch(port);
+            return departed || docked;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /***************************************************************************
+     * Sends away every docked ship whose Jobs are all finished.  Only the 
+     * occupied docks are looked at.
+    ***************************************************************************/
+    private boolean departFinished(SeaPort port) {
+        boolean changed = false;
+        for(Dock dock : port.getOccupiedDocks()) {
+            Ship departing = dock.getShip();
+            if(!workComplete(departing) || intake.awaitingJobs(departing)) {
+                continue;
+            }
+            intake.departed(departing);
+            departing.setDepartureTime(PortTime.now());
+            for(SchedulerListener listener : listeners) {
+                listener.shipDeparted(port, dock, departing);
+            }
+            log(String.format(">>> SHIP DEPARTING: SS %s leaving %s at Port of %s\n", departing.getName(), dock.getName(), port.getName()));
+            for(Job job : departing.getJobs()) {
+                if(job.finished()) {
+                    log(String.format(">>> JOB DONE: Work order %s finished on SS %s at %s in Port of %s\n", job.getName(), departing.getName(), dock.getName(), port.getName()));
+                }
+                job.endWork();
+                waitingSince.remove(job);
+                preemption.forget(job);
+            }
+            port.getWorkerPool().releaseFinished();
+            port.release(dock);
+            reportTurnaround(departing);
+            changed = true;
+        }
+        return changed;
+    }
+
+    /***************************************************************************
+     * Berths queued ships at free docks big enough for them until either runs
+     * out.  A single free dock takes the first queued ship that fits it; 
+     * several free docks are filled as a batch by matchBatch().  The queue is
+     * walked once per batch and each ship is checked against the port's 
+     * DockIndex rather than against every free dock.
+    ***************************************************************************/
+    private boolean dockQueued(SeaPort port) {
+        boolean changed = false;
+        while(port.getFreeDockCount() > 0 && !port.getQueue().isEmpty()) {
+            int batch = Math.min(port.getFreeDockCount(), MATCH_BATCH);
+            List<Ship> candidates = fittingShips(port, batch * MATCH_WINDOW);
+            if(candidates.isEmpty()) {
+                break;
+            }
+            if(batch == 1 || candidates.size() == 1) {
+                Ship docking = candidates.get(0);
+                port.getQueue().remove(docking);
+                bypassed.remove(docking);
+                berth(port, port.getFreeDockFor(docking), docking);
+            }
+            else {
+                matchBatch(port, batchDocks(port, candidates, batch), candidates);
+            }
+            changed = true;
+        }
+        return changed;
+    }
+
+    /***************************************************************************
+     * The first queued ships that at least one free dock can take
+    ***************************************************************************/
+    private static List<Ship> fittingShips(SeaPort port, int limit) {
+        ArrayList<Ship> fitting = new ArrayList<>();
+        for(Ship ship : port.getQueue()) {
+            if(port.hasFreeDockFor(ship)) {
+                fitting.add(ship);
+                if(fitting.size() >= limit) {
+                    break;
+                }
+            }
+        }
+        return fitting;
+    }
+
+    /***************************************************************************
+     * Free docks that can take at least one of the candidate ships
+    ***************************************************************************/
+    private static List<Dock> batchDocks(SeaPort port, List<Ship> candidates, int limit) {
+        ArrayList<Dock> docks = new ArrayList<>();
+        for(Dock dock : port.getFreeDocks()) {
+            if(port.getDockIndex().acceptsAny(dock, candidates)) {
+                docks.add(dock);
+                if(docks.size() >= limit) {
+                    break;
+                }
+            }
+        }
+        return docks;
+    }
+
+    /***************************************************************************
+     * Matches a batch of free docks with ships from the front of the queue so
+     * the total expected turnaround is as low as possible.  Only the first 
+     * few ships per dock are looked at, and a ship passed over MAX_BYPASS 
+     * times is always taken so it cannot starve.  A dock is never given a 
+     * ship too big for it and is left empty if no candidate fits.  The 
+     * expected average wait of the candidates is worked out for the match and
+     * for plain first come first served, and both are reported.
+    ***************************************************************************/
+    private void matchBatch(SeaPort port, List<Dock> docks, List<Ship> candidates) {
+        HashMap<String, Integer> skills = skillCounts(port);
+        int rows = docks.size();
+        int columns = Math.max(rows, candidates.size());
+        double[][] cost = new double[rows][columns];
+        double[] turnaround = new double[candidates.size()];
+        for(int s = 0; s < columns; s++) {
+            if(s >= candidates.size()) {
+                for(int d = 0; d < rows; d++) {
+                    cost[d][s] = EMPTY_COST;
+                }
+                continue;
+            }
+            Ship ship = candidates.get(s);
+            turnaround[s] = expectedTurnaround(ship, skills);
+            boolean forced = bypassed.getOrDefault(ship, 0) >= MAX_BYPASS;
+            for(int d = 0; d < rows; d++) {
+                cost[d][s] = dockCost(docks.get(d), ship, turnaround[s]);
+                if(forced && cost[d][s] < EMPTY_COST) {
+                    cost[d][s] += FORCED_COST;
+                }
+            }
+        }
+        int[] assignment = DockAssignment.solve(cost);
+        boolean[] chosen = new boolean[candidates.size()];
+        int lastChosen = -1;
+        int berthed = 0;
+        for(int d = 0; d < rows; d++) {
+            if(cost[d][assignment[d]] < EMPTY_COST) {
+                chosen[assignment[d]] = true;
+                lastChosen = Math.max(lastChosen, assignment[d]);
+                berthed++;
+            }
+        }
+        double matched = averageWait(candidates, turnaround, chosen, berthed);
+        double greedy = averageWait(candidates, turnaround, null, berthed);
+        matchedBatches.increment();
+        matchedWait.add(matched);
+        greedyWait.add(greedy);
+        for(int s = 0; s < lastChosen; s++) {
+            if(!chosen[s]) {
+                bypassed.merge(candidates.get(s), 1, Integer::sum);
+            }
+        }
+        for(int d = 0; d < rows; d++) {
+            if(cost[d][assignment[d]] >= EMPTY_COST) {
+                continue;
+            }
+            Ship docking = candidates.get(assignment[d]);
+            port.getQueue().remove(docking);
+            bypassed.remove(docking);
+            berth(port, docks.get(d), docking);
+        }
+        log(String.format(">>> DOCK MATCHING: %d ships matched at Port of %s, expected average wait %.2f hours vs %.2f hours first come first served\n", berthed, port.getName(), matched, greedy));
+    }
+
+    /***************************************************************************
+     * Cost of berthing a ship at a particular dock.  This is the ship's 
+     * expected turnaround, or INCOMPATIBLE_COST if the ship is too big for
+     * the dock.
+     * @param dock
+     * @param ship
+     * @param turnaround expected turnaround of the ship in hours
+    ***************************************************************************/
+    protected double dockCost(Dock dock, Ship ship, double turnaround) {
+        return dock.accepts(ship) ? turnaround : INCOMPATIBLE_COST;
+    }
+
+    /***************************************************************************
+     * Expected hours a ship will hold a dock.  A ship's Jobs run side by side, 
+     * so this is its longest Job, stretched for every required skill that no
+     * one at the port has.
+     * @param ship
+     * @param skills number of people at the port with each skill
+    ***************************************************************************/
+    protected double expectedTurnaround(Ship ship, HashMap<String, Integer> skills) {
+        double longest = 0.0;
+        for(Job job : ship.getJobs()) {
+            int missing = 0;
+            for(String requirement : job.getRequirements()) {
+                if(skills.getOrDefault(requirement.toLowerCase(), 0) == 0) {
+                    missing++;
+                }
+            }
+            double hours = job.getDuration();
+            if(!job.getRequirements().isEmpty()) {
+                hours *= 1.0 + MISSING_SKILL_PENALTY * missing / job.getRequirements().size();
+            }
+            longest = Math.max(longest, hours);
+        }
+        return longest;
+    }
+
+    /***************************************************************************
+     * Counts the people at a port with each skill
+    ***************************************************************************/
+    static HashMap<String, Integer> skillCounts(SeaPort port) {
+        HashMap<String, Integer> skills = new HashMap<>();
+        for(Person person : port.getPersons()) {
+            if(person.getSkill() != null) {
+                skills.merge(person.getSkill().toLowerCase(), 1, Integer::sum);
+            }
+        }
+        return skills;
+    }
+
+    /***************************************************************************
+     * Expected average wait of the candidate ships when the chosen ones take
+     * the free docks now and the rest follow in queue order, each taking the
+     * first dock to come free.  With no ships chosen the first ones in the 
+     * queue take the free docks, which is first come first served.
+    ***************************************************************************/
+    private static double averageWait(List<Ship> candidates, double[] turnaround, boolean[] chosen, int docks) {
+        if(docks == 0 || candidates.isEmpty()) {
+            return 0.0;
+        }
+        PriorityQueue<Double> freeAt = new PriorityQueue<>();
+        for(int d = 0; d < docks; d++) {
+            freeAt.add(0.0);
+        }
+        double totalWait = 0.0;
+        if(chosen != null) {
+            for(int s = 0; s < candidates.size(); s++) {
+                if(chosen[s]) {
+                    freeAt.add(freeAt.poll() + turnaround[s]);
+                }
+            }
+        }
+        for(int s = 0; s < candidates.size(); s++) {
+            if(chosen == null || !chosen[s]) {
+                double start = freeAt.poll();
+                totalWait += start;
+                freeAt.add(start + turnaround[s]);
+            }
+        }
+        return totalWait / candidates.size();
+    }
+
+    /***************************************************************************
+     * Berths a ship at a dock and plans its Jobs.  They are started by the 
+     * next dispatch().
+    ***************************************************************************/
+    void berth(SeaPort port, Dock dock, Ship docking) {
+        port.berth(dock, docking);
+        docking.setParent(dock.getIndex());
+        docking.setDockTime(PortTime.now());
+        log(String.format(">>> SHIP DOCKING: SS %s docking in %s at Port of %s\n", docking.getName(), dock.getName(), port.getName()));
+        plan(docking);
+        for(SchedulerListener listener : listeners) {
+            listener.shipDocked(port, dock, docking);
+        }
+    }
+
+    /***************************************************************************
+     * Builds the JobGraph of a ship that just docked
+    ***************************************************************************/
+    private JobGraph plan(Ship ship) {
+        JobGraph graph = new JobGraph(ship, job -> basePriority(ship, job));
+        plans.put(ship, graph);
+        inheritedPriorities.add(graph.getInheritedCount());
+        if(graph.hasCycle()) {
+            log(String.format(">>> JOB ORDER: SS %s has jobs that depend on each other in a cycle, those dependencies are ignored\n", ship.getName()));
+        }
+        return graph;
+    }
+
+    /***************************************************************************
+     * Priority of a Job before inheritance.  This is the priority in the job
+     * record if there is one, otherwise the cargo value of a CargoShip or the
+     * passengers of a PassengerShip over PASSENGERS_PER_PRIORITY.
+     * @param ship
+     * @param job
+    ***************************************************************************/
+    protected double basePriority(Ship ship, Job job) {
+        if(!Double.isNaN(job.getPriority())) {
+            return job.getPriority();
+        }
+        if(ship instanceof CargoShip) {
+            return ((CargoShip)ship).getCargoValue();
+        }
+        if(ship instanceof PassengerShip) {
+            return ((PassengerShip)ship).getNumberOfPassengers() / PASSENGERS_PER_PRIORITY;
+        }
+        return 0.0;
+    }
+
+    /***************************************************************************
+     * Hands the port's idle people to the Jobs that are ready, along with any
+     * Jobs that were preempted, highest priority first.  A Job that cannot get
+     * its people may preempt running Jobs well below it, as Preemption allows.
+     * Each waiting Job gains AGING_PER_SECOND of priority for every second it
+     * has waited.  A Job missing a skill the port has no one for waits while
+     * people are borrowed for it.  Called while holding the port's lock.
+    ***************************************************************************/
+    private void dispatch(SeaPort port) {
+        WorkerPool pool = port.getWorkerPool();
+        WorkerBroker lender = broker;
+        pool.releaseFinished();
+        long now = System.nanoTime();
+        if(lender != null) {
+            lender.receive(port, now);
+        }
+        IdentityHashMap<Job, Double> priority = new IdentityHashMap<>();
+        IdentityHashMap<Job, Ship> shipOf = new IdentityHashMap<>();
+        ArrayList<Job> waiting = new ArrayList<>();
+        for(Dock dock : port.getOccupiedDocks()) {
+            JobGraph graph = plans.get(dock.getShip());
+            if(graph == null) {
+                continue;
+            }
+            for(Job job : graph.getShip().getJobs()) {
+                if(!job.finished()) {
+                    priority.put(job, graph.getPriority(job));
+                    shipOf.put(job, graph.getShip());
+                    if(job.isPreempted()) {
+                        waiting.add(job);
+                    }
+                }
+            }
+            waiting.addAll(graph.readyJobs());
+        }
+        for(Job job : waiting) {
+            long since = waitingSince.computeIfAbsent(job, k -> now);
+            priority.put(job, priority.get(job) + AGING_PER_SECOND * (now - since) / 1e9);
+        }
+        waiting.sort((a, b) -> Double.compare(priority.get(b), priority.get(a)));
+        HashSet<String> wanted = new HashSet<>();
+        for(Job job : waiting) {
+            if(lender != null && borrowFor(port, job, lender)) {
+                addSkills(wanted, job);
+                continue;
+            }
+            if(!pool.tryAssign(job)) {
+                List<Job> victims = preemption.victimsFor(pool, job, priority);
+                if(victims == null) {
+                    addSkills(wanted, job);
+                    continue;
+                }
+                for(Job victim : victims) {
+                    preempt(port, victim, shipOf.get(victim), job, now);
+                }
+                pool.tryAssign(job);
+            }
+            Long readyAt = waitingSince.remove(job);
+            for(SchedulerListener listener : listeners) {
+                listener.workersAcquired(port, shipOf.get(job), job, readyAt != null ? now - readyAt : 0L);
+            }
+            if(job.isPreempted()) {
+                preemption.resumed(job, now);
+                job.setBerth(port.getIndex(), shipOf.get(job).getParent());
+                job.resume();
+            }
+            else {
+                job.setBerth(port.getIndex(), shipOf.get(job).getParent());
+                startJob(shipOf.get(job), job);
+            }
+        }
+        if(lender != null) {
+            lender.returnIdle(port, wanted);
+        }
+    }
+
+    /***************************************************************************
+     * Borrows people for the skills a Job needs that its port has too few of
+     * @return true if the Job should wait for people on their way
+    ***************************************************************************/
+    private boolean borrowFor(SeaPort port, Job job, WorkerBroker lender) {
+        HashMap<String, Integer> missing = port.getWorkerPool().unstaffed(job);
+        boolean wait = false;
+        for(String skill : missing.keySet()) {
+            int needed = missing.get(skill) - lender.getInbound(port, skill);
+            int sent = needed > 0 ? lender.request(port, skill, needed) : 0;
+            if(sent > 0) {
+                log(String.format(">>> WORKER LOAN: %d %s on the way to Port of %s for work order %s\n", sent, skill, port.getName(), job.getName()));
+            }
+            if(lender.getInbound(port, skill) > 0) {
+                wait = true;
+            }
+        }
+        return wait;
+    }
+
+    /***************************************************************************
+     * Simple helper method to add a Job's requirements, in lower case, to a 
+     * set of skills
+    ***************************************************************************/
+    private static void addSkills(HashSet<String> skills, Job job) {
+        for(String requirement : job.getRequirements()) {
+            skills.add(requirement.toLowerCase());
+        }
+    }
+
+    /***************************************************************************
+     * Pauses a running Job and gives its people back to the port
+    ***************************************************************************/
+    private void preempt(SeaPort port, Job victim, Ship ship, Job preemptor, long now) {
+        preemption.preempt(port, victim, now);
+        waitingSince.put(victim, now);
+        log(String.format(">>> JOB PREEMPTED: Work order %s on SS %s paused at %d%% for %s in Port of %s\n", victim.getName(), ship != null ? ship.getName() : "?", victim.getProgress(), preemptor.getName(), port.getName()));
+    }
+
+    /***************************************************************************
+     * Sends a docked ship back to the end of its port's queue, freeing its
+     * dock for the ships waiting behind it.  Its running Jobs are preempted,
+     * keeping their progress, and go on once the ship docks again.  Nothing
+     * is done when no other ship is queued, as the ship would only dock again
+     * where it was.
+     * @param port
+     * @param dock
+     * @param ship
+     * @return false if the ship is no longer at the dock or nothing is queued
+    ***************************************************************************/
+    public boolean requeue(SeaPort port, Dock dock, Ship ship) {
+        Lock lock = lockFor(port);
+        acquire(lock);
+        try {
+            if(dock.getShip() != ship || port.getQueue().isEmpty()) {
+                return false;
+            }
+            long now = System.nanoTime();
+            for(Job job : ship.getJobs()) {
+                if(job.isStarted() && !job.finished() && !job.isPreempted()) {
+                    preemption.pause(port, job, now);
+                }
+                waitingSince.remove(job);
+            }
+            plans.remove(ship);
+            port.release(dock);
+            port.getQueue().add(ship);
+            ship.setParent(port.getIndex());
+            for(SchedulerListener listener : listeners) {
+                listener.shipRerouted(port, port, ship);
+            }
+            log(String.format(">>> SHIP REQUEUED: SS %s sent from %s back to the queue at Port of %s\n", ship.getName(), dock.getName(), port.getName()));
+        } finally {
+            lock.unlock();
+        }
+        world.publishSnapshot(Collections.singletonList(port));
+        LoadBalancer current = balancer;
+        if(current != null) {
+            current.portChanged(port);
+        }
+        return true;
+    }
+
+    /***************************************************************************
+     * Getter for System.nanoTime() when a docked ship docked, 0 if it is not
+     * docked.  Called while holding the ship's port lock.
+    ***************************************************************************/
+    long dockedAt(Ship ship) {
+        JobGraph graph = plans.get(ship);
+        return graph != null ? graph.getDockedAt() : 0L;
+    }
+
+    /***************************************************************************
+     * Plans the Jobs of a docked ship again after a Job arrived for it.  
+     * Called while holding the ship's port lock.
+    ***************************************************************************/
+    void replan(Ship ship) {
+        JobGraph graph = plans.get(ship);
+        if(graph != null) {
+            plans.put(ship, new JobGraph(ship, job -> basePriority(ship, job), graph.getDockedAt()));
+        }
+    }
+
+    /***************************************************************************
+     * Getter for System.nanoTime() since when a Job has waited for people, 0
+     * if it is not waiting
+    ***************************************************************************/
+    long waitingSince(Job job) {
+        Long since = waitingSince.get(job);
+        return since != null ? since : 0L;
+    }
+
+    /***************************************************************************
+     * Reports how long a departing ship held its dock against the turnaround
+     * its critical path predicted
+    ***************************************************************************/
+    private void reportTurnaround(Ship ship) {
+        JobGraph graph = plans.remove(ship);
+        if(graph == null) {
+            return;
+        }
+        double actual = graph.getActualMillis();
+        double predicted = graph.getPredictedMillis();
+        turnarounds.increment();
+        predictedTurnaround.add(predicted);
+        actualTurnaround.add(actual);
+        log(String.format(">>> TURNAROUND: SS %s predicted %.1f s, actual %.1f s, waited %.1f s, critical path %s\n", ship.getName(), predicted / 1000, actual / 1000, ship.getQueueWaitMillis() / 1000, graph));
+    }
+
+    /***************************************************************************
+     * Hands a Thing that arrived while the simulation runs to the Scheduler.
+     * Safe to call from any thread.  The Thing is added to the World at the
+     * start of the next pass.  Its parent index says where it goes, as in a 
+     * simulation file.  Ports cannot arrive this way.  Blocks while the 
+     * ArrivalIntake is full.  Once draining, arrivals are dropped.
+     * @param thing a Ship, Job, Person or Dock
+    ***************************************************************************/
+    public void arrive(Thing thing) throws InterruptedException {
+        intake.arrive(thing);
+    }
+
+    /***************************************************************************
+     * Moves a ship waiting in one port's queue to the back of another port's
+     * queue.  Both ports are locked in order of index so two moves in opposite
+     * directions can never deadlock.  A ship is never moved to a port with no
+     * dock big enough for it.
+     * @param ship
+     * @param from
+     * @param to
+     * @return false if the ship was no longer queued at from or does not fit
+     * any dock at to
+    ***************************************************************************/
+    public boolean moveQueuedShip(Ship ship, SeaPort from, SeaPort to) {
+        if(from == to) {
+            return false;
+        }
+        List<Lock> locks = lockInOrder(from, to);
+        try {
+            if(!from.getQueue().contains(ship) || !to.getDockIndex().fitsAnyClass(ship)) {
+                return false;
+            }
+            from.getQueue().remove(ship);
+            bypassed.remove(ship);
+            from.getShips().remove(ship);
+            from.getDockIndex().forget(ship);
+            to.getQueue().add(ship);
+            to.getShips().add(ship);
+            ship.setParent(to.getIndex());
+            for(SchedulerListener listener : listeners) {
+                listener.shipRerouted(from, to, ship);
+            }
+        } finally {
+            unlockAll(locks);
+        }
+        world.publishSnapshot(Arrays.asList(from, to));
+        return true;
+    }
+
+    /***************************************************************************
+     * Locks two ports in SeaPort.LOCK_ORDER
+    ***************************************************************************/
+    private List<Lock> lockInOrder(SeaPort first, SeaPort second) {
+        if(SeaPort.LOCK_ORDER.compare(second, first) < 0) {
+            SeaPort swap = first;
+            first = second;
+            second = swap;
+        }
+        Lock firstLock = lockFor(first);
+        Lock secondLock = lockFor(second);
+        acquire(firstLock);
+        if(secondLock != firstLock) {
+            acquire(secondLock);
+        }
+        return secondLock != firstLock ? Arrays.asList(secondLock, firstLock) : Arrays.asList(firstLock);
+    }
+
+    /***************************************************************************
+     * Unlocks in reverse of the order locked
+    ***************************************************************************/
+    private static void unlockAll(List<Lock> locks) {
+        for(Lock lock : locks) {
+            lock.unlock();
+        }
+    }
+
+    /***************************************************************************
+     * Takes a lock, counting the times it was already held by another thread
+    ***************************************************************************/
+    protected void acquire(Lock lock) {
+        lockAcquisitions.increment();
+        if(!lock.tryLock()) {
+            contendedLocks.increment();
+            lock.lock();
+        }
+    }
+
+    /***************************************************************************
+     * The lock guarding a port.  Each port has its own lock.
+     * @param port
+    ***************************************************************************/
+    protected Lock lockFor(SeaPort port) {
+        return port.getLock();
+    }
+
+    /***************************************************************************
+     * Adds a Job to the work table and starts its worker thread
+     * @param ship
+     * @param job
+    ***************************************************************************/
+    protected void startJob(Ship ship, Job job) {
+        if(workTable != null) {
+            workTable.add(ship, structureMap, job);
+        }
+        job.startWork();
+    }
+
+    /***************************************************************************
+     * Simple helper method to check if every Job of a ship is finished
+    ***************************************************************************/
+    private static boolean workComplete(Ship ship) {
+        for(Job job : ship.getJobs()) {
+            if(!job.finished()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /***************************************************************************
+     * Simple helper method to write to the work console when there is one
+    ***************************************************************************/
+    void log(String text) {
+        if(workConsole != null) {
+            workConsole.append(text);
+        }
+    }
+
+    /***************************************************************************
+     * Getter for the number of batches matched to free docks
+    ***************************************************************************/
+    public long getMatchedBatches() {
+        return matchedBatches.sum();
+    }
+
+    /***************************************************************************
+     * Getter for the expected average wait in hours over every matched batch
+    ***************************************************************************/
+    public double getMatchedWait() {
+        long batches = matchedBatches.sum();
+        return batches == 0 ? 0.0 : matchedWait.sum() / batches;
+    }
+
+    /***************************************************************************
+     * Getter for the expected average wait in hours the same batches would 
+     * have had with first come first served
+    ***************************************************************************/
+    public double getGreedyWait() {
+        long batches = matchedBatches.sum();
+        return batches == 0 ? 0.0 : greedyWait.sum() / batches;
+    }
+
+    /***************************************************************************
+     * Getter for the number of ships that have left since the Scheduler began
+    ***************************************************************************/
+    public long getTurnarounds() {
+        return turnarounds.sum();
+    }
+
+    /***************************************************************************
+     * Getter for the average predicted turnaround of departed ships in
+     * milliseconds
+    ***************************************************************************/
+    public double getPredictedTurnaround() {
+        long ships = turnarounds.sum();
+        return ships == 0 ? 0.0 : predictedTurnaround.sum() / ships;
+    }
+
+    /***************************************************************************
+     * Getter for the average actual turnaround of departed ships in
+     * milliseconds
+    ***************************************************************************/
+    public double getActualTurnaround() {
+        long ships = turnarounds.sum();
+        return ships == 0 ? 0.0 : actualTurnaround.sum() / ships;
+    }
+
+    /***************************************************************************
+     * Getter for the number of times a running Job was preempted
+    ***************************************************************************/
+    public long getPreemptions() {
+        return preemption.getPreemptions();
+    }
+
+    /***************************************************************************
+     * Getter for the total milliseconds preempted Jobs spent paused before 
+     * they were resumed
+    ***************************************************************************/
+    public double getPreemptedMillis() {
+        return preemption.getPausedMillis();
+    }
+
+    /***************************************************************************
+     * Getter for the number of Jobs whose priority was raised by a Job that
+     * depends on them
+    ***************************************************************************/
+    public long getInheritedPriorities() {
+        return inheritedPriorities.sum();
+    }
+
+    /***************************************************************************
+     * Getter for the number of arrivals added to the World
+    ***************************************************************************/
+    public long getArrivals() {
+        return intake.getAbsorbed();
+    }
+
+    /***************************************************************************
+     * Getter for the number of arrivals that had no place in the World
+    ***************************************************************************/
+    public long getDroppedArrivals() {
+        return intake.getDropped();
+    }
+
+    /***************************************************************************
+     * Getter for the number of arrivals waiting for the next pass
+    ***************************************************************************/
+    public int getPendingArrivals() {
+        return intake.getPending();
+    }
+
+    /***************************************************************************
+     * The Things waiting for the next pass, for a Checkpoint
+    ***************************************************************************/
+    List<Thing> getPendingThings() {
+        return intake.getPendingThings();
+    }
+
+    /***************************************************************************
+     * Getter for the LatencyRecorder keeping the queue wait, Job service time
+     * and turnaround of every port
+    ***************************************************************************/
+    public LatencyRecorder getLatencyRecorder() {
+        return latencyRecorder;
+    }
+
+    /***************************************************************************
+     * Getter for the total milliseconds callers of arrive() spent waiting for
+     * room in the arrival queue
+    ***************************************************************************/
+    public double getArrivalBlockedMillis() {
+        return intake.getBlockedMillis();
+    }
+
+    /***************************************************************************
+     * Getter for the number of arriving Jobs shed along with their ship
+    ***************************************************************************/
+    public long getShedJobs() {
+        return intake.getShedJobs();
+    }
+
+    /***************************************************************************
+     * Getter for the average milliseconds from arrive() until the arrival 
+     * was in the World
+    ***************************************************************************/
+    public double getArrivalLatency() {
+        return intake.getLatency();
+    }
+
+    /***************************************************************************
+     * Getter for the number of port locks taken
+    ***************************************************************************/
+    public long getLockAcquisitions() {
+        return lockAcquisitions.sum();
+    }
+
+    /***************************************************************************
+     * Getter for the number of port locks that had to wait on another thread
+    ***************************************************************************/
+    public long getContendedLocks() {
+        return contendedLocks.sum();
+    }
+}
@@ -0,0 +1,197 @@
+package cmsc335_project_3_elinkowski;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Scanner;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+/*******************************************************************************
+ * File name: SchedulerBenchmark class
+ * Date: 20181108 1315L
+ * Author: Keith R. Elinkowski
+ * Purpose: Stand alone program that measures how the Scheduler holds up when
+ * many threads finish jobs at many ports at once.  A synthetic World is built
+ * and worked through twice, once with a lock per port and once with a single
+ * lock for the whole World, and the throughput and number of contended lock
+ * acquisitions of each run are printed.
+ * Usage: SchedulerBenchmark [ports] [docks per port] [ships per port]
+ * [jobs per ship] [threads]
+*******************************************************************************/
+public class SchedulerBenchmark {
+    private final int ports;
+    private final int docks;
+    private final int shipsPerPort;
+    private final int jobsPerShip;
+    private final int threads;
+
+    /***************************************************************************
+     * Starts the benchmark
+     * @param args
+    ***************************************************************************/
+    public static void main(String[] args) throws InterruptedException {
+        SchedulerBenchmark benchmark = new SchedulerBenchmark(
+                argument(args, 0, 64), argument(args, 1, 16), argument(args, 2, 512),
+                argument(args, 3, 3), argument(args, 4, Runtime.getRuntime().availableProcessors()));
+        System.out.printf("%d ports, %d docks per port, %d ships per port, %d jobs per ship, %d threads%n",
+                benchmark.ports, benchmark.docks, benchmark.shipsPerPort, benchmark.jobsPerShip, benchmark.threads);
+        benchmark.run("warm up", false);
+        benchmark.run("per port locks", false);
+        benchmark.run("one world lock", true);
+    }
+
+    /***************************************************************************
+     * SchedulerBenchmark Constructor
+    ***************************************************************************/
+    public SchedulerBenchmark(int ports, int docks, int shipsPerPort, int jobsPerShip, int threads) {
+        this.ports = ports;
+        this.docks = docks;
+        this.shipsPerPort = shipsPerPort;
+        this.jobsPerShip = jobsPerShip;
+        this.threads = threads;
+    }
+
+    /***************************************************************************
+     * Works a fresh World until every ship has left.  Each thread picks a port
+     * at random, finishes the jobs of one docked ship and services that port,
+     * the way a worker finishing its job would.
+     * @param label
+     * @param worldLock true to guard every port with one lock
+    ***************************************************************************/
+    public void run(String label, boolean worldLock) throws InterruptedException {
+        World world = buildWorld();
+        BenchScheduler scheduler = worldLock ? new BenchScheduler(world, new ReentrantLock())
+                : new BenchScheduler(world, null);
+        long total = (long)ports * shipsPerPort;
+        AtomicLong remaining = new AtomicLong(total);
+        CountDownLatch start = new CountDownLatch(1);
+        CountDownLatch finished = new CountDownLatch(threads);
+        AtomicReference<RuntimeException> failure = new AtomicReference<>();
+        List<SeaPort> portList = world.getPorts();
+        for(int t = 0; t < threads; t++) {
+            Thread worker = new Thread(() -> {
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                try {
+                    start.await();
+                    while(remaining.get() > 0) {
+                        SeaPort port = portList.get(random.nextInt(portList.size()));
+                        Dock dock = port.getDocks().get(random.nextInt(docks));
+                        if(scheduler.finishShip(port, dock)) {
+                            remaining.decrementAndGet();
+                            scheduler.servicePort(port);
+                        }
+                    }
+                } catch (InterruptedException e) {
+                    System.out.println(e);
+                } catch (RuntimeException e) {
+                    failure.compareAndSet(null, e);
+                    remaining.set(0);
+                } finally {
+                    finished.countDown();
+                }
+            }, "bench-" + t);
+            worker.setDaemon(true);
+            worker.start();
+        }
+        long began = System.nanoTime();
+        start.countDown();
+        finished.await();
+        long elapsed = System.nanoTime() - began;
+        if(failure.get() != null) {
+            System.out.printf("%-16s failed: %s%n", label, failure.get());
+            return;
+        }
+        double seconds = elapsed / 1e9;
+        System.out.printf("%-16s %8.1f ms  %,12.0f ships/s  %,10d locks  %,10d contended (%.1f%%)%n",
+                label, elapsed / 1e6, total / seconds, scheduler.getLockAcquisitions(),
+                scheduler.getContendedLocks(),
+                100.0 * scheduler.getContendedLocks() / Math.max(1, scheduler.getLockAcquisitions()));
+    }
+
+    /***************************************************************************
+     * Builds a World with every dock berthed and the rest of the ships queued
+    ***************************************************************************/
+    private World buildWorld() {
+        World world = new World(new Scanner("Benchmark"));
+        int index = 1;
+        for(int p = 0; p < ports; p++) {
+            SeaPort port = new SeaPort(new Scanner("Port_" + p + " " + index++ + " 0"));
+            world.assignSeaPort(port);
+            for(int d = 0; d < docks; d++) {
+                world.assignDock(new Dock(new Scanner("Pier_" + d + " " + index++ + " " + port.getIndex())), port);
+            }
+            for(int s = 0; s < shipsPerPort; s++) {
+                Dock dock = s < docks ? port.getDocks().get(s) : null;
+                Ship ship = new CargoShip(new Scanner("Ship_" + p + "_" + s + " " + index++ + " "
+                        + (dock != null ? dock.getIndex() : port.getIndex()) + " 100 200 30 10 50 50 50"));
+                world.assignShip(ship, port, dock);
+                for(int j = 0; j < jobsPerShip; j++) {
+                    world.assignJob(new Job(new Scanner("Job_" + s + "_" + j + " " + index++ + " " + ship.getIndex() + " 1.0")), ship);
+                }
+            }
+        }
+        return world;
+    }
+
+    /***************************************************************************
+     * Simple helper method to read a numeric argument
+    ***************************************************************************/
+    private static int argument(String[] args, int position, int fallback) {
+        if(args.length > position) {
+            try {
+                return Math.max(1, Integer.parseInt(args[position]));
+            } catch (NumberFormatException e) {
+                System.out.println(e);
+            }
+        }
+        return fallback;
+    }
+
+    /***************************************************************************
+     * Scheduler that starts no worker threads, optionally guarding every port
+     * with one shared lock to compare against a lock per port
+    ***************************************************************************/
+    private static final class BenchScheduler extends Scheduler {
+        private final Lock worldLock;
+
+        BenchScheduler(World world, Lock worldLock) {
+            super(world, new HashMap<>(), null, null);
+            this.worldLock = worldLock;
+        }
+
+        @Override
+        protected Lock lockFor(SeaPort port) {
+            return worldLock != null ? worldLock : port.getLock();
+        }
+
+        @Override
+        protected void startJob(Ship ship, Job job) {
+        }
+
+        /**
+         * Marks every job of the ship at a dock as finished.  Done under the
+         * port's lock so two threads never finish the same ship.
+         * @return true if there was an unfinished ship at the dock
+         */
+        boolean finishShip(SeaPort port, Dock dock) {
+            Lock lock = lockFor(port);
+            acquire(lock);
+            try {
+                Ship ship = dock.getShip();
+                if(ship == null || ship.getJobs().isEmpty() || ship.getJobs().get(0).finished()) {
+                    return false;
+                }
+                for(Job job : ship.getJobs()) {
+                    job.setCancel();
+                }
+                return true;
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+}
@@ -0,0 +1,79 @@
+package cmsc335_project_3_elinkowski;
+
+/*******************************************************************************
+ * File name: SchedulerListener interface
+ * Date: 20181120 0910L
+ * Author: Keith R. Elinkowski
+ * Purpose: Told by the Scheduler as ships and Jobs move through the ports, so
+ * that recording, tracing, journaling, resuming from a Checkpoint and looking
+ * for stalls can each live in their own class.  Every method does nothing
+ * unless overridden.  All but passFinished() are called while holding the
+ * lock of the port concerned, so they must be quick and must not take
+ * another port's lock.
+*******************************************************************************/
+public interface SchedulerListener {
+
+    /***************************************************************************
+     * A ship arrived while the simulation runs
+     * @param port
+     * @param ship
+     * @param queued true if the ship joined the queue, false if it berths
+    ***************************************************************************/
+    default void shipArrived(SeaPort port, Ship ship, boolean queued) {
+    }
+
+    /***************************************************************************
+     * A ship was given a dock and its Jobs were planned
+     * @param port
+     * @param dock
+     * @param ship
+    ***************************************************************************/
+    default void shipDocked(SeaPort port, Dock dock, Ship ship) {
+    }
+
+    /***************************************************************************
+     * A ship was found berthed when the World was loaded.  Its Jobs are
+     * planned but none has been handed people yet.
+     * @param port
+     * @param dock
+     * @param ship
+    ***************************************************************************/
+    default void shipLoaded(SeaPort port, Dock dock, Ship ship) {
+    }
+
+    /***************************************************************************
+     * A Job got the people it needs
+     * @param port
+     * @param ship
+     * @param job
+     * @param waitedNanos how long the Job waited for them
+    ***************************************************************************/
+    default void workersAcquired(SeaPort port, Ship ship, Job job, long waitedNanos) {
+    }
+
+    /***************************************************************************
+     * A ship finished its Jobs and left its dock.  Its departure time is set
+     * and its Jobs still have their start and end times.
+     * @param port
+     * @param dock
+     * @param ship
+    ***************************************************************************/
+    default void shipDeparted(SeaPort port, Dock dock, Ship ship) {
+    }
+
+    /***************************************************************************
+     * A ship was moved to the back of a queue, another port's or, when from
+     * and to are the same, its own port's after leaving a dock
+     * @param from
+     * @param to
+     * @param ship
+    ***************************************************************************/
+    default void shipRerouted(SeaPort from, SeaPort to, Ship ship) {
+    }
+
+    /***************************************************************************
+     * A pass over every port ended.  No port lock is held.
+    ***************************************************************************/
+    default void passFinished() {
+    }
+}
@@ -1,7 +1,10 @@
 package cmsc335_project_3_elinkowski;
 
 import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Comparator;
 import java.util.Scanner;
+import java.util.concurrent.locks.ReentrantLock;
 
 /*******************************************************************************
  * File name: SeaPort class
@@ -9,14 +12,26 @@ import java.util.Scanner;
  * Author: Keith R. Elinkowski
  * Purpose: Extends Thing class.  Holds lists for all docks, ships, and people 
  * of a specific port.  Also holds a queue list of ships waiting to dock at a 
- * specific port.
+ * specific port.  Each port owns the lock that guards its docks, queue and 
+ * ships, so work at different ports never waits on each other.  The port 
+ * keeps a set of its free docks and a count of occupied ones, so finding an
+ * empty pier or the port's utilisation never needs a scan of the docks.  The
+ * docks are also indexed by size limit so a ship is only offered a dock big
+ * enough for it.  The port's people are handed out to Jobs by its WorkerPool.
 *******************************************************************************/
 
 public class SeaPort extends Thing{
+    static final Comparator<SeaPort> LOCK_ORDER = Comparator.comparingInt(SeaPort::getIndex)
+            .thenComparingInt(System::identityHashCode);
     private ArrayList<Dock> docks;        
     private ArrayList<Ship> queues;       
     private ArrayList<Ship> ships;        
     private ArrayList<Person> people;  
+    private final ReentrantLock lock = new ReentrantLock();
+    private final DockIndex dockIndex = new DockIndex();
+    private final BitSet freeDocks = new BitSet();
+    private volatile int occupiedDocks;
+    private volatile WorkerPool workerPool;
     
     /***************************************************************************
      * SeaPort Constructor
@@ -43,6 +58,141 @@ public class SeaPort extends Thing{
     ***************************************************************************/
     public void setDocks(ArrayList<Dock> dock) {
         docks = dock;
+        dockIndex.clear();
+        freeDocks.clear();
+        occupiedDocks = 0;
+        for(Dock d : dock) {
+            addSlot(d);
+        }
+    }
+    
+    /***************************************************************************
+     * Adds a dock to the port along with its place in the free dock set
+     * @param dock
+    ***************************************************************************/
+    public void addDock(Dock dock) {
+        docks.add(dock);
+        addSlot(dock);
+    }
+    
+    /***************************************************************************
+     * Gives a dock the next slot and marks it free or occupied
+    ***************************************************************************/
+    private void addSlot(Dock dock) {
+        dockIndex.addSlot(dock, dock.getShip() == null);
+        if(dock.getShip() == null) {
+            freeDocks.set(dock.getSlot());
+        }
+        else {
+            occupiedDocks++;
+        }
+    }
+    
+    /***************************************************************************
+     * Berths a ship at an empty dock of this port.  Hold the port's lock.
+     * @param dock
+     * @param ship
+    ***************************************************************************/
+    public void berth(Dock dock, Ship ship) {
+        if(dock.getShip() == null && ship != null) {
+            occupiedDocks++;
+        }
+        dock.setShip(ship);
+        freeDocks.set(dock.getSlot(), ship == null);
+        dockIndex.setFree(dock.getSlot(), ship == null);
+    }
+    
+    /***************************************************************************
+     * Empties a dock of this port.  Hold the port's lock.
+     * @param dock
+    ***************************************************************************/
+    public void release(Dock dock) {
+        if(dock.getShip() != null) {
+            occupiedDocks--;
+            dockIndex.forget(dock.getShip());
+        }
+        dock.setShip(null);
+        freeDocks.set(dock.getSlot());
+        dockIndex.setFree(dock.getSlot(), true);
+    }
+    
+    /***************************************************************************
+     * Getter for any free dock, null if every dock is occupied.  Hold the 
+     * port's lock.
+    ***************************************************************************/
+    public Dock getFreeDock() {
+        int slot = freeDocks.nextSetBit(0);
+        return slot >= 0 ? dockIndex.getSlot(slot) : null;
+    }
+    
+    /***************************************************************************
+     * Getter for a free dock big enough for a ship, null if there is none.
+     * Hold the port's lock.
+     * @param ship
+    ***************************************************************************/
+    public Dock getFreeDockFor(Ship ship) {
+        return dockIndex.getFreeDockFor(ship);
+    }
+    
+    /***************************************************************************
+     * Simple helper method to check if a free dock is big enough for a ship.
+     * Hold the port's lock.
+     * @param ship
+    ***************************************************************************/
+    public boolean hasFreeDockFor(Ship ship) {
+        return dockIndex.hasFreeDockFor(ship);
+    }
+    
+    /***************************************************************************
+     * Getter for the index of docks by size limit.  Hold the port's lock.
+    ***************************************************************************/
+    public DockIndex getDockIndex() {
+        return dockIndex;
+    }
+    
+    /***************************************************************************
+     * Getter for the number of free docks.  Hold the port's lock.
+    ***************************************************************************/
+    public int getFreeDockCount() {
+        return dockIndex.size() - occupiedDocks;
+    }
+    
+    /***************************************************************************
+     * Getter for every free dock.  Hold the port's lock.
+    ***************************************************************************/
+    public ArrayList<Dock> getFreeDocks() {
+        ArrayList<Dock> free = new ArrayList<>(freeDocks.cardinality());
+        for(int slot = freeDocks.nextSetBit(0); slot >= 0; slot = freeDocks.nextSetBit(slot + 1)) {
+            free.add(dockIndex.getSlot(slot));
+        }
+        return free;
+    }
+    
+    /***************************************************************************
+     * Getter for every occupied dock.  Hold the port's lock.
+    ***************************************************************************/
+    public ArrayList<Dock> getOccupiedDocks() {
+        ArrayList<Dock> occupied = new ArrayList<>(occupiedDocks);
+        for(int slot = freeDocks.nextClearBit(0); slot < dockIndex.size(); slot = freeDocks.nextClearBit(slot + 1)) {
+            occupied.add(dockIndex.getSlot(slot));
+        }
+        return occupied;
+    }
+    
+    /***************************************************************************
+     * Getter for the number of occupied docks.  Safe to read without the lock.
+    ***************************************************************************/
+    public int getOccupiedDockCount() {
+        return occupiedDocks;
+    }
+    
+    /***************************************************************************
+     * Getter for the share of docks occupied, from 0.0 to 1.0.  Safe to read
+     * without the lock.
+    ***************************************************************************/
+    public double getUtilisation() {
+        int total = dockIndex.size();
+        return total == 0 ? 0.0 : (double)occupiedDocks / total;
     }
     
     /***************************************************************************
@@ -88,6 +238,48 @@ public class SeaPort extends Thing{
     ***************************************************************************/
     public void setPersons(ArrayList<Person> person) {
         people = person;
+        workerPool = null;
+    }
+    
+    /***************************************************************************
+     * Adds a person to the port, and to its WorkerPool if there is one yet.
+     * Hold the port's lock once the simulation is running.
+     * @param person
+    ***************************************************************************/
+    public void addPerson(Person person) {
+        people.add(person);
+        if(workerPool != null) {
+            workerPool.addWorker(person);
+        }
+    }
+    
+    /***************************************************************************
+     * Getter for the pool of people who work this port's Jobs, built from the
+     * people the first time it is asked for.  Call while holding the port's
+     * lock.
+    ***************************************************************************/
+    public WorkerPool getWorkerPool() {
+        if(workerPool == null) {
+            workerPool = new WorkerPool(people);
+        }
+        return workerPool;
+    }
+    
+    /***************************************************************************
+     * Getter for the WorkerPool without building it, for reading its counts
+     * from any thread
+     * @return the pool, null if it has not been built yet
+    ***************************************************************************/
+    public WorkerPool peekWorkerPool() {
+        return workerPool;
+    }
+    
+    /***************************************************************************
+     * Getter for the lock guarding this port's docks, queue and ships.  When
+     * two ports must be held at once they are locked in LOCK_ORDER, by index.
+    ***************************************************************************/
+    public ReentrantLock getLock() {
+        return lock;
     }
     
     /***************************************************************************
@@ -0,0 +1,211 @@
+package cmsc335_project_3_elinkowski;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+/*******************************************************************************
+ * File name: SeaPortEvents class
+ * Date: 20181116 1430L
+ * Author: Keith R. Elinkowski
+ * Purpose: JDK Flight Recorder events for ships docking and the lifecycle of
+ * Jobs, so a recording shows the simulation next to GC and thread activity.
+ * Every event carries the port, dock, ship and Job index it concerns, -1 
+ * where one does not apply.  Each helper checks the event is enabled before
+ * filling it in, and the event object never escapes, so with recording off a
+ * helper costs no more than the check.
+*******************************************************************************/
+public final class SeaPortEvents {
+    private static final int NONE = -1;
+
+    /***************************************************************************
+     * SeaPortEvents Constructor, not used
+    ***************************************************************************/
+    private SeaPortEvents() {
+    }
+
+    /***************************************************************************
+     * SchedulerListener that records ships arriving and docking and Jobs 
+     * getting their people.  A ship with no arrival time has no queue wait, 
+     * so its docking is not recorded.
+    ***************************************************************************/
+    static final SchedulerListener LISTENER = new SchedulerListener() {
+        @Override
+        public void shipArrived(SeaPort port, Ship ship, boolean queued) {
+            SeaPortEvents.shipArrived(port, ship, queued);
+        }
+
+        @Override
+        public void shipDocked(SeaPort port, Dock dock, Ship ship) {
+            if(ship.getArrivalTime() != null) {
+                SeaPortEvents.shipDocked(port, dock, ship, ship.getDockTime().getPortTime() - ship.getArrivalTime().getPortTime());
+            }
+        }
+
+        @Override
+        public void workersAcquired(SeaPort port, Ship ship, Job job, long waitedNanos) {
+            SeaPortEvents.workersAcquired(port, ship, job, waitedNanos);
+        }
+    };
+
+    /***************************************************************************
+     * A ship arrived at a port
+    ***************************************************************************/
+    static void shipArrived(SeaPort port, Ship ship, boolean queued) {
+        ShipArrival event = new ShipArrival();
+        if(event.isEnabled()) {
+            event.port = port.getIndex();
+            event.ship = ship.getIndex();
+            event.shipName = ship.getName();
+            event.queued = queued;
+            event.commit();
+        }
+    }
+
+    /***************************************************************************
+     * A ship was given a dock
+     * @param waitedNanos time the ship spent in the queue
+    ***************************************************************************/
+    static void shipDocked(SeaPort port, Dock dock, Ship ship, long waitedNanos) {
+        DockAssignment event = new DockAssignment();
+        if(event.isEnabled()) {
+            event.port = port.getIndex();
+            event.dock = dock.getIndex();
+            event.ship = ship.getIndex();
+            event.shipName = ship.getName();
+            event.queueWait = waitedNanos;
+            event.commit();
+        }
+    }
+
+    /***************************************************************************
+     * A Job waited for people and got them
+     * @param waitedNanos time since the Job was ready
+    ***************************************************************************/
+    static void workersAcquired(SeaPort port, Ship ship, Job job, long waitedNanos) {
+        WorkerWait event = new WorkerWait();
+        if(event.isEnabled()) {
+            event.port = port.getIndex();
+            event.dock = ship != null ? ship.getParent() : NONE;
+            event.ship = ship != null ? ship.getIndex() : NONE;
+            event.job = job.getIndex();
+            event.skills = String.join(" ", job.getRequirements());
+            event.waited = waitedNanos;
+            event.commit();
+        }
+    }
+
+    /***************************************************************************
+     * A Job started, was suspended, resumed, cancelled or completed
+     * @param state one of the JobState names
+     * @param reason who caused the change
+     * @param serviceNanos time since the Job started, 0 if not yet known
+    ***************************************************************************/
+    static void jobChanged(Job job, String state, String reason, long serviceNanos) {
+        JobState event = new JobState();
+        if(event.isEnabled()) {
+            event.port = job.getPortIndex();
+            event.dock = job.getDockIndex();
+            event.ship = job.getParent();
+            event.job = job.getIndex();
+            event.jobName = job.getName();
+            event.state = state;
+            event.reason = reason;
+            event.progress = job.getProgress();
+            event.service = serviceNanos;
+            event.commit();
+        }
+    }
+
+    /***************************************************************************
+     * Begins timing a phase of loading a World.  Pass the result to 
+     * endLoadPhase().
+    ***************************************************************************/
+    static WorldLoadPhase beginLoadPhase(String phase, String file) {
+        WorldLoadPhase event = new WorldLoadPhase();
+        event.phase = phase;
+        event.file = file;
+        event.begin();
+        return event;
+    }
+
+    /***************************************************************************
+     * Ends a phase of loading a World
+     * @param things number of Things read or assigned in the phase
+    ***************************************************************************/
+    static void endLoadPhase(WorldLoadPhase event, int things) {
+        event.end();
+        if(event.shouldCommit()) {
+            event.things = things;
+            event.commit();
+        }
+    }
+
+    @Name("seaport.ShipArrival")
+    @Label("Ship Arrival")
+    @Category({"SeaPort", "Ships"})
+    @StackTrace(false)
+    static final class ShipArrival extends Event {
+        @Label("Port") int port;
+        @Label("Ship") int ship;
+        @Label("Ship Name") String shipName;
+        @Label("Queued") boolean queued;
+    }
+
+    @Name("seaport.DockAssignment")
+    @Label("Dock Assignment")
+    @Category({"SeaPort", "Ships"})
+    @StackTrace(false)
+    static final class DockAssignment extends Event {
+        @Label("Port") int port;
+        @Label("Dock") int dock;
+        @Label("Ship") int ship;
+        @Label("Ship Name") String shipName;
+        @Label("Queue Wait") @Timespan long queueWait;
+    }
+
+    @Name("seaport.WorkerWait")
+    @Label("Worker Wait")
+    @Description("A Job waited for people with its skills")
+    @Category({"SeaPort", "Jobs"})
+    @StackTrace(false)
+    static final class WorkerWait extends Event {
+        @Label("Port") int port;
+        @Label("Dock") int dock;
+        @Label("Ship") int ship;
+        @Label("Job") int job;
+        @Label("Skills") String skills;
+        @Label("Waited") @Timespan long waited;
+    }
+
+    @Name("seaport.JobState")
+    @Label("Job State")
+    @Description("A Job started, was suspended, resumed, cancelled or completed")
+    @Category({"SeaPort", "Jobs"})
+    @StackTrace(false)
+    static final class JobState extends Event {
+        @Label("Port") int port;
+        @Label("Dock") int dock;
+        @Label("Ship") int ship;
+        @Label("Job") int job;
+        @Label("Job Name") String jobName;
+        @Label("State") String state;
+        @Label("Reason") String reason;
+        @Label("Progress") int progress;
+        @Label("Service Time") @Timespan long service;
+    }
+
+    @Name("seaport.WorldLoadPhase")
+    @Label("World Load Phase")
+    @Category({"SeaPort", "Loading"})
+    @StackTrace(false)
+    static final class WorldLoadPhase extends Event {
+        @Label("Phase") String phase;
+        @Label("File") String file;
+        @Label("Things") int things;
+    }
+}
@@ -0,0 +1,164 @@
+package cmsc335_project_3_elinkowski;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/*******************************************************************************
+ * File name: SeaPortMetrics class
+ * Date: 20181116 1020L
+ * Author: Keith R. Elinkowski
+ * Purpose: Registers the metrics of a running simulation with a 
+ * MetricsRegistry.  Port and Job metrics are read from the World's latest 
+ * published snapshot and the live status of each Job, worker utilisation 
+ * from the atomic counts of each port's WorkerPool, and the rest from the 
+ * counters the Scheduler and its helpers already keep.  The EDT backlog is 
+ * the console text and Job table rows still waiting for the event dispatch
+ * thread.
+*******************************************************************************/
+public class SeaPortMetrics {
+    private static final long RATE_WINDOW_NANOS = 1000000000L;
+
+    /***************************************************************************
+     * SeaPortMetrics Constructor, not used
+    ***************************************************************************/
+    private SeaPortMetrics() {
+    }
+
+    /***************************************************************************
+     * Registers every metric of a simulation
+     * @param registry
+     * @param scheduler
+     * @param table Job table, may be null
+     * @param consoles consoles appended to from other threads
+    ***************************************************************************/
+    public static void register(MetricsRegistry registry, Scheduler scheduler, JobTableTemplate table, LogConsole... consoles) {
+        World world = scheduler.getWorld();
+        registry.register("seaport_queue_length", "Ships waiting in the queue of each port", MetricsRegistry.Type.GAUGE, "port", sink -> {
+            for(PortSnapshot port : world.getSnapshot().getPorts()) {
+                sink.accept(port.getPort().getName(), port.getQueue().size());
+            }
+        });
+        registry.register("seaport_docks_occupied", "Docks with a ship berthed at each port", MetricsRegistry.Type.GAUGE, "port", sink -> {
+            for(PortSnapshot port : world.getSnapshot().getPorts()) {
+                int occupied = 0;
+                for(Dock dock : port.getDocks()) {
+                    if(port.getBerth(dock) != null) {
+                        occupied++;
+                    }
+                }
+                sink.accept(port.getPort().getName(), occupied);
+            }
+        });
+        registry.register("seaport_jobs", "Jobs of ships at the ports by status", MetricsRegistry.Type.GAUGE, "status", sink -> {
+            for(Map.Entry<String, Integer> status : jobStatusCounts(world).entrySet()) {
+                sink.accept(status.getKey(), status.getValue());
+            }
+        });
+        registry.counter("seaport_jobs_completed_total", "Jobs complete at the ports", () -> jobStatusCounts(world).get("complete"));
+        JobRate rate = new JobRate();
+        registry.gauge("seaport_jobs_per_second", "Jobs completed per second over the last second or more", () -> rate.perSecond(jobStatusCounts(world).get("complete")));
+        registry.register("seaport_worker_utilisation", "Share of the people with each skill working on a Job", MetricsRegistry.Type.GAUGE, "skill", sink -> {
+            HashMap<String, int[]> counts = new HashMap<>();
+            for(SeaPort port : world.getPorts()) {
+                WorkerPool pool = port.peekWorkerPool();
+                if(pool == null) {
+                    continue;
+                }
+                for(String skill : pool.getSkills()) {
+                    int[] count = counts.computeIfAbsent(skill, k -> new int[2]);
+                    count[0] += pool.getBusy(skill);
+                    count[1] += pool.getStaff(skill);
+                }
+            }
+            for(Map.Entry<String, int[]> skill : counts.entrySet()) {
+                int[] count = skill.getValue();
+                sink.accept(skill.getKey().isEmpty() ? "none" : skill.getKey(), count[1] == 0 ? 0.0 : (double)count[0] / count[1]);
+            }
+        });
+        registry.gauge("seaport_edt_backlog", "Console appends and Job table rows waiting for the event dispatch thread", () -> {
+            int backlog = table != null ? table.getPendingUpdates() : 0;
+            for(LogConsole console : consoles) {
+                backlog += console.getPending();
+            }
+            return backlog;
+        });
+        registry.counter("seaport_turnarounds_total", "Ships that finished their Jobs and departed", scheduler::getTurnarounds);
+        registry.counter("seaport_preemptions_total", "Running Jobs paused for a Job of higher priority", scheduler::getPreemptions);
+        registry.counter("seaport_arrivals_total", "Things added to the World while it runs", scheduler::getArrivals);
+        registry.counter("seaport_arrivals_dropped_total", "Arrivals with no place in the World", scheduler::getDroppedArrivals);
+        registry.gauge("seaport_arrivals_pending", "Arrivals waiting for the next pass", scheduler::getPendingArrivals);
+        registry.counter("seaport_lock_acquisitions_total", "Port locks taken by the Scheduler", scheduler::getLockAcquisitions);
+        registry.counter("seaport_lock_contended_total", "Port locks the Scheduler had to wait for", scheduler::getContendedLocks);
+        registry.counter("seaport_worker_loans_total", "People lent to another port", () -> {
+            WorkerBroker broker = scheduler.getWorkerBroker();
+            return broker != null ? broker.getLoans() : 0L;
+        });
+        registry.counter("seaport_reroutes_total", "Queued ships sent to a less crowded port", () -> {
+            LoadBalancer balancer = scheduler.getLoadBalancer();
+            return balancer != null ? balancer.getReroutes() : 0L;
+        });
+        registry.counter("seaport_ships_shed_total", "Arriving ships turned away by admission control", () -> {
+            AdmissionControl admission = scheduler.getAdmissionControl();
+            return admission != null ? admission.getShed() : 0L;
+        });
+        registry.gauge("seaport_stalled_jobs", "Jobs gone too long without progress at the last stall check", () -> {
+            StallWatchdog watchdog = scheduler.getStallWatchdog();
+            return watchdog != null ? watchdog.getStalledJobs() : 0;
+        });
+        registry.gauge("seaport_stalled_docks", "Docks whose ship made no progress for too long at the last stall check", () -> {
+            StallWatchdog watchdog = scheduler.getStallWatchdog();
+            return watchdog != null ? watchdog.getStalledDocks() : 0;
+        });
+        registry.counter("seaport_stall_alerts_total", "Stalled Jobs and blocked docks reported", () -> {
+            StallWatchdog watchdog = scheduler.getStallWatchdog();
+            return watchdog != null ? watchdog.getAlerts() : 0L;
+        });
+        registry.counter("seaport_stall_actions_total", "Stalls resumed, cancelled or requeued", () -> {
+            StallWatchdog watchdog = scheduler.getStallWatchdog();
+            return watchdog != null ? watchdog.getActions() : 0L;
+        });
+    }
+
+    /***************************************************************************
+     * Number of Jobs with each status, across every port
+    ***************************************************************************/
+    private static Map<String, Integer> jobStatusCounts(World world) {
+        HashMap<String, Integer> counts = new HashMap<>();
+        for(Job.Status status : Job.Status.values()) {
+            counts.put(status.name().toLowerCase(), 0);
+        }
+        counts.put("pending", 0);
+        for(PortSnapshot port : world.getSnapshot().getPorts()) {
+            for(Job job : port.getJobs()) {
+                Job.Status status = job.getStatus();
+                counts.merge(status == null || !job.isStarted() ? "pending" : status.name().toLowerCase(), 1, Integer::sum);
+            }
+        }
+        return counts;
+    }
+
+    /***************************************************************************
+     * Works out a rate from a count read now and then, over at least 
+     * RATE_WINDOW_NANOS
+    ***************************************************************************/
+    private static final class JobRate {
+        private long windowStart = System.nanoTime();
+        private long windowCount = -1L;
+        private double rate;
+
+        synchronized double perSecond(long count) {
+            long now = System.nanoTime();
+            if(windowCount < 0L || count < windowCount) {
+                windowStart = now;
+                windowCount = count;
+                return rate;
+            }
+            if(now - windowStart >= RATE_WINDOW_NANOS) {
+                rate = (count - windowCount) * 1e9 / (now - windowStart);
+                windowStart = now;
+                windowCount = count;
+            }
+            return rate;
+        }
+    }
+}
@@ -3,34 +3,40 @@ package cmsc335_project_3_elinkowski;
 import java.awt.BorderLayout;
 import java.awt.Dimension;
 import java.awt.Font;
-import java.awt.GridLayout;
 import java.awt.Toolkit;
 import java.awt.event.ActionEvent;
 import java.awt.event.WindowAdapter;
 import java.awt.event.WindowEvent;
-import java.io.FileNotFoundException;
+import java.io.File;
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Collections;
-import java.util.ConcurrentModificationException;
 import java.util.HashMap;
-import java.util.Scanner;
-import java.util.concurrent.TimeUnit;
+import java.util.List;
+import java.util.Map;
+import javax.management.JMException;
 import javax.swing.ImageIcon;
 import javax.swing.JButton;
+import javax.swing.JCheckBox;
 import javax.swing.JComboBox;
 import javax.swing.JFileChooser;
 import javax.swing.JFrame;
 import javax.swing.JLabel;
 import javax.swing.JOptionPane;
 import javax.swing.JPanel;
+import javax.swing.JProgressBar;
 import javax.swing.JScrollPane;
+import javax.swing.JTabbedPane;
 import javax.swing.JTable;
-import javax.swing.JTextArea;
 import javax.swing.JTextField;
 import javax.swing.JTree;
+import javax.swing.Timer;
 import javax.swing.border.EmptyBorder;
+import javax.swing.event.DocumentEvent;
+import javax.swing.event.DocumentListener;
 import javax.swing.event.TreeSelectionEvent;
-import javax.swing.tree.DefaultMutableTreeNode;
+import javax.swing.table.TableColumnModel;
+import javax.swing.tree.TreePath;
 import javax.swing.tree.TreeSelectionModel;
 
 /******************************************************************************
@@ -46,26 +52,72 @@ import javax.swing.tree.TreeSelectionModel;
  ******************************************************************************/
 public class SeaPortProgram extends JFrame {
     private World world;
-    private Scanner scanner;
+    private WorldLoader loader;
+    private volatile Scheduler scheduler;
+    private ArrivalFeed feed;
+    private MetricsRegistry metrics;
+    private MetricsEndpoint metricsEndpoint;
+    private JProgressBar loadProgress;
     private JPanel structurePanel;
-    private JTextArea console;
-    private JTextArea workConsole;
+    private static final int CONSOLE_LINES = 1000;
+    private static final long LOG_FILE_BYTES = 10L * 1024 * 1024;
+    private static final int LOG_FILES_KEPT = 5;
+    private static final long LENDING_TRANSFER_MILLIS = 2000;
+    private static final int LENDING_RESERVE = 1;
+    private static final double REROUTE_TRANSIT_HOURS = 24.0;
+    private static final int REROUTES_PER_PASS = 4;
+    private static final long REROUTE_INTERVAL_MILLIS = 1000;
+    private static final int ADMISSION_QUEUE_DEPTH = 50;
+    private static final double ADMISSION_JOB_HOURS = 5000.0;
+    private static final int ADMISSION_MAX_DEFERRED = 1000;
+    private static final long ADMISSION_MAX_DEFER_MILLIS = 60000;
+    private static final String METRICS_DOMAIN = "cmsc335_project_3_elinkowski";
+    private static final int METRICS_HTTP_PORT = 9400;
+    private static final long CHECKPOINT_INTERVAL_MILLIS = 300000;
+    private static final String CHECKPOINT_AUTOSAVE = "checkpoint-autosave.txt";
+    private static final long SHUTDOWN_DEADLINE_MILLIS = 10000;
+    private static final long FLUSH_MILLIS = 1000;
+    private static final double STALL_MULTIPLE = 3.0;
+    private static final long STALL_MIN_MILLIS = 10000;
+    private static final long DOCK_STALL_MILLIS = 30000;
+    private static final long STALL_CHECK_MILLIS = 1000;
+    private static final long PASS_INTERVAL_MILLIS = 50;
+    private LogConsole console;
+    private LogConsole workConsole;
     private JComboBox<String> searchComboBox;
     private JComboBox<String> sortTypeComboBox;
     private JComboBox<String> sortTargetComboBox;
+    private JComboBox<String> stallComboBox;
     private JTextField searchField;
+    private static final int SEARCH_TAB = 1;
+    private static final int SEARCH_PAGE_SIZE = 100;
+    private static final int SEARCH_DEBOUNCE_MILLIS = 300;
     private JTree root;
+    private JTabbedPane consoleTabs;
+    private JCheckBox liveSearchBox;
+    private JCheckBox balanceBox;
+    private JCheckBox metricsBox;
+    private JCheckBox traceBox;
+    private JCheckBox journalBox;
+    private JLabel searchPageLabel;
+    private SearchResultTableModel searchResultModel;
+    private final WorldSearch worldSearch = new WorldSearch();
+    private WorldTreeModel structureModel;
     private Dimension screenSize;
-    private HashMap<Integer, Thing> structureMap;
+    private Map<Integer, Thing> structureMap;
     private JobTableTemplate workTableModel;
     private JTable workTable;
     private JPanel workTablePanel;
-    private JPanel workButtonPanel;
-    public boolean running;
-    public boolean ready;
+    public volatile boolean running;
+    public volatile boolean ready;
+    private volatile boolean checkpointRequested;
+    private volatile long lastCheckpoint;
+    private volatile Shutdown.Mode shutdownMode = Shutdown.Mode.IMMEDIATE;
       
     /***************************************************************************
-     * Starts program 
+     * Starts program.  The monitoring loop runs one pass every 
+     * PASS_INTERVAL_MILLIS.  Closing the window ends it, after which the 
+     * simulation is shut down in the way the User chose.
      * @param args
      **************************************************************************/
     public static void main(String[] args) {
@@ -75,132 +127,156 @@ public class SeaPortProgram extends JFrame {
         simulation.addWindowListener(new WindowAdapter() {
         @Override
         public void windowClosing(WindowEvent e) {
-            simulation.running = false;
-            if(JOptionPane.showConfirmDialog(simulation, "Quit?", "Exiting.", JOptionPane.OK_OPTION, 0, new ImageIcon(""))!= 0){
+            Shutdown.Mode mode = simulation.askShutdownMode();
+            if(mode == null){
                 return;
             }
-            System.exit(0);
+            simulation.shutdownMode = mode;
+            simulation.running = false;
         }});
         while(simulation.running){
+            long passStart = System.currentTimeMillis();
             simulation.monitorWork();
+            simulation.pause(passStart);
+        }
+        simulation.shutdown();
+        System.exit(0);
+    }
+    
+    /***************************************************************************
+     * Asks the User how to quit.  Drain lets the docked ships finish for up to
+     * SHUTDOWN_DEADLINE_MILLIS and saves what is left, Checkpoint saves 
+     * everything straight away and Quit Now saves nothing.
+     * @return the way to shut down, null to keep running
+    ***************************************************************************/
+    private Shutdown.Mode askShutdownMode() {
+        if(scheduler == null) {
+            int answer = JOptionPane.showConfirmDialog(this, "Quit?", "Exiting.", JOptionPane.OK_OPTION, 0, new ImageIcon(""));
+            return answer == 0 ? Shutdown.Mode.IMMEDIATE : null;
+        }
+        String[] options = {"Drain", "Checkpoint", "Quit Now", "Cancel"};
+        int answer = JOptionPane.showOptionDialog(this, 
+                String.format("Quit?  Drain lets the docked ships finish for up to %d seconds.", SHUTDOWN_DEADLINE_MILLIS / 1000), 
+                "Exiting.", JOptionPane.DEFAULT_OPTION, JOptionPane.QUESTION_MESSAGE, null, options, options[0]);
+        switch(answer) {
+            case 0:
+                return Shutdown.Mode.DRAIN;
+            case 1:
+                return Shutdown.Mode.CHECKPOINT;
+            case 2:
+                return Shutdown.Mode.IMMEDIATE;
+            default:
+                return null;
+        }
+    }
+    
+    /***************************************************************************
+     * Stops the simulation and then flushes the trace, journal, metrics and 
+     * logs.  Each step has its own deadline, so the whole shutdown is bounded
+     * however much work was in flight.
+    ***************************************************************************/
+    private void shutdown() {
+        ready = false;
+        stopFeed();
+        Scheduler current = scheduler;
+        if(current != null) {
+            String report = new Shutdown(current, shutdownMode, SHUTDOWN_DEADLINE_MILLIS, new File("logs", CHECKPOINT_AUTOSAVE)).run();
+            console.append(report);
+            System.out.print(report);
+        }
+        stopTrace();
+        stopJournal();
+        if(metricsEndpoint != null) {
+            metricsEndpoint.close();
+            metricsEndpoint = null;
         }
+        if(metrics != null) {
+            metrics.unregisterMBeans();
+        }
+        console.getSink().close(FLUSH_MILLIS);
+        workConsole.getSink().close(FLUSH_MILLIS);
     }
     
     /***************************************************************************
      * Method to be called when the User hits the Read button. Uses an
-     * instance of JFileChooser to select a simulation file to read. Returns
-     * a Scanner object that is then used by the World Class to populate
-     * the structure of the World.
+     * instance of JFileChooser to select a simulation file to read and starts
+     * a WorldLoader to populate the structure of the World in the background.
+     * The progress bar follows how much of the file has been read.
     ***************************************************************************/
-    private Scanner readSimulation() {
+    private void readSimulation() {
         console.append(">>> You pressed the \"Read\" Button.\n");
         JFileChooser fileChooser = new JFileChooser(".");
-        try {
-            if(fileChooser.showOpenDialog(null) == JFileChooser.APPROVE_OPTION) {
-                scanner = new Scanner(fileChooser.getSelectedFile());
-                console.append(">>> Reading simulation file [" + fileChooser.getSelectedFile().getName() + "]\n");
-                TimeUnit.MILLISECONDS.sleep(500);
-                console.append(">>> . \n");
-                TimeUnit.MILLISECONDS.sleep(500);
-                console.append(">>> . .\n");
-                TimeUnit.MILLISECONDS.sleep(500);
-                console.append(">>> . . .\n");
-                console.append(">>> Simulation [" + fileChooser.getSelectedFile().getName() + "] successfully loaded.\n");
-            }
-        } catch (InterruptedException e) {
-            
-        } catch (FileNotFoundException e) {
+        if(fileChooser.showOpenDialog(null) != JFileChooser.APPROVE_OPTION) {
+            return;
+        }
+        File file = fileChooser.getSelectedFile();
+        if(!file.canRead()) {
             console.append(">>> Error occurred while loading the simulation. Please try again!\n");
+            return;
         }
-        console.append(">>> Structure is ready to be display.\n");
-        console.append("<<< Please hit the \"Display\" button!\n");
-        return null;
+        if(loader != null) {
+            loader.cancel(true);
+        }
+        ready = false;
+        stopFeed();
+        scheduler = null;
+        world = null;
+        drawWorkTable();
+        console.append(">>> Reading simulation file [" + file.getName() + "]\n");
+        loadProgress.setValue(0);
+        loadProgress.setString(null);
+        loader = new WorldLoader(file, console, new StructureListener(file.getName()));
+        loader.addPropertyChangeListener(e -> {
+            if("progress".equals(e.getPropertyName())) {
+                loadProgress.setValue((Integer)e.getNewValue());
+            }
+        });
+        loader.execute();
     }
     
     /***************************************************************************
-     * Method used to populate the World structure.  Uses HashMaps and method 
-     * calls of each Type to store objects.
+     * Receives the World from the WorldLoader as it is read.  The structure is
+     * drawn once the ports and docks are in, and work on the docked ships 
+     * starts once the whole file is in.
     ***************************************************************************/ 
-    private void buildStructure(Scanner scanner){
-        world = new World(scanner);
-        structureMap = new HashMap<>();
-        HashMap<Integer, SeaPort> portMap = new HashMap<>();
-        HashMap<Integer, Dock> dockMap = new HashMap<>();
-        HashMap<Integer, Ship> shipMap = new HashMap<>();
-        while(scanner.hasNextLine()){
-            String lineScanner = scanner.nextLine().trim();
-            if(lineScanner.length() == 0) continue;
-            Scanner thingScanner = new Scanner(lineScanner);
-            if(!thingScanner.hasNext()) return;
-            switch(thingScanner.next()){
-                case "port":
-                    SeaPort port = new SeaPort(thingScanner);
-                    portMap.put(port.getIndex(), port);
-                    structureMap.put(port.getIndex(), port);
-                    world.assignSeaPort(port);
-                    console.append(">>> Added new Port - ["+port.getName()+"]\n");
-                    break;
-                case "dock":
-                    Dock dock = new Dock(thingScanner);
-                    dockMap.put(dock.getIndex(), dock);
-                    structureMap.put(dock.getIndex(), dock);
-                    world.assignDock(dock, portMap.get(dock.getParent()));
-                    console.append(">>> Added new Pier - ["+dock.getName()+"]\n");
-                    break;
-                case "pship":
-                    PassengerShip passengerShip = new PassengerShip(thingScanner);
-                    shipMap.put(passengerShip.getIndex(), passengerShip);
-                    structureMap.put(passengerShip.getIndex(), passengerShip);
-                    SeaPort passengerPort = portMap.get(passengerShip.getParent());
-                    Dock passengerDock = dockMap.get(passengerShip.getParent());
-                    if(passengerPort == null) {
-                        passengerPort = portMap.get(passengerDock.getParent());
-                    }                    
-                    world.assignShip(passengerShip, passengerPort, passengerDock);
-                    console.append(">>> Added new PassengerShip - ["+passengerShip.getName()+"]\n");
-                    break;
-                case "cship":
-                    CargoShip cargoShip = new CargoShip(thingScanner);
-                    shipMap.put(cargoShip.getIndex(), cargoShip);
-                    structureMap.put(cargoShip.getIndex(), cargoShip);
-                    SeaPort cargoPort = portMap.get(cargoShip.getParent());
-                    Dock cargoDock = dockMap.get(cargoShip.getParent());
-                    if(cargoPort == null) {
-                        cargoPort = portMap.get(cargoDock.getParent());
-                    }
-                    world.assignShip(cargoShip, cargoPort, cargoDock);
-                    console.append(">>> Added new CargoShip - ["+cargoShip.getName()+"]\n");
-                    break;
-                case "person":
-                    Person person = new Person(thingScanner);
-                    structureMap.put(person.getIndex(), person);
-                    world.assignPerson(person, portMap.get(person.getParent()));
-                    console.append(">>> Added new Person - ["+person.getName()+"]\n");
-                    break;
-                case "job":
-                    Job job = new Job(thingScanner);
-                    structureMap.put(job.getIndex(), job);
-                    world.assignJob(job, structureMap.get(job.getParent()));
-                    console.append(">>> Added new Job - ["+job.getName()+"]\n");
-                    break;
-                default:
-                    break;
-            }
+    private class StructureListener implements WorldLoader.Listener {
+        private final String fileName;
+        
+        StructureListener(String fileName) {
+            this.fileName = fileName;
         }
-        for(Ship ship : shipMap.values()){
-            if(!ship.getJobs().isEmpty() && structureMap.get(ship.getParent()) instanceof Dock){
-                workConsole.append(String.format(">>> SHIP DOCKING: SS %s docking in %s at Port of %s\n", ship.getName(), dockMap.get(ship.getParent()).getName(), portMap.get(dockMap.get(ship.getParent()).getParent()).getName()));
-                for(Job job : ship.getJobs()){
-                    workTableModel.add(ship, structureMap, job);
-                    job.displayWork(workButtonPanel);
-                    job.startWork();
-                }
-            }
+        
+        @Override
+        public void structureReady(World loaded, Map<Integer, Thing> loadedMap) {
+            world = loaded;
+            structureMap = loadedMap;
+            drawStructure();
+            console.append(">>> Structure is ready to be displayed, the rest of [" + fileName + "] is still loading.\n");
+        }
+        
+        @Override
+        public void loadFinished(World loaded) {
+            scheduler = new Scheduler(loaded, structureMap, workTableModel, workConsole);
+            scheduler.setWorkerBroker(new WorkerBroker(loaded, LENDING_TRANSFER_MILLIS, LENDING_RESERVE));
+            scheduler.setAdmissionControl(new AdmissionControl(ADMISSION_QUEUE_DEPTH, ADMISSION_JOB_HOURS,
+                    AdmissionControl.Overflow.DEFER, ADMISSION_MAX_DEFERRED, ADMISSION_MAX_DEFER_MILLIS));
+            updateLoadBalancing();
+            scheduler.setStallWatchdog(new StallWatchdog(scheduler, STALL_MULTIPLE, STALL_MIN_MILLIS, DOCK_STALL_MILLIS,
+                    STALL_CHECK_MILLIS, stallPolicy()));
+            registerMetrics();
+            scheduler.startDocked();
+            lastCheckpoint = System.currentTimeMillis();
+            loadProgress.setString("Loaded");
+            console.append(">>> Simulation [" + fileName + "] successfully loaded.\n");
+            ready = true;
+        }
+        
+        @Override
+        public void loadFailed(Exception e) {
+            loadProgress.setString("Failed");
+            console.append(">>> Error occurred while loading the simulation. Please try again!\n");
+            System.out.println(e);
         }
-        workButtonPanel.setLayout(new GridLayout(workTableModel.getRowCount(),3, 3, 3));
-        workButtonPanel.setBorder(new EmptyBorder(0,3,0,3));
-        workButtonPanel.setPreferredSize(new Dimension(400, workTableModel.getRowCount() * 25));
-        ready = true;
     }
     
     /***************************************************************************
@@ -215,24 +291,50 @@ public class SeaPortProgram extends JFrame {
         screenSize = toolkit.getScreenSize();
         setTitle ("Keith R. Elinkowski Seaport Simulation");
         setSize((screenSize.width)-300, 900);
-        setDefaultCloseOperation (JFrame.EXIT_ON_CLOSE);
+        setDefaultCloseOperation (JFrame.DO_NOTHING_ON_CLOSE);
         setVisible(true);
         setLayout(new BorderLayout());
         
         /* Console Text Area */
-        console = new JTextArea();
+        console = new LogConsole(CONSOLE_LINES, new AsyncLogWriter(new File("logs", "console.log"), LOG_FILE_BYTES, LOG_FILES_KEPT));
         console.setFont(new Font("Monospaced", 0, 12));
         console.setEditable(false);
         JPanel consolePanel = new JPanel(new BorderLayout());
         consolePanel.setPreferredSize(new Dimension(300, screenSize.height/2));
         consolePanel.setBorder(new EmptyBorder(10,0,25,25));
         JScrollPane scrollPane = new JScrollPane(console);
-        scrollPane.setPreferredSize(new Dimension(300, 375));
-        consolePanel.add(scrollPane, BorderLayout.NORTH);
+        
+        /* Search Results Table */
+        searchResultModel = new SearchResultTableModel(SEARCH_PAGE_SIZE);
+        JTable searchResultTable = new JTable(searchResultModel);
+        searchPageLabel = new JLabel(searchResultModel.getPageLabel());
+        JButton previousPageButton = new JButton("<");
+        previousPageButton.addActionListener((ActionEvent e) -> {
+            searchResultModel.previousPage();
+            updatePageLabel();
+        });
+        JButton nextPageButton = new JButton(">");
+        nextPageButton.addActionListener((ActionEvent e) -> {
+            searchResultModel.nextPage();
+            updatePageLabel();
+        });
+        JPanel searchPagePanel = new JPanel();
+        searchPagePanel.add(previousPageButton);
+        searchPagePanel.add(searchPageLabel);
+        searchPagePanel.add(nextPageButton);
+        JPanel searchResultPanel = new JPanel(new BorderLayout());
+        searchResultPanel.add(new JScrollPane(searchResultTable), BorderLayout.CENTER);
+        searchResultPanel.add(searchPagePanel, BorderLayout.SOUTH);
+        
+        consoleTabs = new JTabbedPane();
+        consoleTabs.addTab("Console", scrollPane);
+        consoleTabs.addTab("Search Results", searchResultPanel);
+        consoleTabs.setPreferredSize(new Dimension(300, 375));
+        consolePanel.add(consoleTabs, BorderLayout.NORTH);
         add(consolePanel, BorderLayout.CENTER);
         
         /*Job Console */
-        workConsole = new JTextArea();
+        workConsole = new LogConsole(CONSOLE_LINES, new AsyncLogWriter(new File("logs", "work.log"), LOG_FILE_BYTES, LOG_FILES_KEPT));
         workConsole.setFont(new Font("Monospaced", 0, 12));
         workConsole.setEditable(false);
         JScrollPane jobConsoleScrollPane = new JScrollPane(workConsole);
@@ -255,6 +357,43 @@ public class SeaPortProgram extends JFrame {
         JButton clearButton = new JButton("Clear");
         clearButton.addActionListener((ActionEvent e)->clearConsole());
         
+        /* Feed Button, ships and jobs arriving while the simulation runs */
+        JButton feedButton = new JButton("Feed");
+        feedButton.addActionListener((ActionEvent e)->startFeed());
+        
+        /* Latency Button, percentiles since the last press */
+        JButton latencyButton = new JButton("Latency");
+        latencyButton.addActionListener((ActionEvent e)->reportLatency());
+        
+        /* Checkpoint Button, saves the simulation so a later run can resume */
+        JButton checkpointButton = new JButton("Checkpoint");
+        checkpointButton.addActionListener((ActionEvent e)->requestCheckpoint());
+        
+        /* Load Balancing CheckBox, reroutes queued ships between ports */
+        balanceBox = new JCheckBox("Balance");
+        balanceBox.addActionListener((ActionEvent e)->updateLoadBalancing());
+        
+        /* Metrics CheckBox, serves the metrics over local HTTP */
+        metricsBox = new JCheckBox("Metrics");
+        metricsBox.addActionListener((ActionEvent e)->updateMetricsEndpoint());
+        
+        /* Trace CheckBox, writes ship and job lifecycles as a Chrome trace */
+        traceBox = new JCheckBox("Trace");
+        traceBox.addActionListener((ActionEvent e)->updateTrace());
+        
+        /* Journal CheckBox, records scheduler events for JournalReplay */
+        journalBox = new JCheckBox("Journal");
+        journalBox.addActionListener((ActionEvent e)->updateJournal());
+        
+        /* Stall ComboBox, what the StallWatchdog does about a stall */
+        JLabel stallLabel = new JLabel("Stalls");
+        stallComboBox = new JComboBox<>();
+        stallComboBox.addItem("Alert");
+        stallComboBox.addItem("Resume");
+        stallComboBox.addItem("Cancel");
+        stallComboBox.addItem("Requeue");
+        stallComboBox.addActionListener(e->updateStallPolicy());
+        
         /* Sort Target ComboBox */
         JLabel sortTargetLabel = new JLabel("Sort Target");
         sortTargetComboBox = new JComboBox<>();
@@ -283,6 +422,27 @@ public class SeaPortProgram extends JFrame {
         searchComboBox.addItem("Name");
         searchComboBox.addItem("Skill");
         
+        /* Search as you type, waits for the User to stop typing */
+        liveSearchBox = new JCheckBox("Live");
+        Timer searchDebounce = new Timer(SEARCH_DEBOUNCE_MILLIS, e -> searchAsYouType());
+        searchDebounce.setRepeats(false);
+        searchField.getDocument().addDocumentListener(new DocumentListener() {
+            @Override
+            public void insertUpdate(DocumentEvent e) {
+                searchDebounce.restart();
+            }
+            
+            @Override
+            public void removeUpdate(DocumentEvent e) {
+                searchDebounce.restart();
+            }
+            
+            @Override
+            public void changedUpdate(DocumentEvent e) {
+                searchDebounce.restart();
+            }
+        });
+        
         /* Search Button */
         JButton searchButton = new JButton("Search");
         searchButton.addActionListener((ActionEvent e)->search((String)(searchComboBox.getSelectedItem()), searchField.getText()));
@@ -298,12 +458,26 @@ public class SeaPortProgram extends JFrame {
         actionPanel.add(searchField);
         actionPanel.add(searchComboBox);
         actionPanel.add(searchButton);
+        actionPanel.add(liveSearchBox);
         actionPanel.add(sortTargetLabel);
         actionPanel.add(sortTargetComboBox);
         actionPanel.add(sortTypeLabel);
         actionPanel.add(sortTypeComboBox);
         actionPanel.add(sortButton);
         actionPanel.add(clearButton);
+        actionPanel.add(feedButton);
+        actionPanel.add(latencyButton);
+        actionPanel.add(checkpointButton);
+        actionPanel.add(balanceBox);
+        actionPanel.add(metricsBox);
+        actionPanel.add(traceBox);
+        actionPanel.add(journalBox);
+        actionPanel.add(stallLabel);
+        actionPanel.add(stallComboBox);
+        loadProgress = new JProgressBar(0, 100);
+        loadProgress.setStringPainted(true);
+        loadProgress.setString("No File");
+        actionPanel.add(loadProgress);
         topPanel.add(actionPanel,BorderLayout.WEST);
         add(topPanel, BorderLayout.NORTH);
 
@@ -325,93 +499,86 @@ public class SeaPortProgram extends JFrame {
     
     /***************************************************************************
      * Search helper method called when user hits search button.  Uses the
-     * combobox input to determine what the target of the search is.  dumps 
-     * results into the console window.
+     * combobox input to determine what the target of the search is.  Results
+     * stream into the search results table.
      **************************************************************************/
     private void search(String searchType, String searchTarget) {
         console.append(">>> You pressed the \"Search\" button!\n");
-        if(scanner == null) {
+        if(world == null) {
             displayStructure();
+            return;
         }
         if(searchTarget.equals("")) {
             console.append(">>> Please try again!\n");
             return;
         }
         console.append(">>> You selected the following \"Type\": [" + searchType + "], and are searching for, [" + searchTarget + "]\n\n");
-        ArrayList<Thing> searchResults = new ArrayList<>();
-        ArrayList<String> skillSearchResults = new ArrayList<>();
-         switch(searchType) {
-            case "Index":
-                try {
-                    int requestedIndex = Integer.parseInt(searchTarget);
-                    searchResults.add(structureMap.get(requestedIndex));
-                }
-                catch(NumberFormatException e) {
-                    console.append(">>> Invalid \"Index\" input, please try again!");
-                }
-                break;
-            case "Type":
-                try {
-                    searchResults = world.searchByType(searchTarget);
-                    if("SKILL".equals(searchTarget.toUpperCase())){
-                        for(Thing thing : searchResults) {
-                            if(thing instanceof Person) {
-                                if(((Person)thing).getSkill() != null && !skillSearchResults.contains(((Person)thing).getSkill())){
-                                    skillSearchResults.add(((Person)thing).getSkill());
-                                }
-                            }
-                        }
-                    }
-                    else {
-                    if(searchResults == null) {
-                            console.append(">>> Type not found!\n");
-                            return;
-                        }
-                    }
-                } catch (NullPointerException e) {
-                    console.append(">>> Invalid \"Type\" input, please try again!");
-                }
-                break;
-            case "Name":
-                try {
-                searchResults = world.searchByName(searchTarget);
-                if(searchResults.size() <= 0) {
-                        console.append(">>> Name not found!\n");
-                        return;
-                    }
-                } catch (NullPointerException e) {
-                    console.append(">>> Invalid \"Name\" input, please try again!");
-                }
-                break;
-            case "Skill":
-                try {
-                    searchResults = world.findSkill(searchTarget);
-                    if(searchResults.size() <= 0) {
-                        console.append(">>> Skill not found!\n");
-                        return;
-                    }
-                } catch (NullPointerException e) {
-                    console.append(">>> Invalid \"Skill\" input, please try again!");
-                }
-                break;
+        runSearch(searchType, searchTarget);
+    }
+    
+    /***************************************************************************
+     * Starts a search without blocking the GUI.  An Index search is a single 
+     * HashMap lookup and is answered right away, every other search is handed 
+     * to the WorldSearch, which cancels whatever search was still running.
+    ***************************************************************************/
+    private void runSearch(String searchType, String searchTarget) {
+        if(world == null || searchTarget.isEmpty()) {
+            return;
         }
-        if(searchResults.size() > 0 && !"SKILL".equals(searchTarget.toUpperCase())) {
-            for(Thing thing : searchResults) {
+        searchResultModel.clear();
+        consoleTabs.setSelectedIndex(SEARCH_TAB);
+        if("Index".equals(searchType)) {
+            worldSearch.cancel();
+            try {
+                Thing thing = structureMap.get(Integer.parseInt(searchTarget));
                 if(thing != null) {
-                    console.append(thing + "\n");
+                    searchResultModel.addResults(Collections.<Object>singletonList(thing));
                 }
                 else {
                     console.append("Your search returned ZERO results.\n");
                 }
             }
+            catch(NumberFormatException e) {
+                console.append(">>> Invalid \"Index\" input, please try again!\n");
+            }
+            updatePageLabel();
+            return;
         }
-        else if(skillSearchResults.size() > 0 && "SKILL".equals(searchTarget.toUpperCase())) {
-            for(String string : skillSearchResults) {
-                console.append(string+"\n");
+        searchPageLabel.setText("Searching for [" + searchTarget + "]...");
+        worldSearch.submit(world, searchType, searchTarget, new WorldSearch.ResultSink() {
+            @Override
+            public void results(List<Object> results) {
+                searchResultModel.addResults(results);
+                updatePageLabel();
             }
+            
+            @Override
+            public void finished(int total) {
+                updatePageLabel();
+                if(total == 0) {
+                    console.append(">>> " + searchType + " [" + searchTarget + "] not found!\n");
+                }
+            }
+        });
+    }
+    
+    /***************************************************************************
+     * Called by the debounce Timer once the User stops typing in the search 
+     * field with live search turned on.
+    ***************************************************************************/
+    private void searchAsYouType() {
+        if(liveSearchBox.isSelected()) {
+            runSearch((String)searchComboBox.getSelectedItem(), searchField.getText().trim());
         }
     }
     
+    /***************************************************************************
+     * Simple helper method to show which page of results is displayed
+    ***************************************************************************/
+    private void updatePageLabel() {
+        searchPageLabel.setText(searchResultModel.getPageLabel());
+    }
+    
     /***************************************************************************
      * Simple method used to change the contents of the sortTypeComboBox based 
      * which target selected. 
@@ -445,16 +612,31 @@ public class SeaPortProgram extends JFrame {
     
     /***************************************************************************
      * simple helper method used to determine the target of the sort and what 
-     * type of sort to do. 
+     * type of sort to do.  Every port is locked, in SeaPort.LOCK_ORDER, while
+     * its lists are sorted so the Scheduler never sees them half sorted.  The
+     * list of ports is sorted as a copy that then replaces the World's list.
     ***************************************************************************/
     private void sort(){
         console.append("\nYou pressed the \"Sort\" Button\n");
-        if(scanner == null) {
+        if(world == null) {
             displayStructure();
+            return;
         }
         String sortType = sortTypeComboBox.getSelectedItem().toString();
         String sortTarget = sortTargetComboBox.getSelectedItem().toString();
-        sortThings(sortTarget, sortType);
+        ArrayList<SeaPort> locked = new ArrayList<>(world.getPorts());
+        Collections.sort(locked, SeaPort.LOCK_ORDER);
+        for(SeaPort port : locked) {
+            port.getLock().lock();
+        }
+        try {
+            sortThings(sortTarget, sortType);
+        } finally {
+            for(int i = locked.size() - 1; i >= 0; i--) {
+                locked.get(i).getLock().unlock();
+            }
+        }
+        world.publishSnapshot(world.getPorts());
     }
     
     /***************************************************************************
@@ -476,7 +658,7 @@ public class SeaPortProgram extends JFrame {
                     sortThings("People", sortBy);
                     return;
                 case "Ports":
-                    ArrayList<SeaPort> ports = world.getPorts();
+                    ArrayList<SeaPort> ports = new ArrayList<>(world.getPorts());
                     Collections.sort(ports, new Thing(sortBy));
                     world.setPorts(ports);
                     things = world.getPorts();
@@ -644,10 +826,25 @@ public class SeaPortProgram extends JFrame {
     
     /***************************************************************************
      * Simple method used to display the world structure in the left most pane
-     * of the gui.
+     * of the gui.  The JTree is backed by a WorldTreeModel so nothing below a
+     * port is looked at until the User expands it.
     ***************************************************************************/
     private void drawStructure() {
-        root = new JTree(createBranch("Root"));
+        if(structureModel != null) {
+            world.removeSnapshotListener(structureModel);
+        }
+        structureModel = new WorldTreeModel(world);
+        world.addSnapshotListener(structureModel);
+        root = new JTree(structureModel) {
+            @Override
+            public String convertValueToText(Object value, boolean selected, boolean expanded, 
+                    boolean leaf, int row, boolean hasFocus) {
+                return structureModel.label(value);
+            }
+        };
+        root.setRowHeight(18);
+        root.setLargeModel(true);
+        structurePanel.removeAll();
         JScrollPane structurePane = new JScrollPane(root);
         JButton structureCollapseButton = new JButton("Collaspe");
         JButton structureExpandButton = new JButton("Expand");
@@ -663,214 +860,38 @@ public class SeaPortProgram extends JFrame {
         //added functionality to search for node clicked in sturcuture pane
         root.getSelectionModel().setSelectionMode(TreeSelectionModel.SINGLE_TREE_SELECTION);
         root.getSelectionModel().addTreeSelectionListener((TreeSelectionEvent e) -> {
-            String selected = e.getPath().toString();
+            TreePath path = e.getNewLeadSelectionPath();
+            if(path == null) {
+                return;
+            }
+            String selected = structureModel.label(path.getLastPathComponent());
             String[] bits = selected.split(" ");
-            selected = bits[bits.length-1].replace("]", "");
+            selected = bits[bits.length-1];
+            if(path.getLastPathComponent() instanceof Thing) {
+                selected = ((Thing)path.getLastPathComponent()).getName();
+            }
             search("Name", selected);
         });
         validate();
     }
     
     /***************************************************************************
-     * Method used to display the structure of the simulation world.  Calls
-     * the buildStructure method to do the work of populating the HashMap
-     * and the drawStructure method to display it in the left most pane of the
-     * GUI.
+     * Method used to display the structure of the simulation world.  Starts
+     * reading a file if none has been read, otherwise redraws the structure
+     * in the left most pane of the GUI.
      **************************************************************************/ 
     private void displayStructure(){
-        if(scanner == null){
+        if(loader == null){
             console.append(">>> File not loaded. Loading file before display.\n");
             readSimulation();
+            return;
         }
         console.append(">>> Display World Button pressed.\n");
-        drawWorkTable();
-        buildStructure(scanner);
-        drawStructure();
-        ready = true;
-    }
-    
-    /***************************************************************************
-     * Helper method to build world structure, using basic tree, branch, 
-     * leaf(node) structure.  This method adds a branch for each thing of a type.
-    ***************************************************************************/
-    private synchronized DefaultMutableTreeNode createBranch(String title) {
-        DefaultMutableTreeNode branch = new DefaultMutableTreeNode(title);
-        DefaultMutableTreeNode rootBranch;
-        DefaultMutableTreeNode jobBranch;
-        DefaultMutableTreeNode shipBranch;
-        DefaultMutableTreeNode shipsBranch;
-        DefaultMutableTreeNode pierBranch;
-        DefaultMutableTreeNode dockBranch;
-        DefaultMutableTreeNode skillsBranch;
-        DefaultMutableTreeNode personBranch;
-        DefaultMutableTreeNode peopleBranch;
-        DefaultMutableTreeNode jobRequiredSkillsBranch;
-        DefaultMutableTreeNode workOrderBranch;
-        DefaultMutableTreeNode portTimeBranch;
-        DefaultMutableTreeNode arrivalTimeBranch;
-        DefaultMutableTreeNode dockTimeBranch;
-        for(SeaPort port : world.getPorts()) {
-            try {
-                rootBranch = new DefaultMutableTreeNode(port.getName());
-                branch.add(rootBranch);
-            if(port.getDocks() != null) {
-                dockBranch = new DefaultMutableTreeNode("Docks");
-                rootBranch.add(dockBranch);
-                for(Dock dock : port.getDocks()) {
-                    if(dock.getShip() != null) {
-                        pierBranch = new DefaultMutableTreeNode(dock.getName());
-                        dockBranch.add(pierBranch);
-                        shipBranch = new DefaultMutableTreeNode(dock.getShip().getName());
-                        pierBranch.add(shipBranch);
-                    }
-                }
-            }
-            if(port.getQueue() != null) {
-                rootBranch.add(addNode(port.getQueue(), "Queue"));
-            }
-            if(port.getShips() != null) {
-                shipsBranch = new DefaultMutableTreeNode("Ships");
-                rootBranch.add(shipsBranch);
-                for(Ship ship : port.getShips()) {
-                    if(ship.getJobs().size() > 0) {
-                        shipBranch = new DefaultMutableTreeNode(ship.getName());
-                        shipsBranch.add(shipBranch);
-                        shipBranch.add(addNode(ship.getJobs(), "Jobs"));
-                    }
-                    else if(ship.getJobs().size() <= 0) {
-                        shipBranch = new DefaultMutableTreeNode(ship.getName());
-                        shipsBranch.add(shipBranch);
-                        jobBranch = new DefaultMutableTreeNode("Jobs");
-                        shipBranch.add(jobBranch);
-                        workOrderBranch = new DefaultMutableTreeNode("No Workorders!");
-                        jobBranch.add(workOrderBranch);
-                    }
-                    else{
-                        rootBranch.add(addNode(port.getShips(), "Ships"));
-                    }
-                }
-                ArrayList<CargoShip> cShips = new ArrayList<>();
-                for(Ship ship : port.getShips()) {
-                    if(ship instanceof CargoShip) {
-                        cShips.add(((CargoShip)ship));
-                    }
-                }
-                rootBranch.add(addNode(cShips, "Cargo Ships"));
-                ArrayList<PassengerShip> pShips = new ArrayList<>();
-                for(Ship ship : port.getShips()) {
-                    if(ship instanceof PassengerShip) {
-                        pShips.add(((PassengerShip)ship));
-                    }
-                }
-                rootBranch.add(addNode(pShips, "Passenger Ships"));
-            }
-            if(port.getPersons() != null) {
-                peopleBranch = new DefaultMutableTreeNode("People");
-                rootBranch.add(peopleBranch);
-                for(Person person : port.getPersons()) {
-                    if(person.getSkill() != null) {
-                        personBranch = new DefaultMutableTreeNode(person.getName());
-                        peopleBranch.add(personBranch);
-                        skillsBranch = new DefaultMutableTreeNode(person.getSkill());
-                        personBranch.add(skillsBranch);
-                    }
-                }
-            }
-            if(port.getShips() != null) {
-                jobBranch = new DefaultMutableTreeNode("Jobs");
-                rootBranch.add(jobBranch);
-                for(Ship ship : port.getShips()){
-                    if(ship.getJobs() != null) {
-                        for(Job job : ship.getJobs()){
-                            if(job.getRequirements().size() > 0) {
-                                workOrderBranch = new DefaultMutableTreeNode(job.getName());
-                                jobBranch.add(workOrderBranch);
-                                for(String s : job.getRequirements()) {
-                                    jobRequiredSkillsBranch = new DefaultMutableTreeNode(s);
-                                    workOrderBranch.add(jobRequiredSkillsBranch);
-                                }
-                            } else {
-                                workOrderBranch = new DefaultMutableTreeNode(job.getName());
-                                jobBranch.add(workOrderBranch);
-                                jobRequiredSkillsBranch = new DefaultMutableTreeNode("No Requirements!");
-                                workOrderBranch.add(jobRequiredSkillsBranch);
-                            }
-                        }
-                    }
-                }
-            }
-            if(port.getShips() != null) {
-                portTimeBranch = new DefaultMutableTreeNode("Port Time");
-                rootBranch.add(portTimeBranch);
-                for(Ship ship : port.getShips()){
-                    if(ship.getArrivalTime() != null) {
-                        shipBranch = new DefaultMutableTreeNode(ship.getName());
-                        portTimeBranch.add(shipBranch);
-                        arrivalTimeBranch = new DefaultMutableTreeNode("Arrived: " + ship.getArrivalTime());
-                        shipBranch.add(arrivalTimeBranch);
-                        dockTimeBranch = new DefaultMutableTreeNode("Docked: " + ship.getDockTime());
-                        shipBranch.add(dockTimeBranch);
-                        }
-                    else {
-                        shipBranch = new DefaultMutableTreeNode(ship.getName());
-                        portTimeBranch.add(shipBranch);
-                        arrivalTimeBranch = new DefaultMutableTreeNode("No Arrival Time!");
-                        shipBranch.add(arrivalTimeBranch);
-                        dockTimeBranch = new DefaultMutableTreeNode("No Dock Time!");
-                        shipBranch.add(dockTimeBranch);
-                    }
-                }
-            }            
-            } catch(IllegalArgumentException e) {
-                //console.append(">>> Error!" + e + "\n");
-                System.out.println(e);
-            }
-        }
-        return branch;
-    }
-    
-    /***************************************************************************
-     * Creates a branch for each Type of thing. 
-    ***************************************************************************/ 
-    private synchronized <T extends Thing> DefaultMutableTreeNode addNode(ArrayList<T> things, String name){
-        DefaultMutableTreeNode leaf = new DefaultMutableTreeNode(name);
-        try {
-            for(Thing thing : things) { 
-                synchronized(thing) {
-                    String displayString = thing.getName();
-                    if(thing instanceof Dock) {
-                        if(((Dock)thing).getShip() != null) {
-                            displayString = ((Dock)thing).getName();
-                        }
-                        else {
-                            displayString = "Empty Berth";
-                        }          
-                    }
-                    if(thing instanceof Ship) {
-                        if(((Ship)thing).getDraft() != 0) {
-                            displayString = ((Ship)thing).getName();
-                        }
-                        else {
-                            displayString = "";
-                        }
-                    }
-                    if(thing instanceof Person) {
-                        if(((Person)thing).getSkill() != null) {
-                            displayString = ((Person)thing).getName();
-                        }
-                    }
-                    if(thing instanceof Job) {
-                        if(((Job)thing).getName() != null) {
-                            displayString = ((Job)thing).getName();
-                        }
-                    }
-                    leaf.add(new DefaultMutableTreeNode(displayString));
-                }
-            } 
-        } catch(ConcurrentModificationException e) {
-                System.out.println(e);
+        if(world == null) {
+            console.append(">>> Structure will be displayed once the ports and piers are loaded.\n");
+            return;
         }
-        return leaf;
+        drawStructure();
     }
     
     /***************************************************************************
@@ -892,89 +913,295 @@ public class SeaPortProgram extends JFrame {
     }
     
     /***************************************************************************
-     * After the initial ingestion of the simulation file in my buildStructure 
+     * After the initial ingestion of the simulation file by my WorldLoader 
      * method, this method monitors a ships' work on jobs.  When all of a ships 
      * Jobs are complete, the ship will undock from its pier and another ship in
-     * the Queue will be allowed to dock and begin work on its Jobs.  I started 
-     * to use two global "Flags", ready and running, and one internal "Flag", 
-     * workComplete to avoid having "Forever" or infinite loops.
+     * the Queue will be allowed to dock and begin work on its Jobs.  The work 
+     * itself is done by the Scheduler one port at a time under that port's 
+     * lock.  I started to use two global "Flags", ready and running, to avoid 
+     * having "Forever" or infinite loops.  Checkpoints are taken here between
+     * passes, when asked for and every CHECKPOINT_INTERVAL_MILLIS.
     ***************************************************************************/
     public void monitorWork() {   
-        if(ready){
-            for(SeaPort port : world.getPorts()) {
-                for(Dock dock : port.getDocks()) {
-                    synchronized(dock) {
-                        boolean workComplete = true;
-                        if(dock.getShip() == null){
-                            continue;
-                        }
-                        for(Job job : dock.getShip().getJobs()) {
-                            if(dock.getShip().getJobs().isEmpty()) {
-                                workComplete = true;
-                            }
-                            if(!job.finished()) {
-                                workComplete = false;
-                            }
-                        }
-                        if(workComplete) {
-                            workConsole.append(String.format(">>> SHIP DEPARTING: SS %s leaving %s at Port of %s\n", dock.getShip().getName(), dock.getName(), port.getName()));
-                            for(Job job : dock.getShip().getJobs()) {
-                                if(job.finished()) {
-                                    workConsole.append(String.format(">>> JOB DONE: Work order %s finished on SS %s at %s in Port of %s\n", job.getName(), dock.getShip().getName(), dock.getName(), port.getName()));
-                                }
-                                job.endWork();
-                                workTableModel.remove(job.getName());
-                                workTable.validate();
-                            }
-                            dock.setShip(null);
-                            if(port.getQueue().isEmpty()){
-                                return; 
-                            }
-                            else {
-                                dock.setShip(port.getQueue().remove(0));
-                                workConsole.append(String.format(">>> SHIP DOCKING: SS %s docking in %s at Port of %s\n", dock.getShip().getName(), dock.getName(), port.getName()));
-                                for(Job job : dock.getShip().getJobs()) {
-                                    job.displayWork(workButtonPanel);
-                                    dock.getShip().setParent(dock.getIndex());
-                                    workTableModel.add(dock.getShip(), structureMap, job);
-                                    workTable.validate();
-                                    job.startWork();
-                                }
-                            }
-                        }
-                        if(workTableModel.getRowCount() > 0) {
-                            workButtonPanel.setLayout(new GridLayout(workTableModel.getRowCount(), 3, 3, 3));
-                            workButtonPanel.setPreferredSize(new Dimension(400, workTableModel.getRowCount() * 25)); 
-                        }
-                    }
-                }
+        Scheduler current = scheduler;
+        if(ready && current != null){
+            current.runPass();
+            long now = System.currentTimeMillis();
+            if(checkpointRequested) {
+                checkpointRequested = false;
+                saveCheckpoint(new File("logs", "checkpoint-" + now + ".txt"));
+            }
+            else if(now - lastCheckpoint >= CHECKPOINT_INTERVAL_MILLIS) {
+                saveCheckpoint(new File("logs", CHECKPOINT_AUTOSAVE));
             } 
         }  
     }
     
+    /***************************************************************************
+     * Waits out what is left of PASS_INTERVAL_MILLIS after a pass, so the 
+     * monitoring loop does not keep a core busy.  Jobs make progress every 
+     * 100 ms, so a shorter interval still sees each finished Job in time.
+     * @param passStart when the pass began
+    ***************************************************************************/
+    private void pause(long passStart) {
+        long left = PASS_INTERVAL_MILLIS - (System.currentTimeMillis() - passStart);
+        if(left > 0) {
+            try {
+                Thread.sleep(left);
+            } catch (InterruptedException e) {
+                System.out.println(e);
+            }
+        }
+    }
+    
+    /***************************************************************************
+     * Method to be called when the User hits the Checkpoint button.  The 
+     * Checkpoint is taken between passes of the Scheduler.
+    ***************************************************************************/
+    private void requestCheckpoint() {
+        if(scheduler == null) {
+            console.append(">>> Read a simulation before taking a checkpoint.\n");
+            return;
+        }
+        checkpointRequested = true;
+    }
+    
+    /***************************************************************************
+     * Takes a Checkpoint of the running simulation and writes it to a file 
+     * that the Read button can resume from
+     * @param file
+    ***************************************************************************/
+    private void saveCheckpoint(File file) {
+        Scheduler current = scheduler;
+        if(!ready || current == null) {
+            return;
+        }
+        lastCheckpoint = System.currentTimeMillis();
+        Checkpoint checkpoint = Checkpoint.take(current);
+        try {
+            checkpoint.write(file);
+            console.append(String.format(">>> Checkpoint [%s] saved, %d ships and %d jobs, ports held %.2f ms.\n", 
+                    file, checkpoint.getShipCount(), checkpoint.getJobCount(), checkpoint.getHeldMillis()));
+        } catch (IOException e) {
+            console.append(">>> Checkpoint could not be saved: " + e + "\n");
+            System.out.println(e);
+        }
+    }
+    
     /***************************************************************************
      * Simple method used to display the work table in the right most pane
-     * of the gui.
+     * of the gui.  The JTable sits directly in its JScrollPane so only the 
+     * visible rows are painted, with shared renderers and editors for the 
+     * status, progress and button columns.
     ***************************************************************************/
     private void drawWorkTable(){
-        String[] header = {"Ship", "Location", "Work Order", "Requirements"};
+        String[] header = {"Ship", "Location", "Work Order", "Requirements", "Status", "Progress", "", ""};
         workTableModel = new JobTableTemplate(header);
         workTable = new JTable(workTableModel);
-        workTable.setRowHeight(35);
-        JPanel tablePanel = new JPanel(new BorderLayout());
-        workButtonPanel = new JPanel();
-        tablePanel.add(workTable, BorderLayout.CENTER);
-        tablePanel.add(workButtonPanel, BorderLayout.EAST);
-        tablePanel.add(workTable.getTableHeader(), BorderLayout.NORTH);
-        JScrollPane tableScroll = new JScrollPane(tablePanel);
-        workTablePanel.add(tableScroll);
+        workTable.setRowHeight(25);
+        workTable.setFillsViewportHeight(true);
+        workTable.setDefaultRenderer(Job.Status.class, new JobStatusRenderer());
+        workTable.setDefaultRenderer(Integer.class, new JobProgressRenderer());
+        JobButtonCell suspendCell = new JobButtonCell(
+                job -> job.isSuspended() ? "Resume" : "Suspend", Job::setSuspend);
+        JobButtonCell cancelCell = new JobButtonCell(job -> "Cancel", Job::setCancel);
+        TableColumnModel columns = workTable.getColumnModel();
+        columns.getColumn(JobTableTemplate.SUSPEND_COLUMN).setCellRenderer(suspendCell);
+        columns.getColumn(JobTableTemplate.SUSPEND_COLUMN).setCellEditor(suspendCell);
+        columns.getColumn(JobTableTemplate.CANCEL_COLUMN).setCellRenderer(cancelCell);
+        columns.getColumn(JobTableTemplate.CANCEL_COLUMN).setCellEditor(cancelCell);
+        workTablePanel.removeAll();
+        workTablePanel.add(new JScrollPane(workTable), BorderLayout.CENTER);
         validate();
     }
     
+    /***************************************************************************
+     * Method to be called when the User hits the Feed button.  Asks for a 
+     * file to tail, a named pipe, or a local port number to listen on, and
+     * starts an ArrivalFeed from it into the running simulation.  Any feed 
+     * already running is stopped first.
+    ***************************************************************************/
+    private void startFeed() {
+        Scheduler current = scheduler;
+        if(current == null) {
+            console.append(">>> Read a simulation before starting a feed.\n");
+            return;
+        }
+        String source = JOptionPane.showInputDialog(this, "File, named pipe or local port number", "Arrival Feed", JOptionPane.QUESTION_MESSAGE);
+        if(source == null || source.trim().isEmpty()) {
+            return;
+        }
+        stopFeed();
+        feed = new ArrivalFeed(source, current, console);
+        feed.start();
+    }
+    
+    /***************************************************************************
+     * Writes the latency percentiles of every port to the console and starts
+     * counting a new interval
+    ***************************************************************************/
+    private void reportLatency() {
+        Scheduler current = scheduler;
+        if(current == null) {
+            console.append(">>> Read a simulation before reporting latency.\n");
+            return;
+        }
+        String report = current.getLatencyRecorder().report(current.getWorld().getPorts(), true);
+        console.append(report.isEmpty() ? ">>> No latency recorded since the last report.\n" : report);
+    }
+    
+    /***************************************************************************
+     * Simple helper method to stop the arrival feed if there is one
+    ***************************************************************************/
+    private void stopFeed() {
+        if(feed != null) {
+            feed.close();
+            feed = null;
+        }
+    }
+    
+    /***************************************************************************
+     * Turns rerouting of queued ships between ports on or off to match the 
+     * Balance check box
+    ***************************************************************************/
+    private void updateLoadBalancing() {
+        Scheduler current = scheduler;
+        if(current == null) {
+            return;
+        }
+        if(!balanceBox.isSelected()) {
+            current.setLoadBalancer(null);
+        }
+        else if(current.getLoadBalancer() == null) {
+            current.setLoadBalancer(new LoadBalancer(current, REROUTE_TRANSIT_HOURS, REROUTES_PER_PASS, REROUTE_INTERVAL_MILLIS));
+            console.append(">>> Queued ships will be rerouted to less crowded ports.\n");
+        }
+    }
+    
+    /***************************************************************************
+     * Sets what is done about stalled Jobs and blocked docks to match the 
+     * Stalls combo box
+    ***************************************************************************/
+    private void updateStallPolicy() {
+        Scheduler current = scheduler;
+        StallWatchdog watchdog = current != null ? current.getStallWatchdog() : null;
+        if(watchdog == null) {
+            return;
+        }
+        watchdog.setPolicy(stallPolicy());
+        console.append(">>> Stalls will be handled with policy [" + watchdog.getPolicy() + "].\n");
+    }
+    
+    /***************************************************************************
+     * Simple helper method to read the policy in the Stalls combo box
+    ***************************************************************************/
+    private StallWatchdog.Policy stallPolicy() {
+        return StallWatchdog.Policy.valueOf(((String)stallComboBox.getSelectedItem()).toUpperCase());
+    }
+    
+    /***************************************************************************
+     * Registers the metrics of the simulation just loaded in place of the 
+     * last one's, as MBeans and for the HTTP endpoint
+    ***************************************************************************/
+    private void registerMetrics() {
+        if(metrics != null) {
+            metrics.unregisterMBeans();
+        }
+        MetricsRegistry loaded = new MetricsRegistry(METRICS_DOMAIN);
+        SeaPortMetrics.register(loaded, scheduler, workTableModel, console, workConsole);
+        try {
+            loaded.registerMBeans();
+        } catch (JMException e) {
+            System.out.println(e);
+        }
+        metrics = loaded;
+        updateMetricsEndpoint();
+    }
+    
+    /***************************************************************************
+     * Starts or stops the local HTTP endpoint to match the Metrics check box.
+     * A running endpoint is started again so it serves the current metrics.
+    ***************************************************************************/
+    private void updateMetricsEndpoint() {
+        if(metricsEndpoint != null) {
+            metricsEndpoint.close();
+            metricsEndpoint = null;
+        }
+        if(!metricsBox.isSelected() || metrics == null) {
+            return;
+        }
+        try {
+            metricsEndpoint = new MetricsEndpoint(metrics, METRICS_HTTP_PORT);
+            console.append(">>> Metrics served at http://localhost:" + metricsEndpoint.getPort() + "/metrics\n");
+        } catch (IOException e) {
+            metricsBox.setSelected(false);
+            console.append(">>> Metrics endpoint could not start: " + e + "\n");
+            System.out.println(e);
+        }
+    }
+    
+    /***************************************************************************
+     * Starts or stops tracing to match the Trace check box.  Each trace goes
+     * to a new file in the logs folder.
+    ***************************************************************************/
+    private void updateTrace() {
+        if(!traceBox.isSelected()) {
+            stopTrace();
+            return;
+        }
+        TraceWriter writer = new TraceWriter(new File("logs", "trace-" + System.currentTimeMillis() + ".json"));
+        LifecycleTrace.start(writer);
+        console.append(">>> Tracing to [" + writer.getFile() + "], open it in Perfetto or chrome://tracing.\n");
+    }
+    
+    /***************************************************************************
+     * Simple helper method to stop tracing and finish the trace file
+    ***************************************************************************/
+    private void stopTrace() {
+        TraceWriter writer = LifecycleTrace.stop();
+        if(writer == null) {
+            return;
+        }
+        writer.close(FLUSH_MILLIS);
+        console.append(String.format(">>> Trace [%s] finished, %d events written, %d dropped.\n", writer.getFile(), writer.getWritten(), writer.getDropped()));
+    }
+    
+    /***************************************************************************
+     * Starts or stops the event journal to match the Journal check box.  Each
+     * journal goes to a new file in the logs folder.
+    ***************************************************************************/
+    private void updateJournal() {
+        if(!journalBox.isSelected()) {
+            stopJournal();
+            return;
+        }
+        try {
+            EventJournal journal = new EventJournal(new File("logs", "journal-" + System.currentTimeMillis() + ".bin"));
+            EventJournal.start(journal);
+            console.append(">>> Journaling to [" + journal.getFile() + "], play it back with JournalReplay.\n");
+        } catch (IOException e) {
+            journalBox.setSelected(false);
+            console.append(">>> Journal could not start: " + e + "\n");
+            System.out.println(e);
+        }
+    }
+    
+    /***************************************************************************
+     * Simple helper method to stop journaling and close the journal file
+    ***************************************************************************/
+    private void stopJournal() {
+        EventJournal journal = EventJournal.stop();
+        if(journal == null) {
+            return;
+        }
+        journal.close(FLUSH_MILLIS);
+        console.append(String.format(">>> Journal [%s] closed, %d records, %d dropped.\n", journal.getFile(), journal.getRecords(), journal.getDropped()));
+    }
+    
     /***************************************************************************
      * Simple helper method that clears console textArea
     ***************************************************************************/
     public void clearConsole() {
-        console.setText(null);
+        console.clear();
     }
 }
\ No newline at end of file
@@ -0,0 +1,165 @@
+package cmsc335_project_3_elinkowski;
+
+import java.util.ArrayList;
+import java.util.List;
+import javax.swing.table.AbstractTableModel;
+
+/*******************************************************************************
+ * File name: SearchResultTableModel class
+ * Date: 20181106 1015L
+ * Author: Keith R. Elinkowski
+ * Purpose: Extends AbstractTableModel class.  Shows search results one page 
+ * at a time.  Results are added as they stream in and only the rows that land
+ * on the page being shown are fired.
+*******************************************************************************/
+public class SearchResultTableModel extends AbstractTableModel {
+    private static final long serialVersionUID = 1L;
+    private static final String[] HEADER = {"Type", "Index", "Name", "Parent", "Details"};
+    private final ArrayList<Object> results;
+    private final int pageSize;
+    private int page;
+    
+    /***************************************************************************
+     * SearchResultTableModel Constructor
+     * @param pageSize rows shown per page
+    ***************************************************************************/
+    public SearchResultTableModel(int pageSize) {
+        this.pageSize = pageSize;
+        results = new ArrayList<>();
+    }
+    
+    /***************************************************************************
+     * @Override of getRowCount() from AbstractTableModel class.  Number of 
+     * rows on the current page.
+    ***************************************************************************/
+    @Override
+    public int getRowCount() {
+        return Math.max(0, Math.min(pageSize, results.size() - page * pageSize));
+    }
+    
+    /***************************************************************************
+     * @Override of getColumnCount() from AbstractTableModel class
+    ***************************************************************************/
+    @Override
+    public int getColumnCount() {
+        return HEADER.length;
+    }
+    
+    /***************************************************************************
+     * @Override of getColumnName() from AbstractTableModel class
+    ***************************************************************************/
+    @Override
+    public String getColumnName(int index) {
+        return HEADER[index];
+    }
+    
+    /***************************************************************************
+     * @Override of getValueAt() from AbstractTableModel class.  Details are 
+     * only worked out for the rows being painted.
+    ***************************************************************************/
+    @Override
+    public Object getValueAt(int row, int col) {
+        Object result = results.get(page * pageSize + row);
+        if(!(result instanceof Thing)) {
+            return col == 0 ? "Skill" : col == 2 ? result : "";
+        }
+        Thing thing = (Thing)result;
+        switch(col) {
+            case 0:
+                return thing.getClass().getSimpleName();
+            case 1:
+                return thing.getIndex();
+            case 2:
+                return thing.getName();
+            case 3:
+                return thing.getParent();
+            default:
+                return details(thing);
+        }
+    }
+    
+    /***************************************************************************
+     * Short description of a Thing for the Details column
+    ***************************************************************************/
+    private String details(Thing thing) {
+        if(thing instanceof Person) {
+            return ((Person)thing).getSkill();
+        }
+        if(thing instanceof Job) {
+            return String.format("%.2f Hours, Requirements: %s", ((Job)thing).getDuration(), 
+                    String.join(" ", ((Job)thing).getRequirements()));
+        }
+        if(thing instanceof Ship) {
+            Ship ship = (Ship)thing;
+            return String.format("WEIGHT: %.2fMT, LENGTH: %.2fm, WIDTH: %.2fm, DRAFT: %.2fm, Jobs: %d", 
+                    ship.getWeight(), ship.getLength(), ship.getWidth(), ship.getDraft(), ship.getJobs().size());
+        }
+        if(thing instanceof Dock) {
+            return ((Dock)thing).getShip() != null ? "Ship: " + ((Dock)thing).getShip().getName() : "Empty Berth";
+        }
+        if(thing instanceof SeaPort) {
+            SeaPort port = (SeaPort)thing;
+            return String.format("Docks: %d, Queue: %d, Ships: %d, People: %d", port.getDocks().size(), 
+                    port.getQueue().size(), port.getShips().size(), port.getPersons().size());
+        }
+        return "";
+    }
+    
+    /***************************************************************************
+     * Adds results to the end of the list.  Only rows that fall on the page 
+     * being shown are fired.
+     * @param more
+    ***************************************************************************/
+    public void addResults(List<Object> more) {
+        int firstRow = results.size() - page * pageSize;
+        results.addAll(more);
+        int lastRow = getRowCount() - 1;
+        if(firstRow < pageSize && lastRow >= Math.max(0, firstRow)) {
+            fireTableRowsInserted(Math.max(0, firstRow), lastRow);
+        }
+    }
+    
+    /***************************************************************************
+     * Removes every result and goes back to the first page
+    ***************************************************************************/
+    public void clear() {
+        results.clear();
+        page = 0;
+        fireTableDataChanged();
+    }
+    
+    /***************************************************************************
+     * Moves to the next page, if there is one
+    ***************************************************************************/
+    public void nextPage() {
+        if((page + 1) * pageSize < results.size()) {
+            page++;
+            fireTableDataChanged();
+        }
+    }
+    
+    /***************************************************************************
+     * Moves to the previous page, if there is one
+    ***************************************************************************/
+    public void previousPage() {
+        if(page > 0) {
+            page--;
+            fireTableDataChanged();
+        }
+    }
+    
+    /***************************************************************************
+     * Getter for the total number of results
+    ***************************************************************************/
+    public int getResultCount() {
+        return results.size();
+    }
+    
+    /***************************************************************************
+     * Text describing which page is shown
+    ***************************************************************************/
+    public String getPageLabel() {
+        int pages = Math.max(1, (results.size() + pageSize - 1) / pageSize);
+        return String.format("Page %d of %d (%d results)", page + 1, pages, results.size());
+    }
+}
@@ -8,11 +8,14 @@ import java.util.Scanner;
  * Date: 20181025 1339L
  * Author: Keith R. Elinkowski
  * Purpose: Extends Thing class. This class holds all the requirements a ship 
- * in this World, would need to dock.
+ * in this World, would need to dock.  The time the ship arrived, the time it 
+ * last docked and the time it departed are recorded as it moves through a 
+ * port.
 *******************************************************************************/
 public class Ship extends Thing{
-    private PortTime arrivalTime;
-    private PortTime dockTime;
+    private volatile PortTime arrivalTime;
+    private volatile PortTime dockTime;
+    private volatile PortTime departureTime;
     double draft;
     double length;
     double weight;
@@ -82,6 +85,37 @@ public class Ship extends Thing{
         dockTime = dTime;
     }
     
+    /***************************************************************************
+     * Getter for departureTime
+    ***************************************************************************/
+    public PortTime getDepartureTime() {
+        return departureTime;
+    }
+    
+    /***************************************************************************
+     * Setter for departureTime
+     * @param dTime
+    ***************************************************************************/
+    public void setDepartureTime(PortTime dTime) {
+        departureTime = dTime;
+    }
+    
+    /***************************************************************************
+     * Getter for the milliseconds the ship waited in the queue before it 
+     * docked, NaN until it docks
+    ***************************************************************************/
+    public double getQueueWaitMillis() {
+        return PortTime.millisBetween(arrivalTime, dockTime);
+    }
+    
+    /***************************************************************************
+     * Getter for the milliseconds from arrival to departure, NaN until the 
+     * ship departs
+    ***************************************************************************/
+    public double getTurnaroundMillis() {
+        return PortTime.millisBetween(arrivalTime, departureTime);
+    }
+    
     /***************************************************************************
      * Getter for draft
     ***************************************************************************/    
@@ -183,6 +217,7 @@ public class Ship extends Thing{
         }
         outShip += "Arrival Time: " + getArrivalTime() + "\n";
         outShip += "Dock Time: " + getDockTime() + "\n";
+        outShip += "Departure Time: " + getDepartureTime() + "\n";
         return outShip;
     }
 }
@@ -0,0 +1,170 @@
+package cmsc335_project_3_elinkowski;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.locks.Lock;
+
+/*******************************************************************************
+ * File name: Shutdown class
+ * Date: 20181119 0840L
+ * Author: Keith R. Elinkowski
+ * Purpose: Brings a running simulation to an orderly stop within a deadline.
+ * The Scheduler first stops admitting and docking ships.  With DRAIN the
+ * passes go on until every docked ship's Jobs are finished or the deadline
+ * comes, one last pass sends the finished ships away, and whatever is left
+ * is saved in a Checkpoint.  With CHECKPOINT the Checkpoint is taken 
+ * straight away, and with IMMEDIATE nothing is saved.  Every Job still 
+ * running is then stopped and its worker thread waited for, all against the
+ * one deadline plus STOP_GRACE_MILLIS, so the time taken does not grow with
+ * the number of Jobs.  The report says what was finished, saved and 
+ * abandoned.
+*******************************************************************************/
+public class Shutdown {
+    public enum Mode {DRAIN, CHECKPOINT, IMMEDIATE}
+    private static final long PASS_MILLIS = 20;
+    private static final long STOP_GRACE_MILLIS = 500;
+    private static final int NAMES_REPORTED = 10;
+    private final Scheduler scheduler;
+    private final Mode mode;
+    private final long deadlineMillis;
+    private final File checkpointFile;
+
+    /***************************************************************************
+     * Shutdown Constructor
+     * @param scheduler
+     * @param mode
+     * @param deadlineMillis longest to drain for
+     * @param checkpointFile where to save what is left, null to save nothing
+    ***************************************************************************/
+    public Shutdown(Scheduler scheduler, Mode mode, long deadlineMillis, File checkpointFile) {
+        this.scheduler = scheduler;
+        this.mode = mode;
+        this.deadlineMillis = Math.max(0L, deadlineMillis);
+        this.checkpointFile = checkpointFile;
+    }
+
+    /***************************************************************************
+     * Stops the simulation.  Must not be called while holding a port lock,
+     * nor while another thread is still running passes.
+     * @return the report, one line per item
+    ***************************************************************************/
+    public String run() {
+        long start = System.nanoTime();
+        long deadline = start + deadlineMillis * 1000000L;
+        StringBuilder report = new StringBuilder();
+        scheduler.drain();
+        int before = unfinished().size();
+        long turnarounds = scheduler.getTurnarounds();
+        if(mode == Mode.DRAIN) {
+            try {
+                while(System.nanoTime() - deadline < 0 && !unfinished().isEmpty()) {
+                    scheduler.runPass();
+                    Thread.sleep(PASS_MILLIS);
+                }
+                scheduler.runPass();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        List<Job> left = unfinished();
+        if(mode == Mode.DRAIN) {
+            report.append(String.format(">>> SHUTDOWN: drained %d of %d jobs and %d ships in %.0f ms\n",
+                    before - left.size(), before, scheduler.getTurnarounds() - turnarounds, (System.nanoTime() - start) / 1e6));
+        }
+        if(mode != Mode.IMMEDIATE && checkpointFile != null && (mode == Mode.CHECKPOINT || !left.isEmpty() || hasQueued())) {
+            Checkpoint checkpoint = Checkpoint.take(scheduler);
+            try {
+                checkpoint.write(checkpointFile);
+                report.append(String.format(">>> SHUTDOWN: checkpoint [%s] saved, %d ships and %d jobs\n",
+                        checkpointFile, checkpoint.getShipCount(), checkpoint.getJobCount()));
+            } catch (IOException e) {
+                report.append(">>> SHUTDOWN: checkpoint could not be saved: " + e + "\n");
+                System.out.println(e);
+            }
+        }
+        int running = 0;
+        StringBuilder names = new StringBuilder();
+        for(int i = 0; i < left.size(); i++) {
+            Job job = left.get(i);
+            if(job.isStarted()) {
+                running++;
+            }
+            job.stop("shutdown");
+            if(i < NAMES_REPORTED) {
+                names.append(i > 0 ? ", " : "").append(job.getName());
+            }
+        }
+        int stuck = 0;
+        long stopBy = Math.max(deadline, System.nanoTime()) + STOP_GRACE_MILLIS * 1000000L;
+        try {
+            for(Job job : left) {
+                if(!job.awaitEnd(Math.max(0L, (stopBy - System.nanoTime()) / 1000000L))) {
+                    stuck++;
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if(!left.isEmpty()) {
+            report.append(String.format(">>> SHUTDOWN: abandoned %d jobs, %d running and %d waiting%s%s\n", left.size(), running, left.size() - running,
+                    names.length() > 0 ? ": " + names : "", left.size() > NAMES_REPORTED ? ", ..." : ""));
+        }
+        if(stuck > 0) {
+            report.append(String.format(">>> SHUTDOWN: %d job threads did not stop in time\n", stuck));
+        }
+        report.append(String.format(">>> SHUTDOWN: %s finished in %.0f ms, %d ships left queued, %d arrivals left waiting\n",
+                mode, (System.nanoTime() - start) / 1e6, queued(), scheduler.getPendingArrivals()));
+        return report.toString();
+    }
+
+    /***************************************************************************
+     * The unfinished Jobs of every docked ship, each port read under its lock
+    ***************************************************************************/
+    private List<Job> unfinished() {
+        ArrayList<Job> jobs = new ArrayList<>();
+        for(SeaPort port : scheduler.getWorld().getPorts()) {
+            Lock lock = scheduler.lockFor(port);
+            scheduler.acquire(lock);
+            try {
+                for(Dock dock : port.getOccupiedDocks()) {
+                    for(Job job : dock.getShip().getJobs()) {
+                        if(!job.finished()) {
+                            jobs.add(job);
+                        }
+                    }
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+        return jobs;
+    }
+
+    /***************************************************************************
+     * Number of ships queued at every port
+    ***************************************************************************/
+    private int queued() {
+        int count = 0;
+        for(SeaPort port : scheduler.getWorld().getPorts()) {
+            Lock lock = scheduler.lockFor(port);
+            scheduler.acquire(lock);
+            try {
+                count += port.getQueue().size();
+            } finally {
+                lock.unlock();
+            }
+        }
+        return count;
+    }
+
+    /***************************************************************************
+     * Simple helper method to tell if any ship is queued or waiting to be
+     * admitted
+    ***************************************************************************/
+    private boolean hasQueued() {
+        AdmissionControl control = scheduler.getAdmissionControl();
+        return queued() > 0 || scheduler.getPendingArrivals() > 0 || (control != null && control.getDeferredCount() > 0);
+    }
+}
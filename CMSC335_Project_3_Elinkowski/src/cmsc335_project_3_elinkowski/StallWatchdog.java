@@ -0,0 +1,284 @@
+package cmsc335_project_3_elinkowski;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.Lock;
+
+/*******************************************************************************
+ * File name: StallWatchdog class
+ * Date: 20181119 1510L
+ * Author: Keith R. Elinkowski
+ * Purpose: Looks for Jobs and docks that have stopped making progress.  A Job
+ * counts as stalled once it has gone longer than stallMultiple times its
+ * expected run time, and never less than minStallMillis, without progress:
+ * a running Job since it last worked a tick, a waiting Job since it was
+ * ready for people.  A dock counts as blocked once its ship has unfinished
+ * Jobs and none of them has made progress for dockStallMillis.  Each stall is
+ * reported once, when it is first seen, and is forgotten as soon as progress
+ * is made again.  The Policy then decides what else happens to a new stall:
+ * ALERT only reports it, RESUME takes a stalled Job off suspend, CANCEL stops
+ * the stalled Job so its ship can leave, and REQUEUE sends the ship of a
+ * blocked dock back to its port's queue, at most once until the ship leaves
+ * the port.  Checks run no more often than the interval, and every port is
+ * read under its lock before anything is done about what was found.
+*******************************************************************************/
+public class StallWatchdog implements SchedulerListener {
+    public enum Policy {ALERT, RESUME, CANCEL, REQUEUE}
+    private final Scheduler scheduler;
+    private final double stallMultiple;
+    private final long minStallNanos;
+    private final long dockStallNanos;
+    private final long intervalNanos;
+    private final Set<Job> flaggedJobs;
+    private final Set<Dock> flaggedDocks;
+    private final Set<Ship> requeued;
+    private final LongAdder alerts;
+    private final LongAdder actions;
+    private volatile Policy policy;
+    private volatile int stalledJobs;
+    private volatile int stalledDocks;
+    private long lastCheck;
+
+    /***************************************************************************
+     * StallWatchdog Constructor
+     * @param scheduler
+     * @param stallMultiple times its expected run time a Job may go without
+     * progress
+     * @param minStallMillis least time any Job may go without progress
+     * @param dockStallMillis longest a docked ship may go without progress
+     * @param intervalMillis least time between checks
+     * @param policy what is done about a new stall
+    ***************************************************************************/
+    public StallWatchdog(Scheduler scheduler, double stallMultiple, long minStallMillis, long dockStallMillis, long intervalMillis, Policy policy) {
+        this.scheduler = scheduler;
+        this.stallMultiple = Math.max(0.0, stallMultiple);
+        this.minStallNanos = Math.max(0L, minStallMillis) * 1000000L;
+        this.dockStallNanos = Math.max(0L, dockStallMillis) * 1000000L;
+        this.intervalNanos = Math.max(0L, intervalMillis) * 1000000L;
+        this.policy = policy;
+        flaggedJobs = Collections.newSetFromMap(new IdentityHashMap<>());
+        flaggedDocks = Collections.newSetFromMap(new IdentityHashMap<>());
+        requeued = ConcurrentHashMap.newKeySet();
+        alerts = new LongAdder();
+        actions = new LongAdder();
+        lastCheck = System.nanoTime() - intervalNanos;
+    }
+
+    /***************************************************************************
+     * Setter for policy, used from the next stall on
+     * @param policy
+    ***************************************************************************/
+    public void setPolicy(Policy policy) {
+        this.policy = policy;
+    }
+
+    /***************************************************************************
+     * Getter for policy
+    ***************************************************************************/
+    public Policy getPolicy() {
+        return policy;
+    }
+
+    /***************************************************************************
+     * Looks for stalls after each pass of the Scheduler, unless it is 
+     * draining
+    ***************************************************************************/
+    @Override
+    public void passFinished() {
+        if(!scheduler.isDraining()) {
+            check();
+        }
+    }
+
+    /***************************************************************************
+     * Forgets that a departing ship was requeued, so the set of requeued 
+     * ships only holds those still in a port
+    ***************************************************************************/
+    @Override
+    public void shipDeparted(SeaPort port, Dock dock, Ship ship) {
+        requeued.remove(ship);
+    }
+
+    /***************************************************************************
+     * Looks for stalls if the interval has passed since the last check, and
+     * deals with the new ones.  A check already running on another thread is
+     * waited for.  Must not be called while holding a port lock.
+     * @return the number of new stalls
+    ***************************************************************************/
+    public synchronized int check() {
+        long now = System.nanoTime();
+        if(now - lastCheck < intervalNanos) {
+            return 0;
+        }
+        lastCheck = now;
+        ArrayList<Stall> jobs = new ArrayList<>();
+        ArrayList<Stall> docks = new ArrayList<>();
+        for(SeaPort port : scheduler.getWorld().getPorts()) {
+            Lock lock = scheduler.lockFor(port);
+            scheduler.acquire(lock);
+            try {
+                for(Dock dock : port.getOccupiedDocks()) {
+                    find(port, dock, now, jobs, docks);
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+        stalledJobs = jobs.size();
+        stalledDocks = docks.size();
+        Policy current = policy;
+        int found = 0;
+        Set<Job> stillJobs = Collections.newSetFromMap(new IdentityHashMap<>());
+        for(Stall stall : jobs) {
+            stillJobs.add(stall.job);
+            if(flaggedJobs.add(stall.job)) {
+                found++;
+                alert(String.format(">>> STALL: Work order %s on SS %s %s for %.1f s in Port of %s\n", stall.job.getName(), stall.ship.getName(),
+                        stall.job.isSuspended() ? "suspended" : stall.job.isStarted() && !stall.job.isPreempted() ? "made no progress" : "waiting for people",
+                        stall.nanos / 1e9, stall.port.getName()));
+                act(current, stall);
+            }
+        }
+        flaggedJobs.retainAll(stillJobs);
+        Set<Dock> stillDocks = Collections.newSetFromMap(new IdentityHashMap<>());
+        for(Stall stall : docks) {
+            stillDocks.add(stall.dock);
+            if(flaggedDocks.add(stall.dock)) {
+                found++;
+                alert(String.format(">>> STALL: %s blocked by SS %s with no progress for %.1f s in Port of %s\n", stall.dock.getName(), stall.ship.getName(),
+                        stall.nanos / 1e9, stall.port.getName()));
+                act(current, stall);
+            }
+        }
+        flaggedDocks.retainAll(stillDocks);
+        return found;
+    }
+
+    /***************************************************************************
+     * Adds the stalled Jobs of a docked ship, and its dock if blocked.  Called
+     * while holding the port's lock.
+    ***************************************************************************/
+    private void find(SeaPort port, Dock dock, long now, List<Stall> jobs, List<Stall> docks) {
+        Ship ship = dock.getShip();
+        long dockedAt = scheduler.dockedAt(ship);
+        if(dockedAt == 0L) {
+            return;
+        }
+        long progress = dockedAt;
+        boolean unfinished = false;
+        for(Job job : ship.getJobs()) {
+            progress = Math.max(progress, job.getLastProgress());
+            if(job.finished()) {
+                continue;
+            }
+            unfinished = true;
+            long since;
+            if(job.isStarted() && !job.isPreempted()) {
+                since = Math.max(dockedAt, job.getLastProgress());
+            }
+            else {
+                since = scheduler.waitingSince(job);
+                if(since == 0L) {
+                    continue;
+                }
+            }
+            long limit = Math.max(minStallNanos, (long)(stallMultiple * job.getExpectedMillis() * 1e6));
+            if(now - since > limit) {
+                jobs.add(new Stall(port, dock, ship, job, now - since));
+            }
+        }
+        if(unfinished && now - progress > dockStallNanos) {
+            docks.add(new Stall(port, dock, ship, null, now - progress));
+        }
+    }
+
+    /***************************************************************************
+     * Does what the policy says about a new stall.  A Job stall is acted on
+     * by RESUME and CANCEL, a dock stall by REQUEUE.
+    ***************************************************************************/
+    private void act(Policy current, Stall stall) {
+        if(stall.job != null && current == Policy.RESUME && stall.job.isSuspended()) {
+            stall.job.setSuspend();
+            acted(String.format(">>> STALL: Work order %s on SS %s taken off suspend\n", stall.job.getName(), stall.ship.getName()));
+        }
+        else if(stall.job != null && current == Policy.CANCEL) {
+            stall.job.stop("stalled");
+            acted(String.format(">>> STALL: Work order %s on SS %s cancelled\n", stall.job.getName(), stall.ship.getName()));
+        }
+        else if(stall.job == null && current == Policy.REQUEUE && !requeued.contains(stall.ship)
+                && scheduler.requeue(stall.port, stall.dock, stall.ship)) {
+            requeued.add(stall.ship);
+            flaggedDocks.remove(stall.dock);
+            actions.increment();
+        }
+    }
+
+    /***************************************************************************
+     * Simple helper method to count and log a stall
+    ***************************************************************************/
+    private void alert(String text) {
+        alerts.increment();
+        scheduler.log(text);
+    }
+
+    /***************************************************************************
+     * Simple helper method to count and log something done about a stall
+    ***************************************************************************/
+    private void acted(String text) {
+        actions.increment();
+        scheduler.log(text);
+    }
+
+    /***************************************************************************
+     * Getter for the number of Jobs stalled at the last check
+    ***************************************************************************/
+    public int getStalledJobs() {
+        return stalledJobs;
+    }
+
+    /***************************************************************************
+     * Getter for the number of docks blocked at the last check
+    ***************************************************************************/
+    public int getStalledDocks() {
+        return stalledDocks;
+    }
+
+    /***************************************************************************
+     * Getter for the number of stalls reported
+    ***************************************************************************/
+    public long getAlerts() {
+        return alerts.sum();
+    }
+
+    /***************************************************************************
+     * Getter for the number of stalls resumed, cancelled or requeued
+    ***************************************************************************/
+    public long getActions() {
+        return actions.sum();
+    }
+
+    /***************************************************************************
+     * A stalled Job, or a blocked dock when job is null, and how long it has
+     * gone without progress
+    ***************************************************************************/
+    private static final class Stall {
+        private final SeaPort port;
+        private final Dock dock;
+        private final Ship ship;
+        private final Job job;
+        private final long nanos;
+
+        Stall(SeaPort port, Dock dock, Ship ship, Job job, long nanos) {
+            this.port = port;
+            this.dock = dock;
+            this.ship = ship;
+            this.job = job;
+            this.nanos = nanos;
+        }
+    }
+}
@@ -0,0 +1,319 @@
+package cmsc335_project_3_elinkowski;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/*******************************************************************************
+ * File name: TraceWriter class
+ * Date: 20181117 0910L
+ * Author: Keith R. Elinkowski
+ * Purpose: Implements Runnable.  Streams spans to a file in the Chrome trace
+ * event format, which Perfetto and chrome://tracing both open.  Each port is
+ * a process and each dock a thread, with the port's queue as thread 0.  A 
+ * span is written as an async begin and end pair keyed by its category and 
+ * id, so the overlapping spans of one dock each get their own track.  Like 
+ * the AsyncLogWriter, callers only drop spans into a bounded queue and a 
+ * writer thread formats and writes them in batches, so only the queued spans
+ * are ever on the heap however many are traced.  Spans that find the queue
+ * full are counted as dropped.
+*******************************************************************************/
+public class TraceWriter implements Runnable {
+    private static final int QUEUE_SIZE = 65536;
+    private static final int BATCH_SIZE = 4096;
+    static final int QUEUE_THREAD = 0;
+    private final File file;
+    private final long origin;
+    private final ArrayBlockingQueue<Span> queue;
+    private final Set<Long> named;
+    private final AtomicLong written;
+    private final AtomicLong dropped;
+    private final Thread writerThread;
+    private volatile boolean running;
+    private Writer writer;
+    private boolean first;
+
+    /***************************************************************************
+     * TraceWriter Constructor.  Times in the trace count from now.
+     * @param file trace file to write, replaced if it exists
+    ***************************************************************************/
+    public TraceWriter(File file) {
+        this.file = file;
+        origin = PortTime.now().getPortTime();
+        queue = new ArrayBlockingQueue<>(QUEUE_SIZE);
+        named = ConcurrentHashMap.newKeySet();
+        written = new AtomicLong();
+        dropped = new AtomicLong();
+        first = true;
+        running = true;
+        writerThread = new Thread(this, "trace-writer-" + file.getName());
+        writerThread.setDaemon(true);
+        writerThread.start();
+    }
+
+    /***************************************************************************
+     * Getter for file
+    ***************************************************************************/
+    public File getFile() {
+        return file;
+    }
+
+    /***************************************************************************
+     * Queues a span.  Never blocks.
+     * @param name what happened during the span
+     * @param category ship or job
+     * @param id index of the ship or Job
+     * @param port process the span is shown under
+     * @param dock thread the span is shown under
+     * @param start PortTime nanoseconds
+     * @param end PortTime nanoseconds
+     * @param detail shown with the span, may be null
+    ***************************************************************************/
+    public void span(String name, String category, int id, int port, int dock, long start, long end, String detail) {
+        offer(new Span('b', name, category, id, port, dock, start, Math.max(start, end), detail));
+    }
+
+    /***************************************************************************
+     * Queues a moment in the life of a ship or Job.  Never blocks.
+    ***************************************************************************/
+    public void instant(String name, String category, int id, int port, int dock, long at, String detail) {
+        offer(new Span('n', name, category, id, port, dock, at, at, detail));
+    }
+
+    /***************************************************************************
+     * Names the process of a port, once
+    ***************************************************************************/
+    public void namePort(SeaPort port) {
+        if(named.add((long)port.getIndex() << 32)) {
+            offer(new Span('M', "process_name", null, 0, port.getIndex(), 0, 0L, 0L, "Port of " + port.getName()));
+            offer(new Span('M', "thread_name", null, 0, port.getIndex(), QUEUE_THREAD, 0L, 0L, "Queue"));
+        }
+    }
+
+    /***************************************************************************
+     * Names the thread of a dock, once
+    ***************************************************************************/
+    public void nameDock(SeaPort port, Dock dock) {
+        namePort(port);
+        if(named.add(((long)port.getIndex() << 32) | (dock.getIndex() & 0xffffffffL))) {
+            offer(new Span('M', "thread_name", null, 0, port.getIndex(), dock.getIndex(), 0L, 0L, dock.getName()));
+        }
+    }
+
+    /***************************************************************************
+     * Simple helper method to queue a span or count it as dropped
+    ***************************************************************************/
+    private void offer(Span span) {
+        if(!running || !queue.offer(span)) {
+            dropped.incrementAndGet();
+        }
+    }
+
+    /***************************************************************************
+     * Getter for the number of trace events written
+    ***************************************************************************/
+    public long getWritten() {
+        return written.get();
+    }
+
+    /***************************************************************************
+     * Getter for the number of spans lost because the queue was full
+    ***************************************************************************/
+    public long getDropped() {
+        return dropped.get();
+    }
+
+    /***************************************************************************
+     * Stops taking new spans, writes what is already queued and ends the 
+     * file.  Waits at most timeoutMillis for the writer thread to finish.
+     * @param timeoutMillis
+    ***************************************************************************/
+    public void close(long timeoutMillis) {
+        running = false;
+        try {
+            writerThread.join(timeoutMillis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /***************************************************************************
+     * required method for implementing Runnable interface.  Writes queued 
+     * spans in batches until the writer is closed and the queue is empty.
+    ***************************************************************************/
+    @Override
+    public void run() {
+        ArrayList<Span> batch = new ArrayList<>(BATCH_SIZE);
+        StringBuilder line = new StringBuilder(256);
+        try {
+            openWriter();
+            while(running || !queue.isEmpty()) {
+                Span next = queue.poll(250, TimeUnit.MILLISECONDS);
+                if(next == null) {
+                    continue;
+                }
+                batch.add(next);
+                queue.drainTo(batch, BATCH_SIZE - 1);
+                for(Span span : batch) {
+                    if(span.phase == 'b') {
+                        write(line, span, 'b', span.start);
+                        write(line, span, 'e', span.end);
+                    }
+                    else {
+                        write(line, span, span.phase, span.start);
+                    }
+                }
+                batch.clear();
+                if(queue.isEmpty()) {
+                    writer.flush();
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (IOException e) {
+            System.out.println(e);
+            running = false;
+        } finally {
+            closeWriter();
+        }
+    }
+
+    /***************************************************************************
+     * Opens the trace file and starts the event array
+    ***************************************************************************/
+    private void openWriter() throws IOException {
+        File parent = file.getAbsoluteFile().getParentFile();
+        if(parent != null && !parent.exists() && !parent.mkdirs()) {
+            throw new IOException("Unable to create trace directory " + parent);
+        }
+        writer = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(file), StandardCharsets.UTF_8));
+        writer.write("{\"displayTimeUnit\":\"ms\",\"traceEvents\":[\n");
+    }
+
+    /***************************************************************************
+     * Writes one trace event
+    ***************************************************************************/
+    private void write(StringBuilder line, Span span, char phase, long at) throws IOException {
+        line.setLength(0);
+        if(!first) {
+            line.append(",\n");
+        }
+        first = false;
+        line.append("{\"ph\":\"").append(phase).append("\",\"name\":");
+        quote(line, span.name);
+        line.append(",\"pid\":").append(span.port).append(",\"tid\":").append(span.dock);
+        if(phase == 'M') {
+            line.append(",\"args\":{\"name\":");
+            quote(line, span.detail);
+            line.append("}}");
+        }
+        else {
+            line.append(",\"cat\":");
+            quote(line, span.category);
+            line.append(",\"id\":\"").append(span.category).append('-').append(span.id).append('"');
+            line.append(",\"ts\":");
+            micros(line, at - origin);
+            if(span.detail != null && phase != 'e') {
+                line.append(",\"args\":{\"detail\":");
+                quote(line, span.detail);
+                line.append('}');
+            }
+            line.append('}');
+        }
+        writer.append(line);
+        written.incrementAndGet();
+    }
+
+    /***************************************************************************
+     * Simple helper method to write nanoseconds as microseconds with three
+     * decimals, without going through String.format
+    ***************************************************************************/
+    private static void micros(StringBuilder line, long nanos) {
+        if(nanos < 0) {
+            line.append('-');
+            nanos = -nanos;
+        }
+        long fraction = nanos % 1000;
+        line.append(nanos / 1000).append('.');
+        if(fraction < 100) {
+            line.append('0');
+        }
+        if(fraction < 10) {
+            line.append('0');
+        }
+        line.append(fraction);
+    }
+
+    /***************************************************************************
+     * Simple helper method to write a JSON string
+    ***************************************************************************/
+    private static void quote(StringBuilder line, String text) {
+        line.append('"');
+        for(int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if(c == '"' || c == '\\') {
+                line.append('\\').append(c);
+            }
+            else if(c < 0x20) {
+                line.append(String.format("\\u%04x", (int)c));
+            }
+            else {
+                line.append(c);
+            }
+        }
+        line.append('"');
+    }
+
+    /***************************************************************************
+     * Ends the event array and closes the trace file
+    ***************************************************************************/
+    private void closeWriter() {
+        if(writer == null) {
+            return;
+        }
+        try {
+            writer.write("\n]}\n");
+            writer.close();
+        } catch (IOException e) {
+            System.out.println(e);
+        }
+        writer = null;
+    }
+
+    /***************************************************************************
+     * One queued trace event, or the begin of a begin and end pair
+    ***************************************************************************/
+    private static final class Span {
+        final char phase;
+        final String name;
+        final String category;
+        final int id;
+        final int port;
+        final int dock;
+        final long start;
+        final long end;
+        final String detail;
+
+        Span(char phase, String name, String category, int id, int port, int dock, long start, long end, String detail) {
+            this.phase = phase;
+            this.name = name;
+            this.category = category;
+            this.id = id;
+            this.port = port;
+            this.dock = dock;
+            this.start = start;
+            this.end = end;
+            this.detail = detail;
+        }
+    }
+}
@@ -0,0 +1,51 @@
+package cmsc335_project_3_elinkowski;
+
+import java.time.Instant;
+import java.util.concurrent.atomic.AtomicLong;
+
+/*******************************************************************************
+ * File name: VirtualClock class
+ * Date: 20181115 0920L
+ * Author: Keith R. Elinkowski
+ * Purpose: Implements PortClock.  A clock that stands still until it is
+ * advanced, for replaying or stepping a simulation faster or slower than real
+ * time.  Safe to read and advance from any thread.
+*******************************************************************************/
+public class VirtualClock implements PortClock {
+    private final AtomicLong now;
+
+    /***************************************************************************
+     * VirtualClock Constructor
+     * @param start time the clock reads until it is first advanced
+    ***************************************************************************/
+    public VirtualClock(Instant start) {
+        now = new AtomicLong(start.getEpochSecond() * 1000000000L + start.getNano());
+    }
+
+    /***************************************************************************
+     * required method for implementing PortClock interface
+    ***************************************************************************/
+    @Override
+    public long nanoTime() {
+        return now.get();
+    }
+
+    /***************************************************************************
+     * Moves the clock forward.  A negative amount is ignored so the clock 
+     * never runs backwards.
+     * @param nanos
+     * @return the new time
+    ***************************************************************************/
+    public long advance(long nanos) {
+        return nanos > 0 ? now.addAndGet(nanos) : now.get();
+    }
+
+    /***************************************************************************
+     * Moves the clock forward to a time, if that time is ahead of it
+     * @param nanos nanoseconds since the epoch
+     * @return the new time
+    ***************************************************************************/
+    public long advanceTo(long nanos) {
+        return now.accumulateAndGet(nanos, Math::max);
+    }
+}
@@ -0,0 +1,255 @@
+package cmsc335_project_3_elinkowski;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.Lock;
+
+/*******************************************************************************
+ * File name: WorkerBroker class
+ * Date: 20181113 1005L
+ * Author: Keith R. Elinkowski
+ * Purpose: Lends idle people between the ports of a World.  When a Job needs
+ * a skill its own port has too few people for, another port with an idle
+ * person of that skill sends one over, as long as the lending port keeps at
+ * least the reserve of that skill at home.  A person takes the transfer delay
+ * to get to the borrowing port and the same again to go home once no Job
+ * there is waiting on their skill.  People in transit wait in a queue for
+ * their port, so handing them over never needs two ports locked at once.  A
+ * lending port is only ever tried with tryLock, so a port that is busy is
+ * skipped rather than waited on.  The ports with people of each skill are
+ * kept in an index, and a port is only locked once the atomic counters of 
+ * its WorkerPool show it has someone to spare, so asking for a skill no port
+ * can lend costs no locks at all.  Call staffChanged() when people join a 
+ * port.
+*******************************************************************************/
+public class WorkerBroker {
+    private final World world;
+    private final long transferNanos;
+    private final int reserve;
+    private final ConcurrentHashMap<SeaPort, ConcurrentLinkedQueue<Transfer>> inbound;
+    private final ConcurrentHashMap<SeaPort, List<Person>> borrowed;
+    private final ConcurrentHashMap<Person, SeaPort> homeOf;
+    private final LongAdder loans;
+    private final LongAdder returns;
+    private volatile ConcurrentHashMap<String, List<SeaPort>> skillIndex;
+
+    /***************************************************************************
+     * WorkerBroker Constructor
+     * @param world
+     * @param transferMillis time a person takes to move between ports
+     * @param reserve people of a skill a port always keeps for itself
+    ***************************************************************************/
+    public WorkerBroker(World world, long transferMillis, int reserve) {
+        this.world = world;
+        this.transferNanos = Math.max(0L, transferMillis) * 1000000L;
+        this.reserve = Math.max(0, reserve);
+        inbound = new ConcurrentHashMap<>();
+        borrowed = new ConcurrentHashMap<>();
+        homeOf = new ConcurrentHashMap<>();
+        loans = new LongAdder();
+        returns = new LongAdder();
+        skillIndex = new ConcurrentHashMap<>();
+    }
+
+    /***************************************************************************
+     * Asks the other ports for people with a skill.  Called while holding the
+     * borrowing port's lock.
+     * @param port the borrowing port
+     * @param skill
+     * @param count how many people are wanted
+     * @return how many are on their way
+    ***************************************************************************/
+    public int request(SeaPort port, String skill, int count) {
+        int sent = 0;
+        for(SeaPort lender : staffedBy(skill)) {
+            if(sent >= count) {
+                break;
+            }
+            if(lender == port || !canLend(lender, skill)) {
+                continue;
+            }
+            Lock lock = lender.getLock();
+            if(!lock.tryLock()) {
+                continue;
+            }
+            try {
+                WorkerPool pool = lender.getWorkerPool();
+                while(sent < count && pool.getIdle(skill) > 0 && pool.getStaff(skill) > reserve) {
+                    Person person = pool.removeIdleWorker(skill);
+                    homeOf.put(person, lender);
+                    send(person, port);
+                    loans.increment();
+                    sent++;
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+        return sent;
+    }
+
+    /***************************************************************************
+     * Forgets the index of which ports have people of each skill, so it is
+     * built again from the ports as they are now
+    ***************************************************************************/
+    public void staffChanged() {
+        skillIndex = new ConcurrentHashMap<>();
+    }
+
+    /***************************************************************************
+     * The ports whose WorkerPool has had people with a skill.  A port whose 
+     * pool is not built yet cannot lend, and the ports are looked at again
+     * until every pool is built.
+     * @param skill in lower case
+    ***************************************************************************/
+    private List<SeaPort> staffedBy(String skill) {
+        ConcurrentHashMap<String, List<SeaPort>> index = skillIndex;
+        List<SeaPort> found = index.get(skill);
+        if(found != null) {
+            return found;
+        }
+        found = new ArrayList<>();
+        boolean built = true;
+        for(SeaPort lender : world.getPorts()) {
+            WorkerPool pool = lender.peekWorkerPool();
+            if(pool == null) {
+                built = false;
+            }
+            else if(pool.getSkills().contains(skill)) {
+                found.add(lender);
+            }
+        }
+        if(built) {
+            index.put(skill, found);
+        }
+        return found;
+    }
+
+    /***************************************************************************
+     * Simple helper method to check, without the port's lock, if a port has 
+     * an idle person with a skill beyond its reserve
+    ***************************************************************************/
+    private boolean canLend(SeaPort lender, String skill) {
+        WorkerPool pool = lender.peekWorkerPool();
+        return pool != null && pool.getStaff(skill) > reserve && pool.getAvailable(skill) > 0;
+    }
+
+    /***************************************************************************
+     * Number of people with a skill on their way to a port
+    ***************************************************************************/
+    public int getInbound(SeaPort port, String skill) {
+        ConcurrentLinkedQueue<Transfer> queue = inbound.get(port);
+        if(queue == null) {
+            return 0;
+        }
+        int count = 0;
+        for(Transfer transfer : queue) {
+            if(skill.equalsIgnoreCase(transfer.person.getSkill())) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /***************************************************************************
+     * Adds the people who have reached a port to its WorkerPool.  Called while
+     * holding the port's lock.
+     * @param port
+     * @param now System.nanoTime()
+    ***************************************************************************/
+    public void receive(SeaPort port, long now) {
+        ConcurrentLinkedQueue<Transfer> queue = inbound.get(port);
+        if(queue == null) {
+            return;
+        }
+        WorkerPool pool = port.getWorkerPool();
+        for(Iterator<Transfer> it = queue.iterator(); it.hasNext();) {
+            Transfer transfer = it.next();
+            if(transfer.arrivesAt - now > 0) {
+                continue;
+            }
+            it.remove();
+            if(!pool.getSkills().contains(skillOf(transfer.person))) {
+                staffChanged();
+            }
+            pool.addWorker(transfer.person);
+            if(homeOf.get(transfer.person) != port) {
+                borrowed.computeIfAbsent(port, k -> new ArrayList<>()).add(transfer.person);
+            }
+            else {
+                homeOf.remove(transfer.person);
+            }
+        }
+    }
+
+    /***************************************************************************
+     * Sends home the idle borrowed people of a port whose skill no waiting Job
+     * needs.  Called while holding the port's lock.
+     * @param port
+     * @param wanted skills, in lower case, still needed by waiting Jobs
+    ***************************************************************************/
+    public void returnIdle(SeaPort port, Set<String> wanted) {
+        List<Person> people = borrowed.get(port);
+        if(people == null || people.isEmpty()) {
+            return;
+        }
+        WorkerPool pool = port.getWorkerPool();
+        for(Iterator<Person> it = people.iterator(); it.hasNext();) {
+            Person person = it.next();
+            String skill = skillOf(person);
+            if(wanted.contains(skill) || !pool.removeIdleWorker(person)) {
+                continue;
+            }
+            it.remove();
+            send(person, homeOf.get(person));
+            returns.increment();
+        }
+    }
+
+    /***************************************************************************
+     * Puts a person in transit to a port
+    ***************************************************************************/
+    private void send(Person person, SeaPort to) {
+        inbound.computeIfAbsent(to, k -> new ConcurrentLinkedQueue<>())
+                .add(new Transfer(person, System.nanoTime() + transferNanos));
+    }
+
+    /***************************************************************************
+     * Simple helper method for a person's skill in lower case
+    ***************************************************************************/
+    private static String skillOf(Person person) {
+        return person.getSkill() == null ? "" : person.getSkill().toLowerCase();
+    }
+
+    /***************************************************************************
+     * Getter for the number of people lent since the broker began
+    ***************************************************************************/
+    public long getLoans() {
+        return loans.sum();
+    }
+
+    /***************************************************************************
+     * Getter for the number of people sent home since the broker began
+    ***************************************************************************/
+    public long getReturns() {
+        return returns.sum();
+    }
+
+    /***************************************************************************
+     * A person on the way to a port
+    ***************************************************************************/
+    private static final class Transfer {
+        final Person person;
+        final long arrivesAt;
+
+        Transfer(Person person, long arrivesAt) {
+            this.person = person;
+            this.arrivesAt = arrivesAt;
+        }
+    }
+}
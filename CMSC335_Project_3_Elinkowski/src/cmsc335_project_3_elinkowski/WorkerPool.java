@@ -0,0 +1,340 @@
+package cmsc335_project_3_elinkowski;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Predicate;
+import java.util.function.ToDoubleFunction;
+
+/*******************************************************************************
+ * File name: WorkerPool class
+ * Date: 20181112 0850L
+ * Author: Keith R. Elinkowski
+ * Purpose: The people of one port and the Jobs they are working on.  A Job
+ * needs one idle person for each of its requirements before it can run and
+ * gives them back when it finishes or is preempted.  A requirement that no one
+ * at the port has is skipped so the Job is not held up forever, unless the
+ * Scheduler can borrow someone for it through the WorkerBroker.  Guarded by
+ * the port's lock, except that the staff and busy count of each skill are 
+ * kept in atomic counters which may be read from any thread.
+*******************************************************************************/
+public class WorkerPool {
+    private final HashMap<String, ArrayDeque<Person>> idle;
+    private final ConcurrentHashMap<String, AtomicInteger> staff;
+    private final ConcurrentHashMap<String, AtomicInteger> busy;
+    private final IdentityHashMap<Job, List<Person>> assigned;
+
+    /***************************************************************************
+     * WorkerPool Constructor
+     * @param persons the people of the port
+    ***************************************************************************/
+    public WorkerPool(List<Person> persons) {
+        idle = new HashMap<>();
+        staff = new ConcurrentHashMap<>();
+        busy = new ConcurrentHashMap<>();
+        assigned = new IdentityHashMap<>();
+        for(Person person : persons) {
+            addWorker(person);
+        }
+    }
+
+    /***************************************************************************
+     * Adds an idle person to the pool
+     * @param person
+    ***************************************************************************/
+    public void addWorker(Person person) {
+        String skill = skillOf(person);
+        idle.computeIfAbsent(skill, k -> new ArrayDeque<>()).add(person);
+        counter(staff, skill).incrementAndGet();
+    }
+
+    /***************************************************************************
+     * Takes an idle person with a skill out of the pool
+     * @param skill
+     * @return the person, null if no one with the skill is idle
+    ***************************************************************************/
+    public Person removeIdleWorker(String skill) {
+        ArrayDeque<Person> people = idle.get(skill.toLowerCase());
+        Person person = people != null ? people.poll() : null;
+        if(person != null) {
+            counter(staff, skillOf(person)).decrementAndGet();
+        }
+        return person;
+    }
+
+    /***************************************************************************
+     * Takes a particular person out of the pool if they are idle
+     * @param person
+     * @return false if the person is busy or not in the pool
+    ***************************************************************************/
+    public boolean removeIdleWorker(Person person) {
+        ArrayDeque<Person> people = idle.get(skillOf(person));
+        if(people == null || !people.remove(person)) {
+            return false;
+        }
+        counter(staff, skillOf(person)).decrementAndGet();
+        return true;
+    }
+
+    /***************************************************************************
+     * How many more people of each skill a Job needs than the pool has at
+     * all, busy or idle.  These requirements are the ones tryAssign() skips.
+     * @param job
+    ***************************************************************************/
+    public HashMap<String, Integer> unstaffed(Job job) {
+        HashMap<String, Integer> wanted = new HashMap<>();
+        for(String requirement : job.getRequirements()) {
+            wanted.merge(requirement.toLowerCase(), 1, Integer::sum);
+        }
+        HashMap<String, Integer> missing = new HashMap<>();
+        for(String skill : wanted.keySet()) {
+            int count = wanted.get(skill) - getStaff(skill);
+            if(count > 0) {
+                missing.put(skill, count);
+            }
+        }
+        return missing;
+    }
+
+    /***************************************************************************
+     * Getter for the number of people in the pool with a skill
+    ***************************************************************************/
+    public int getStaff(String skill) {
+        AtomicInteger count = staff.get(skill.toLowerCase());
+        return count != null ? count.get() : 0;
+    }
+
+    /***************************************************************************
+     * Getter for the number of people with a skill working on a Job
+    ***************************************************************************/
+    public int getBusy(String skill) {
+        AtomicInteger count = busy.get(skill.toLowerCase());
+        return count != null ? count.get() : 0;
+    }
+
+    /***************************************************************************
+     * Getter for the number of idle people with a skill, worked out from the
+     * atomic counters so it may be read from any thread.  Without the port's 
+     * lock it may be out of date by the time it is used.
+    ***************************************************************************/
+    public int getAvailable(String skill) {
+        return getStaff(skill) - getBusy(skill);
+    }
+
+    /***************************************************************************
+     * Getter for the skills, in lower case, the pool has ever had
+    ***************************************************************************/
+    public Set<String> getSkills() {
+        return staff.keySet();
+    }
+
+    /***************************************************************************
+     * Getter for the number of idle people with a skill
+    ***************************************************************************/
+    public int getIdle(String skill) {
+        ArrayDeque<Person> people = idle.get(skill.toLowerCase());
+        return people != null ? people.size() : 0;
+    }
+
+    /***************************************************************************
+     * Gives a Job one idle person for each requirement the port can staff, or
+     * nobody if any of them is busy
+     * @param job
+     * @return true if the Job now has its workers
+    ***************************************************************************/
+    public boolean tryAssign(Job job) {
+        HashMap<String, Integer> needed = shortfall(job);
+        if(!needed.isEmpty()) {
+            return false;
+        }
+        ArrayList<Person> workers = new ArrayList<>();
+        for(String skill : staffedRequirements(job)) {
+            workers.add(idle.get(skill).poll());
+            counter(busy, skill).incrementAndGet();
+        }
+        assigned.put(job, workers);
+        return true;
+    }
+
+    /***************************************************************************
+     * Gives a Job the very people it had when a Checkpoint was taken, if they
+     * are all idle in this pool
+     * @param job
+     * @param crew indexes of the people
+     * @return true if the Job now has its workers
+    ***************************************************************************/
+    public boolean assign(Job job, List<Integer> crew) {
+        ArrayList<Person> workers = new ArrayList<>();
+        for(Integer index : crew) {
+            Person found = null;
+            for(ArrayDeque<Person> people : idle.values()) {
+                for(Person person : people) {
+                    if(person.getIndex() == index && !workers.contains(person)) {
+                        found = person;
+                        break;
+                    }
+                }
+                if(found != null) {
+                    break;
+                }
+            }
+            if(found == null) {
+                return false;
+            }
+            workers.add(found);
+        }
+        for(Person person : workers) {
+            idle.get(skillOf(person)).remove(person);
+            counter(busy, skillOf(person)).incrementAndGet();
+        }
+        assigned.put(job, workers);
+        return true;
+    }
+
+    /***************************************************************************
+     * Getter for the people working on a Job, null if it has none
+    ***************************************************************************/
+    public List<Person> getWorkers(Job job) {
+        return assigned.get(job);
+    }
+
+    /***************************************************************************
+     * Gives back the people working on a Job
+     * @param job
+    ***************************************************************************/
+    public void release(Job job) {
+        List<Person> workers = assigned.remove(job);
+        if(workers == null) {
+            return;
+        }
+        for(Person person : workers) {
+            idle.computeIfAbsent(skillOf(person), k -> new ArrayDeque<>()).add(person);
+            counter(busy, skillOf(person)).decrementAndGet();
+        }
+    }
+
+    /***************************************************************************
+     * Gives back the people of every finished Job
+    ***************************************************************************/
+    public void releaseFinished() {
+        ArrayList<Job> done = new ArrayList<>();
+        for(Job job : assigned.keySet()) {
+            if(job.finished()) {
+                done.add(job);
+            }
+        }
+        for(Job job : done) {
+            release(job);
+        }
+    }
+
+    /***************************************************************************
+     * Simple helper method to check if a Job has its workers
+    ***************************************************************************/
+    public boolean isAssigned(Job job) {
+        return assigned.containsKey(job);
+    }
+
+    /***************************************************************************
+     * Getter for the Jobs that hold workers
+    ***************************************************************************/
+    public Set<Job> getAssignedJobs() {
+        return assigned.keySet();
+    }
+
+    /***************************************************************************
+     * Picks the running Jobs to preempt so a Job can be staffed, lowest
+     * priority first.  Only Jobs the filter allows are picked.
+     * @param job the Job waiting for workers
+     * @param preemptable which running Jobs may be preempted
+     * @param priority priority of each running Job
+     * @return the Jobs to preempt, null if the Job cannot be staffed this way
+    ***************************************************************************/
+    public List<Job> victimsFor(Job job, Predicate<Job> preemptable, ToDoubleFunction<Job> priority) {
+        HashMap<String, Integer> needed = shortfall(job);
+        ArrayList<Job> holders = new ArrayList<>();
+        for(Job holder : assigned.keySet()) {
+            if(preemptable.test(holder)) {
+                holders.add(holder);
+            }
+        }
+        holders.sort((a, b) -> Double.compare(priority.applyAsDouble(a), priority.applyAsDouble(b)));
+        ArrayList<Job> victims = new ArrayList<>();
+        for(Job holder : holders) {
+            if(needed.isEmpty()) {
+                break;
+            }
+            boolean helps = false;
+            for(Person person : assigned.get(holder)) {
+                if(needed.containsKey(skillOf(person))) {
+                    helps = true;
+                }
+            }
+            if(!helps) {
+                continue;
+            }
+            victims.add(holder);
+            for(Person person : assigned.get(holder)) {
+                String skill = skillOf(person);
+                if(needed.containsKey(skill) && needed.merge(skill, -1, Integer::sum) == 0) {
+                    needed.remove(skill);
+                }
+            }
+        }
+        return needed.isEmpty() ? victims : null;
+    }
+
+    /***************************************************************************
+     * The requirements of a Job that the port has enough people for, in lower
+     * case.  A skill asked for more often than the port has people is only 
+     * counted as many times as there are people.
+    ***************************************************************************/
+    private List<String> staffedRequirements(Job job) {
+        ArrayList<String> skills = new ArrayList<>();
+        HashMap<String, Integer> counted = new HashMap<>();
+        for(String requirement : job.getRequirements()) {
+            String skill = requirement.toLowerCase();
+            if(counted.merge(skill, 1, Integer::sum) <= getStaff(skill)) {
+                skills.add(skill);
+            }
+        }
+        return skills;
+    }
+
+    /***************************************************************************
+     * How many more idle people of each skill a Job needs
+    ***************************************************************************/
+    private HashMap<String, Integer> shortfall(Job job) {
+        HashMap<String, Integer> wanted = new HashMap<>();
+        for(String skill : staffedRequirements(job)) {
+            wanted.merge(skill, 1, Integer::sum);
+        }
+        HashMap<String, Integer> needed = new HashMap<>();
+        for(String skill : wanted.keySet()) {
+            int missing = wanted.get(skill) - getIdle(skill);
+            if(missing > 0) {
+                needed.put(skill, missing);
+            }
+        }
+        return needed;
+    }
+
+    /***************************************************************************
+     * Simple helper method for the counter of a skill
+    ***************************************************************************/
+    private static AtomicInteger counter(ConcurrentHashMap<String, AtomicInteger> counts, String skill) {
+        return counts.computeIfAbsent(skill, k -> new AtomicInteger());
+    }
+
+    /***************************************************************************
+     * Simple helper method for a person's skill in lower case
+    ***************************************************************************/
+    private static String skillOf(Person person) {
+        return person.getSkill() == null ? "" : person.getSkill().toLowerCase();
+    }
+}
@@ -1,7 +1,11 @@
 package cmsc335_project_3_elinkowski;
 
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
 import java.util.Scanner;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicReference;
 
 /*******************************************************************************
  * File name: World class
@@ -11,11 +15,24 @@ import java.util.Scanner;
  * objects. For this program, this class acts as the world for the scanned 
  * simulation file. It accepts Scanner input data and assigns it.  It assembles 
  * instances of the programs classes and moves it to the proper ArrayList. This 
- * class also contains code for the search functionality.
+ * class also contains code for the search functionality, which reads the 
+ * latest published WorldSnapshot so searches never see a half made change.  
+ * The list of ports is copied on write: it is never changed in place, so the
+ * Scheduler can walk it without a lock while the GUI sorts the ports.
 *******************************************************************************/
 public class World extends Thing {
-    private ArrayList<SeaPort> ports;
+    private volatile ArrayList<SeaPort> ports;
     private final PortTime time = new PortTime();
+    private final AtomicReference<WorldSnapshot> snapshot = new AtomicReference<>(WorldSnapshot.EMPTY);
+    private final CopyOnWriteArrayList<SnapshotListener> snapshotListeners = new CopyOnWriteArrayList<>();
+    
+    /***************************************************************************
+     * Callback made on the publishing thread each time a new WorldSnapshot 
+     * is published
+    ***************************************************************************/
+    public interface SnapshotListener {
+        void snapshotPublished(WorldSnapshot published);
+    }
     
     /***************************************************************************
      * World Constructor
@@ -28,17 +45,18 @@ public class World extends Thing {
     }
    
     /***************************************************************************
-     * Getter for ports
+     * Getter for ports.  The list is never changed in place, so do not 
+     * change it either; hand a changed copy to setPorts() instead.
     ***************************************************************************/
     public ArrayList<SeaPort> getPorts() {
         return ports;
     }
     
     /***************************************************************************
-     * Setter for ports
+     * Setter for ports, replacing the list readers see all at once
      * @param p
     ***************************************************************************/    
-    public void setPorts(ArrayList<SeaPort> p) {
+    public synchronized void setPorts(ArrayList<SeaPort> p) {
         ports = p;
     }
     
@@ -56,14 +74,58 @@ public class World extends Thing {
         this.time.setPortTime();
     }
     
+    /***************************************************************************
+     * Getter for the latest published snapshot.  Never blocks and never 
+     * waits on the scheduler.
+    ***************************************************************************/
+    public WorldSnapshot getSnapshot() {
+        return snapshot.get();
+    }
+    
+    /***************************************************************************
+     * Publishes a new snapshot after a batch of changes.  Only the ports in 
+     * changed, or ports added since the last snapshot, are copied.  Must not
+     * be called while holding a port's lock.
+     * @param changed
+    ***************************************************************************/
+    public WorldSnapshot publishSnapshot(Collection<SeaPort> changed) {
+        WorldSnapshot published;
+        synchronized(snapshot) {
+            published = snapshot.get().next(ports, changed);
+            snapshot.set(published);
+        }
+        for(SnapshotListener listener : snapshotListeners) {
+            listener.snapshotPublished(published);
+        }
+        return published;
+    }
+    
+    /***************************************************************************
+     * Adds a listener told about each published snapshot
+     * @param listener
+    ***************************************************************************/
+    public void addSnapshotListener(SnapshotListener listener) {
+        snapshotListeners.add(listener);
+    }
+    
+    /***************************************************************************
+     * Removes a snapshot listener
+     * @param listener
+    ***************************************************************************/
+    public void removeSnapshotListener(SnapshotListener listener) {
+        snapshotListeners.remove(listener);
+    }
+    
     /***************************************************************************
      * Methods used to assign Things to their proper port.  If the given
      * thing has a parent index that matches its super class, it will be 
      * added to the proper list 
      * @param port
     ***************************************************************************/
-    public void assignSeaPort(SeaPort port) {
-        ports.add(port);
+    public synchronized void assignSeaPort(SeaPort port) {
+        ArrayList<SeaPort> added = new ArrayList<>(ports);
+        added.add(port);
+        ports = added;
     }
     
     /***************************************************************************
@@ -72,7 +134,7 @@ public class World extends Thing {
      * @param port
     ***************************************************************************/
     public void assignDock(Dock dock, SeaPort port) {
-        port.getDocks().add(dock);
+        port.addDock(dock);
     }
     
     /***************************************************************************
@@ -84,7 +146,7 @@ public class World extends Thing {
     public void assignShip(Ship ship, SeaPort port, Dock dock) {
         port.getShips().add(ship);
         if(dock != null) {
-            dock.setShip(ship);
+            port.berth(dock, ship);
         }
         else {
             port.getQueue().add(ship);
@@ -97,7 +159,7 @@ public class World extends Thing {
      * @param port
     ***************************************************************************/
     public void assignPerson(Person person, SeaPort port) {
-        port.getPersons().add(person);
+        port.addPerson(person);
     }
     
     /***************************************************************************
@@ -121,85 +183,92 @@ public class World extends Thing {
     ***************************************************************************/
     public ArrayList<Thing> searchByType(String requestedType) {
         ArrayList<Thing> searchByTypeResults = new ArrayList<>();
+        for(PortSnapshot port : getSnapshot().getPorts()) {
+            searchByType(port, requestedType, searchByTypeResults);
+        }
+        return searchByTypeResults;
+    }
+    
+    /***************************************************************************
+     * Finds all instances of the requested Type in a single port snapshot and 
+     * adds them to the results.  Lets a search be done one port at a time.
+     * @param port
+     * @param requestedType
+     * @param searchByTypeResults
+    ***************************************************************************/
+    public void searchByType(PortSnapshot port, String requestedType, List<Thing> searchByTypeResults) {
         String searchType = requestedType.toUpperCase().replace(" ", "");
-        for(SeaPort port : ports) {
-            switch(searchType) {
-                case "SEAPORT":
-                    searchByTypeResults.add(port);
-                    break;
-                case "PORT":
-                    searchByTypeResults.add(port);
-                    break;
-                case "DOCK":
-                    for(Dock dock : port.getDocks()) {
-                        searchByTypeResults.add(dock);
-                    }
-                    break;
-                case "PIER":
-                    for(Dock dock : port.getDocks()) {
-                        searchByTypeResults.add(dock);
-                    }
-                    break;
-                case "PERSON":
-                    for(Person person : port.getPersons()) {
-                        searchByTypeResults.add(person);
-                    }
-                    break;
-                case "PEOPLE":
-                    for(Person person : port.getPersons()) {
-                        searchByTypeResults.add(person);
-                    }
-                    break;
-                case "SHIP":
-                    for(Ship ship : port.getShips()) {
+        switch(searchType) {
+            case "SEAPORT":
+                searchByTypeResults.add(port.getPort());
+                break;
+            case "PORT":
+                searchByTypeResults.add(port.getPort());
+                break;
+            case "DOCK":
+                for(Dock dock : port.getDocks()) {
+                    searchByTypeResults.add(dock);
+                }
+                break;
+            case "PIER":
+                for(Dock dock : port.getDocks()) {
+                    searchByTypeResults.add(dock);
+                }
+                break;
+            case "PERSON":
+                for(Person person : port.getPersons()) {
+                    searchByTypeResults.add(person);
+                }
+                break;
+            case "PEOPLE":
+                for(Person person : port.getPersons()) {
+                    searchByTypeResults.add(person);
+                }
+                break;
+            case "SHIP":
+                for(Ship ship : port.getShips()) {
+                    searchByTypeResults.add(ship);
+                }
+                break;
+            case "CSHIP":
+                for(Ship ship : port.getShips()) {
+                    if(ship instanceof CargoShip) {
                         searchByTypeResults.add(ship);
                     }
-                    break;
-                case "CSHIP":
-                    for(Ship ship : port.getShips()) {
-                        if(ship instanceof CargoShip) {
-                            searchByTypeResults.add(ship);
-                        }
-                    }
-                    break;
-                case "CARGOSHIP":
-                    for(Ship ship : port.getShips()) {
-                        if(ship instanceof CargoShip) {
-                            searchByTypeResults.add(ship);
-                        }
-                    }
-                    break;
-                case "PSHIP":
-                    for(Ship ship : port.getShips()) {
-                        if(ship instanceof PassengerShip) {
-                            searchByTypeResults.add(ship);
-                        }
-                    }
-                    break;
-                case "PASSENGERSHIP":
-                    for(Ship ship : port.getShips()) {
-                        if(ship instanceof PassengerShip) {
-                            searchByTypeResults.add(ship);
-                        }
+                }
+                break;
+            case "CARGOSHIP":
+                for(Ship ship : port.getShips()) {
+                    if(ship instanceof CargoShip) {
+                        searchByTypeResults.add(ship);
                     }
-                    break;
-                case "JOB":
-                    for(Ship ship : port.getShips()) {
-                        for(Job job : ship.getJobs()) {
-                            searchByTypeResults.add(job);
-                        }
+                }
+                break;
+            case "PSHIP":
+                for(Ship ship : port.getShips()) {
+                    if(ship instanceof PassengerShip) {
+                        searchByTypeResults.add(ship);
                     }
-                    break;
-                case "SKILL":
-                    for(Person person : port.getPersons()) {
-                        searchByTypeResults.add(person);
+                }
+                break;
+            case "PASSENGERSHIP":
+                for(Ship ship : port.getShips()) {
+                    if(ship instanceof PassengerShip) {
+                        searchByTypeResults.add(ship);
                     }
-                    break;
-                default:
-                    break;
-            }
+                }
+                break;
+            case "JOB":
+                searchByTypeResults.addAll(port.getJobs());
+                break;
+            case "SKILL":
+                for(Person person : port.getPersons()) {
+                    searchByTypeResults.add(person);
+                }
+                break;
+            default:
+                break;
         }
-        return searchByTypeResults;
     }
    
     /***************************************************************************
@@ -210,36 +279,36 @@ public class World extends Thing {
     ***************************************************************************/
     public ArrayList<Thing> searchByName(String name) {
         ArrayList<Thing> searchResults = new ArrayList<>();
-        for(SeaPort port : ports) {
-            if(port.getName().equalsIgnoreCase(name)) {
-                    searchResults.add(port);
-            }
-            if(name != null){
-                try {
-                    searchResults.addAll(findName(port.getDocks(), name));
-                } catch (NullPointerException e) {
-                    return null;
-                }
-                try {
-                    searchResults.addAll(findName(port.getShips(), name));
-                } catch (NullPointerException e) {
-                    return null;
-                }
-                try {
-                    searchResults.addAll(findName(port.getPersons(), name));
-                } catch (NullPointerException e) {
-                    return null;
-                }
-            }
+        if(name == null) {
+            return searchResults;
+        }
+        for(PortSnapshot port : getSnapshot().getPorts()) {
+            searchByName(port, name, searchResults);
         }
         return searchResults;
     }
+    
+    /***************************************************************************
+     * Finds every Thing in a single port snapshot with the requested name and 
+     * adds it to the results.
+     * @param port
+     * @param name
+     * @param searchResults
+    ***************************************************************************/
+    public void searchByName(PortSnapshot port, String name, List<Thing> searchResults) {
+        if(port.getPort().getName().equalsIgnoreCase(name)) {
+            searchResults.add(port.getPort());
+        }
+        searchResults.addAll(findName(port.getDocks(), name));
+        searchResults.addAll(findName(port.getShips(), name));
+        searchResults.addAll(findName(port.getPersons(), name));
+    }
             
     /***************************************************************************
      * Helper method to find all instances of user requested Name.  
      * Returns an ArrayList of all Things that match the User requested Name.
     ***************************************************************************/
-    private<T extends Thing> ArrayList<Thing> findName(ArrayList<T> list, String name) {
+    private<T extends Thing> ArrayList<Thing> findName(List<T> list, String name) {
         ArrayList<Thing> findResults = new ArrayList<>();
         for(T thing : list) {
             if(thing.getName().equalsIgnoreCase(name)) {
@@ -256,15 +325,26 @@ public class World extends Thing {
     ***************************************************************************/
     public ArrayList<Thing> findSkill(String skill) {
         ArrayList<Thing> skillResults = new ArrayList<>();
-        for(SeaPort port : ports) {
-            for(Person person : port.getPersons()){
-                if(person.getSkill().equalsIgnoreCase(skill)){
-                    skillResults.add(person);
-                }
-            }
+        for(PortSnapshot port : getSnapshot().getPorts()) {
+            findSkill(port, skill, skillResults);
         }
         return skillResults;
     }
+    
+    /***************************************************************************
+     * Finds all People in a single port snapshot with the requested Skill and 
+     * adds them to the results.
+     * @param port
+     * @param skill
+     * @param skillResults
+    ***************************************************************************/
+    public void findSkill(PortSnapshot port, String skill, List<Thing> skillResults) {
+        for(Person person : port.getPersons()){
+            if(person.getSkill().equalsIgnoreCase(skill)){
+                skillResults.add(person);
+            }
+        }
+    }
        
     /***************************************************************************
      * toString method that builds a list of all ports in Simulation world.
@@ -0,0 +1,331 @@
+package cmsc335_project_3_elinkowski;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.Scanner;
+import java.util.concurrent.ConcurrentHashMap;
+import javax.swing.SwingWorker;
+
+/*******************************************************************************
+ * File name: WorldLoader class
+ * Date: 20181105 1310L
+ * Author: Keith R. Elinkowski
+ * Purpose: Extends SwingWorker.  Reads a simulation file on a background
+ * thread and hands the parsed Things to the event dispatch thread in batches,
+ * where they are assigned to the World.  Progress is the share of the file's
+ * bytes read so far.  The listener is told the structure is ready as soon as
+ * the port and dock sections are parsed, so the User can look around while
+ * ships, people and jobs are still streaming in.  After each batch the World
+ * publishes a new snapshot of the ports that batch touched.  Reading the 
+ * structure, reading the rest of the file and assigning each batch are timed
+ * as SeaPortEvents flight recorder events.
+*******************************************************************************/
+public class WorldLoader extends SwingWorker<World, WorldLoader.Placement> {
+    private static final int BATCH_SIZE = 500;
+    private final File file;
+    private final LogConsole console;
+    private final Listener listener;
+    private final Map<Integer, Thing> structureMap;
+    private volatile World world;
+    private boolean structureReady;
+
+    /***************************************************************************
+     * Callbacks made on the event dispatch thread while a World loads
+    ***************************************************************************/
+    public interface Listener {
+        /**
+         * The ports and docks are in place and the World can be displayed
+         * @param world
+         * @param structureMap every Thing loaded so far by index
+         */
+        void structureReady(World world, Map<Integer, Thing> structureMap);
+
+        /**
+         * The whole file has been read
+         * @param world
+         */
+        void loadFinished(World world);
+
+        /**
+         * The file could not be read
+         * @param e
+         */
+        void loadFailed(Exception e);
+    }
+
+    /***************************************************************************
+     * One parsed Thing and where it goes in the World.  Parents are looked up
+     * on the loading thread so the event dispatch thread only has to add it.
+     * port is the SeaPort the Thing ends up in, also for ships and jobs.
+    ***************************************************************************/
+    static final class Placement {
+        private static final Placement READY = new Placement(null, null, null, null);
+        private final Thing thing;
+        private final SeaPort port;
+        private final Dock dock;
+        private final Thing parent;
+
+        Placement(Thing thing, SeaPort port, Dock dock, Thing parent) {
+            this.thing = thing;
+            this.port = port;
+            this.dock = dock;
+            this.parent = parent;
+        }
+    }
+
+    /***************************************************************************
+     * InputStream that counts the bytes read through it
+    ***************************************************************************/
+    private static final class CountingInputStream extends FilterInputStream {
+        private volatile long count;
+
+        CountingInputStream(InputStream in) {
+            super(in);
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            if(b >= 0) {
+                count++;
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            int n = super.read(b, off, len);
+            if(n > 0) {
+                count += n;
+            }
+            return n;
+        }
+
+        long getCount() {
+            return count;
+        }
+    }
+
+    /***************************************************************************
+     * WorldLoader Constructor
+     * @param file simulation file to read
+     * @param console console to report each Thing added
+     * @param listener
+    ***************************************************************************/
+    public WorldLoader(File file, LogConsole console, Listener listener) {
+        this.file = file;
+        this.console = console;
+        this.listener = listener;
+        structureMap = new ConcurrentHashMap<>();
+    }
+
+    /***************************************************************************
+     * @Override of doInBackground() from SwingWorker.  Parses the file and
+     * publishes a Placement for each Thing.  Uses HashMaps of each Type to
+     * find the parent of each Thing.
+    ***************************************************************************/
+    @Override
+    protected World doInBackground() throws Exception {
+        long totalBytes = Math.max(1, file.length());
+        HashMap<Integer, Thing> things = new HashMap<>();
+        HashMap<Integer, SeaPort> portMap = new HashMap<>();
+        HashMap<Integer, Dock> dockMap = new HashMap<>();
+        HashMap<Integer, SeaPort> portOf = new HashMap<>();
+        ArrayList<Placement> batch = new ArrayList<>(BATCH_SIZE);
+        boolean pastDocks = false;
+        int lastProgress = 0;
+        int read = 0;
+        SeaPortEvents.WorldLoadPhase phase = SeaPortEvents.beginLoadPhase("structure", file.getName());
+        try (CountingInputStream in = new CountingInputStream(new FileInputStream(file));
+                Scanner scanner = new Scanner(in)) {
+            world = new World(scanner);
+            while(scanner.hasNextLine() && !isCancelled()){
+                String lineScanner = scanner.nextLine().trim();
+                int progress = (int) Math.min(99, in.getCount() * 100 / totalBytes);
+                if(progress != lastProgress) {
+                    lastProgress = progress;
+                    setProgress(progress);
+                }
+                if(lineScanner.length() == 0) continue;
+                Scanner thingScanner = new Scanner(lineScanner);
+                if(!thingScanner.hasNext()) break;
+                String type = thingScanner.next();
+                if(!pastDocks && (type.equals("pship") || type.equals("cship")
+                        || type.equals("person") || type.equals("job"))) {
+                    pastDocks = true;
+                    SeaPortEvents.endLoadPhase(phase, read);
+                    phase = SeaPortEvents.beginLoadPhase("contents", file.getName());
+                    read = 0;
+                    batch.add(Placement.READY);
+                    publish(batch.toArray(new Placement[0]));
+                    batch.clear();
+                }
+                Placement placement = null;
+                switch(type){
+                    case "port":
+                        SeaPort port = new SeaPort(thingScanner);
+                        portMap.put(port.getIndex(), port);
+                        placement = new Placement(port, null, null, null);
+                        console.append(">>> Added new Port - ["+port.getName()+"]\n");
+                        break;
+                    case "dock":
+                        Dock dock = new Dock(thingScanner);
+                        dockMap.put(dock.getIndex(), dock);
+                        portOf.put(dock.getIndex(), portMap.get(dock.getParent()));
+                        placement = new Placement(dock, portMap.get(dock.getParent()), null, null);
+                        console.append(">>> Added new Pier - ["+dock.getName()+"]\n");
+                        break;
+                    case "pship":
+                        PassengerShip passengerShip = new PassengerShip(thingScanner);
+                        placement = placeShip(passengerShip, portMap, dockMap);
+                        console.append(">>> Added new PassengerShip - ["+passengerShip.getName()+"]\n");
+                        break;
+                    case "cship":
+                        CargoShip cargoShip = new CargoShip(thingScanner);
+                        placement = placeShip(cargoShip, portMap, dockMap);
+                        console.append(">>> Added new CargoShip - ["+cargoShip.getName()+"]\n");
+                        break;
+                    case "person":
+                        Person person = new Person(thingScanner);
+                        placement = new Placement(person, portMap.get(person.getParent()), null, null);
+                        console.append(">>> Added new Person - ["+person.getName()+"]\n");
+                        break;
+                    case "job":
+                        Job job = new Job(thingScanner);
+                        placement = new Placement(job, portOf.get(job.getParent()), null, things.get(job.getParent()));
+                        console.append(">>> Added new Job - ["+job.getName()+"]\n");
+                        break;
+                    default:
+                        break;
+                }
+                if(placement != null && (placement.port != null || placement.parent != null
+                        || placement.thing instanceof SeaPort)) {
+                    things.put(placement.thing.getIndex(), placement.thing);
+                    read++;
+                    if(placement.thing instanceof Ship) {
+                        portOf.put(placement.thing.getIndex(), placement.port);
+                    }
+                    batch.add(placement);
+                    if(batch.size() >= BATCH_SIZE) {
+                        publish(batch.toArray(new Placement[0]));
+                        batch.clear();
+                    }
+                }
+            }
+            if(!pastDocks) {
+                batch.add(Placement.READY);
+            }
+            SeaPortEvents.endLoadPhase(phase, read);
+            publish(batch.toArray(new Placement[0]));
+            return world;
+        }
+    }
+
+    /***************************************************************************
+     * Finds the port and dock of a new ship.  A ship's parent is either the
+     * port it is queued at or the dock it is berthed in.
+    ***************************************************************************/
+    private Placement placeShip(Ship ship, HashMap<Integer, SeaPort> portMap, HashMap<Integer, Dock> dockMap) {
+        SeaPort port = portMap.get(ship.getParent());
+        Dock dock = dockMap.get(ship.getParent());
+        if(port == null && dock != null) {
+            port = portMap.get(dock.getParent());
+        }
+        return new Placement(ship, port, dock, null);
+    }
+
+    /***************************************************************************
+     * @Override of process() from SwingWorker.  Runs on the event dispatch
+     * thread, adds each published Thing to the World and publishes a snapshot
+     * of the ports that changed.
+    ***************************************************************************/
+    @Override
+    protected void process(List<Placement> placements) {
+        if(isCancelled()) {
+            return;
+        }
+        Set<SeaPort> changed = Collections.newSetFromMap(new IdentityHashMap<>());
+        SeaPortEvents.WorldLoadPhase phase = SeaPortEvents.beginLoadPhase("assign", file.getName());
+        for(Placement placement : placements) {
+            if(placement == Placement.READY) {
+                if(!structureReady) {
+                    world.publishSnapshot(changed);
+                    changed.clear();
+                    structureReady = true;
+                    listener.structureReady(world, structureMap);
+                }
+                continue;
+            }
+            Thing thing = placement.thing;
+            World target = world;
+            if(thing instanceof SeaPort) {
+                target.assignSeaPort((SeaPort)thing);
+                changed.add((SeaPort)thing);
+            }
+            else if(thing instanceof Dock) {
+                target.assignDock((Dock)thing, placement.port);
+            }
+            else if(thing instanceof Ship) {
+                Ship ship = (Ship)thing;
+                ship.setArivalTime(PortTime.now());
+                if(placement.dock != null) {
+                    ship.setDockTime(ship.getArrivalTime());
+                }
+                target.assignShip(ship, placement.port, placement.dock);
+                if(placement.port != null) {
+                    SeaPortEvents.shipArrived(placement.port, ship, placement.dock == null);
+                    EventJournal.shipArrived(placement.port, ship);
+                    if(placement.dock != null) {
+                        SeaPortEvents.shipDocked(placement.port, placement.dock, ship, 0L);
+                        EventJournal.shipDocked(placement.port, placement.dock, ship);
+                    }
+                }
+            }
+            else if(thing instanceof Person) {
+                target.assignPerson((Person)thing, placement.port);
+            }
+            else if(thing instanceof Job) {
+                if(placement.parent instanceof Dock && ((Dock)placement.parent).getShip() == null) {
+                    continue;
+                }
+                target.assignJob((Job)thing, placement.parent);
+            }
+            structureMap.put(thing.getIndex(), thing);
+            if(placement.port != null) {
+                changed.add(placement.port);
+            }
+        }
+        if(!changed.isEmpty()) {
+            world.publishSnapshot(changed);
+        }
+        SeaPortEvents.endLoadPhase(phase, placements.size());
+    }
+
+    /***************************************************************************
+     * @Override of done() from SwingWorker.  Runs on the event dispatch thread
+     * after every batch has been processed.
+    ***************************************************************************/
+    @Override
+    protected void done() {
+        if(isCancelled()) {
+            return;
+        }
+        try {
+            get();
+            setProgress(100);
+            listener.loadFinished(world);
+        } catch (Exception e) {
+            listener.loadFailed(e);
+        }
+    }
+}
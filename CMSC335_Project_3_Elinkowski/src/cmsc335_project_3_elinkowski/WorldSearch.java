@@ -0,0 +1,147 @@
+package cmsc335_project_3_elinkowski;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+import javax.swing.SwingUtilities;
+
+/*******************************************************************************
+ * File name: WorldSearch class
+ * Date: 20181106 0940L
+ * Author: Keith R. Elinkowski
+ * Purpose: Runs Type, Name and Skill searches of the World on a background 
+ * thread.  A search is done one port at a time and the results of each port 
+ * are handed to the event dispatch thread as soon as they are found.  Starting
+ * a new search cancels the one still running, and results of a canceled 
+ * search are never shown.  Searches read a single WorldSnapshot so the 
+ * scheduler can keep changing the World while they run.
+*******************************************************************************/
+public class WorldSearch {
+    private final ExecutorService executor;
+    private final AtomicLong generation;
+    private Future<?> current;
+    
+    /***************************************************************************
+     * Callbacks made on the event dispatch thread for the current search
+    ***************************************************************************/
+    public interface ResultSink {
+        /**
+         * More results were found
+         * @param results Things, or Strings for a search of every skill
+         */
+        void results(List<Object> results);
+        
+        /**
+         * The search is over
+         * @param total number of results found
+         */
+        void finished(int total);
+    }
+    
+    /***************************************************************************
+     * WorldSearch Constructor
+    ***************************************************************************/
+    public WorldSearch() {
+        executor = Executors.newSingleThreadExecutor(r -> {
+            Thread thread = new Thread(r, "world-search");
+            thread.setDaemon(true);
+            return thread;
+        });
+        generation = new AtomicLong();
+    }
+    
+    /***************************************************************************
+     * Starts a search, canceling any search still running
+     * @param world
+     * @param searchType "Type", "Name" or "Skill"
+     * @param searchTarget
+     * @param sink
+    ***************************************************************************/
+    public synchronized void submit(World world, String searchType, String searchTarget, ResultSink sink) {
+        cancel();
+        long searchId = generation.get();
+        current = executor.submit(() -> run(searchId, world, searchType, searchTarget, sink));
+    }
+    
+    /***************************************************************************
+     * Cancels the search still running, if there is one
+    ***************************************************************************/
+    public synchronized void cancel() {
+        generation.incrementAndGet();
+        if(current != null) {
+            current.cancel(true);
+            current = null;
+        }
+    }
+    
+    /***************************************************************************
+     * Does the search one port at a time, stopping as soon as it is stale
+    ***************************************************************************/
+    private void run(long searchId, World world, String searchType, String searchTarget, ResultSink sink) {
+        boolean allSkills = "Type".equals(searchType) && "SKILL".equals(searchTarget.toUpperCase());
+        LinkedHashSet<String> skills = new LinkedHashSet<>();
+        int total = 0;
+        for(PortSnapshot port : world.getSnapshot().getPorts()) {
+            if(isStale(searchId)) {
+                return;
+            }
+            ArrayList<Thing> found = new ArrayList<>();
+            switch(searchType) {
+                case "Type":
+                    world.searchByType(port, searchTarget, found);
+                    break;
+                case "Name":
+                    world.searchByName(port, searchTarget, found);
+                    break;
+                case "Skill":
+                    world.findSkill(port, searchTarget, found);
+                    break;
+                default:
+                    break;
+            }
+            List<Object> results = new ArrayList<>();
+            if(allSkills) {
+                for(Thing thing : found) {
+                    if(thing instanceof Person && ((Person)thing).getSkill() != null 
+                            && skills.add(((Person)thing).getSkill())) {
+                        results.add(((Person)thing).getSkill());
+                    }
+                }
+            }
+            else {
+                results.addAll(found);
+            }
+            if(!results.isEmpty()) {
+                total += results.size();
+                SwingUtilities.invokeLater(() -> {
+                    if(!isStale(searchId)) {
+                        sink.results(results);
+                    }
+                });
+            }
+        }
+        deliverFinished(searchId, sink, total);
+    }
+    
+    /***************************************************************************
+     * Tells the sink the search is over, unless it was replaced
+    ***************************************************************************/
+    private void deliverFinished(long searchId, ResultSink sink, int total) {
+        SwingUtilities.invokeLater(() -> {
+            if(!isStale(searchId)) {
+                sink.finished(total);
+            }
+        });
+    }
+    
+    /***************************************************************************
+     * A search is stale once a newer one was submitted or it was interrupted
+    ***************************************************************************/
+    private boolean isStale(long searchId) {
+        return searchId != generation.get() || Thread.currentThread().isInterrupted();
+    }
+}
@@ -0,0 +1,109 @@
+package cmsc335_project_3_elinkowski;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+
+/*******************************************************************************
+ * File name: WorldSnapshot class
+ * Date: 20181107 0905L
+ * Author: Keith R. Elinkowski
+ * Purpose: Immutable, versioned view of every SeaPort in a World.  A new 
+ * snapshot is published by the World after each batch of changes; ports that
+ * did not change keep their PortSnapshot from the last version, so publishing
+ * only costs as much as what changed.
+*******************************************************************************/
+public final class WorldSnapshot {
+    static final WorldSnapshot EMPTY = new WorldSnapshot(0, Collections.<PortSnapshot>emptyList());
+    private final long version;
+    private final List<PortSnapshot> ports;
+    private final IdentityHashMap<SeaPort, PortSnapshot> byPort;
+    
+    /***************************************************************************
+     * WorldSnapshot Constructor
+    ***************************************************************************/
+    private WorldSnapshot(long version, List<PortSnapshot> ports) {
+        this.version = version;
+        this.ports = ports;
+        byPort = new IdentityHashMap<>();
+        for(PortSnapshot port : ports) {
+            byPort.put(port.getPort(), port);
+        }
+    }
+    
+    /***************************************************************************
+     * Builds the next version.  Ports in changed, or new since this version, 
+     * are copied again while holding the port's lock; every other port is 
+     * shared with this version.
+     * @param livePorts
+     * @param changed
+    ***************************************************************************/
+    WorldSnapshot next(List<SeaPort> livePorts, Collection<SeaPort> changed) {
+        List<PortSnapshot> nextPorts = new ArrayList<>(livePorts.size());
+        for(SeaPort port : livePorts) {
+            PortSnapshot before = byPort.get(port);
+            if(before == null || changed.contains(port)) {
+                port.getLock().lock();
+                try {
+                    nextPorts.add(new PortSnapshot(port, before));
+                } finally {
+                    port.getLock().unlock();
+                }
+            }
+            else {
+                nextPorts.add(before);
+            }
+        }
+        return new WorldSnapshot(version + 1, Collections.unmodifiableList(nextPorts));
+    }
+    
+    /***************************************************************************
+     * Getter for version, goes up by one for each snapshot published
+    ***************************************************************************/
+    public long getVersion() {
+        return version;
+    }
+    
+    /***************************************************************************
+     * Getter for ports
+    ***************************************************************************/
+    public List<PortSnapshot> getPorts() {
+        return ports;
+    }
+    
+    /***************************************************************************
+     * Getter for the snapshot of one SeaPort, null if it is not in this version
+     * @param port
+    ***************************************************************************/
+    public PortSnapshot getPort(SeaPort port) {
+        return byPort.get(port);
+    }
+    
+    /***************************************************************************
+     * Finds the port snapshot holding a dock
+     * @param dock
+    ***************************************************************************/
+    public PortSnapshot findPortOf(Dock dock) {
+        for(PortSnapshot port : ports) {
+            if(port.hasDock(dock)) {
+                return port;
+            }
+        }
+        return null;
+    }
+    
+    /***************************************************************************
+     * Finds the port snapshot holding a ship
+     * @param ship
+    ***************************************************************************/
+    public PortSnapshot findPortOf(Ship ship) {
+        for(PortSnapshot port : ports) {
+            if(port.getJobs(ship) != null) {
+                return port;
+            }
+        }
+        return null;
+    }
+}
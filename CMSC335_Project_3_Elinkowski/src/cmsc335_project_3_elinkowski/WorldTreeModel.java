@@ -0,0 +1,529 @@
+package cmsc335_project_3_elinkowski;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Function;
+import javax.swing.SwingUtilities;
+import javax.swing.event.EventListenerList;
+import javax.swing.event.TreeModelEvent;
+import javax.swing.event.TreeModelListener;
+import javax.swing.tree.TreeModel;
+import javax.swing.tree.TreePath;
+
+/*******************************************************************************
+ * File name: WorldTreeModel class
+ * Date: 20181103 1120L
+ * Author: Keith R. Elinkowski
+ * Purpose: Implements TreeModel.  Shows the World structure in the JTree
+ * without copying it into tree nodes.  Children are read straight from the
+ * latest WorldSnapshot when the JTree asks for them, so only expanded branches
+ * are ever looked at.  Each time the World publishes a new snapshot the model
+ * compares the ports that changed with the last snapshot and fires events for
+ * just the nodes that were inserted, removed or changed.
+*******************************************************************************/
+public class WorldTreeModel implements TreeModel, World.SnapshotListener {
+    enum Kind {DOCKS, QUEUE, SHIPS, CARGO_SHIPS, PASSENGER_SHIPS, PEOPLE, JOBS, PORT_TIME}
+    private static final Kind[] PORT_BRANCHES = Kind.values();
+    private final World world;
+    private final EventListenerList listeners;
+    private final AtomicBoolean updatePending;
+    private WorldSnapshot snapshot;
+
+    /***************************************************************************
+     * One of the fixed branches under a SeaPort such as "Docks" or "Queue".
+     * Two branches are equal when they are the same kind for the same port,
+     * so new instances can be handed out without breaking TreePaths.
+    ***************************************************************************/
+    static final class Branch {
+        private final SeaPort port;
+        private final Kind kind;
+
+        Branch(SeaPort port, Kind kind) {
+            this.port = port;
+            this.kind = kind;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            return obj instanceof Branch && ((Branch)obj).port == port
+                    && ((Branch)obj).kind == kind;
+        }
+
+        @Override
+        public int hashCode() {
+            return System.identityHashCode(port) * 31 + kind.ordinal();
+        }
+
+        @Override
+        public String toString() {
+            switch(kind) {
+                case DOCKS:
+                    return "Docks";
+                case QUEUE:
+                    return "Queue";
+                case SHIPS:
+                    return "Ships";
+                case CARGO_SHIPS:
+                    return "Cargo Ships";
+                case PASSENGER_SHIPS:
+                    return "Passenger Ships";
+                case PEOPLE:
+                    return "People";
+                case JOBS:
+                    return "Jobs";
+                default:
+                    return "Port Time";
+            }
+        }
+    }
+
+    /***************************************************************************
+     * A ship listed under the "Port Time" branch.  Its children are the
+     * arrival, dock and departure time of the ship.
+    ***************************************************************************/
+    static final class PortTimeNode {
+        private final Ship ship;
+
+        PortTimeNode(Ship ship) {
+            this.ship = ship;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            return obj instanceof PortTimeNode && ((PortTimeNode)obj).ship == ship;
+        }
+
+        @Override
+        public int hashCode() {
+            return System.identityHashCode(ship);
+        }
+
+        @Override
+        public String toString() {
+            return ship.getName();
+        }
+    }
+
+    /***************************************************************************
+     * WorldTreeModel Constructor.  Register the model with
+     * World.addSnapshotListener() to keep it up to date.
+     * @param world
+    ***************************************************************************/
+    public WorldTreeModel(World world) {
+        this.world = world;
+        listeners = new EventListenerList();
+        updatePending = new AtomicBoolean(false);
+        snapshot = world.getSnapshot();
+    }
+
+    /***************************************************************************
+     * @Override of getRoot() from TreeModel
+    ***************************************************************************/
+    @Override
+    public Object getRoot() {
+        return world;
+    }
+
+    /***************************************************************************
+     * @Override of getChild() from TreeModel.  Looks up a single child without
+     * building the rest of the branch.
+    ***************************************************************************/
+    @Override
+    public Object getChild(Object parent, int index) {
+        if(parent instanceof World) {
+            return snapshot.getPorts().get(index).getPort();
+        }
+        if(parent instanceof SeaPort) {
+            return new Branch((SeaPort)parent, PORT_BRANCHES[index]);
+        }
+        if(parent instanceof Branch) {
+            Branch branch = (Branch)parent;
+            PortSnapshot port = snapshot.getPort(branch.port);
+            if(branch.kind == Kind.PORT_TIME) {
+                return new PortTimeNode(port.getShips().get(index));
+            }
+            return children(port, branch.kind).get(index);
+        }
+        if(parent instanceof Dock) {
+            PortSnapshot port = snapshot.findPortOf((Dock)parent);
+            return port != null ? port.getBerth((Dock)parent) : null;
+        }
+        if(parent instanceof Ship) {
+            return jobsOf((Ship)parent).get(index);
+        }
+        if(parent instanceof Job) {
+            return ((Job)parent).getRequirements().get(index);
+        }
+        if(parent instanceof Person) {
+            return ((Person)parent).getSkill();
+        }
+        if(parent instanceof PortTimeNode) {
+            Ship ship = ((PortTimeNode)parent).ship;
+            if(index == 0) {
+                return ship.getArrivalTime() != null ? "Arrived: " + ship.getArrivalTime() : "No Arrival Time!";
+            }
+            if(index == 1) {
+                return ship.getDockTime() != null ? "Docked: " + ship.getDockTime() : "No Dock Time!";
+            }
+            return ship.getDepartureTime() != null ? "Departed: " + ship.getDepartureTime() : "Not Departed";
+        }
+        return null;
+    }
+
+    /***************************************************************************
+     * @Override of getChildCount() from TreeModel
+    ***************************************************************************/
+    @Override
+    public int getChildCount(Object parent) {
+        if(parent instanceof World) {
+            return snapshot.getPorts().size();
+        }
+        if(parent instanceof SeaPort) {
+            return PORT_BRANCHES.length;
+        }
+        if(parent instanceof Branch) {
+            Branch branch = (Branch)parent;
+            PortSnapshot port = snapshot.getPort(branch.port);
+            if(port == null) {
+                return 0;
+            }
+            if(branch.kind == Kind.PORT_TIME) {
+                return port.getShips().size();
+            }
+            return children(port, branch.kind).size();
+        }
+        if(parent instanceof Dock) {
+            PortSnapshot port = snapshot.findPortOf((Dock)parent);
+            return port != null && port.getBerth((Dock)parent) != null ? 1 : 0;
+        }
+        if(parent instanceof Ship) {
+            return jobsOf((Ship)parent).size();
+        }
+        if(parent instanceof Job) {
+            return ((Job)parent).getRequirements().size();
+        }
+        if(parent instanceof Person) {
+            return ((Person)parent).getSkill() != null ? 1 : 0;
+        }
+        if(parent instanceof PortTimeNode) {
+            return 3;
+        }
+        return 0;
+    }
+
+    /***************************************************************************
+     * @Override of isLeaf() from TreeModel
+    ***************************************************************************/
+    @Override
+    public boolean isLeaf(Object node) {
+        return !(node instanceof World || node instanceof SeaPort || node instanceof Branch)
+                && getChildCount(node) == 0;
+    }
+
+    /***************************************************************************
+     * @Override of getIndexOfChild() from TreeModel
+    ***************************************************************************/
+    @Override
+    public int getIndexOfChild(Object parent, Object child) {
+        if(parent == null || child == null) {
+            return -1;
+        }
+        if(child instanceof Branch) {
+            return ((Branch)child).port == parent ? ((Branch)child).kind.ordinal() : -1;
+        }
+        int count = getChildCount(parent);
+        for(int i = 0; i < count; i++) {
+            if(child.equals(getChild(parent, i))) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /***************************************************************************
+     * @Override of valueForPathChanged() from TreeModel.  The tree is not
+     * editable so there is nothing to do.
+    ***************************************************************************/
+    @Override
+    public void valueForPathChanged(TreePath path, Object newValue) {
+    }
+
+    /***************************************************************************
+     * @Override of addTreeModelListener() from TreeModel
+    ***************************************************************************/
+    @Override
+    public void addTreeModelListener(TreeModelListener l) {
+        listeners.add(TreeModelListener.class, l);
+    }
+
+    /***************************************************************************
+     * @Override of removeTreeModelListener() from TreeModel
+    ***************************************************************************/
+    @Override
+    public void removeTreeModelListener(TreeModelListener l) {
+        listeners.remove(TreeModelListener.class, l);
+    }
+
+    /***************************************************************************
+     * Short text shown in the JTree for a node.  Things are shown by name
+     * instead of their full toString().
+     * @param node
+    ***************************************************************************/
+    public String label(Object node) {
+        if(node instanceof World) {
+            return "World";
+        }
+        if(node instanceof Dock && getChildCount(node) == 0) {
+            return ((Dock)node).getName() + " (Empty Berth)";
+        }
+        if(node instanceof Job && ((Job)node).finished()) {
+            return ((Job)node).getName() + " (Done)";
+        }
+        if(node instanceof Thing) {
+            return ((Thing)node).getName();
+        }
+        return String.valueOf(node);
+    }
+
+    /***************************************************************************
+     * The list shown under a port branch
+    ***************************************************************************/
+    private static List<? extends Thing> children(PortSnapshot port, Kind kind) {
+        switch(kind) {
+            case DOCKS:
+                return port.getDocks();
+            case QUEUE:
+                return port.getQueue();
+            case SHIPS:
+                return port.getShips();
+            case CARGO_SHIPS:
+                return port.getCargoShips();
+            case PASSENGER_SHIPS:
+                return port.getPassengerShips();
+            case PEOPLE:
+                return port.getPersons();
+            default:
+                return port.getJobs();
+        }
+    }
+
+    /***************************************************************************
+     * The jobs of a ship in the current snapshot
+    ***************************************************************************/
+    private List<Job> jobsOf(Ship ship) {
+        PortSnapshot port = snapshot.findPortOf(ship);
+        return port != null ? port.getJobs(ship) : Collections.<Job>emptyList();
+    }
+
+    /***************************************************************************
+     * @Override of snapshotPublished() from World.SnapshotListener.  Called on
+     * the publishing thread; the tree is brought up to the latest snapshot on
+     * the event dispatch thread, skipping any versions published in between.
+    ***************************************************************************/
+    @Override
+    public void snapshotPublished(WorldSnapshot published) {
+        if(updatePending.compareAndSet(false, true)) {
+            SwingUtilities.invokeLater(() -> {
+                updatePending.set(false);
+                update(world.getSnapshot());
+            });
+        }
+    }
+
+    /***************************************************************************
+     * Moves the model to a new snapshot and fires events for what changed.
+     * Ports whose PortSnapshot was reused did not change and are skipped.
+     * Runs on the event dispatch thread.
+     * @param next
+    ***************************************************************************/
+    public void update(WorldSnapshot next) {
+        WorldSnapshot before = snapshot;
+        if(next.getVersion() <= before.getVersion()) {
+            return;
+        }
+        snapshot = next;
+        Object[] rootPath = {world};
+        diffList(rootPath, portsOf(before), portsOf(next), p -> p);
+        for(PortSnapshot port : next.getPorts()) {
+            PortSnapshot old = before.getPort(port.getPort());
+            if(old != null && old != port) {
+                diffPort(old, port);
+            }
+        }
+    }
+
+    /***************************************************************************
+     * Fires the events for one port that changed between two snapshots
+    ***************************************************************************/
+    private void diffPort(PortSnapshot before, PortSnapshot after) {
+        SeaPort port = after.getPort();
+        diffList(branchPath(port, Kind.DOCKS), before.getDocks(), after.getDocks(), d -> d);
+        diffList(branchPath(port, Kind.QUEUE), before.getQueue(), after.getQueue(), s -> s);
+        diffList(branchPath(port, Kind.SHIPS), before.getShips(), after.getShips(), s -> s);
+        diffList(branchPath(port, Kind.PORT_TIME), before.getShips(), after.getShips(), s -> new PortTimeNode((Ship)s));
+        diffList(branchPath(port, Kind.PEOPLE), before.getPersons(), after.getPersons(), p -> p);
+        if(before.hasCargoShips()) {
+            diffList(branchPath(port, Kind.CARGO_SHIPS), before.getCargoShips(), after.getCargoShips(), s -> s);
+        }
+        if(before.hasPassengerShips()) {
+            diffList(branchPath(port, Kind.PASSENGER_SHIPS), before.getPassengerShips(), after.getPassengerShips(), s -> s);
+        }
+        if(before.hasJobs()) {
+            diffList(branchPath(port, Kind.JOBS), before.getJobs(), after.getJobs(), j -> j);
+        }
+        Object[] docksPath = branchPath(port, Kind.DOCKS);
+        for(int i = 0; i < after.getDocks().size(); i++) {
+            Dock dock = after.getDocks().get(i);
+            Ship left = before.hasDock(dock) ? before.getBerth(dock) : null;
+            Ship berthed = after.getBerth(dock);
+            if(left == berthed) {
+                continue;
+            }
+            Object[] dockPath = append(docksPath, dock);
+            if(left != null) {
+                fire(EventType.REMOVED, dockPath, 0, left);
+                List<Job> done = after.getJobs(left);
+                for(int j = 0; done != null && j < done.size(); j++) {
+                    fire(EventType.CHANGED, append(branchPath(port, Kind.SHIPS), left), j, done.get(j));
+                }
+                if(after.getShips().contains(left)) {
+                    Object[] timePath = append(branchPath(port, Kind.PORT_TIME), new PortTimeNode(left));
+                    fire(EventType.CHANGED, timePath, 2, getChild(timePath[timePath.length - 1], 2));
+                }
+            }
+            if(berthed != null) {
+                fire(EventType.INSERTED, dockPath, 0, berthed);
+                int row = after.getShips().indexOf(berthed);
+                Object[] timePath = append(branchPath(port, Kind.PORT_TIME), new PortTimeNode(berthed));
+                if(row >= 0) {
+                    fire(EventType.CHANGED, timePath, 0, getChild(timePath[timePath.length - 1], 0));
+                    fire(EventType.CHANGED, timePath, 1, getChild(timePath[timePath.length - 1], 1));
+                }
+            }
+            fire(EventType.CHANGED, docksPath, i, dock);
+        }
+        for(Ship ship : after.getShips()) {
+            List<Job> oldJobs = before.getJobs(ship);
+            List<Job> newJobs = after.getJobs(ship);
+            if(oldJobs == null || oldJobs == newJobs) {
+                continue;
+            }
+            diffList(append(branchPath(port, Kind.SHIPS), ship), oldJobs, newJobs, j -> j);
+            Kind type = ship instanceof CargoShip ? Kind.CARGO_SHIPS : Kind.PASSENGER_SHIPS;
+            diffList(append(branchPath(port, type), ship), oldJobs, newJobs, j -> j);
+            if(after.getQueue().contains(ship)) {
+                diffList(append(branchPath(port, Kind.QUEUE), ship), oldJobs, newJobs, j -> j);
+            }
+        }
+    }
+
+    /***************************************************************************
+     * Compares two versions of a list and fires one removed event for every
+     * element that is gone and one inserted event for the elements added at
+     * the end.  Any other reordering is reported as a structure change.
+    ***************************************************************************/
+    private void diffList(Object[] path, List<?> before, List<?> after, Function<Object, Object> node) {
+        if(before == after) {
+            return;
+        }
+        Set<Object> kept = Collections.newSetFromMap(new IdentityHashMap<>());
+        kept.addAll(after);
+        ArrayList<Integer> removedIndex = new ArrayList<>();
+        ArrayList<Object> removed = new ArrayList<>();
+        ArrayList<Object> survivors = new ArrayList<>();
+        for(int i = 0; i < before.size(); i++) {
+            if(kept.contains(before.get(i))) {
+                survivors.add(before.get(i));
+            }
+            else {
+                removedIndex.add(i);
+                removed.add(node.apply(before.get(i)));
+            }
+        }
+        for(int i = 0; i < survivors.size(); i++) {
+            if(i >= after.size() || survivors.get(i) != after.get(i)) {
+                fireStructureChanged(path);
+                return;
+            }
+        }
+        if(!removed.isEmpty()) {
+            fire(EventType.REMOVED, path, toArray(removedIndex), removed.toArray());
+        }
+        if(after.size() > survivors.size()) {
+            int[] insertedIndex = new int[after.size() - survivors.size()];
+            Object[] inserted = new Object[insertedIndex.length];
+            for(int i = 0; i < insertedIndex.length; i++) {
+                insertedIndex[i] = survivors.size() + i;
+                inserted[i] = node.apply(after.get(insertedIndex[i]));
+            }
+            fire(EventType.INSERTED, path, insertedIndex, inserted);
+        }
+    }
+
+    /***************************************************************************
+     * Helper methods for building paths and arrays
+    ***************************************************************************/
+    private static List<SeaPort> portsOf(WorldSnapshot snap) {
+        ArrayList<SeaPort> ports = new ArrayList<>(snap.getPorts().size());
+        for(PortSnapshot port : snap.getPorts()) {
+            ports.add(port.getPort());
+        }
+        return ports;
+    }
+
+    private Object[] branchPath(SeaPort port, Kind kind) {
+        return new Object[]{world, port, new Branch(port, kind)};
+    }
+
+    private static Object[] append(Object[] path, Object node) {
+        Object[] longer = new Object[path.length + 1];
+        System.arraycopy(path, 0, longer, 0, path.length);
+        longer[path.length] = node;
+        return longer;
+    }
+
+    private static int[] toArray(List<Integer> list) {
+        int[] array = new int[list.size()];
+        for(int i = 0; i < array.length; i++) {
+            array[i] = list.get(i);
+        }
+        return array;
+    }
+
+    /***************************************************************************
+     * Helper methods to fire an event to every listener
+    ***************************************************************************/
+    private enum EventType {INSERTED, REMOVED, CHANGED}
+
+    private void fire(EventType type, Object[] path, int index, Object child) {
+        fire(type, path, new int[]{index}, new Object[]{child});
+    }
+
+    private void fire(EventType type, Object[] path, int[] indices, Object[] children) {
+        TreeModelEvent event = new TreeModelEvent(this, path, indices, children);
+        for(TreeModelListener l : listeners.getListeners(TreeModelListener.class)) {
+            switch(type) {
+                case INSERTED:
+                    l.treeNodesInserted(event);
+                    break;
+                case REMOVED:
+                    l.treeNodesRemoved(event);
+                    break;
+                default:
+                    l.treeNodesChanged(event);
+                    break;
+            }
+        }
+    }
+
+    private void fireStructureChanged(Object[] path) {
+        TreeModelEvent event = new TreeModelEvent(this, path);
+        for(TreeModelListener l : listeners.getListeners(TreeModelListener.class)) {
+            l.treeStructureChanged(event);
+        }
+    }
+}